@@ -0,0 +1,184 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.sofiane.newtwitter.model.Post;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test de concurrence des compteurs de posts contre l'émulateur Firebase.
+ * Chaque client est une instance FirebaseApp distincte (connexion et utilisateur anonyme propres),
+ * et tous les clients écrivent en même temps sur le même post.
+ * Lancer les émulateurs avant le test : firebase emulators:start --only auth,database
+ * (les règles de firebase_rules.json sont chargées via firebase.json).
+ * Le test est ignoré si les émulateurs ne sont pas joignables.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PostCountersEmulatorTest {
+    // Adresse de la machine hôte vue depuis l'émulateur Android
+    private static final String EMULATOR_HOST = "10.0.2.2";
+    private static final int AUTH_PORT = 9099;
+    private static final int DATABASE_PORT = 9000;
+
+    private static final int CLIENTS = 24;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private final List<FirebaseApp> apps = new ArrayList<>();
+    private final List<DatabaseReference> roots = new ArrayList<>();
+    private final List<String> userIds = new ArrayList<>();
+    private String postId;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Firebase emulators are not running",
+                isReachable(AUTH_PORT) && isReachable(DATABASE_PORT));
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseOptions options = FirebaseOptions.fromResource(context);
+        long runId = System.nanoTime();
+        for (int i = 0; i < CLIENTS; i++) {
+            FirebaseApp app = FirebaseApp.initializeApp(context, options, "counters-" + runId + "-" + i);
+            apps.add(app);
+
+            FirebaseAuth auth = FirebaseAuth.getInstance(app);
+            auth.useEmulator(EMULATOR_HOST, AUTH_PORT);
+            userIds.add(await(auth.signInAnonymously()).getUser().getUid());
+
+            FirebaseDatabase database = FirebaseDatabase.getInstance(app, Stores.DATABASE_URL);
+            database.useEmulator(EMULATOR_HOST, DATABASE_PORT);
+            roots.add(database.getReference());
+        }
+
+        // Post cible, créé par le premier client
+        DatabaseReference postsRef = roots.get(0).child("posts");
+        postId = postsRef.push().getKey();
+        Post post = new Post(postId, userIds.get(0), "author", "counter test", null, new Date(), 0);
+        await(postsRef.child(postId).setValue(post));
+    }
+
+    @After
+    public void tearDown() {
+        for (FirebaseApp app : apps) {
+            app.delete();
+        }
+    }
+
+    @Test
+    public void concurrentLikesAreAllCounted() throws Exception {
+        List<Task<Void>> likes = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            likes.add(roots.get(i).updateChildren(PostCounters.like(postId, userIds.get(i), true)));
+        }
+        await(Tasks.whenAll(likes));
+        assertEquals(CLIENTS, readCounter(PostCounters.LIKE_COUNT));
+
+        List<Task<Void>> unlikes = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i += 2) {
+            unlikes.add(roots.get(i).updateChildren(PostCounters.like(postId, userIds.get(i), false)));
+        }
+        await(Tasks.whenAll(unlikes));
+        assertEquals(CLIENTS - unlikes.size(), readCounter(PostCounters.LIKE_COUNT));
+    }
+
+    @Test
+    public void duplicateLikesAreRejected() throws Exception {
+        List<Task<Void>> likes = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            // Deux likes simultanés par client : les règles n'en acceptent qu'un
+            likes.add(roots.get(i).updateChildren(PostCounters.like(postId, userIds.get(i), true)));
+            likes.add(roots.get(i).updateChildren(PostCounters.like(postId, userIds.get(i), true)));
+        }
+        await(Tasks.whenAllComplete(likes));
+
+        int succeeded = 0;
+        for (Task<Void> like : likes) {
+            if (like.isSuccessful()) {
+                succeeded++;
+            }
+        }
+        assertEquals(CLIENTS, succeeded);
+        assertEquals(CLIENTS, readCounter(PostCounters.LIKE_COUNT));
+    }
+
+    @Test
+    public void concurrentRepliesAreAllCounted() throws Exception {
+        List<Task<Void>> replies = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            DatabaseReference root = roots.get(i);
+            String replyId = root.child("posts").push().getKey();
+            Post reply = new Post(replyId, userIds.get(i), "user" + i, "reply " + i, null,
+                    new Date(), 0, postId, "author");
+            replies.add(root.updateChildren(PostCounters.reply(reply)));
+        }
+        await(Tasks.whenAll(replies));
+        assertEquals(CLIENTS, readCounter(PostCounters.COMMENT_COUNT));
+    }
+
+    @Test
+    public void concurrentRetweetsAreAllCounted() throws Exception {
+        List<Task<Void>> retweets = new ArrayList<>();
+        List<String> retweetIds = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            DatabaseReference root = roots.get(i);
+            String retweetId = root.child("posts").push().getKey();
+            retweetIds.add(retweetId);
+            Post retweet = new Post(retweetId, userIds.get(i), "user" + i, postId, userIds.get(0),
+                    "author", "counter test", null, new Date());
+            retweets.add(root.updateChildren(PostCounters.retweet(retweet)));
+        }
+        await(Tasks.whenAll(retweets));
+        assertEquals(CLIENTS, readCounter(PostCounters.RETWEET_COUNT));
+
+        List<Task<Void>> undos = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            undos.add(roots.get(i).updateChildren(
+                    PostCounters.unretweet(postId, userIds.get(i), retweetIds.get(i))));
+        }
+        await(Tasks.whenAll(undos));
+        assertEquals(0, readCounter(PostCounters.RETWEET_COUNT));
+    }
+
+    private int readCounter(String counter) throws Exception {
+        DataSnapshot snapshot = await(roots.get(0).child("posts").child(postId).child(counter).get());
+        Integer value = snapshot.getValue(Integer.class);
+        return value != null ? value : 0;
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static boolean isReachable(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(EMULATOR_HOST, port), 1000);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.utils.FrameMetricsLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare le temps de rendu du thread principal pendant le parsing de 5 000 posts :
+ * d'abord sur le thread principal (ancien fonctionnement), puis via PostParser en arrière-plan.
+ * Les deux mesures (FrameMetricsLogger) sont écrites dans logcat sous le tag « FrameMetrics ».
+ * Lancer les émulateurs avant le test : firebase emulators:start --only auth,database
+ * Le test est ignoré si les émulateurs ne sont pas joignables.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PostParsingJankEmulatorTest {
+    private static final String TAG = "PostParsingJankTest";
+    // Adresse de la machine hôte vue depuis l'émulateur Android
+    private static final String EMULATOR_HOST = "10.0.2.2";
+    private static final int AUTH_PORT = 9099;
+    private static final int DATABASE_PORT = 9000;
+
+    private static final int POST_COUNT = 5000;
+    private static final int WRITE_BATCH = 500;
+    private static final long TIMEOUT_SECONDS = 120;
+    // Frames observées après la fin du travail, pour inclure le rendu qui suit
+    private static final long SETTLE_MILLIS = 500;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private FirebaseApp app;
+    private DatabaseReference postsRef;
+    private String userId;
+    private final List<String> postIds = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Firebase emulators are not running",
+                isReachable(AUTH_PORT) && isReachable(DATABASE_PORT));
+
+        Context context = instrumentation.getTargetContext();
+        app = FirebaseApp.initializeApp(context, FirebaseOptions.fromResource(context), "parsing-jank-" + System.nanoTime());
+
+        FirebaseAuth auth = FirebaseAuth.getInstance(app);
+        auth.useEmulator(EMULATOR_HOST, AUTH_PORT);
+        userId = await(auth.signInAnonymously()).getUser().getUid();
+
+        FirebaseDatabase database = FirebaseDatabase.getInstance(app, Stores.DATABASE_URL);
+        database.useEmulator(EMULATOR_HOST, DATABASE_PORT);
+        postsRef = database.getReference("posts");
+
+        long now = System.currentTimeMillis();
+        Map<String, Object> batch = new HashMap<>();
+        for (int i = 0; i < POST_COUNT; i++) {
+            String postId = postsRef.push().getKey();
+            postIds.add(postId);
+            batch.put(postId, new Post(postId, userId, "jank", "post " + i, null, new Date(now - i * 1000L), 0));
+            if (batch.size() == WRITE_BATCH) {
+                await(postsRef.updateChildren(batch));
+                batch = new HashMap<>();
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (app == null) {
+            return;
+        }
+        Map<String, Object> batch = new HashMap<>();
+        for (String postId : postIds) {
+            batch.put(postId, null);
+            if (batch.size() == WRITE_BATCH) {
+                await(postsRef.updateChildren(batch));
+                batch = new HashMap<>();
+            }
+        }
+        app.delete();
+    }
+
+    @Test
+    public void backgroundParsingDropsFewerFrames() throws Exception {
+        DataSnapshot snapshot = readUserPosts();
+        assertEquals(POST_COUNT, snapshot.getChildrenCount());
+
+        // Ancien fonctionnement : parsing, filtrage et tri dans le callback, sur le thread principal
+        List<List<Post>> onMainResult = new ArrayList<>();
+        FrameMetricsLogger.Stats onMain = measure("Parsing on main thread", done -> mainHandler.post(() -> {
+            List<Post> posts = PostParser.parseChildren(snapshot);
+            posts.removeIf(post -> post.isReply());
+            Collections.sort(posts, FeedEngine.NEWEST_FIRST);
+            onMainResult.add(posts);
+            done.countDown();
+        }));
+
+        List<List<Post>> pipelineResult = new ArrayList<>();
+        FrameMetricsLogger.Stats pipeline = measure("Parsing pipeline", done -> mainHandler.post(() ->
+                PostParser.parseChildrenAsync(snapshot, post -> !post.isReply(), FeedEngine.NEWEST_FIRST, posts -> {
+                    pipelineResult.add(posts);
+                    done.countDown();
+                })));
+
+        Log.i(TAG, "main thread: " + onMain + " / pipeline: " + pipeline);
+        assertEquals(POST_COUNT, onMainResult.get(0).size());
+        assertEquals(POST_COUNT, pipelineResult.get(0).size());
+        assertEquals(onMainResult.get(0).get(0).getId(), pipelineResult.get(0).get(0).getId());
+        assertTrue("Pipeline should drop fewer frames (main thread: " + onMain + ", pipeline: " + pipeline + ")",
+                pipeline.droppedFrames < onMain.droppedFrames);
+    }
+
+    private interface Work {
+        void start(CountDownLatch done);
+    }
+
+    private FrameMetricsLogger.Stats measure(String label, Work work) throws Exception {
+        FrameMetricsLogger logger = new FrameMetricsLogger(label);
+        instrumentation.runOnMainSync(logger::start);
+        // Laisser passer quelques frames de référence
+        Thread.sleep(SETTLE_MILLIS);
+
+        CountDownLatch done = new CountDownLatch(1);
+        work.start(done);
+        assertTrue(label + " timed out", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Thread.sleep(SETTLE_MILLIS);
+
+        FrameMetricsLogger.Stats[] stats = new FrameMetricsLogger.Stats[1];
+        instrumentation.runOnMainSync(() -> stats[0] = logger.stop());
+        return stats[0];
+    }
+
+    private DataSnapshot readUserPosts() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        DataSnapshot[] result = new DataSnapshot[1];
+        QueryShapes.POSTS_BY_USER.on(postsRef).equalTo(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                result[0] = snapshot;
+                done.countDown();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                done.countDown();
+            }
+        });
+        assertTrue("Reading posts timed out", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue("Reading posts failed", result[0] != null);
+        return result[0];
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static boolean isReachable(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(EMULATOR_HOST, port), 1000);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
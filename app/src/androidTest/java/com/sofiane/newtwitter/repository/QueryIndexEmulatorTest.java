@@ -0,0 +1,178 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.os.ParcelFileDescriptor;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exécute chaque forme de requête de QueryShapes contre l'émulateur Firebase et échoue si le SDK
+ * signale une requête sans index (« Using an unspecified index »), c'est-à-dire une requête dont
+ * le nœud entier serait téléchargé puis filtré sur le client.
+ * Lancer les émulateurs avant le test : firebase emulators:start --only auth,database
+ * (les règles de firebase_rules.json, avec leurs .indexOn, sont chargées via firebase.json).
+ * Le test est ignoré si les émulateurs ne sont pas joignables.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryIndexEmulatorTest {
+    // Adresse de la machine hôte vue depuis l'émulateur Android
+    private static final String EMULATOR_HOST = "10.0.2.2";
+    private static final int AUTH_PORT = 9099;
+    private static final int DATABASE_PORT = 9000;
+
+    private static final long TIMEOUT_SECONDS = 30;
+    // Avertissement du SDK lorsqu'une requête n'est couverte par aucun .indexOn
+    private static final String UNINDEXED_WARNING = "Using an unspecified index";
+
+    private FirebaseApp app;
+    private DatabaseReference root;
+    private String userId;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Firebase emulators are not running",
+                isReachable(AUTH_PORT) && isReachable(DATABASE_PORT));
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        app = FirebaseApp.initializeApp(context, FirebaseOptions.fromResource(context), "query-index-" + System.nanoTime());
+
+        FirebaseAuth auth = FirebaseAuth.getInstance(app);
+        auth.useEmulator(EMULATOR_HOST, AUTH_PORT);
+        userId = await(auth.signInAnonymously()).getUser().getUid();
+
+        FirebaseDatabase database = FirebaseDatabase.getInstance(app, Stores.DATABASE_URL);
+        database.useEmulator(EMULATOR_HOST, DATABASE_PORT);
+        root = database.getReference();
+    }
+
+    @After
+    public void tearDown() {
+        if (app != null) {
+            app.delete();
+        }
+    }
+
+    @Test
+    public void repositoryQueriesUseDeclaredIndexes() throws Exception {
+        // Vérifier d'abord que l'avertissement est bien capturé, avec une requête volontairement non indexée
+        clearLog();
+        listenOnce(root.child("posts").orderByChild("content").limitToLast(1));
+        assumeTrue("The emulator does not report unindexed queries", !unindexedWarnings().isEmpty());
+
+        clearLog();
+        for (QueryShapes.Shape shape : QueryShapes.ALL) {
+            listenOnce(shape.on(resolve(shape.path)).limitToLast(1));
+        }
+        List<String> warnings = unindexedWarnings();
+        assertTrue("Unindexed repository queries:\n" + TextUtils.join("\n", warnings), warnings.isEmpty());
+    }
+
+    /**
+     * Remplace les segments variables ($userId, $parentId...) par l'utilisateur du test :
+     * les règles n'autorisent la lecture d'un fil personnel que par son propriétaire.
+     */
+    private DatabaseReference resolve(String path) {
+        DatabaseReference ref = root;
+        for (String segment : path.split("/")) {
+            ref = ref.child(segment.startsWith("$") ? userId : segment);
+        }
+        return ref;
+    }
+
+    /**
+     * Écoute la requête comme le font les repositories (listener et non get()),
+     * pour que le serveur renvoie ses avertissements d'index.
+     */
+    private static void listenOnce(Query query) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                done.countDown();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                done.countDown();
+            }
+        });
+        assertTrue("Query timed out: " + query.getRef(), done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private static void clearLog() throws Exception {
+        readShell("logcat -c");
+    }
+
+    private static List<String> unindexedWarnings() throws Exception {
+        List<String> warnings = new ArrayList<>();
+        for (String line : readShell("logcat -d")) {
+            if (line.contains(UNINDEXED_WARNING)) {
+                warnings.add(line);
+            }
+        }
+        return warnings;
+    }
+
+    private static List<String> readShell(String command) throws Exception {
+        ParcelFileDescriptor output = InstrumentationRegistry.getInstrumentation().getUiAutomation()
+                .executeShellCommand(command);
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(output.getFileDescriptor()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            output.close();
+        }
+        return lines;
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static boolean isReachable(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(EMULATOR_HOST, port), 1000);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sofiane.newtwitter.repository.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.sofiane.newtwitter.model.Post;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vérifie qu'un défilement au-delà de MAX_STORED_POSTS garde toutes les pages chargées sur le disque
+ * (aucune page n'est relue sur le réseau), et que la limite n'est appliquée qu'au démarrage suivant.
+ * Les pages sont écrites comme le fait TimelineSync : la page de tête sans limite haute, puis chaque
+ * page plus ancienne bornée par le curseur (endAt inclusif).
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalPostStorePagingTest {
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGES = LocalPostStore.MAX_STORED_POSTS / PAGE_SIZE + 10;
+
+    private AppDatabase database;
+    private final long now = System.currentTimeMillis();
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void pagingPastStorageLimitKeepsEveryPage() throws Exception {
+        LocalPostStore store = new LocalPostStore(database.postDao());
+
+        Post cursor = null;
+        for (int page = 0; page < PAGES; page++) {
+            // Du plus ancien au plus récent, curseur compris pour les pages plus anciennes
+            List<Post> posts = new ArrayList<>();
+            int newest = page * PAGE_SIZE - (cursor != null ? 1 : 0);
+            for (int i = (page + 1) * PAGE_SIZE - 1; i >= newest; i--) {
+                posts.add(post(i));
+            }
+            store.replaceRange(posts, cursor);
+            cursor = posts.get(0);
+        }
+        awaitDiskIO();
+
+        int total = PAGES * PAGE_SIZE;
+        assertTrue(total > LocalPostStore.MAX_STORED_POSTS);
+        assertEquals(total, database.postDao().getAll().size());
+
+        // Démarrage à froid : seuls les MAX_STORED_POSTS plus récents restent
+        new LocalPostStore(database.postDao());
+        awaitDiskIO();
+        Set<String> kept = new HashSet<>();
+        for (PostEntity entity : database.postDao().getAll()) {
+            kept.add(entity.id);
+        }
+        assertEquals(LocalPostStore.MAX_STORED_POSTS, kept.size());
+        assertTrue(kept.contains(post(0).getId()));
+        assertTrue(kept.contains(post(LocalPostStore.MAX_STORED_POSTS - 1).getId()));
+    }
+
+    private Post post(int index) {
+        String id = String.format("post-%05d", index);
+        return new Post(id, "user", "paging", "post " + index, null, new Date(now - index * 1000L), 0);
+    }
+
+    private static void awaitDiskIO() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AppDatabase.diskIO().execute(done::countDown);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,42 @@
+package com.sofiane.newtwitter;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.FirebaseDatabase;
+import com.sofiane.newtwitter.repository.Stores;
+import com.sofiane.newtwitter.repository.local.AppDatabase;
+
+/**
+ * Classe Application de NewTwitter.
+ * Initialise la base de données locale avant la création de la première activité,
+ * pour que les repositories puissent afficher les dernières données connues dès le démarrage.
+ * Dans le build "benchmark", connecte aussi Firebase aux émulateurs locaux, avant tout accès
+ * à la base ou à l'authentification.
+ */
+public class NewTwitterApplication extends Application {
+    private static final String TAG = "NewTwitterApplication";
+    private static final int AUTH_EMULATOR_PORT = 9099;
+    private static final int DATABASE_EMULATOR_PORT = 9000;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.USE_FIREBASE_EMULATOR) {
+            useFirebaseEmulators();
+        }
+        AppDatabase.init(this);
+    }
+
+    private void useFirebaseEmulators() {
+        String host = BuildConfig.FIREBASE_EMULATOR_HOST;
+        try {
+            FirebaseAuth.getInstance().useEmulator(host, AUTH_EMULATOR_PORT);
+            FirebaseDatabase.getInstance(Stores.DATABASE_URL).useEmulator(host, DATABASE_EMULATOR_PORT);
+            Log.d(TAG, "Using Firebase emulators on " + host);
+        } catch (Exception e) {
+            Log.e(TAG, "Error connecting to Firebase emulators: " + e.getMessage(), e);
+        }
+    }
+}
@@ -4,19 +4,26 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 import com.sofiane.newtwitter.databinding.ActivityRegisterBinding;
+import com.sofiane.newtwitter.utils.UsernameHandle;
 import com.sofiane.newtwitter.viewmodel.RegisterViewModel;
 
 public class RegisterActivity extends AppCompatActivity {
     private static final String TAG = "RegisterActivity";
+    // Délai d'anti-rebond avant de vérifier la disponibilité du nom saisi
+    private static final long USERNAME_CHECK_DELAY_MS = 400;
     private ActivityRegisterBinding binding;
     private RegisterViewModel viewModel;
     private Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable usernameCheck = () ->
+            viewModel.checkUsername(binding.usernameEditText.getText().toString());
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -27,9 +34,35 @@ public class RegisterActivity extends AppCompatActivity {
         viewModel = new ViewModelProvider(this).get(RegisterViewModel.class);
 
         setupClickListeners();
+        setupUsernameCheck();
         observeViewModel();
     }
 
+    @Override
+    protected void onDestroy() {
+        handler.removeCallbacks(usernameCheck);
+        super.onDestroy();
+    }
+
+    private void setupUsernameCheck() {
+        binding.usernameEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Une seule lecture quand la saisie se stabilise, et non une par caractère
+                handler.removeCallbacks(usernameCheck);
+                handler.postDelayed(usernameCheck, USERNAME_CHECK_DELAY_MS);
+            }
+        });
+    }
+
     private void setupClickListeners() {
         binding.registerButton.setOnClickListener(v -> {
             // Show loading indicator
@@ -52,6 +85,14 @@ public class RegisterActivity extends AppCompatActivity {
                 return;
             }
 
+            Integer usernameStatus = viewModel.getUsernameStatus().getValue();
+            if (usernameStatus != null && (usernameStatus == RegisterViewModel.USERNAME_INVALID
+                    || usernameStatus == RegisterViewModel.USERNAME_TAKEN)) {
+                binding.progressBar.setVisibility(View.GONE);
+                binding.usernameEditText.requestFocus();
+                return;
+            }
+
             if (password.length() < 6) {
                 Toast.makeText(this, "Password must be at least 6 characters", Toast.LENGTH_SHORT).show();
                 binding.progressBar.setVisibility(View.GONE);
@@ -144,6 +185,31 @@ public class RegisterActivity extends AppCompatActivity {
             }
         });
 
+        viewModel.getUsernameStatus().observe(this, status -> {
+            if (status == null) {
+                return;
+            }
+            switch (status) {
+                case RegisterViewModel.USERNAME_INVALID:
+                    binding.usernameLayout.setHelperText(null);
+                    binding.usernameLayout.setError(getString(R.string.username_invalid,
+                            UsernameHandle.MIN_LENGTH, UsernameHandle.MAX_LENGTH));
+                    break;
+                case RegisterViewModel.USERNAME_TAKEN:
+                    binding.usernameLayout.setHelperText(null);
+                    binding.usernameLayout.setError(getString(R.string.username_taken));
+                    break;
+                case RegisterViewModel.USERNAME_AVAILABLE:
+                    binding.usernameLayout.setError(null);
+                    binding.usernameLayout.setHelperText(getString(R.string.username_available));
+                    break;
+                default:
+                    binding.usernameLayout.setError(null);
+                    binding.usernameLayout.setHelperText(null);
+                    break;
+            }
+        });
+
         viewModel.getErrorMessage().observe(this, errorMessage -> {
             Log.d(TAG, "ErrorMessage LiveData changed: " + (errorMessage != null ? errorMessage : "Error is null"));
             // Assurez-vous que le progressBar est masqué
@@ -1,7 +1,5 @@
 package com.sofiane.newtwitter.adapter;
 
-import android.content.Context;
-import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,28 +7,58 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.sofiane.newtwitter.R;
 import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.FeedEngine;
 import com.sofiane.newtwitter.utils.ProfileIconHelper;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.utils.UsernameHandle;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
-public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder> {
-    private List<Post> posts = new ArrayList<>();
+public class PostAdapter extends ListAdapter<Post, PostAdapter.PostViewHolder> {
+    // Payload indiquant que seuls les compteurs (likes, commentaires, retweets) ont changé
+    static final Object PAYLOAD_COUNTS = new Object();
+
+    private static final DiffUtil.ItemCallback<Post> DIFF_CALLBACK = new DiffUtil.ItemCallback<Post>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Post oldItem, @NonNull Post newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Post oldItem, @NonNull Post newItem) {
+            return oldItem.hasSameContent(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Post oldItem, @NonNull Post newItem) {
+            // Si seuls les compteurs diffèrent, on ne met à jour que les TextView des compteurs
+            return oldItem.hasSameContentIgnoringCounts(newItem) ? PAYLOAD_COUNTS : null;
+        }
+    };
+
     private OnPostInteractionListener listener;
     private Random random = new Random(); // Pour générer des nombres aléatoires pour les compteurs
-    private DatabaseReference usersRef;
+    private long appliedFeedVersion = -1; // Version de la dernière modification du fil appliquée
+    private List<Post> latestPosts = new ArrayList<>(); // Dernière liste soumise (le diff peut être en cours)
+    // Identifiants stables : chaque id de post affiché reçoit un long unique (pas de collision de hash)
+    private final Map<String, Long> stableIds = new HashMap<>();
+    private long nextStableId = 1;
 
     public interface OnPostInteractionListener {
         void onPostLiked(Post post);
@@ -42,10 +70,9 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
     }
 
     public PostAdapter(OnPostInteractionListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
-        // Initialiser la référence à la base de données des utilisateurs
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        usersRef = database.getReference("users");
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -58,18 +85,93 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull PostViewHolder holder, int position) {
-        Post post = posts.get(position);
+        Post post = getItem(position);
         holder.bind(post);
     }
 
     @Override
-    public int getItemCount() {
-        return posts != null ? posts.size() : 0;
+    public void onBindViewHolder(@NonNull PostViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allCounts(payloads)) {
+            holder.bindCounts(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
+    @Override
+    public long getItemId(int position) {
+        String postId = getItem(position).getId();
+        Long stableId = stableIds.get(postId);
+        if (stableId == null) {
+            stableId = nextStableId++;
+            stableIds.put(postId, stableId);
+        }
+        return stableId;
+    }
+
+    // Ne garde que les identifiants de la liste affichée : la table ne grossit pas avec chaque post vu
+    @Override
+    public void onCurrentListChanged(@NonNull List<Post> previousList, @NonNull List<Post> currentList) {
+        Set<String> displayed = new HashSet<>(currentList.size() * 2);
+        for (Post item : currentList) {
+            displayed.add(item.getId());
+        }
+        stableIds.keySet().retainAll(displayed);
+    }
+
+    // Le diff est calculé sur un thread d'arrière-plan par AsyncListDiffer
     public void setPosts(List<Post> posts) {
-        this.posts = posts != null ? posts : new ArrayList<>();
-        notifyDataSetChanged();
+        appliedFeedVersion = -1;
+        latestPosts = posts != null ? new ArrayList<>(posts) : new ArrayList<>();
+        submitList(latestPosts);
+    }
+
+    // Applique une modification du fil à une copie de la dernière liste soumise puis la soumet au diff.
+    // Si une modification a été manquée (version non consécutive), la liste est resynchronisée.
+    // commitCallback est exécuté une fois la nouvelle liste affichée.
+    public void applyFeedChange(FeedEngine.Change change, Supplier<List<Post>> snapshot, @Nullable Runnable commitCallback) {
+        if (change == null) {
+            return;
+        }
+        if (change.getType() == FeedEngine.Change.RESET || change.getVersion() != appliedFeedVersion + 1) {
+            appliedFeedVersion = change.getVersion();
+            latestPosts = snapshot.get();
+            submitList(latestPosts, commitCallback);
+            return;
+        }
+        appliedFeedVersion = change.getVersion();
+        List<Post> posts = new ArrayList<>(latestPosts);
+        switch (change.getType()) {
+            case FeedEngine.Change.INSERTED:
+                posts.add(change.getToPosition(), change.getPost());
+                break;
+            case FeedEngine.Change.CHANGED:
+                posts.set(change.getToPosition(), change.getPost());
+                break;
+            case FeedEngine.Change.REMOVED:
+                posts.remove(change.getFromPosition());
+                break;
+            case FeedEngine.Change.MOVED:
+                posts.remove(change.getFromPosition());
+                posts.add(change.getToPosition(), change.getPost());
+                break;
+        }
+        latestPosts = posts;
+        submitList(latestPosts, commitCallback);
+    }
+
+    // Exécute l'action une fois la dernière liste soumise affichée (immédiatement si aucun diff n'est en cours)
+    public void runWhenListCommitted(Runnable action) {
+        submitList(latestPosts, action);
+    }
+
+    private static boolean allCounts(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_COUNTS) {
+                return false;
+            }
+        }
+        return true;
     }
 
     class PostViewHolder extends RecyclerView.ViewHolder {
@@ -115,42 +217,42 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onPostClicked(posts.get(position));
+                    listener.onPostClicked(getItem(position));
                 }
             });
 
             likeIcon.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onPostLiked(posts.get(position));
+                    listener.onPostLiked(getItem(position));
                 }
             });
 
             retweetIcon.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onPostRetweeted(posts.get(position));
+                    listener.onPostRetweeted(getItem(position));
                 }
             });
 
             shareIcon.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onPostShared(posts.get(position));
+                    listener.onPostShared(getItem(position));
                 }
             });
 
             commentIcon.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onPostReplied(posts.get(position));
+                    listener.onPostReplied(getItem(position));
                 }
             });
 
             profileImageView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    Post post = posts.get(position);
+                    Post post = getItem(position);
                     String userId = post.isRetweet() ? post.getOriginalUserId() : post.getUserId();
                     listener.onUserProfileClicked(userId);
                 }
@@ -159,7 +261,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
             usernameTextView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    Post post = posts.get(position);
+                    Post post = getItem(position);
                     String userId = post.isRetweet() ? post.getOriginalUserId() : post.getUserId();
                     listener.onUserProfileClicked(userId);
                 }
@@ -168,7 +270,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
             handleTextView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION && listener != null) {
-                    Post post = posts.get(position);
+                    Post post = getItem(position);
                     String userId = post.isRetweet() ? post.getOriginalUserId() : post.getUserId();
                     listener.onUserProfileClicked(userId);
                 }
@@ -186,7 +288,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
                 retweetedByTextView.setText(post.getUsername() + " a retweeté");
                 
                 usernameTextView.setText(post.getOriginalUsername());
-                handleTextView.setText("@" + post.getOriginalUsername().toLowerCase().replace(" ", ""));
+                handleTextView.setText(UsernameHandle.format(post.getOriginalUsername()));
                 
                 // Pour un retweet, charger l'icône de profil de l'utilisateur original
                 userIdToLoad = post.getOriginalUserId();
@@ -196,19 +298,19 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
                 }
                 
                 usernameTextView.setText(post.getUsername());
-                handleTextView.setText("@" + post.getUsername().toLowerCase().replace(" ", ""));
+                handleTextView.setText(UsernameHandle.format(post.getUsername()));
                 
                 // Pour un post normal, charger l'icône de profil de l'auteur
                 userIdToLoad = post.getUserId();
             }
             
             // Charger les informations de profil de l'utilisateur
-            loadUserProfileIcon(userIdToLoad, profileImageView);
+            ProfileIconHelper.loadProfileIcon(profileImageView, userIdToLoad);
             
             if (post.isReply() && replyingToLayout != null) {
                 replyingToLayout.setVisibility(View.VISIBLE);
                 String replyingTo = post.getParentUsername() != null && !post.getParentUsername().isEmpty() 
-                    ? "@" + post.getParentUsername().toLowerCase().replace(" ", "") 
+                    ? UsernameHandle.format(post.getParentUsername()) 
                     : post.getParentId();
                 replyingToTextView.setText("En réponse à " + replyingTo);
             } else {
@@ -221,9 +323,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
             
             contentTextView.setText(post.getContent());
             
-            likeCountTextView.setText(String.valueOf(post.getLikeCount()));
-            commentCountTextView.setText(String.valueOf(post.getCommentCount()));
-            retweetCountTextView.setText(String.valueOf(post.getRetweetCount()));
+            bindCounts(post);
             
             if (post.isRetweet()) {
                 retweetIcon.setColorFilter(itemView.getContext().getResources().getColor(R.color.twitter_blue));
@@ -231,56 +331,12 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
                 retweetIcon.setColorFilter(itemView.getContext().getResources().getColor(R.color.twitter_dark_gray));
             }
         }
-    }
-    
-    /**
-     * Charge l'icône de profil d'un utilisateur à partir de Firebase
-     * @param userId L'ID de l'utilisateur
-     * @param imageView La vue d'image à mettre à jour
-     */
-    private void loadUserProfileIcon(String userId, CircleImageView imageView) {
-        if (userId == null || userId.isEmpty()) {
-            // Si l'ID utilisateur est invalide, utiliser l'icône par défaut
-            imageView.setImageResource(R.drawable.ic_profile_person);
-            return;
+
+        // Rebind partiel : uniquement les compteurs
+        void bindCounts(Post post) {
+            likeCountTextView.setText(String.valueOf(post.getLikeCount()));
+            commentCountTextView.setText(String.valueOf(post.getCommentCount()));
+            retweetCountTextView.setText(String.valueOf(post.getRetweetCount()));
         }
-        
-        usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    try {
-                        // Récupérer les index d'icône et de couleur
-                        Integer iconIndex = snapshot.child("profileIconIndex").getValue(Integer.class);
-                        Integer colorIndex = snapshot.child("profileColorIndex").getValue(Integer.class);
-                        
-                        if (iconIndex != null && colorIndex != null) {
-                            Context context = imageView.getContext();
-                            // Obtenir l'icône colorée
-                            Drawable coloredIcon = ProfileIconHelper.getColoredProfileIcon(
-                                    context, iconIndex, colorIndex);
-                            
-                            // Mettre à jour l'image de profil
-                            imageView.setImageDrawable(coloredIcon);
-                        } else {
-                            // Utiliser l'icône par défaut si les index sont null
-                            imageView.setImageResource(R.drawable.ic_profile_person);
-                        }
-                    } catch (Exception e) {
-                        // En cas d'erreur, utiliser l'icône par défaut
-                        imageView.setImageResource(R.drawable.ic_profile_person);
-                    }
-                } else {
-                    // Si l'utilisateur n'existe pas, utiliser l'icône par défaut
-                    imageView.setImageResource(R.drawable.ic_profile_person);
-                }
-            }
-            
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // En cas d'erreur, utiliser l'icône par défaut
-                imageView.setImageResource(R.drawable.ic_profile_person);
-            }
-        });
     }
-} 
\ No newline at end of file
+}
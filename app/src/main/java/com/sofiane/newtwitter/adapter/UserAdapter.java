@@ -8,39 +8,87 @@ import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.sofiane.newtwitter.R;
-import com.sofiane.newtwitter.model.User;
-import com.sofiane.newtwitter.utils.FollowManager;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.repository.FollowStatusService;
+import com.sofiane.newtwitter.utils.ProfileIconHelper;
+import com.sofiane.newtwitter.utils.UsernameHandle;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
-public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder> {
+public class UserAdapter extends ListAdapter<UserCard, UserAdapter.UserViewHolder> {
 
-    private List<User> userList;
+    // Payload d'un rafraîchissement limité au bouton d'abonnement
+    private static final Object PAYLOAD_FOLLOW_STATUS = new Object();
+
+    private static final DiffUtil.ItemCallback<UserCard> DIFF_CALLBACK = new DiffUtil.ItemCallback<UserCard>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull UserCard oldItem, @NonNull UserCard newItem) {
+            return Objects.equals(oldItem.getUserId(), newItem.getUserId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull UserCard oldItem, @NonNull UserCard newItem) {
+            return Objects.equals(oldItem.getUsername(), newItem.getUsername())
+                    && Objects.equals(oldItem.getProfileImageUrl(), newItem.getProfileImageUrl())
+                    && Objects.equals(oldItem.getProfileIconIndex(), newItem.getProfileIconIndex())
+                    && Objects.equals(oldItem.getProfileColorIndex(), newItem.getProfileColorIndex());
+        }
+    };
+
+    private List<UserCard> userList; // Dernière liste soumise (le diff peut être en cours)
+    // Identifiants stables : chaque id d'utilisateur affiché reçoit un long unique
+    private final Map<String, Long> stableIds = new HashMap<>();
+    private long nextStableId = 1;
     private Context context;
     private OnUserInteractionListener listener;
-    private FollowManager followManager;
+    private FollowStatusService followStatus;
     private String currentUserId;
+    // Rafraîchit les lignes dont le statut d'abonnement change
+    private final FollowStatusService.ChangeListener followStatusListener = this::onFollowStatusChanged;
 
     public interface OnUserInteractionListener {
-        void onUserClicked(User user);
-        void onFollowClicked(User user, boolean isFollowing);
+        void onUserClicked(UserCard user);
+        void onFollowClicked(UserCard user, boolean isFollowing);
     }
 
     public UserAdapter(Context context, OnUserInteractionListener listener) {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
         this.userList = new ArrayList<>();
         this.context = context;
         this.listener = listener;
-        this.followManager = new FollowManager();
         this.currentUserId = FirebaseAuth.getInstance().getCurrentUser() != null ? 
                 FirebaseAuth.getInstance().getCurrentUser().getUid() : "";
+        this.followStatus = FollowStatusService.getInstance();
+        this.followStatus.setUser(currentUserId);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        followStatus.addListener(followStatusListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        followStatus.removeListener(followStatusListener);
     }
 
     @NonNull
@@ -50,12 +98,22 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         return new UserViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull UserViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && allFollowStatus(payloads)) {
+            // Seul le statut d'abonnement a changé : le nom et l'avatar restent en place
+            bindFollowButton(holder, getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = userList.get(position);
+        UserCard user = getItem(position);
         
         holder.nameText.setText(user.getUsername());
-        holder.usernameText.setText("@" + user.getUsername().toLowerCase().replace(" ", ""));
+        holder.usernameText.setText(UsernameHandle.format(user.getUsername()));
         
         // Load profile image
         if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
@@ -64,78 +122,128 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
                     .placeholder(R.drawable.ic_launcher_foreground)
                     .into(holder.profileImage);
         } else {
-            holder.profileImage.setImageResource(R.drawable.ic_launcher_foreground);
+            ProfileIconHelper.applyProfileIcon(holder.profileImage, user);
         }
         
+        bindFollowButton(holder, user);
+        
+        // Set click listener for the whole item
+        holder.itemView.setOnClickListener(v -> listener.onUserClicked(user));
+    }
+
+    /**
+     * Affiche le bouton d'abonnement d'une ligne à partir de FollowStatusService, sans lecture réseau.
+     * Le bouton porte l'identifiant de l'utilisateur affiché : un statut reçu après le recyclage
+     * de la ligne pour un autre utilisateur est ignoré.
+     */
+    private void bindFollowButton(@NonNull UserViewHolder holder, UserCard user) {
+        String userId = user.getUserId();
+        holder.followButton.setTag(R.id.tag_follow_button_user_id, userId);
+        // Le listener d'un utilisateur précédemment affiché par cette ligne ne doit plus servir
+        holder.followButton.setOnClickListener(null);
+        
         // Hide follow button for current user
-        if (user.getUserId().equals(currentUserId)) {
+        if (userId.equals(currentUserId)) {
             holder.followButton.setVisibility(View.GONE);
-        } else {
-            holder.followButton.setVisibility(View.VISIBLE);
-            
-            // Check follow status
-            followManager.checkFollowStatus(user.getUserId(), new FollowManager.FollowStatusListener() {
-                @Override
-                public void onStatus(boolean isFollowing) {
-                    if (isFollowing) {
-                        holder.followButton.setText(R.string.unfollow);
-                        holder.followButton.setBackgroundResource(R.drawable.button_outline_background);
-                    } else {
-                        holder.followButton.setText(R.string.follow);
-                        holder.followButton.setBackgroundResource(R.drawable.button_primary_background);
-                    }
-                    
-                    // Set follow button click listener
-                    holder.followButton.setOnClickListener(v -> {
-                        if (holder.followButton.getText().toString().equals(context.getString(R.string.follow))) {
-                            listener.onFollowClicked(user, false);
-                        } else {
-                            listener.onFollowClicked(user, true);
-                        }
-                    });
-                }
-                
-                @Override
-                public void onError(String message) {
-                    // Default to follow button
-                    holder.followButton.setText(R.string.follow);
-                    holder.followButton.setBackgroundResource(R.drawable.button_primary_background);
-                }
-            });
+            return;
         }
+        holder.followButton.setVisibility(View.VISIBLE);
         
-        // Set click listener for the whole item
-        holder.itemView.setOnClickListener(v -> listener.onUserClicked(user));
+        followStatus.getStatus(userId, (targetUserId, isFollowing) -> {
+            if (!targetUserId.equals(holder.followButton.getTag(R.id.tag_follow_button_user_id))) {
+                return;
+            }
+            if (isFollowing) {
+                holder.followButton.setText(R.string.unfollow);
+                holder.followButton.setBackgroundResource(R.drawable.button_outline_background);
+            } else {
+                holder.followButton.setText(R.string.follow);
+                holder.followButton.setBackgroundResource(R.drawable.button_primary_background);
+            }
+            holder.followButton.setOnClickListener(v -> listener.onFollowClicked(user, isFollowing));
+        });
+    }
+
+    private void onFollowStatusChanged(@Nullable String targetUserId) {
+        if (targetUserId == null) {
+            notifyItemRangeChanged(0, getItemCount(), PAYLOAD_FOLLOW_STATUS);
+            return;
+        }
+        List<UserCard> users = getCurrentList();
+        for (int i = 0; i < users.size(); i++) {
+            if (targetUserId.equals(users.get(i).getUserId())) {
+                notifyItemChanged(i, PAYLOAD_FOLLOW_STATUS);
+            }
+        }
+    }
+
+    private static boolean allFollowStatus(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_FOLLOW_STATUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String userId = getItem(position).getUserId();
+        Long stableId = stableIds.get(userId);
+        if (stableId == null) {
+            stableId = nextStableId++;
+            stableIds.put(userId, stableId);
+        }
+        return stableId;
     }
 
+    // Ne garde que les identifiants de la liste affichée : la table ne grossit pas avec chaque utilisateur vu
     @Override
-    public int getItemCount() {
-        return userList.size();
+    public void onCurrentListChanged(@NonNull List<UserCard> previousList, @NonNull List<UserCard> currentList) {
+        Set<String> displayed = new HashSet<>(currentList.size() * 2);
+        for (UserCard item : currentList) {
+            displayed.add(item.getUserId());
+        }
+        stableIds.keySet().retainAll(displayed);
     }
     
-    public void setUsers(List<User> users) {
-        this.userList = users;
-        notifyDataSetChanged();
+    // Le diff est calculé sur un thread d'arrière-plan par AsyncListDiffer
+    public void setUsers(List<UserCard> users) {
+        this.userList = users != null ? new ArrayList<>(users) : new ArrayList<>();
+        submitList(userList);
     }
     
-    public void addUser(User user) {
-        if (!userList.contains(user)) {
-            userList.add(user);
-            notifyItemInserted(userList.size() - 1);
+    public void addUser(UserCard user) {
+        if (indexOf(user) == -1) {
+            List<UserCard> users = new ArrayList<>(userList);
+            users.add(user);
+            userList = users;
+            submitList(userList);
         }
     }
     
-    public void removeUser(User user) {
-        int position = userList.indexOf(user);
+    public void removeUser(UserCard user) {
+        int position = indexOf(user);
         if (position != -1) {
-            userList.remove(position);
-            notifyItemRemoved(position);
+            List<UserCard> users = new ArrayList<>(userList);
+            users.remove(position);
+            userList = users;
+            submitList(userList);
         }
     }
     
     public void clear() {
-        userList.clear();
-        notifyDataSetChanged();
+        userList = new ArrayList<>();
+        submitList(userList);
+    }
+
+    private int indexOf(UserCard user) {
+        for (int i = 0; i < userList.size(); i++) {
+            if (Objects.equals(userList.get(i).getUserId(), user.getUserId())) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     static class UserViewHolder extends RecyclerView.ViewHolder {
@@ -27,16 +27,19 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 import com.sofiane.newtwitter.R;
 import com.sofiane.newtwitter.databinding.FragmentCreatePostBinding;
 import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
 import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCodec;
+import com.sofiane.newtwitter.repository.Stores;
 import com.sofiane.newtwitter.utils.ProfileIconHelper;
 import com.sofiane.newtwitter.viewmodel.PostViewModel;
+import com.sofiane.newtwitter.viewmodel.StoreViewModelFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
@@ -93,12 +96,11 @@ public class CreatePostFragment extends Fragment {
         // Initialiser Firebase
         auth = FirebaseAuth.getInstance();
         currentUser = auth.getCurrentUser();
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        userRef = database.getReference("users").child(currentUser.getUid());
+        userRef = Stores.getInstance().getRootRef().child("users").child(currentUser.getUid());
         storageRef = FirebaseStorage.getInstance().getReference();
 
         // Initialiser le ViewModel
-        postViewModel = new ViewModelProvider(requireActivity()).get(PostViewModel.class);
+        postViewModel = new ViewModelProvider(requireActivity(), new StoreViewModelFactory()).get(PostViewModel.class);
 
         // Initialiser l'ActivityResultLauncher pour la sélection d'images
         initializeImagePicker();
@@ -165,7 +167,7 @@ public class CreatePostFragment extends Fragment {
         userRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                currentUserProfile = snapshot.getValue(User.class);
+                currentUserProfile = UserCodec.fromSnapshot(snapshot);
                 if (currentUserProfile != null) {
                     updateUI();
                 }
@@ -30,7 +30,6 @@ import com.google.firebase.auth.UserProfileChangeRequest;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
@@ -38,7 +37,12 @@ import com.google.firebase.storage.UploadTask;
 import com.sofiane.newtwitter.R;
 import com.sofiane.newtwitter.databinding.FragmentEditProfileBinding;
 import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCodec;
+import com.sofiane.newtwitter.repository.Stores;
+import com.sofiane.newtwitter.repository.UserProfileCache;
+import com.sofiane.newtwitter.repository.UsernameRegistry;
 import com.sofiane.newtwitter.utils.ProfileIconHelper;
+import com.sofiane.newtwitter.utils.UsernameHandle;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -76,6 +80,8 @@ public class EditProfileFragment extends Fragment {
     private Uri selectedProfileImageUri = null;
     private Uri selectedBannerImageUri = null;
     private User userProfile;
+    // Nom enregistré en base (et réservé), pour libérer sa réservation en cas de changement
+    private String savedUsername;
     private static final int PERMISSION_REQUEST_CODE = 1001;
     
     // Variables pour la sélection d'icône et de couleur
@@ -134,8 +140,7 @@ public class EditProfileFragment extends Fragment {
         // Initialize Firebase
         auth = FirebaseAuth.getInstance();
         currentUser = auth.getCurrentUser();
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        usersRef = database.getReference("users");
+        usersRef = Stores.getInstance().getRootRef().child("users");
         
         // Commenté car nous n'utilisons plus Firebase Storage pour les images
         /*
@@ -263,11 +268,12 @@ public class EditProfileFragment extends Fragment {
                 // Vérifier si les données existent
                 if (snapshot.exists()) {
                     try {
-                        userProfile = snapshot.getValue(User.class);
+                        userProfile = UserCodec.fromSnapshot(snapshot);
                         
                         // Vérifier si l'objet utilisateur est valide
                         if (userProfile != null) {
                             Log.d(TAG, "Profil utilisateur chargé avec succès: " + userProfile.getUsername());
+                            savedUsername = userProfile.getUsername();
                             Log.d(TAG, "Index chargés: iconIndex=" + userProfile.getProfileIconIndex() + ", colorIndex=" + userProfile.getProfileColorIndex());
                             
                             // Remplir le formulaire avec les données utilisateur
@@ -354,6 +360,14 @@ public class EditProfileFragment extends Fragment {
             binding.usernameLayout.setError("Le nom d'utilisateur est requis");
             return;
         }
+        // Un nom inchangé reste accepté, même s'il précède les règles de réservation
+        boolean usernameChanged = !UsernameHandle.normalize(username).equals(UsernameHandle.normalize(savedUsername));
+        if (usernameChanged && !UsernameHandle.isValid(username)) {
+            binding.usernameLayout.setError(getString(R.string.username_invalid,
+                    UsernameHandle.MIN_LENGTH, UsernameHandle.MAX_LENGTH));
+            return;
+        }
+        binding.usernameLayout.setError(null);
 
         // Log les valeurs des index avant la mise à jour
         Log.d(TAG, "saveProfile: avant mise à jour - selectedIconIndex=" + selectedIconIndex + ", selectedColorIndex=" + selectedColorIndex);
@@ -493,15 +507,27 @@ public class EditProfileFragment extends Fragment {
         userProfile.setId(currentUser.getUid());
         userProfile.setUserId(currentUser.getUid());
         
-        usersRef.child(currentUser.getUid()).setValue(userProfile)
-                .addOnSuccessListener(aVoid -> {
+        // Écrire uniquement les champs du profil et la carte userCards/{uid} (pas les maps de followers)
+        UserProfileCache.getInstance().saveProfile(userProfile, savedUsername)
+                .addOnSuccessListener(saved -> {
+                    if (!Boolean.TRUE.equals(saved)) {
+                        // Le nouveau nom est réservé par un autre compte : rien n'a été écrit
+                        Log.w(TAG, "Username " + userProfile.getUsername() + " is already taken");
+                        if (binding != null) {
+                            binding.progressBar.setVisibility(View.GONE);
+                            binding.saveProfileButton.setEnabled(true);
+                            binding.usernameLayout.setError(getString(R.string.username_taken));
+                        }
+                        return;
+                    }
                     Log.d(TAG, "User data saved successfully");
+                    savedUsername = userProfile.getUsername();
                     Log.d(TAG, "Après sauvegarde: iconIndex=" + userProfile.getProfileIconIndex() + ", colorIndex=" + userProfile.getProfileColorIndex());
                     
                     // Vérifier que les données ont bien été sauvegardées en les relisant
                     usersRef.child(currentUser.getUid()).get().addOnSuccessListener(dataSnapshot -> {
                         if (dataSnapshot.exists()) {
-                            User savedUser = dataSnapshot.getValue(User.class);
+                            User savedUser = UserCodec.fromSnapshot(dataSnapshot);
                             if (savedUser != null) {
                                 Log.d(TAG, "Données relues après sauvegarde: iconIndex=" + savedUser.getProfileIconIndex() + 
                                         ", colorIndex=" + savedUser.getProfileColorIndex());
@@ -518,10 +544,16 @@ public class EditProfileFragment extends Fragment {
                     Log.e(TAG, "Error saving user data: " + e.getMessage(), e);
                     binding.progressBar.setVisibility(View.GONE);
                     binding.saveProfileButton.setEnabled(true);
-                    Toast.makeText(requireContext(), "Erreur lors de la sauvegarde des données: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    showSaveError(e);
                 });
     }
 
+    private void showSaveError(Exception e) {
+        if (isAdded()) {
+            Toast.makeText(requireContext(), "Erreur lors de la sauvegarde des données: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
     // Commenté car nous n'utilisons plus Firebase Storage pour les images
     /*
     private void uploadProfileImage(Uri imageUri, boolean isBanner, OnImageUploadListener listener) {
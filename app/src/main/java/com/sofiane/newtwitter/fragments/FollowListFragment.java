@@ -20,21 +20,30 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.sofiane.newtwitter.R;
 import com.sofiane.newtwitter.adapter.UserAdapter;
 import com.sofiane.newtwitter.databinding.FragmentFollowListBinding;
-import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.repository.FollowGraphIndex;
+import com.sofiane.newtwitter.repository.FollowRecommender;
+import com.sofiane.newtwitter.repository.FollowRepository;
+import com.sofiane.newtwitter.repository.ListenerRegistry;
+import com.sofiane.newtwitter.repository.Stores;
+import com.sofiane.newtwitter.repository.UserListLoader;
+import com.sofiane.newtwitter.repository.UserProfileCache;
 import com.sofiane.newtwitter.utils.FollowManager;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Fragment affichant une liste d'utilisateurs suivis ou de followers.
  * Ce fragment présente soit la liste des utilisateurs qui suivent un utilisateur spécifique (followers),
- * soit la liste des utilisateurs suivis par un utilisateur spécifique (following).
+ * soit la liste des utilisateurs suivis par un utilisateur spécifique (following),
+ * soit les suggestions d'abonnements de l'utilisateur connecté (suggestions).
  * Il permet également de naviguer vers les profils des utilisateurs affichés.
  */
 public class FollowListFragment extends Fragment implements UserAdapter.OnUserInteractionListener {
@@ -44,13 +53,17 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
     
     public static final int TYPE_FOLLOWERS = 0;
     public static final int TYPE_FOLLOWING = 1;
+    public static final int TYPE_SUGGESTIONS = 2;
+    
+    // Nombre de suggestions affichées
+    private static final int SUGGESTIONS_LIMIT = 50;
     
     private FragmentFollowListBinding binding;
     private UserAdapter adapter;
     private FollowManager followManager;
     private FirebaseUser currentUser;
-    private DatabaseReference usersRef;
     private DatabaseReference followsRef;
+    private UserListLoader userListLoader;
     
     private String userId;
     private int listType;
@@ -74,9 +87,7 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
         }
         
         // Initialize Firebase
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        usersRef = database.getReference("users");
-        followsRef = database.getReference("follows");
+        followsRef = Stores.getInstance().getRootRef().child("follows");
         currentUser = FirebaseAuth.getInstance().getCurrentUser();
         followManager = new FollowManager();
     }
@@ -109,9 +120,19 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
         
         // Set up RecyclerView
         adapter = new UserAdapter(requireContext(), this);
-        binding.recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        binding.recyclerView.setLayoutManager(layoutManager);
         binding.recyclerView.setAdapter(adapter);
         
+        // Les cartes sont lues page par page, au rythme du défilement
+        userListLoader = new UserListLoader(this::showUsers);
+        binding.recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                userListLoader.onRowVisible(layoutManager.findLastVisibleItemPosition());
+            }
+        });
+        
         // Set up toolbar
         binding.toolbar.setNavigationOnClickListener(v -> Navigation.findNavController(v).navigateUp());
         
@@ -123,19 +144,10 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
     }
     
     private void loadUsername() {
-        usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                User user = snapshot.getValue(User.class);
-                if (user != null) {
-                    username = user.getUsername();
-                    updateTitle();
-                }
-            }
-            
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error loading username: " + error.getMessage());
+        UserProfileCache.getInstance().get(userId, card -> {
+            if (card != null && card.getUsername() != null && binding != null) {
+                username = card.getUsername();
+                updateTitle();
             }
         });
     }
@@ -145,7 +157,9 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
      * Définit le titre en fonction du type de liste (followers ou following).
      */
     private void updateTitle() {
-        if (username != null) {
+        if (listType == TYPE_SUGGESTIONS) {
+            binding.toolbarTitle.setText(R.string.suggestions);
+        } else if (username != null) {
             String title;
             if (listType == TYPE_FOLLOWERS) {
                 title = getString(R.string.followers_list, username);
@@ -166,17 +180,18 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
         binding.emptyView.setVisibility(View.GONE);
         binding.recyclerView.setVisibility(View.GONE);
         
+        if (listType == TYPE_SUGGESTIONS) {
+            loadSuggestions();
+            return;
+        }
+        
         String childPath = listType == TYPE_FOLLOWERS ? "followers" : "following";
         
-        followsRef.child(userId).child(childPath).addValueEventListener(new ValueEventListener() {
+        // Listener rattaché à la vue : détaché automatiquement à sa destruction
+        ListenerRegistry.getInstance().observe(getViewLifecycleOwner(), followsRef.child(userId).child(childPath), new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!snapshot.exists() || snapshot.getChildrenCount() == 0) {
-                    showEmptyView();
-                    return;
-                }
-                
-                List<String> userIds = new ArrayList<>();
+                List<String> userIds = new ArrayList<>((int) snapshot.getChildrenCount());
                 for (DataSnapshot userSnapshot : snapshot.getChildren()) {
                     String followUserId = userSnapshot.getKey();
                     if (followUserId != null) {
@@ -184,11 +199,7 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
                     }
                 }
                 
-                if (userIds.isEmpty()) {
-                    showEmptyView();
-                } else {
-                    loadUserDetails(userIds);
-                }
+                loadUserDetails(prioritizeFollowed(userIds));
             }
             
             @Override
@@ -200,65 +211,97 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
         });
     }
     
+    /**
+     * Charge les suggestions d'abonnements (amis d'amis), classées par nombre de comptes suivis
+     * qui suivent chaque suggestion.
+     */
+    private void loadSuggestions() {
+        FollowRecommender.getInstance().recommend(userId, SUGGESTIONS_LIMIT, recommendations -> {
+            if (binding == null) {
+                return;
+            }
+            List<String> userIds = new ArrayList<>(recommendations.size());
+            for (FollowRecommender.Recommendation recommendation : recommendations) {
+                userIds.add(recommendation.userId);
+            }
+            loadUserDetails(userIds);
+        });
+    }
+    
+    /**
+     * Indexe la liste affichée dans FollowGraphIndex et place en tête les comptes que
+     * l'utilisateur connecté suit (« suivi par des comptes que vous suivez » pour les abonnés,
+     * abonnements en commun pour les abonnements). Sans effet tant que ses propres abonnements
+     * ne sont pas chargés.
+     *
+     * @param userIds Les identifiants, dans l'ordre de la base
+     * @return Les identifiants, comptes suivis en premier
+     */
+    private List<String> prioritizeFollowed(List<String> userIds) {
+        FollowGraphIndex index = FollowRepository.getInstance().getFollowGraphIndex();
+        if (listType == TYPE_FOLLOWERS) {
+            index.setFollowers(userId, userIds);
+        } else {
+            index.setFollowing(userId, userIds);
+        }
+        
+        String viewerId = currentUser != null ? currentUser.getUid() : null;
+        if (viewerId == null || viewerId.equals(userId) || !index.hasFollowing(viewerId)) {
+            return userIds;
+        }
+        List<String> followed = listType == TYPE_FOLLOWERS
+                ? index.followedByFollowing(viewerId, userId, userIds.size())
+                : index.commonFollowing(viewerId, userId, userIds.size());
+        if (followed.isEmpty()) {
+            return userIds;
+        }
+        Set<String> first = new HashSet<>(followed);
+        List<String> ordered = new ArrayList<>(userIds.size());
+        ordered.addAll(followed);
+        for (String id : userIds) {
+            if (!first.contains(id)) {
+                ordered.add(id);
+            }
+        }
+        return ordered;
+    }
+
     /**
      * Charge les détails des utilisateurs à partir de leurs identifiants.
+     * Les lectures passent par UserProfileCache (projection userCards) : les utilisateurs déjà connus ne sont pas relus.
+     * UserListLoader limite le nombre de lectures simultanées et rend les lignes page par page.
      *
      * @param userIds Liste des identifiants des utilisateurs à charger
      */
     private void loadUserDetails(List<String> userIds) {
-        List<User> users = new ArrayList<>();
-        final int[] loadedCount = {0};
-        
-        for (String userId : userIds) {
-            usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    loadedCount[0]++;
-                    
-                    User user = snapshot.getValue(User.class);
-                    if (user != null) {
-                        users.add(user);
-                    }
-                    
-                    // Check if all users are loaded
-                    if (loadedCount[0] >= userIds.size()) {
-                        if (users.isEmpty()) {
-                            showEmptyView();
-                        } else {
-                            adapter.setUsers(users);
-                            binding.progressBar.setVisibility(View.GONE);
-                            binding.emptyView.setVisibility(View.GONE);
-                            binding.recyclerView.setVisibility(View.VISIBLE);
-                        }
-                    }
-                }
-                
-                @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-                    loadedCount[0]++;
-                    Log.e(TAG, "Error loading user details: " + error.getMessage());
-                    
-                    // Check if all users are loaded
-                    if (loadedCount[0] >= userIds.size()) {
-                        if (users.isEmpty()) {
-                            showEmptyView();
-                        } else {
-                            adapter.setUsers(users);
-                            binding.progressBar.setVisibility(View.GONE);
-                            binding.emptyView.setVisibility(View.GONE);
-                            binding.recyclerView.setVisibility(View.VISIBLE);
-                        }
-                    }
-                }
-            });
+        userListLoader.setUserIds(userIds);
+    }
+
+    private void showUsers(List<UserCard> users, boolean complete) {
+        if (binding == null) {
+            return;
         }
+        if (users.isEmpty()) {
+            if (complete) {
+                showEmptyView();
+            }
+            return;
+        }
+        adapter.setUsers(users);
+        binding.progressBar.setVisibility(View.GONE);
+        binding.emptyView.setVisibility(View.GONE);
+        binding.recyclerView.setVisibility(View.VISIBLE);
     }
-    
+
     private void showEmptyView() {
         binding.progressBar.setVisibility(View.GONE);
         binding.recyclerView.setVisibility(View.GONE);
         binding.emptyView.setVisibility(View.VISIBLE);
-        binding.emptyView.setText(listType == TYPE_FOLLOWERS ? R.string.no_followers : R.string.no_following);
+        if (listType == TYPE_SUGGESTIONS) {
+            binding.emptyView.setText(R.string.no_suggestions);
+        } else {
+            binding.emptyView.setText(listType == TYPE_FOLLOWERS ? R.string.no_followers : R.string.no_following);
+        }
     }
     
     /**
@@ -268,7 +311,7 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
      * @param user L'utilisateur cliqué
      */
     @Override
-    public void onUserClicked(User user) {
+    public void onUserClicked(UserCard user) {
         // Navigate to user profile
         Bundle args = new Bundle();
         args.putString("userId", user.getUserId());
@@ -276,7 +319,7 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
     }
     
     @Override
-    public void onFollowClicked(User user, boolean isFollowing) {
+    public void onFollowClicked(UserCard user, boolean isFollowing) {
         if (isFollowing) {
             followManager.unfollowUser(user.getUserId(), new FollowManager.FollowListener() {
                 @Override
@@ -310,6 +353,25 @@ public class FollowListFragment extends Fragment implements UserAdapter.OnUserIn
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        userListLoader.cancel();
+        forgetIndexedList();
         binding = null;
     }
+
+    /**
+     * Retire de FollowGraphIndex la liste indexée par prioritizeFollowed : l'index est partagé
+     * par toute l'application et garderait sinon chaque liste consultée. Les abonnements de
+     * l'utilisateur connecté restent, FollowStatusService les tient à jour.
+     */
+    private void forgetIndexedList() {
+        if (userId == null || listType == TYPE_SUGGESTIONS) {
+            return;
+        }
+        FollowGraphIndex index = FollowRepository.getInstance().getFollowGraphIndex();
+        if (listType == TYPE_FOLLOWERS) {
+            index.forgetFollowers(userId);
+        } else if (currentUser == null || !userId.equals(currentUser.getUid())) {
+            index.forgetFollowing(userId);
+        }
+    }
 } 
\ No newline at end of file
@@ -2,7 +2,6 @@ package com.sofiane.newtwitter.fragments;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
@@ -17,29 +16,37 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
+import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.sofiane.newtwitter.R;
 import com.sofiane.newtwitter.adapter.PostAdapter;
 import com.sofiane.newtwitter.databinding.FragmentHomeBinding;
 import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.utils.FrameMetricsLogger;
 import com.sofiane.newtwitter.viewmodel.PostViewModel;
+import com.sofiane.newtwitter.viewmodel.StoreViewModelFactory;
 import de.hdodenhof.circleimageview.CircleImageView;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Fragment affichant le fil d'actualité principal de l'application.
- * Ce fragment présente une liste de posts (tweets) provenant de tous les utilisateurs,
- * avec des fonctionnalités pour rafraîchir le contenu, créer de nouveaux posts,
+ * Ce fragment présente une liste de posts (tweets) provenant de tous les utilisateurs
+ * (onglet « Pour vous ») ou le fil personnel des comptes suivis (onglet « Abonnements »,
+ * index timelines/{uid} rempli par TimelineFanout), avec des fonctionnalités pour rafraîchir le contenu, créer de nouveaux posts,
  * et interagir avec les posts existants (like, retweet, répondre).
  */
 public class HomeFragment extends Fragment implements PostAdapter.OnPostInteractionListener {
     private static final String TAG = "HomeFragment";
+    // Nombre d'éléments restants avant la fin de la liste qui déclenche le chargement de la page suivante
+    private static final int LOAD_MORE_THRESHOLD = 5;
+    // Position de l'onglet du fil personnel
+    private static final int FOLLOWING_TAB = 1;
     private FragmentHomeBinding binding;
     private PostViewModel postViewModel;
     private PostAdapter postAdapter;
@@ -47,6 +54,12 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
     // Variable pour stocker le post auquel on répond
     private Post replyToPost;
 
+    // true si l'onglet « Abonnements » (fil personnel) est affiché
+    private boolean showFollowingFeed = false;
+
+    // Temps de rendu pendant les chargements du fil (builds de débogage uniquement)
+    private FrameMetricsLogger loadFrameMetrics;
+
     /**
      * Crée et retourne la vue associée au fragment.
      * Gère les erreurs potentielles lors de la création de la vue.
@@ -90,13 +103,16 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
         
         try {
             // Initialize ViewModel
-            postViewModel = new ViewModelProvider(requireActivity()).get(PostViewModel.class);
+            postViewModel = new ViewModelProvider(requireActivity(), new StoreViewModelFactory()).get(PostViewModel.class);
             
             // Initialize Toolbar
             setupToolbar();
             
             // Initialize RecyclerView
             setupRecyclerView();
+
+            // Onglets « Pour vous » et « Abonnements »
+            setupFeedTabs();
             
             // Observe posts
             observePosts();
@@ -110,13 +126,9 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
             // Setup FAB
             binding.createPostFab.setOnClickListener(v -> navigateToCreatePost());
             
-            // Force refresh posts
-            Log.d(TAG, "Forcing refresh of posts");
-            binding.loadingProgressBar.setVisibility(View.VISIBLE);
-            postViewModel.loadPosts();
-            
-            // Afficher un message pour indiquer que le chargement est en cours
-            Toast.makeText(requireContext(), "Chargement des posts...", Toast.LENGTH_SHORT).show();
+            // Le fil s'affiche depuis le stockage local ; la synchronisation ne démarre qu'une fois
+            Log.d(TAG, "Starting timeline sync");
+            postViewModel.startTimelineSync();
         } catch (Exception e) {
             Log.e(TAG, "Error in onViewCreated: " + e.getMessage(), e);
             Toast.makeText(requireContext(), "Error initializing home feed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
@@ -153,66 +165,170 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
             postAdapter = new PostAdapter(this);
             binding.postsRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
             binding.postsRecyclerView.setAdapter(postAdapter);
+
+            // Charger les posts plus anciens lorsque l'utilisateur approche de la fin de la liste
+            binding.postsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                    if (dy > 0) {
+                        loadMoreIfNeeded();
+                    }
+                }
+            });
         } catch (Exception e) {
             Log.e(TAG, "Error setting up RecyclerView: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Configure les onglets du fil. L'onglet sélectionné est conservé si la vue est recréée.
+     */
+    private void setupFeedTabs() {
+        binding.feedTabs.addTab(binding.feedTabs.newTab().setText(R.string.feed_for_you), !showFollowingFeed);
+        binding.feedTabs.addTab(binding.feedTabs.newTab().setText(R.string.feed_following), showFollowingFeed);
+        binding.emptyStateTextView.setText(showFollowingFeed ? R.string.no_following_posts : R.string.no_posts_available);
+        binding.feedTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                showFeed(tab.getPosition() == FOLLOWING_TAB);
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {
+            }
+
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {
+                binding.postsRecyclerView.smoothScrollToPosition(0);
+            }
+        });
+    }
+
+    /**
+     * Affiche le fil global ou le fil personnel. Le fil personnel n'est chargé qu'à sa première ouverture ;
+     * le fil global reste synchronisé en arrière-plan et est réaffiché depuis son état courant.
+     *
+     * @param following true pour le fil personnel
+     */
+    private void showFeed(boolean following) {
+        showFollowingFeed = following;
+        binding.swipeRefreshLayout.setRefreshing(false);
+        binding.loadingProgressBar.setVisibility(View.GONE);
+        binding.emptyStateTextView.setVisibility(View.GONE);
+        binding.emptyStateTextView.setText(following ? R.string.no_following_posts : R.string.no_posts_available);
+        if (following) {
+            List<Post> loaded = postViewModel.getHomeTimeline().getValue();
+            postAdapter.setPosts(loaded != null ? loaded : new ArrayList<>());
+            if (loaded == null) {
+                binding.loadingProgressBar.setVisibility(View.VISIBLE);
+                postViewModel.loadHomeTimeline();
+            }
+        } else {
+            postAdapter.setPosts(postViewModel.getTimelinePosts());
+        }
+        binding.postsRecyclerView.scrollToPosition(0);
+        postAdapter.runWhenListCommitted(this::updateEmptyState);
+    }
+
+    /**
+     * Indique si une page du fil affiché est en cours de chargement.
+     */
+    private boolean isFeedLoading() {
+        if (showFollowingFeed) {
+            return postViewModel.isHomeTimelineLoading();
+        }
+        Boolean loading = postViewModel.isTimelineLoading().getValue();
+        return loading != null && loading;
+    }
+
+    /**
+     * Demande la page suivante du fil affiché si le dernier élément visible
+     * est proche de la fin de la liste.
+     */
+    private void loadMoreIfNeeded() {
+        if (binding == null) {
+            return;
+        }
+        boolean hasMore = showFollowingFeed ? postViewModel.hasMoreHomeTimeline() : postViewModel.hasMorePosts();
+        if (!hasMore) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) binding.postsRecyclerView.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= postAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+            Log.d(TAG, "Reached end of feed, loading next page");
+            if (showFollowingFeed) {
+                postViewModel.loadMoreHomeTimeline();
+            } else {
+                postViewModel.loadMorePosts();
+            }
+        }
+    }
+
     /**
      * Configure l'observateur pour les posts.
-     * Met à jour l'interface utilisateur lorsque la liste des posts change.
+     * Chaque modification du fil est appliquée individuellement à l'adaptateur
+     * (un like ne met à jour qu'un seul élément), et l'état vide est recalculé
+     * à la fin de chaque chargement de page.
      */
     private void observePosts() {
         try {
             Log.d(TAG, "Starting to observe posts from ViewModel");
-            postViewModel.getPosts().observe(getViewLifecycleOwner(), allPosts -> {
-                Log.d(TAG, "Posts data changed: " + (allPosts != null ? allPosts.size() : 0) + " posts");
-                
-                // Toujours arrêter les indicateurs de chargement
+            postViewModel.getTimelineChanges().observe(getViewLifecycleOwner(), change -> {
+                if (showFollowingFeed) {
+                    // Le fil global sera réaffiché depuis son état courant au retour sur l'onglet
+                    return;
+                }
+                // Le fil principal ne contient que les posts originaux (filtrés par le repository)
+                postAdapter.applyFeedChange(change, postViewModel::getTimelinePosts, this::updateEmptyState);
+            });
+
+            postViewModel.getHomeTimeline().observe(getViewLifecycleOwner(), posts -> {
+                if (!showFollowingFeed) {
+                    return;
+                }
                 binding.swipeRefreshLayout.setRefreshing(false);
                 binding.loadingProgressBar.setVisibility(View.GONE);
-                
-                // Filtrer les retweets et les réponses pour le fil d'actualité principal
-                List<Post> filteredPosts = allPosts != null ? allPosts.stream()
-                        .filter(post -> !post.isRetweet() && !post.isReply())
-                        .collect(Collectors.toList()) : new ArrayList<>();
-                
-                // Mettre à jour l'adaptateur avec la liste filtrée
-                postAdapter.setPosts(filteredPosts);
-                
-                // Show empty state if no posts
-                if (filteredPosts.isEmpty()) {
-                    Log.d(TAG, "No posts available, showing empty state");
-                    binding.emptyStateTextView.setVisibility(View.VISIBLE);
-                    binding.postsRecyclerView.setVisibility(View.GONE);
-                    
-                    // Ajouter une animation pour attirer l'attention
-                    binding.emptyStateTextView.setAlpha(0f);
-                    binding.emptyStateTextView.animate()
-                        .alpha(1f)
-                        .setDuration(500)
-                        .start();
-                    
-                    // Mettre en évidence le bouton d'ajout
-                    binding.createPostFab.setScaleX(1.2f);
-                    binding.createPostFab.setScaleY(1.2f);
-                    binding.createPostFab.animate()
-                        .scaleX(1f)
-                        .scaleY(1f)
-                        .setDuration(500)
-                        .start();
-                } else {
-                    Log.d(TAG, "Posts available, showing RecyclerView");
-                    binding.emptyStateTextView.setVisibility(View.GONE);
-                    binding.postsRecyclerView.setVisibility(View.VISIBLE);
-                    
-                    // Log each post for debugging
-                    for (Post post : filteredPosts) {
-                        Log.d(TAG, "Post: " + post.getId() + ", User: " + post.getUsername() + ", Content: " + post.getContent());
+                postAdapter.setPosts(posts);
+                postAdapter.runWhenListCommitted(this::updateEmptyState);
+                // Si la page ne remplit pas l'écran, le scroll ne pourra pas déclencher la suite
+                binding.postsRecyclerView.post(this::loadMoreIfNeeded);
+            });
+
+            if (FrameMetricsLogger.isEnabled(requireContext())) {
+                loadFrameMetrics = new FrameMetricsLogger("Home timeline load");
+            }
+            postViewModel.isTimelineLoading().observe(getViewLifecycleOwner(), loading -> {
+                if (loadFrameMetrics != null) {
+                    if (loading != null && loading) {
+                        loadFrameMetrics.start();
+                    } else if (loadFrameMetrics.isRunning()) {
+                        loadFrameMetrics.stop();
                     }
                 }
+                if (showFollowingFeed) {
+                    return;
+                }
+                if (loading != null && loading) {
+                    // L'indicateur plein écran n'est utile que si rien n'est encore affiché
+                    if (postViewModel.getTimelinePosts().isEmpty()) {
+                        binding.loadingProgressBar.setVisibility(View.VISIBLE);
+                    }
+                    return;
+                }
+                // Toujours arrêter les indicateurs de chargement
+                binding.swipeRefreshLayout.setRefreshing(false);
+                binding.loadingProgressBar.setVisibility(View.GONE);
+                // Le diff de la dernière page peut encore être en cours de calcul
+                postAdapter.runWhenListCommitted(this::updateEmptyState);
+
+                // Si la page filtrée ne remplit pas l'écran, le scroll ne pourra pas déclencher la suite
+                binding.postsRecyclerView.post(this::loadMoreIfNeeded);
                 
-                Log.d(TAG, "Posts updated: " + (filteredPosts != null ? filteredPosts.size() : 0) + " posts");
+                Log.d(TAG, "Posts updated: " + postAdapter.getItemCount() + " posts");
             });
         } catch (Exception e) {
             Log.e(TAG, "Error observing posts: " + e.getMessage(), e);
@@ -226,6 +342,43 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
             Toast.makeText(requireContext(), "Error loading posts: " + e.getMessage(), Toast.LENGTH_LONG).show();
         }
     }
+
+    /**
+     * Affiche l'état vide ou la liste selon le nombre de posts affichés par l'adaptateur.
+     * L'état vide n'est pas affiché tant qu'une page est en cours de chargement.
+     */
+    private void updateEmptyState() {
+        if (binding == null) {
+            return;
+        }
+        if (postAdapter.getItemCount() == 0) {
+            if (isFeedLoading() || binding.emptyStateTextView.getVisibility() == View.VISIBLE) {
+                return;
+            }
+            Log.d(TAG, "No posts available, showing empty state");
+            binding.emptyStateTextView.setVisibility(View.VISIBLE);
+            binding.postsRecyclerView.setVisibility(View.GONE);
+            
+            // Ajouter une animation pour attirer l'attention
+            binding.emptyStateTextView.setAlpha(0f);
+            binding.emptyStateTextView.animate()
+                .alpha(1f)
+                .setDuration(500)
+                .start();
+            
+            // Mettre en évidence le bouton d'ajout
+            binding.createPostFab.setScaleX(1.2f);
+            binding.createPostFab.setScaleY(1.2f);
+            binding.createPostFab.animate()
+                .scaleX(1f)
+                .scaleY(1f)
+                .setDuration(500)
+                .start();
+        } else {
+            binding.emptyStateTextView.setVisibility(View.GONE);
+            binding.postsRecyclerView.setVisibility(View.VISIBLE);
+        }
+    }
     
     /**
      * Configure l'observateur pour les messages d'erreur.
@@ -237,6 +390,11 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
                 if (errorMessage != null && !errorMessage.isEmpty()) {
                     Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_SHORT).show();
                     binding.swipeRefreshLayout.setRefreshing(false);
+                    if (showFollowingFeed) {
+                        // Le chargement du fil personnel n'a pas d'autre signal de fin en cas d'échec
+                        binding.loadingProgressBar.setVisibility(View.GONE);
+                        updateEmptyState();
+                    }
                 }
             });
         } catch (Exception e) {
@@ -252,25 +410,15 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
         try {
             Log.d(TAG, "Refreshing posts");
             binding.swipeRefreshLayout.setRefreshing(true);
-            binding.loadingProgressBar.setVisibility(View.VISIBLE);
             binding.emptyStateTextView.setVisibility(View.GONE);
-            
-            // Définir un timeout pour arrêter le chargement si ça prend trop de temps
-            new Handler().postDelayed(() -> {
-                if (binding != null && binding.swipeRefreshLayout.isRefreshing()) {
-                    Log.w(TAG, "Loading posts timed out after 20 seconds");
-                    binding.swipeRefreshLayout.setRefreshing(false);
-                    binding.loadingProgressBar.setVisibility(View.GONE);
-                    
-                    // Vérifier si des posts sont déjà affichés
-                    if (postAdapter.getItemCount() == 0) {
-                        binding.emptyStateTextView.setText(R.string.error_loading_posts);
-                        binding.emptyStateTextView.setVisibility(View.VISIBLE);
-                        Toast.makeText(requireContext(), "Loading timed out. Please try again later.", Toast.LENGTH_SHORT).show();
-                    }
-                }
-            }, 20000); // 20 secondes de timeout
-            
+
+            if (showFollowingFeed) {
+                // L'indicateur s'arrête à l'arrivée de la première page
+                postViewModel.loadHomeTimeline();
+                return;
+            }
+            // Les posts affichés restent visibles ; l'indicateur s'arrête à la fin de la synchronisation
+            // ou à la perte de connexion
             postViewModel.loadPosts();
         } catch (Exception e) {
             Log.e(TAG, "Error refreshing posts: " + e.getMessage(), e);
@@ -427,6 +575,10 @@ public class HomeFragment extends Fragment implements PostAdapter.OnPostInteract
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (loadFrameMetrics != null && loadFrameMetrics.isRunning()) {
+            loadFrameMetrics.stop();
+        }
+        loadFrameMetrics = null;
         binding = null;
     }
 } 
\ No newline at end of file
@@ -1,7 +1,5 @@
 package com.sofiane.newtwitter.fragments;
 
-import android.content.Context;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -18,37 +16,35 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 import com.sofiane.newtwitter.R;
 import com.sofiane.newtwitter.adapter.PostAdapter;
 import com.sofiane.newtwitter.databinding.FragmentPostDetailBinding;
 import com.sofiane.newtwitter.model.Post;
 import com.sofiane.newtwitter.utils.ProfileIconHelper;
+import com.sofiane.newtwitter.utils.UsernameHandle;
 import com.sofiane.newtwitter.viewmodel.PostViewModel;
-import de.hdodenhof.circleimageview.CircleImageView;
+import com.sofiane.newtwitter.viewmodel.StoreViewModelFactory;
+import com.sofiane.newtwitter.viewmodel.ThreadViewModel;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Fragment affichant le détail d'un post (tweet) et ses réponses.
  * Ce fragment présente le contenu complet d'un post, ses statistiques (likes, retweets, etc.),
- * et la liste des réponses à ce post. Il permet également d'interagir avec le post
+ * ses posts parents et la liste paginée des réponses à ce post, chargés par ThreadViewModel. Il permet également d'interagir avec le post
  * (like, retweet, répondre) et de naviguer vers le profil de l'auteur.
  */
 public class PostDetailFragment extends Fragment implements PostAdapter.OnPostInteractionListener {
     private static final String TAG = "PostDetailFragment";
     private FragmentPostDetailBinding binding;
+    // Distance (en pixels) avant la fin du défilement qui déclenche le chargement de la page suivante
+    private static final int LOAD_MORE_THRESHOLD_PX = 600;
     private PostViewModel postViewModel;
+    private ThreadViewModel threadViewModel;
+    private PostAdapter ancestorsAdapter;
     private PostAdapter repliesAdapter;
     private Post currentPost;
     private String postId;
-    private DatabaseReference usersRef;
 
     /**
      * Crée et retourne la vue associée au fragment.
@@ -76,10 +72,6 @@ public class PostDetailFragment extends Fragment implements PostAdapter.OnPostIn
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Initialiser Firebase Database
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        usersRef = database.getReference("users");
-
         // Récupérer l'ID du post depuis les arguments
         if (getArguments() != null) {
             postId = getArguments().getString("post_id");
@@ -95,7 +87,10 @@ public class PostDetailFragment extends Fragment implements PostAdapter.OnPostIn
         }
 
         // Initialiser le ViewModel
-        postViewModel = new ViewModelProvider(requireActivity()).get(PostViewModel.class);
+        postViewModel = new ViewModelProvider(requireActivity(), new StoreViewModelFactory()).get(PostViewModel.class);
+        // Le fil est propre à cet écran : ses listeners sont détachés à sa fermeture
+        threadViewModel = new ViewModelProvider(this).get(ThreadViewModel.class);
+        threadViewModel.open(postId);
 
         // Configurer la toolbar
         setupToolbar();
@@ -103,8 +98,8 @@ public class PostDetailFragment extends Fragment implements PostAdapter.OnPostIn
         // Configurer le RecyclerView pour les réponses
         setupRepliesRecyclerView();
 
-        // Observer les posts pour trouver le post actuel et ses réponses
-        observePosts();
+        // Observer le post, ses parents et ses réponses
+        observeThread();
 
         // Observer les messages d'erreur
         observeErrors();
@@ -125,38 +120,51 @@ public class PostDetailFragment extends Fragment implements PostAdapter.OnPostIn
     }
 
     /**
-     * Configure le RecyclerView pour afficher la liste des réponses au post.
+     * Configure les RecyclerView des posts parents et des réponses au post.
+     * Les réponses suivantes sont chargées lorsque l'utilisateur approche de la fin de l'écran.
      */
     private void setupRepliesRecyclerView() {
+        ancestorsAdapter = new PostAdapter(this);
+        binding.ancestorsRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        binding.ancestorsRecyclerView.setAdapter(ancestorsAdapter);
+
         repliesAdapter = new PostAdapter(this);
         binding.repliesRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         binding.repliesRecyclerView.setAdapter(repliesAdapter);
+
+        binding.threadScrollView.setOnScrollChangeListener((View.OnScrollChangeListener) (v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+            View content = binding.threadScrollView.getChildAt(0);
+            if (scrollY > oldScrollY && content.getBottom() - (scrollY + v.getHeight()) < LOAD_MORE_THRESHOLD_PX) {
+                threadViewModel.loadMoreReplies();
+            }
+        });
     }
 
     /**
-     * Configure l'observateur pour les posts.
-     * Filtre la liste des posts pour trouver le post actuel et ses réponses.
+     * Configure les observateurs du fil : le post principal (suivi en temps réel),
+     * ses posts parents et ses réponses.
      */
-    private void observePosts() {
-        postViewModel.getPosts().observe(getViewLifecycleOwner(), posts -> {
-            if (posts != null && !posts.isEmpty()) {
-                // Trouver le post actuel
-                for (Post post : posts) {
-                    if (post.getId().equals(postId)) {
-                        currentPost = post;
-                        displayPostDetails(post);
-                        break;
-                    }
-                }
-
-                // Filtrer les réponses à ce post
-                if (currentPost != null) {
-                    List<Post> replies = posts.stream()
-                            .filter(post -> post.isReply() && postId.equals(post.getParentId()))
-                            .collect(Collectors.toList());
-                    
-                    updateRepliesUI(replies);
-                }
+    private void observeThread() {
+        threadViewModel.getPost().observe(getViewLifecycleOwner(), post -> {
+            if (post == null) {
+                return;
+            }
+            currentPost = post;
+            displayPostDetails(post);
+        });
+
+        threadViewModel.getAncestors().observe(getViewLifecycleOwner(), ancestors -> {
+            if (ancestors == null || ancestors.isEmpty()) {
+                binding.ancestorsRecyclerView.setVisibility(View.GONE);
+            } else {
+                binding.ancestorsRecyclerView.setVisibility(View.VISIBLE);
+                ancestorsAdapter.setPosts(ancestors);
+            }
+        });
+
+        threadViewModel.getReplies().observe(getViewLifecycleOwner(), replies -> {
+            if (replies != null) {
+                updateRepliesUI(replies);
             }
         });
     }
@@ -169,10 +177,10 @@ public class PostDetailFragment extends Fragment implements PostAdapter.OnPostIn
     private void displayPostDetails(Post post) {
         // Afficher les détails du post
         String userIdToLoad = post.isRetweet() ? post.getOriginalUserId() : post.getUserId();
-        loadUserProfileIcon(userIdToLoad, binding.profileImageView);
+        ProfileIconHelper.loadProfileIcon(binding.profileImageView, userIdToLoad);
         
         binding.usernameTextView.setText(post.getUsername());
-        binding.handleTextView.setText("@" + post.getUsername().toLowerCase().replace(" ", ""));
+        binding.handleTextView.setText(UsernameHandle.format(post.getUsername()));
         binding.contentTextView.setText(post.getContent());
         binding.timeTextView.setText(post.getRelativeTime());
         
@@ -239,6 +247,11 @@ public class PostDetailFragment extends Fragment implements PostAdapter.OnPostIn
                 Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_SHORT).show();
             }
         });
+        threadViewModel.getErrorMessage().observe(getViewLifecycleOwner(), errorMessage -> {
+            if (errorMessage != null && !errorMessage.isEmpty()) {
+                Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
@@ -379,61 +392,6 @@ public class PostDetailFragment extends Fragment implements PostAdapter.OnPostIn
         navigateToUserProfile(userId);
     }
 
-    /**
-     * Charge l'icône de profil de l'utilisateur depuis Firebase.
-     * Utilise ProfileIconHelper pour afficher une icône colorée si aucune image n'est disponible.
-     *
-     * @param userId L'identifiant de l'utilisateur
-     * @param imageView La vue CircleImageView où afficher l'icône
-     */
-    private void loadUserProfileIcon(String userId, CircleImageView imageView) {
-        if (userId == null || userId.isEmpty()) {
-            // Si l'ID utilisateur est invalide, utiliser l'icône par défaut
-            imageView.setImageResource(R.drawable.ic_profile_person);
-            return;
-        }
-        
-        usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    try {
-                        // Récupérer les index d'icône et de couleur
-                        Integer iconIndex = snapshot.child("profileIconIndex").getValue(Integer.class);
-                        Integer colorIndex = snapshot.child("profileColorIndex").getValue(Integer.class);
-                        
-                        if (iconIndex != null && colorIndex != null) {
-                            Context context = imageView.getContext();
-                            // Obtenir l'icône colorée
-                            Drawable coloredIcon = ProfileIconHelper.getColoredProfileIcon(
-                                    context, iconIndex, colorIndex);
-                            
-                            // Mettre à jour l'image de profil
-                            imageView.setImageDrawable(coloredIcon);
-                        } else {
-                            // Utiliser l'icône par défaut si les index sont null
-                            imageView.setImageResource(R.drawable.ic_profile_person);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Erreur lors du chargement de l'icône de profil: " + e.getMessage(), e);
-                        // En cas d'erreur, utiliser l'icône par défaut
-                        imageView.setImageResource(R.drawable.ic_profile_person);
-                    }
-                } else {
-                    // Si l'utilisateur n'existe pas, utiliser l'icône par défaut
-                    imageView.setImageResource(R.drawable.ic_profile_person);
-                }
-            }
-            
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Erreur lors de la récupération des données utilisateur: " + error.getMessage());
-                // En cas d'erreur, utiliser l'icône par défaut
-                imageView.setImageResource(R.drawable.ic_profile_person);
-            }
-        });
-    }
-    
     /**
      * Navigue vers le fragment de profil de l'utilisateur.
      *
@@ -23,21 +23,27 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
 import com.sofiane.newtwitter.R;
 import com.sofiane.newtwitter.adapter.PostAdapter;
 import com.sofiane.newtwitter.databinding.FragmentProfileBinding;
 import com.sofiane.newtwitter.model.Post;
 import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCodec;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.repository.FeedEngine;
+import com.sofiane.newtwitter.repository.FollowRepository;
+import com.sofiane.newtwitter.repository.ListenerRegistry;
+import com.sofiane.newtwitter.repository.PostRepository;
+import com.sofiane.newtwitter.repository.Stores;
+import com.sofiane.newtwitter.repository.UserProfileCache;
+import com.sofiane.newtwitter.repository.UsernameRegistry;
 import com.sofiane.newtwitter.utils.ProfileIconHelper;
+import com.sofiane.newtwitter.utils.UsernameHandle;
 import com.sofiane.newtwitter.viewmodel.FollowViewModel;
+import com.sofiane.newtwitter.viewmodel.StoreViewModelFactory;
 import de.hdodenhof.circleimageview.CircleImageView;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Fragment affichant le profil d'un utilisateur.
  * Ce fragment présente les informations du profil utilisateur (nom, bio, statistiques)
@@ -50,10 +56,9 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
     private FirebaseAuth auth;
     private FirebaseUser currentUser;
     private DatabaseReference usersRef;
-    private DatabaseReference postsRef;
     private PostAdapter postAdapter;
     private FollowViewModel followViewModel;
-    private List<Post> userPosts = new ArrayList<>();
+    private FeedEngine userPostsEngine;
     private String userId;
     private boolean isCurrentUserProfile = true;
 
@@ -86,12 +91,10 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
         // Initialize Firebase
         auth = FirebaseAuth.getInstance();
         currentUser = auth.getCurrentUser();
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        usersRef = database.getReference("users");
-        postsRef = database.getReference("posts");
+        usersRef = Stores.getInstance().getRootRef().child("users");
         
         // Initialize ViewModel
-        followViewModel = new ViewModelProvider(requireActivity()).get(FollowViewModel.class);
+        followViewModel = new ViewModelProvider(requireActivity(), new StoreViewModelFactory()).get(FollowViewModel.class);
 
         // Check if we're viewing another user's profile
         if (getArguments() != null && getArguments().containsKey("userId")) {
@@ -141,12 +144,25 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
             args.putInt("listType", FollowListFragment.TYPE_FOLLOWING);
             Navigation.findNavController(v).navigate(R.id.action_profileFragment_to_followListFragment, args);
         });
+        
+        // Suggestions d'abonnements : uniquement sur son propre profil
+        binding.suggestionsLink.setVisibility(isCurrentUserProfile ? View.VISIBLE : View.GONE);
+        binding.suggestionsLink.setOnClickListener(v -> {
+            Bundle args = new Bundle();
+            args.putString("userId", userId);
+            args.putInt("listType", FollowListFragment.TYPE_SUGGESTIONS);
+            Navigation.findNavController(v).navigate(R.id.action_profileFragment_to_followListFragment, args);
+        });
 
         // Load user profile and posts
         loadUserProfile();
         loadUserPosts();
         
         // Load follow counts
+        if (isCurrentUserProfile) {
+            FollowRepository.getInstance().recountFollowCountsOnce();
+            UsernameRegistry.getInstance().claimOwnUsernameOnce();
+        }
         followViewModel.loadFollowCounts(userId);
     }
     
@@ -228,7 +244,16 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
             return;
         }
 
-        usersRef.child(userId).addValueEventListener(new ValueEventListener() {
+        // Afficher immédiatement le nom et l'icône s'ils sont déjà en cache
+        UserCard cachedCard = UserProfileCache.getInstance().peek(userId);
+        if (cachedCard != null && cachedCard.getUsername() != null) {
+            binding.nameText.setText(cachedCard.getUsername());
+            binding.usernameText.setText(UsernameHandle.format(cachedCard.getUsername()));
+            ProfileIconHelper.applyProfileIcon(binding.profileImage, cachedCard);
+        }
+
+        // Listener rattaché à la vue : détaché automatiquement à sa destruction
+        ListenerRegistry.getInstance().observe(getViewLifecycleOwner(), usersRef.child(userId), new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 // Vérifier si le binding est toujours valide
@@ -240,8 +265,12 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
                 // Vérifier si les données existent
                 if (snapshot.exists()) {
                     try {
-                        User user = snapshot.getValue(User.class);
+                        User user = UserCodec.fromSnapshot(snapshot);
                         if (user != null) {
+                            // Garder le cache partagé à jour avec le profil complet
+                            UserCard card = UserCard.fromUser(user);
+                            card.setUserId(userId);
+                            UserProfileCache.getInstance().put(card);
                             Log.d(TAG, "Profil utilisateur chargé avec succès: " + user.getUsername());
                             Log.d(TAG, "Index chargés: iconIndex=" + user.getProfileIconIndex() + ", colorIndex=" + user.getProfileColorIndex());
                             updateUI(user);
@@ -271,8 +300,8 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
                         currentUser.getEmail()
                     );
                     
-                    // Sauvegarder ce nouveau profil dans la base de données
-                    usersRef.child(userId).setValue(newUser)
+                    // Sauvegarder ce nouveau profil (et sa carte) dans la base de données
+                    UserProfileCache.getInstance().createProfile(newUser)
                         .addOnSuccessListener(aVoid -> {
                             Log.d(TAG, "Nouveau profil utilisateur créé et sauvegardé");
                             // Le listener ValueEventListener sera déclenché à nouveau après la sauvegarde
@@ -310,7 +339,7 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
         
         // Set user info
         binding.nameText.setText(user.getUsername());
-        binding.usernameText.setText("@" + user.getUsername().toLowerCase().replace(" ", ""));
+        binding.usernameText.setText(UsernameHandle.format(user.getUsername()));
         
         // Set bio if available
         if (user.getBio() != null && !user.getBio().isEmpty()) {
@@ -370,62 +399,43 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
 
     /**
      * Charge les posts de l'utilisateur depuis Firebase.
-     * Met à jour le RecyclerView avec les posts récupérés.
+     * Les posts sont suivis par événements enfants : chaque modification met à jour
+     * un seul élément du RecyclerView.
      */
     private void loadUserPosts() {
-        // Query posts by this user
-        Query query = postsRef.orderByChild("userId").equalTo(userId);
-        
-        query.addValueEventListener(new ValueEventListener() {
+        if (userPostsEngine != null) {
+            userPostsEngine.reset();
+        }
+        // Only include original posts and retweets, not replies
+        userPostsEngine = PostRepository.getInstance().loadPostsByUser(userId, new FeedEngine.Listener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+            public void onFeedChanged(FeedEngine.Change change) {
                 // Vérifier si le binding est toujours valide
                 if (binding == null) {
-                    Log.e(TAG, "Binding is null in loadUserPosts.onDataChange");
+                    Log.e(TAG, "Binding is null in loadUserPosts.onFeedChanged");
                     return;
                 }
-                
-                userPosts.clear();
-                int postCount = 0;
-                
-                for (DataSnapshot postSnapshot : dataSnapshot.getChildren()) {
-                    Post post = postSnapshot.getValue(Post.class);
-                    if (post != null) {
-                        // Only include original posts and retweets, not replies
-                        if (!post.isReply()) {
-                            userPosts.add(post);
-                        }
-                        postCount++;
+                postAdapter.applyFeedChange(change, userPostsEngine::getVisiblePosts, () -> {
+                    if (binding == null) {
+                        return;
                     }
-                }
-                
-                // Sort by creation date (newest first)
-                userPosts.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-                
-                // Update the adapter
-                postAdapter.setPosts(userPosts);
-                
-                // Update post count
-                binding.postsCount.setText(postCount + " " + getString(R.string.posts));
-                
-                // Show/hide empty state
-                if (userPosts.isEmpty()) {
-                    binding.userPostsRecyclerView.setVisibility(View.GONE);
-                    // You might want to add an empty state view here
-                } else {
-                    binding.userPostsRecyclerView.setVisibility(View.VISIBLE);
-                }
+                    // Show/hide empty state
+                    if (postAdapter.getItemCount() == 0) {
+                        binding.userPostsRecyclerView.setVisibility(View.GONE);
+                        // You might want to add an empty state view here
+                    } else {
+                        binding.userPostsRecyclerView.setVisibility(View.VISIBLE);
+                    }
+                });
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
+            public void onIndexChanged() {
                 if (binding == null) {
-                    Log.e(TAG, "Binding is null in loadUserPosts.onCancelled");
                     return;
                 }
-                
-                Log.e(TAG, "Error loading user posts: " + databaseError.getMessage());
-                Toast.makeText(requireContext(), "Erreur lors du chargement des posts: " + databaseError.getMessage(), Toast.LENGTH_SHORT).show();
+                // Update post count (replies included)
+                binding.postsCount.setText(userPostsEngine.getAllPostsCount() + " " + getString(R.string.posts));
             }
         });
     }
@@ -436,6 +446,10 @@ public class ProfileFragment extends Fragment implements PostAdapter.OnPostInter
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (userPostsEngine != null) {
+            userPostsEngine.reset();
+            userPostsEngine = null;
+        }
         binding = null;
     }
 
@@ -5,8 +5,8 @@ import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.PropertyName;
 
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Classe représentant un post (tweet) dans l'application.
@@ -251,37 +251,14 @@ public class Post {
         this.createdAt = createdAt;
     }
 
-    // Méthode pour gérer la conversion de timestamp en Date
+    /**
+     * Définit la date de création à partir d'un timestamp ou d'un objet Date sérialisé.
+     *
+     * @param timestamp La valeur brute lue dans Firebase (voir PostCodec.readTime)
+     */
     @Exclude
     public void setCreatedAtFromTimestamp(Object timestamp) {
-        if (timestamp instanceof Long) {
-            this.createdAt = new Date((Long) timestamp);
-        } else if (timestamp instanceof Map) {
-            Map<String, Object> timestampMap = (Map<String, Object>) timestamp;
-            if (timestampMap.containsKey("time")) {
-                Object timeValue = timestampMap.get("time");
-                if (timeValue instanceof Long) {
-                    this.createdAt = new Date((Long) timeValue);
-                    return;
-                }
-            }
-            // Si on ne peut pas extraire le temps, utiliser la date actuelle
-            this.createdAt = new Date();
-        } else if (timestamp instanceof HashMap) {
-            HashMap<String, Object> timestampMap = (HashMap<String, Object>) timestamp;
-            if (timestampMap.containsKey("time")) {
-                Object timeValue = timestampMap.get("time");
-                if (timeValue instanceof Long) {
-                    this.createdAt = new Date((Long) timeValue);
-                    return;
-                }
-            }
-            // Si on ne peut pas extraire le temps, utiliser la date actuelle
-            this.createdAt = new Date();
-        } else {
-            // Pour tout autre type, utiliser la date actuelle
-            this.createdAt = new Date();
-        }
+        this.createdAt = PostCodec.readDate(timestamp);
     }
 
     public int getLikeCount() {
@@ -357,19 +334,6 @@ public class Post {
         isRetweet = retweet;
     }
 
-    // Ajout des méthodes pour la compatibilité Firebase
-    @Exclude
-    public Boolean getRetweet() {
-        return isRetweet;
-    }
-
-    @Exclude
-    public void setRetweet(Boolean retweet) {
-        if (retweet != null) {
-            this.isRetweet = retweet;
-        }
-    }
-
     public boolean isReply() {
         return isReply;
     }
@@ -378,49 +342,55 @@ public class Post {
         isReply = reply;
     }
     
-    // Ajout des méthodes pour la compatibilité Firebase
+    /**
+     * Compare le contenu de ce post avec celui d'un autre post.
+     * Utilisé par le fil d'actualité pour ignorer les événements qui ne modifient rien.
+     *
+     * @param other Le post à comparer
+     * @return true si tous les champs affichés sont identiques
+     */
     @Exclude
-    public Boolean getReply() {
-        return isReply;
+    public boolean hasSameContent(Post other) {
+        return hasSameContentIgnoringCounts(other)
+                && likeCount == other.likeCount
+                && commentCount == other.commentCount
+                && retweetCount == other.retweetCount;
     }
 
+    /**
+     * Compare le contenu de ce post avec celui d'un autre post, sans tenir compte
+     * des compteurs de likes, commentaires et retweets.
+     *
+     * @param other Le post à comparer
+     * @return true si tous les champs affichés, hors compteurs, sont identiques
+     */
     @Exclude
-    public void setReply(Boolean reply) {
-        if (reply != null) {
-            this.isReply = reply;
+    public boolean hasSameContentIgnoringCounts(Post other) {
+        if (other == null) {
+            return false;
         }
+        return Objects.equals(id, other.id)
+                && Objects.equals(userId, other.userId)
+                && Objects.equals(username, other.username)
+                && Objects.equals(content, other.content)
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(createdAt, other.createdAt)
+                && Objects.equals(parentId, other.parentId)
+                && Objects.equals(parentUsername, other.parentUsername)
+                && Objects.equals(originalPostId, other.originalPostId)
+                && Objects.equals(originalUserId, other.originalUserId)
+                && Objects.equals(originalUsername, other.originalUsername)
+                && isRetweet == other.isRetweet
+                && isReply == other.isReply;
     }
-    
-    // Méthode pour convertir l'objet en Map pour Firebase
+
+    /**
+     * Convertit le post en map pour Firebase (voir PostCodec.toMap).
+     *
+     * @return Les champs du post
+     */
     @Exclude
     public Map<String, Object> toMap() {
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("id", id);
-        result.put("userId", userId);
-        result.put("username", username);
-        result.put("content", content);
-        result.put("imageUrl", imageUrl);
-        result.put("createdAt", createdAt.getTime());
-        result.put("likeCount", likeCount);
-        result.put("commentCount", commentCount);
-        result.put("retweetCount", retweetCount);
-        result.put("isRetweet", isRetweet);
-        result.put("isReply", isReply);
-        
-        if (parentId != null) {
-            result.put("parentId", parentId);
-        }
-        
-        if (parentUsername != null) {
-            result.put("parentUsername", parentUsername);
-        }
-        
-        if (isRetweet) {
-            result.put("originalPostId", originalPostId);
-            result.put("originalUserId", originalUserId);
-            result.put("originalUsername", originalUsername);
-        }
-        
-        return result;
+        return PostCodec.toMap(this);
     }
-} 
\ No newline at end of file
+}
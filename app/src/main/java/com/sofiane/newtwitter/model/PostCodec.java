@@ -0,0 +1,191 @@
+package com.sofiane.newtwitter.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conversion explicite entre un post et sa représentation Firebase, sans réflexion.
+ * Les champs sont lus par leur nom dans la valeur brute du snapshot (maps, Long, String, Boolean),
+ * avec un chemin rapide pour les nombres. Le format est celui qu'écrivait le mapper Firebase :
+ * les booléens sont stockés sous "retweet" et "reply", et createdAt est un objet dont "time"
+ * contient le timestamp (clé d'index du fil d'actualité).
+ */
+public final class PostCodec {
+    public static final String ID = "id";
+    public static final String USER_ID = "userId";
+    public static final String USERNAME = "username";
+    public static final String CONTENT = "content";
+    public static final String IMAGE_URL = "imageUrl";
+    public static final String CREATED_AT = "createdAt";
+    public static final String TIME = "time";
+    public static final String LIKE_COUNT = "likeCount";
+    public static final String COMMENT_COUNT = "commentCount";
+    public static final String RETWEET_COUNT = "retweetCount";
+    public static final String PARENT_ID = "parentId";
+    public static final String PARENT_USERNAME = "parentUsername";
+    public static final String ORIGINAL_POST_ID = "originalPostId";
+    public static final String ORIGINAL_USER_ID = "originalUserId";
+    public static final String ORIGINAL_USERNAME = "originalUsername";
+    public static final String RETWEET = "retweet";
+    public static final String REPLY = "reply";
+    // Noms écrits par l'ancien Post.toMap()
+    private static final String LEGACY_IS_RETWEET = "isRetweet";
+    private static final String LEGACY_IS_REPLY = "isReply";
+
+    private PostCodec() {
+    }
+
+    /**
+     * Lit un post depuis un snapshot.
+     *
+     * @param snapshot Le snapshot d'un post
+     * @return Le post, ou null si le snapshot ne contient pas d'objet
+     */
+    @Nullable
+    public static Post fromSnapshot(@NonNull DataSnapshot snapshot) {
+        return fromValue(snapshot.getKey(), snapshot.getValue());
+    }
+
+    /**
+     * Lit un post depuis une valeur brute Firebase (résultat de DataSnapshot.getValue()).
+     *
+     * @param key   La clé du post, utilisée si le champ id est absent
+     * @param value La valeur brute
+     * @return Le post, ou null si la valeur n'est pas un objet
+     */
+    @Nullable
+    public static Post fromValue(@Nullable String key, @Nullable Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> fields = (Map<?, ?>) value;
+        Post post = new Post();
+        String id = readString(fields.get(ID));
+        post.setId(id != null ? id : key);
+        post.setUserId(readString(fields.get(USER_ID)));
+        post.setUsername(readString(fields.get(USERNAME)));
+        post.setContent(readString(fields.get(CONTENT)));
+        post.setImageUrl(readString(fields.get(IMAGE_URL)));
+        // Post() a déjà alloué une date : on la réutilise
+        post.getCreatedAt().setTime(readTime(fields.get(CREATED_AT)));
+        post.setLikeCount(readInt(fields.get(LIKE_COUNT)));
+        post.setCommentCount(readInt(fields.get(COMMENT_COUNT)));
+        post.setRetweetCount(readInt(fields.get(RETWEET_COUNT)));
+        post.setOriginalPostId(readString(fields.get(ORIGINAL_POST_ID)));
+        post.setOriginalUserId(readString(fields.get(ORIGINAL_USER_ID)));
+        post.setOriginalUsername(readString(fields.get(ORIGINAL_USERNAME)));
+        post.setParentUsername(readString(fields.get(PARENT_USERNAME)));
+        // setParentId déduit isReply ; un indicateur explicite peut seulement l'activer
+        post.setParentId(readString(fields.get(PARENT_ID)));
+        if (readBoolean(fields.get(REPLY)) || readBoolean(fields.get(LEGACY_IS_REPLY))) {
+            post.setReply(true);
+        }
+        post.setRetweet(readBoolean(fields.get(RETWEET)) || readBoolean(fields.get(LEGACY_IS_RETWEET)));
+        return post;
+    }
+
+    /**
+     * Construit la représentation Firebase d'un post, à écrire avec setValue ou updateChildren.
+     *
+     * @param post Le post
+     * @return Les champs du post
+     */
+    @NonNull
+    public static Map<String, Object> toMap(@NonNull Post post) {
+        Map<String, Object> fields = new HashMap<>(32);
+        fields.put(ID, post.getId());
+        fields.put(USER_ID, post.getUserId());
+        fields.put(USERNAME, post.getUsername());
+        fields.put(CONTENT, post.getContent());
+        fields.put(IMAGE_URL, post.getImageUrl());
+        Map<String, Object> createdAt = new HashMap<>(2);
+        createdAt.put(TIME, post.getCreatedAt() != null ? post.getCreatedAt().getTime() : System.currentTimeMillis());
+        fields.put(CREATED_AT, createdAt);
+        fields.put(LIKE_COUNT, post.getLikeCount());
+        fields.put(COMMENT_COUNT, post.getCommentCount());
+        fields.put(RETWEET_COUNT, post.getRetweetCount());
+        fields.put(PARENT_ID, post.getParentId());
+        fields.put(PARENT_USERNAME, post.getParentUsername());
+        fields.put(ORIGINAL_POST_ID, post.getOriginalPostId());
+        fields.put(ORIGINAL_USER_ID, post.getOriginalUserId());
+        fields.put(ORIGINAL_USERNAME, post.getOriginalUsername());
+        fields.put(RETWEET, post.isRetweet());
+        fields.put(REPLY, post.isReply());
+        return fields;
+    }
+
+    /**
+     * Lit un timestamp écrit soit comme nombre, soit comme objet Date sérialisé ({"time": ...}).
+     *
+     * @param value La valeur brute de createdAt
+     * @return Le timestamp, ou l'heure actuelle si la valeur est illisible
+     */
+    public static long readTime(@Nullable Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Map) {
+            Object time = ((Map<?, ?>) value).get(TIME);
+            if (time instanceof Long) {
+                return (Long) time;
+            }
+            if (time instanceof Number) {
+                return ((Number) time).longValue();
+            }
+        }
+        return System.currentTimeMillis();
+    }
+
+    static int readInt(@Nullable Object value) {
+        // Firebase renvoie les entiers en Long
+        if (value instanceof Long) {
+            return (int) (long) (Long) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return 0;
+    }
+
+    static long readLong(@Nullable Object value) {
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return 0L;
+    }
+
+    static boolean readBoolean(@Nullable Object value) {
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    @Nullable
+    static String readString(@Nullable Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Crée une date à partir d'une valeur brute de createdAt.
+     *
+     * @param value La valeur brute
+     * @return La date correspondante
+     */
+    @NonNull
+    static Date readDate(@Nullable Object value) {
+        return new Date(readTime(value));
+    }
+}
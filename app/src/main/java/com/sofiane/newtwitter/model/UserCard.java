@@ -0,0 +1,109 @@
+package com.sofiane.newtwitter.model;
+
+import com.google.firebase.database.Exclude;
+
+/**
+ * Projection légère d'un utilisateur contenant uniquement les informations
+ * nécessaires à l'affichage d'un avatar ou d'une ligne de liste
+ * (nom, icône, couleur et images).
+ * Contrairement à User, elle ne contient pas les maps de followers et following.
+ */
+public class UserCard {
+    private String userId;              // Identifiant unique de l'utilisateur
+    private String username;            // Nom d'utilisateur affiché
+    private Integer profileIconIndex;   // Index de l'icône de profil (null si non défini)
+    private Integer profileColorIndex;  // Index de la couleur de profil (null si non défini)
+    private String profileImageUrl;     // URL de l'image de profil
+    private String bannerImageUrl;      // URL de l'image de bannière
+
+    /**
+     * Constructeur par défaut requis pour Firebase.
+     */
+    public UserCard() {
+    }
+
+    /**
+     * Crée la projection d'un utilisateur complet.
+     *
+     * @param user L'utilisateur source
+     * @return La carte correspondant à l'utilisateur
+     */
+    public static UserCard fromUser(User user) {
+        UserCard card = new UserCard();
+        card.userId = user.getUserId();
+        card.username = user.getUsername();
+        card.profileIconIndex = user.getProfileIconIndex();
+        card.profileColorIndex = user.getProfileColorIndex();
+        card.profileImageUrl = user.getProfileImageUrl();
+        card.bannerImageUrl = user.getBannerImageUrl();
+        return card;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Integer getProfileIconIndex() {
+        return profileIconIndex;
+    }
+
+    public void setProfileIconIndex(Integer profileIconIndex) {
+        this.profileIconIndex = profileIconIndex;
+    }
+
+    public Integer getProfileColorIndex() {
+        return profileColorIndex;
+    }
+
+    public void setProfileColorIndex(Integer profileColorIndex) {
+        this.profileColorIndex = profileColorIndex;
+    }
+
+    public String getProfileImageUrl() {
+        return profileImageUrl;
+    }
+
+    public void setProfileImageUrl(String profileImageUrl) {
+        this.profileImageUrl = profileImageUrl;
+    }
+
+    public String getBannerImageUrl() {
+        return bannerImageUrl;
+    }
+
+    public void setBannerImageUrl(String bannerImageUrl) {
+        this.bannerImageUrl = bannerImageUrl;
+    }
+
+    /**
+     * Indique si l'utilisateur a choisi une icône et une couleur de profil.
+     *
+     * @return true si les deux index sont définis
+     */
+    @Exclude
+    public boolean hasProfileIcon() {
+        return profileIconIndex != null && profileColorIndex != null;
+    }
+
+    @Override
+    public String toString() {
+        return "UserCard{" +
+                "userId='" + userId + '\'' +
+                ", username='" + username + '\'' +
+                ", profileIconIndex=" + profileIconIndex +
+                ", profileColorIndex=" + profileColorIndex +
+                '}';
+    }
+}
@@ -0,0 +1,126 @@
+package com.sofiane.newtwitter.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conversion explicite entre un utilisateur et sa représentation Firebase (users/{uid}), sans réflexion.
+ * Les champs sont lus par leur nom dans la valeur brute du snapshot ; le format est celui qu'écrivait
+ * le mapper Firebase.
+ */
+public final class UserCodec {
+    public static final String USER_ID = "userId";
+    public static final String ID = "id";
+    public static final String USERNAME = "username";
+    public static final String EMAIL = "email";
+    public static final String PROFILE_IMAGE_URL = "profileImageUrl";
+    public static final String BANNER_IMAGE_URL = "bannerImageUrl";
+    public static final String BIO = "bio";
+    public static final String CREATED_AT = "createdAt";
+    public static final String FOLLOWERS = "followers";
+    public static final String FOLLOWING = "following";
+    public static final String FOLLOWERS_COUNT = "followersCount";
+    public static final String FOLLOWING_COUNT = "followingCount";
+    public static final String PROFILE_ICON_INDEX = "profileIconIndex";
+    public static final String PROFILE_COLOR_INDEX = "profileColorIndex";
+
+    private UserCodec() {
+    }
+
+    /**
+     * Lit un utilisateur depuis un snapshot.
+     *
+     * @param snapshot Le snapshot de users/{uid}
+     * @return L'utilisateur, ou null si le snapshot ne contient pas d'objet
+     */
+    @Nullable
+    public static User fromSnapshot(@NonNull DataSnapshot snapshot) {
+        return fromValue(snapshot.getKey(), snapshot.getValue());
+    }
+
+    /**
+     * Lit un utilisateur depuis une valeur brute Firebase (résultat de DataSnapshot.getValue()).
+     *
+     * @param key   La clé de l'utilisateur, utilisée si userId et id sont absents
+     * @param value La valeur brute
+     * @return L'utilisateur, ou null si la valeur n'est pas un objet
+     */
+    @Nullable
+    public static User fromValue(@Nullable String key, @Nullable Object value) {
+        if (!(value instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> fields = (Map<?, ?>) value;
+        User user = new User();
+        String userId = PostCodec.readString(fields.get(USER_ID));
+        if (userId == null) {
+            userId = PostCodec.readString(fields.get(ID));
+        }
+        user.setUserId(userId != null ? userId : key);
+        user.setUsername(PostCodec.readString(fields.get(USERNAME)));
+        user.setEmail(PostCodec.readString(fields.get(EMAIL)));
+        user.setProfileImageUrl(PostCodec.readString(fields.get(PROFILE_IMAGE_URL)));
+        user.setBannerImageUrl(PostCodec.readString(fields.get(BANNER_IMAGE_URL)));
+        user.setBio(PostCodec.readString(fields.get(BIO)));
+        user.setCreatedAt(PostCodec.readLong(fields.get(CREATED_AT)));
+        // Les maps déduisent les compteurs ; les compteurs stockés, s'ils existent, font foi
+        user.setFollowers(readFlags(fields.get(FOLLOWERS)));
+        user.setFollowing(readFlags(fields.get(FOLLOWING)));
+        if (fields.containsKey(FOLLOWERS_COUNT)) {
+            user.setFollowersCount(PostCodec.readInt(fields.get(FOLLOWERS_COUNT)));
+        }
+        if (fields.containsKey(FOLLOWING_COUNT)) {
+            user.setFollowingCount(PostCodec.readInt(fields.get(FOLLOWING_COUNT)));
+        }
+        user.setProfileIconIndex(PostCodec.readInt(fields.get(PROFILE_ICON_INDEX)));
+        user.setProfileColorIndex(PostCodec.readInt(fields.get(PROFILE_COLOR_INDEX)));
+        return user;
+    }
+
+    /**
+     * Construit la représentation Firebase d'un utilisateur, à écrire avec setValue ou updateChildren.
+     *
+     * @param user L'utilisateur
+     * @return Les champs de l'utilisateur
+     */
+    @NonNull
+    public static Map<String, Object> toMap(@NonNull User user) {
+        Map<String, Object> fields = new HashMap<>(24);
+        fields.put(USER_ID, user.getUserId());
+        fields.put(ID, user.getId());
+        fields.put(USERNAME, user.getUsername());
+        fields.put(EMAIL, user.getEmail());
+        fields.put(PROFILE_IMAGE_URL, user.getProfileImageUrl());
+        fields.put(BANNER_IMAGE_URL, user.getBannerImageUrl());
+        fields.put(BIO, user.getBio());
+        fields.put(CREATED_AT, user.getCreatedAt());
+        if (!user.getFollowers().isEmpty()) {
+            fields.put(FOLLOWERS, new HashMap<>(user.getFollowers()));
+        }
+        if (!user.getFollowing().isEmpty()) {
+            fields.put(FOLLOWING, new HashMap<>(user.getFollowing()));
+        }
+        fields.put(FOLLOWERS_COUNT, user.getFollowersCount());
+        fields.put(FOLLOWING_COUNT, user.getFollowingCount());
+        fields.put(PROFILE_ICON_INDEX, user.getProfileIconIndex());
+        fields.put(PROFILE_COLOR_INDEX, user.getProfileColorIndex());
+        return fields;
+    }
+
+    private static Map<String, Boolean> readFlags(@Nullable Object value) {
+        if (!(value instanceof Map)) {
+            return new HashMap<>();
+        }
+        Map<?, ?> entries = (Map<?, ?>) value;
+        Map<String, Boolean> flags = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            flags.put(String.valueOf(entry.getKey()), !Boolean.FALSE.equals(entry.getValue()));
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,27 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DatabaseError;
+
+/**
+ * Échec d'une écriture Realtime Database qui conserve le code de DatabaseError.
+ * L'exception des tâches renvoyées par updateChildren(Map) ne le conserve pas :
+ * DatabaseError.fromException la rend toujours comme USER_CODE_EXCEPTION.
+ * Voir Stores.updateChildren et Stores.isPermissionDenied.
+ */
+public class DatabaseWriteException extends Exception {
+    private final int code;
+
+    public DatabaseWriteException(@NonNull DatabaseError error) {
+        super(error.getMessage());
+        this.code = error.getCode();
+    }
+
+    /**
+     * @return Le code de DatabaseError (ex : DatabaseError.PERMISSION_DENIED)
+     */
+    public int getCode() {
+        return code;
+    }
+}
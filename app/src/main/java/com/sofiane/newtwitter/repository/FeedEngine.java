@@ -0,0 +1,447 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+/**
+ * Moteur de fil d'actualité incrémental basé sur les événements enfants de Firebase
+ * (child added / changed / removed / moved).
+ * Il maintient un index trié en mémoire (du plus récent au plus ancien) et une table
+ * des posts par identifiant. Chaque événement trouve sa position en O(log n) par recherche
+ * dichotomique ; l'insertion ou le retrait dans les listes décale ensuite les éléments suivants
+ * (O(n), une seule copie de tableau). La modification est émise sous forme minimale (Change)
+ * que l'adaptateur peut appliquer avec une seule notification.
+ * L'index peut aussi être alimenté par une liste complète (replaceAll), par exemple
+ * depuis le stockage local.
+ * Les événements Firebase sont désérialisés hors du thread principal (PostParser) puis appliqués
+ * dans leur ordre d'arrivée sur le thread principal.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class FeedEngine {
+    private static final String TAG = "FeedEngine";
+
+    /**
+     * Ordre du fil : date de création décroissante, puis identifiant décroissant
+     * (même départage que la pagination de PostRepository).
+     */
+    public static final Comparator<Post> NEWEST_FIRST = (p1, p2) -> {
+        long t1 = p1.getCreatedAt() != null ? p1.getCreatedAt().getTime() : 0L;
+        long t2 = p2.getCreatedAt() != null ? p2.getCreatedAt().getTime() : 0L;
+        if (t1 != t2) {
+            return t1 > t2 ? -1 : 1;
+        }
+        String id1 = p1.getId() != null ? p1.getId() : "";
+        String id2 = p2.getId() != null ? p2.getId() : "";
+        return id2.compareTo(id1);
+    };
+
+    /**
+     * Filtre du fil d'accueil : uniquement les posts originaux (ni retweets, ni réponses).
+     */
+    public static final Predicate<Post> ORIGINAL_POSTS = post -> !post.isRetweet() && !post.isReply();
+
+    /**
+     * Interface de callback notifiée à chaque modification de la liste visible.
+     */
+    public interface Listener {
+        /**
+         * Appelé après l'application d'une modification.
+         *
+         * @param change La modification appliquée à la liste visible
+         */
+        void onFeedChanged(Change change);
+
+        /**
+         * Appelé après toute modification de l'index, y compris pour les posts masqués
+         * par le filtre (ex : une nouvelle réponse qui n'apparaît pas dans le fil).
+         */
+        default void onIndexChanged() {
+        }
+    }
+
+    /**
+     * Modification minimale appliquée à la liste visible du fil.
+     * Le numéro de version permet à un consommateur de détecter qu'il a manqué
+     * une modification et qu'il doit se resynchroniser avec getVisiblePosts().
+     */
+    public static final class Change {
+        public static final int RESET = 0;
+        public static final int INSERTED = 1;
+        public static final int CHANGED = 2;
+        public static final int REMOVED = 3;
+        public static final int MOVED = 4;
+
+        private final int type;
+        private final int fromPosition;
+        private final int toPosition;
+        private final Post post;
+        private final long version;
+
+        Change(int type, int fromPosition, int toPosition, @Nullable Post post, long version) {
+            this.type = type;
+            this.fromPosition = fromPosition;
+            this.toPosition = toPosition;
+            this.post = post;
+            this.version = version;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        /**
+         * @return La position avant la modification (REMOVED, MOVED), ou -1
+         */
+        public int getFromPosition() {
+            return fromPosition;
+        }
+
+        /**
+         * @return La position après la modification (INSERTED, CHANGED, MOVED), ou -1
+         */
+        public int getToPosition() {
+            return toPosition;
+        }
+
+        @Nullable
+        public Post getPost() {
+            return post;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    // Tous les posts indexés, triés, et uniquement ceux qui passent le filtre
+    private final List<Post> allPosts = new ArrayList<>();
+    private final List<Post> visiblePosts = new ArrayList<>();
+    private final Map<String, Post> postsById = new HashMap<>();
+    private final Predicate<Post> visibleFilter;
+    private final Listener listener;
+    private long version = 0;
+
+    // Listeners attachés via SharedQueries, pour pouvoir les détacher
+    private final List<QueryShapes.Bounded> attachedQueries = new ArrayList<>();
+    private final List<ChildEventListener> attachedListeners = new ArrayList<>();
+    // Parsing ordonné des événements enfants, et génération pour ignorer ceux d'avant un reset()
+    private final Executor eventParsing = AppExecutors.newSerialExecutor();
+    private int attachGeneration = 0;
+
+    /**
+     * Crée un moteur de fil.
+     *
+     * @param visibleFilter Filtre des posts affichés (null pour tout afficher)
+     * @param listener      Callback notifié des modifications de la liste visible
+     */
+    public FeedEngine(@Nullable Predicate<Post> visibleFilter, @NonNull Listener listener) {
+        this.visibleFilter = visibleFilter;
+        this.listener = listener;
+    }
+
+    /**
+     * Attache un listener d'événements enfants à une requête Firebase.
+     * Les posts de la requête sont ajoutés à l'index et suivis en temps réel.
+     * Le listener Firebase est partagé avec les autres moteurs qui suivent la même requête (SharedQueries).
+     *
+     * @param query La requête à suivre
+     */
+    public void attach(@NonNull QueryShapes.Bounded query) {
+        ChildEventListener childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                upsertParsed(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                upsertParsed(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                // Même file que les ajouts, pour ne pas dépasser un ajout encore en cours de parsing
+                final int currentGeneration = attachGeneration;
+                eventParsing.execute(() -> AppExecutors.mainThread().execute(() -> {
+                    if (currentGeneration == attachGeneration) {
+                        remove(snapshot.getKey());
+                    }
+                }));
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // L'ordre du fil est calculé localement, un déplacement est traité comme une mise à jour
+                upsertParsed(snapshot);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Feed listener cancelled: " + error.getMessage());
+            }
+        };
+        SharedQueries.getInstance().addChildListener(query, childListener);
+        attachedQueries.add(query);
+        attachedListeners.add(childListener);
+    }
+
+    /**
+     * Détache tous les listeners Firebase et vide l'index.
+     */
+    public void reset() {
+        // Les événements encore en cours de parsing sont ignorés
+        attachGeneration++;
+        for (int i = 0; i < attachedQueries.size(); i++) {
+            SharedQueries.getInstance().removeChildListener(attachedQueries.get(i), attachedListeners.get(i));
+        }
+        attachedQueries.clear();
+        attachedListeners.clear();
+        allPosts.clear();
+        visiblePosts.clear();
+        postsById.clear();
+        version++;
+        listener.onFeedChanged(new Change(Change.RESET, -1, -1, null, version));
+        listener.onIndexChanged();
+    }
+
+    /**
+     * Ajoute ou met à jour un post dans l'index.
+     *
+     * @param post Le post reçu de Firebase
+     */
+    public void upsert(@Nullable Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+
+        Post existing = postsById.get(post.getId());
+        if (existing != null && existing.hasSameContent(post)) {
+            // Rejeu d'un post déjà connu (ex : chargement initial d'une requête), rien à faire
+            return;
+        }
+
+        if (existing != null) {
+            removeFrom(allPosts, existing);
+        }
+        allPosts.add(insertionPoint(allPosts, post), post);
+        postsById.put(post.getId(), post);
+
+        // Position de l'ancienne version dans la liste visible, -1 si elle n'y figure pas
+        int from = existing != null && isVisible(existing) ? indexOf(visiblePosts, existing) : -1;
+        boolean visible = isVisible(post);
+        if (from < 0 && !visible) {
+            listener.onIndexChanged();
+            return;
+        }
+
+        Change change;
+        if (from < 0) {
+            int position = insertionPoint(visiblePosts, post);
+            visiblePosts.add(position, post);
+            change = new Change(Change.INSERTED, -1, position, post, ++version);
+        } else if (!visible) {
+            visiblePosts.remove(from);
+            change = new Change(Change.REMOVED, from, -1, existing, ++version);
+        } else if (NEWEST_FIRST.compare(existing, post) == 0) {
+            // Cas le plus courant (like, retweet, réponse) : la position ne change pas
+            visiblePosts.set(from, post);
+            change = new Change(Change.CHANGED, from, from, post, ++version);
+        } else {
+            visiblePosts.remove(from);
+            int to = insertionPoint(visiblePosts, post);
+            visiblePosts.add(to, post);
+            change = new Change(Change.MOVED, from, to, post, ++version);
+        }
+        listener.onFeedChanged(change);
+        listener.onIndexChanged();
+    }
+
+    /**
+     * Supprime un post de l'index.
+     *
+     * @param postId L'identifiant du post supprimé
+     */
+    public void remove(@Nullable String postId) {
+        if (postId == null) {
+            return;
+        }
+        Post existing = postsById.remove(postId);
+        if (existing == null) {
+            return;
+        }
+        removeFrom(allPosts, existing);
+        int position = isVisible(existing) ? removeFrom(visiblePosts, existing) : -1;
+        if (position >= 0) {
+            listener.onFeedChanged(new Change(Change.REMOVED, position, -1, existing, ++version));
+        }
+        listener.onIndexChanged();
+    }
+
+    /**
+     * Remplace le contenu de l'index par une liste complète (ex : une relecture du stockage local).
+     * Une seule différence est émise comme modification minimale ; au-delà, l'index est
+     * reconstruit et une seule modification RESET est émise.
+     *
+     * @param posts Les posts à indexer
+     */
+    public void replaceAll(@NonNull List<Post> posts) {
+        Map<String, Post> incoming = new HashMap<>();
+        for (Post post : posts) {
+            if (post != null && post.getId() != null) {
+                incoming.put(post.getId(), post);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String postId : postsById.keySet()) {
+            if (!incoming.containsKey(postId)) {
+                removed.add(postId);
+            }
+        }
+        List<Post> updated = new ArrayList<>();
+        for (Post post : incoming.values()) {
+            Post existing = postsById.get(post.getId());
+            if (existing == null || !existing.hasSameContent(post)) {
+                updated.add(post);
+            }
+        }
+
+        int differences = removed.size() + updated.size();
+        if (differences == 0) {
+            return;
+        }
+        if (differences == 1) {
+            if (removed.isEmpty()) {
+                upsert(updated.get(0));
+            } else {
+                remove(removed.get(0));
+            }
+            return;
+        }
+
+        allPosts.clear();
+        visiblePosts.clear();
+        postsById.clear();
+        allPosts.addAll(incoming.values());
+        Collections.sort(allPosts, NEWEST_FIRST);
+        for (Post post : allPosts) {
+            postsById.put(post.getId(), post);
+            if (isVisible(post)) {
+                visiblePosts.add(post);
+            }
+        }
+        version++;
+        listener.onFeedChanged(new Change(Change.RESET, -1, -1, null, version));
+        listener.onIndexChanged();
+    }
+
+    /**
+     * Récupère un post indexé par son identifiant.
+     *
+     * @param postId L'identifiant du post
+     * @return Le post, ou null s'il n'est pas chargé
+     */
+    @Nullable
+    public Post getPost(String postId) {
+        return postsById.get(postId);
+    }
+
+    /**
+     * @return Une copie de la liste visible, triée du plus récent au plus ancien
+     */
+    public List<Post> getVisiblePosts() {
+        return new ArrayList<>(visiblePosts);
+    }
+
+    /**
+     * @return Une copie de tous les posts indexés (y compris ceux masqués par le filtre)
+     */
+    public List<Post> getAllPosts() {
+        return new ArrayList<>(allPosts);
+    }
+
+    /**
+     * @return Le nombre de posts indexés (y compris ceux masqués par le filtre)
+     */
+    public int getAllPostsCount() {
+        return allPosts.size();
+    }
+
+    /**
+     * @return Le numéro de la dernière modification émise
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    private boolean isVisible(Post post) {
+        return visibleFilter == null || visibleFilter.test(post);
+    }
+
+    /**
+     * Désérialise un événement enfant en arrière-plan, puis l'applique sur le thread principal.
+     */
+    private void upsertParsed(DataSnapshot snapshot) {
+        final int currentGeneration = attachGeneration;
+        eventParsing.execute(() -> {
+            Post post = PostParser.parse(snapshot);
+            AppExecutors.mainThread().execute(() -> {
+                if (currentGeneration == attachGeneration) {
+                    upsert(post);
+                }
+            });
+        });
+    }
+
+    /**
+     * Position du post dans la liste triée, ou -1 s'il n'y figure pas. Si l'ordre a été faussé
+     * (post modifié sur place), la recherche dichotomique échoue et la liste est parcourue.
+     */
+    private static int indexOf(List<Post> list, Post post) {
+        int index = Collections.binarySearch(list, post, NEWEST_FIRST);
+        if (index >= 0 && list.get(index) == post) {
+            return index;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == post) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retire le post de la liste triée s'il y figure.
+     *
+     * @return Sa position, ou -1 s'il n'y figurait pas
+     */
+    private static int removeFrom(List<Post> list, Post post) {
+        int index = indexOf(list, post);
+        if (index >= 0) {
+            list.remove(index);
+        }
+        return index;
+    }
+
+    private static int insertionPoint(List<Post> list, Post post) {
+        int index = Collections.binarySearch(list, post, NEWEST_FIRST);
+        return index >= 0 ? index : -(index + 1);
+    }
+}
@@ -0,0 +1,262 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.repository.store.FollowGraphStore;
+import com.sofiane.newtwitter.repository.store.KeySetListener;
+import com.sofiane.newtwitter.repository.store.Registration;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.StoreListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FollowGraphStore sur Firebase Realtime Database.
+ * Les arêtes sont stockées dans follows/{uid}/following et follows/{uid}/followers,
+ * les compteurs dans users/{uid}/followersCount et users/{uid}/followingCount.
+ * Les règles refusent l'écriture si l'arête est déjà dans l'état demandé ; ce refus
+ * (PERMISSION_DENIED), confirmé par une relecture de l'arête, est rendu comme un résultat false
+ * de setFollowing. Tout autre refus est une erreur.
+ */
+final class FirebaseFollowGraphStore implements FollowGraphStore {
+    private final DatabaseReference rootRef;
+    private final DatabaseReference usersRef;
+    private final DatabaseReference followsRef;
+
+    FirebaseFollowGraphStore(@NonNull DatabaseReference rootRef) {
+        this.rootRef = rootRef;
+        this.usersRef = rootRef.child("users");
+        this.followsRef = rootRef.child("follows");
+    }
+
+    /**
+     * Écrit les deux arêtes du nœud follows et les incréments atomiques (ServerValue.increment)
+     * de followingCount et followersCount en une seule écriture multi-chemins.
+     */
+    @Override
+    public void setFollowing(@NonNull String followerId, @NonNull String targetId, boolean follow,
+                             @NonNull StoreCallback<Boolean> callback) {
+        if (followerId.equals(targetId)) {
+            callback.onError("You cannot follow yourself");
+            return;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        Object edge = follow ? true : null;
+        updates.put("/follows/" + followerId + "/following/" + targetId, edge);
+        updates.put("/follows/" + targetId + "/followers/" + followerId, edge);
+        updates.put("/users/" + followerId + "/" + FollowRepository.FOLLOWING_COUNT, ServerValue.increment(follow ? 1 : -1));
+        updates.put("/users/" + targetId + "/" + FollowRepository.FOLLOWERS_COUNT, ServerValue.increment(follow ? 1 : -1));
+        // Un refus des règles alors que l'arête est déjà dans l'état demandé est rendu comme false
+        rootRef.updateChildren(updates, Stores.conditionalWrite(edgeRef(followerId, targetId), follow, callback));
+    }
+
+    @Override
+    public void isFollowing(@NonNull String followerId, @NonNull String targetId, @NonNull StoreCallback<Boolean> callback) {
+        edgeRef(followerId, targetId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                callback.onSuccess(snapshot.exists());
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void getFollowing(@NonNull String userId, @NonNull StoreCallback<Set<String>> callback) {
+        readKeys(followsRef.child(userId).child("following"), callback);
+    }
+
+    @Override
+    public void getFollowingSample(@NonNull String userId, int limit, @NonNull StoreCallback<Set<String>> callback) {
+        readKeys(followsRef.child(userId).child("following").orderByKey().limitToFirst(limit), callback);
+    }
+
+    @Override
+    public void getFollowers(@NonNull String userId, @NonNull StoreCallback<Set<String>> callback) {
+        readKeys(followsRef.child(userId).child("followers"), callback);
+    }
+
+    @Override
+    public void getFollowersCount(@NonNull String userId, @NonNull StoreCallback<Integer> callback) {
+        readCount(usersRef.child(userId).child(FollowRepository.FOLLOWERS_COUNT), callback);
+    }
+
+    @Override
+    public void getFollowingCount(@NonNull String userId, @NonNull StoreCallback<Integer> callback) {
+        readCount(usersRef.child(userId).child(FollowRepository.FOLLOWING_COUNT), callback);
+    }
+
+    @Override
+    public void recountFollows(@NonNull String userId, @NonNull StoreCallback<Void> callback) {
+        followsRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Map<String, Object> updates = new HashMap<>();
+                updates.put(FollowRepository.FOLLOWERS_COUNT, (int) snapshot.child("followers").getChildrenCount());
+                updates.put(FollowRepository.FOLLOWING_COUNT, (int) snapshot.child("following").getChildrenCount());
+                usersRef.child(userId).updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                        .addOnFailureListener(e -> callback.onError(e.getMessage()));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public Registration observeFollowersCount(@NonNull String userId, @NonNull StoreListener<Integer> listener) {
+        return observeCount(usersRef.child(userId).child(FollowRepository.FOLLOWERS_COUNT), listener);
+    }
+
+    @NonNull
+    @Override
+    public Registration observeFollowingCount(@NonNull String userId, @NonNull StoreListener<Integer> listener) {
+        return observeCount(usersRef.child(userId).child(FollowRepository.FOLLOWING_COUNT), listener);
+    }
+
+    @NonNull
+    @Override
+    public Registration observeFollowing(@NonNull String followerId, @NonNull String targetId,
+                                         @NonNull StoreListener<Boolean> listener) {
+        DatabaseReference ref = edgeRef(followerId, targetId);
+        ValueEventListener valueListener = ref.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onValue(snapshot.exists());
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        });
+        return () -> ref.removeEventListener(valueListener);
+    }
+
+    /**
+     * Un ChildEventListener sur follows/{uid}/following : le SDK transmet les enfants existants
+     * puis seulement les arêtes modifiées. La lecture ponctuelle ajoutée ensuite est servie par la
+     * même synchronisation, après les onChildAdded initiaux : elle marque la fin de l'état initial.
+     */
+    @NonNull
+    @Override
+    public Registration observeFollowingSet(@NonNull String followerId, @NonNull KeySetListener listener) {
+        DatabaseReference ref = followsRef.child(followerId).child("following");
+        ChildEventListener childListener = ref.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                listener.onAdded(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                listener.onRemoved(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        });
+        ValueEventListener loadedListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onLoaded();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                // Déjà signalé par le ChildEventListener
+            }
+        };
+        ref.addListenerForSingleValueEvent(loadedListener);
+        return () -> {
+            ref.removeEventListener(childListener);
+            ref.removeEventListener(loadedListener);
+        };
+    }
+
+    private static Registration observeCount(DatabaseReference ref, StoreListener<Integer> listener) {
+        ValueEventListener valueListener = ref.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Integer count = snapshot.getValue(Integer.class);
+                listener.onValue(count != null ? Math.max(count, 0) : 0);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        });
+        return () -> ref.removeEventListener(valueListener);
+    }
+
+    private DatabaseReference edgeRef(String followerId, String targetId) {
+        return followsRef.child(followerId).child("following").child(targetId);
+    }
+
+    private static void readKeys(Query ref, StoreCallback<Set<String>> callback) {
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Set<String> keys = new HashSet<>((int) snapshot.getChildrenCount() * 2);
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    keys.add(child.getKey());
+                }
+                callback.onSuccess(keys);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Lit un seul compteur (sans le profil ni les listes d'abonnements).
+     */
+    private static void readCount(DatabaseReference ref, StoreCallback<Integer> callback) {
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Integer count = snapshot.getValue(Integer.class);
+                callback.onSuccess(count != null ? Math.max(count, 0) : 0);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+}
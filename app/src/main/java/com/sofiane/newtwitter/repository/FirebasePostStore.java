@@ -0,0 +1,367 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+import com.sofiane.newtwitter.repository.store.KeySetListener;
+import com.sofiane.newtwitter.repository.store.PostStore;
+import com.sofiane.newtwitter.repository.store.Registration;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.StoreListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PostStore sur Firebase Realtime Database.
+ * Les écritures sont celles de PostCounters et TimelineFanout : une seule écriture multi-chemins
+ * par opération, et les règles refusent une variation de compteur sans changement de marqueur.
+ * Ce refus (PERMISSION_DENIED), confirmé par une relecture du marqueur, est rendu comme un résultat
+ * false de setLiked et retweet ; tout autre refus est une erreur.
+ * Les réponses sont lues par l'index replies/{parentId}/{replyId} = date de création (voir PostCounters),
+ * puis chaque réponse par sa clé.
+ */
+final class FirebasePostStore implements PostStore {
+    private final DatabaseReference rootRef;
+    private final DatabaseReference postsRef;
+    private final DatabaseReference repliesRef;
+
+    FirebasePostStore(@NonNull DatabaseReference rootRef) {
+        this.rootRef = rootRef;
+        this.postsRef = rootRef.child("posts");
+        this.repliesRef = rootRef.child(ThreadLoader.REPLIES);
+    }
+
+    @NonNull
+    @Override
+    public String newPostId() {
+        String postId = postsRef.push().getKey();
+        if (postId == null) {
+            throw new IllegalStateException("Failed to create post ID");
+        }
+        return postId;
+    }
+
+    @Override
+    public void getPost(@NonNull String postId, @NonNull StoreCallback<Post> callback) {
+        postsRef.child(postId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                callback.onSuccess(PostParser.parse(snapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void loadLatest(int limit, @Nullable Post before, @NonNull StoreCallback<List<Post>> callback) {
+        Query query = QueryShapes.POSTS_BY_CREATED_AT.on(postsRef);
+        int requested = limit;
+        if (before != null) {
+            // endAt est inclusif : on demande un post de plus pour compenser le curseur lui-même
+            query = query.endAt(before.getCreatedAt().getTime(), before.getId());
+            requested++;
+        }
+        final String cursorId = before != null ? before.getId() : null;
+        query.limitToLast(requested).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                PostParser.parseChildrenAsync(snapshot, post -> !post.getId().equals(cursorId),
+                        FeedEngine.NEWEST_FIRST, posts -> {
+                            while (posts.size() > limit) {
+                                posts.remove(posts.size() - 1);
+                            }
+                            callback.onSuccess(posts);
+                        });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void loadReplies(@NonNull String parentId, int limit, @Nullable Post after,
+                            @NonNull StoreCallback<List<Post>> callback) {
+        Query query = QueryShapes.REPLIES_BY_TIME.on(repliesRef.child(parentId));
+        int requested = limit;
+        if (after != null) {
+            // startAt est inclusif : on demande une entrée de plus pour compenser le curseur lui-même
+            query = query.startAt(time(after), after.getId());
+            requested++;
+        }
+        final String cursorId = after != null ? after.getId() : null;
+        query.limitToFirst(requested).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<String> ids = new ArrayList<>();
+                for (DataSnapshot entry : snapshot.getChildren()) {
+                    if (!entry.getKey().equals(cursorId) && ids.size() < limit) {
+                        ids.add(entry.getKey());
+                    }
+                }
+                getPosts(ids, callback);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void getRepliesByParent(@NonNull String parentId, @NonNull StoreCallback<List<Post>> callback) {
+        QueryShapes.POSTS_BY_PARENT.on(postsRef).equalTo(parentId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                PostParser.parseChildrenAsync(snapshot, Post::isReply, null, callback::onSuccess);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Un ChildEventListener sur l'index des réponses, comme observeFollowingSet de
+     * FirebaseFollowGraphStore : la lecture ponctuelle ajoutée ensuite marque la fin de l'état initial.
+     */
+    @NonNull
+    @Override
+    public Registration observeReplies(@NonNull String parentId, @Nullable Post after,
+                                       @NonNull KeySetListener listener) {
+        Query query = QueryShapes.REPLIES_BY_TIME.on(repliesRef.child(parentId));
+        if (after != null) {
+            query = query.startAt(time(after), after.getId());
+        }
+        final Query observed = query;
+        ChildEventListener childListener = observed.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                listener.onAdded(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                listener.onRemoved(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        });
+        ValueEventListener loadedListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onLoaded();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                // Déjà signalé par le ChildEventListener
+            }
+        };
+        observed.addListenerForSingleValueEvent(loadedListener);
+        return () -> {
+            observed.removeEventListener(childListener);
+            observed.removeEventListener(loadedListener);
+        };
+    }
+
+    @Override
+    public void publish(@NonNull Post post, @NonNull StoreCallback<Void> callback) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("/posts/" + post.getId(), PostCodec.toMap(post));
+        TimelineFanout.addAuthorEntries(updates, post);
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    // Un post refusé ne doit pas être recopié dans les fils des followers
+                    TimelineFanout.fanOut(rootRef, post);
+                    callback.onSuccess(null);
+                })
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    @Override
+    public void reply(@NonNull Post reply, @NonNull StoreCallback<Void> callback) {
+        rootRef.updateChildren(PostCounters.reply(reply))
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    @Override
+    public void retweet(@NonNull Post retweet, @NonNull StoreCallback<Boolean> callback) {
+        Map<String, Object> updates = PostCounters.retweet(retweet);
+        TimelineFanout.addAuthorEntries(updates, retweet);
+        DatabaseReference marker = rootRef.child("retweets")
+                .child(PostCounters.retweetKey(retweet.getOriginalPostId(), retweet.getUserId()));
+        // Un refus des règles alors que le marqueur existe déjà est rendu comme false
+        rootRef.updateChildren(updates, Stores.conditionalWrite(marker, true, new StoreCallback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean created) {
+                if (created) {
+                    TimelineFanout.fanOut(rootRef, retweet);
+                }
+                callback.onSuccess(created);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+        }));
+    }
+
+    @Override
+    public void findRetweet(@NonNull String originalPostId, @NonNull String userId, @NonNull StoreCallback<String> callback) {
+        rootRef.child("retweets").child(PostCounters.retweetKey(originalPostId, userId))
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        callback.onSuccess(snapshot.getValue(String.class));
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    @Override
+    public void unretweet(@NonNull String originalPostId, @NonNull String userId, @NonNull String retweetId,
+                          @NonNull StoreCallback<Void> callback) {
+        Map<String, Object> updates = PostCounters.unretweet(originalPostId, userId, retweetId);
+        TimelineFanout.removeAuthorEntries(updates, userId, retweetId);
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    @Override
+    public void setLiked(@NonNull String postId, @NonNull String userId, boolean liked,
+                         @NonNull StoreCallback<Boolean> callback) {
+        DatabaseReference marker = rootRef.child("likes").child(PostCounters.likeKey(postId, userId));
+        // Un refus des règles alors que le marqueur est déjà dans l'état demandé est rendu comme false
+        rootRef.updateChildren(PostCounters.like(postId, userId, liked), Stores.conditionalWrite(marker, liked, callback));
+    }
+
+    @Override
+    public void isLiked(@NonNull String postId, @NonNull String userId, @NonNull StoreCallback<Boolean> callback) {
+        rootRef.child("likes").child(PostCounters.likeKey(postId, userId))
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        callback.onSuccess(snapshot.exists());
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    @Override
+    public void delete(@NonNull Post post, @NonNull StoreCallback<Void> callback) {
+        Map<String, Object> updates = post.isReply() && post.getParentId() != null
+                ? PostCounters.deleteReply(post)
+                : new HashMap<>();
+        updates.put("/posts/" + post.getId(), null);
+        TimelineFanout.removeAuthorEntries(updates, post.getUserId(), post.getId());
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    /**
+     * Lit des posts par leur clé, en parallèle ; le résultat garde l'ordre des clés.
+     * Un post supprimé ou illisible est omis.
+     */
+    private void getPosts(List<String> ids, StoreCallback<List<Post>> callback) {
+        if (ids.isEmpty()) {
+            callback.onSuccess(new ArrayList<>());
+            return;
+        }
+        final Post[] page = new Post[ids.size()];
+        final int[] pending = {ids.size()};
+        for (int i = 0; i < ids.size(); i++) {
+            final int index = i;
+            getPost(ids.get(i), new StoreCallback<Post>() {
+                @Override
+                public void onSuccess(Post post) {
+                    page[index] = post;
+                    complete();
+                }
+
+                @Override
+                public void onError(String message) {
+                    complete();
+                }
+
+                private void complete() {
+                    if (--pending[0] > 0) {
+                        return;
+                    }
+                    List<Post> posts = new ArrayList<>(page.length);
+                    for (Post post : page) {
+                        if (post != null) {
+                            posts.add(post);
+                        }
+                    }
+                    callback.onSuccess(posts);
+                }
+            });
+        }
+    }
+
+    private static long time(Post post) {
+        return post.getCreatedAt() != null ? post.getCreatedAt().getTime() : 0;
+    }
+
+    @NonNull
+    @Override
+    public Registration observePost(@NonNull String postId, @NonNull StoreListener<Post> listener) {
+        DatabaseReference ref = postsRef.child(postId);
+        ValueEventListener valueListener = ref.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onValue(PostParser.parse(snapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        });
+        return () -> ref.removeEventListener(valueListener);
+    }
+}
@@ -0,0 +1,254 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.model.UserCodec;
+import com.sofiane.newtwitter.repository.store.Registration;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.StoreListener;
+import com.sofiane.newtwitter.repository.store.UserStore;
+import com.sofiane.newtwitter.utils.UsernameHandle;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * UserStore sur Firebase Realtime Database (users/{uid}, userCards/{uid} et usernames/{clé}).
+ * saveUser met à jour les champs du profil par updateChildren : les compteurs, incrémentés
+ * par FirebaseFollowGraphStore, et les anciennes maps de suivi ne sont jamais écrasés.
+ * Les écritures de profil sont des écritures multi-chemins (profil, carte et réservation du nom) :
+ * les règles n'acceptent une clé de usernames/ que si elle est libre ou appartient déjà à
+ * l'utilisateur. Un refus n'est rendu comme un nom pris (false) qu'après avoir relu le propriétaire
+ * de la clé ; tout autre refus est une erreur.
+ */
+final class FirebaseUserStore implements UserStore {
+    private final DatabaseReference rootRef;
+    private final DatabaseReference usersRef;
+    private final DatabaseReference userCardsRef;
+    private final DatabaseReference usernamesRef;
+
+    FirebaseUserStore(@NonNull DatabaseReference rootRef) {
+        this.rootRef = rootRef;
+        this.usersRef = rootRef.child("users");
+        this.userCardsRef = rootRef.child("userCards");
+        this.usernamesRef = rootRef.child(UsernameRegistry.USERNAMES);
+    }
+
+    @Override
+    public void getUser(@NonNull String userId, @NonNull StoreCallback<User> callback) {
+        usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                callback.onSuccess(UserCodec.fromSnapshot(snapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void saveUser(@NonNull User user, @NonNull StoreCallback<Void> callback) {
+        if (user.getUserId() == null) {
+            callback.onError("A user needs an identifier");
+            return;
+        }
+        Map<String, Object> fields = UserCodec.toMap(user);
+        fields.remove(UserCodec.FOLLOWERS);
+        fields.remove(UserCodec.FOLLOWING);
+        fields.remove(UserCodec.FOLLOWERS_COUNT);
+        fields.remove(UserCodec.FOLLOWING_COUNT);
+        usersRef.child(user.getUserId()).updateChildren(fields)
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    @Override
+    public void getUserCard(@NonNull String userId, @NonNull StoreCallback<UserCard> callback) {
+        userCardsRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                UserCard card;
+                try {
+                    card = snapshot.getValue(UserCard.class);
+                } catch (Exception e) {
+                    callback.onError("Invalid user card " + userId + ": " + e.getMessage());
+                    return;
+                }
+                if (card != null) {
+                    card.setUserId(userId);
+                }
+                callback.onSuccess(card);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void saveUserCard(@NonNull UserCard card, @NonNull StoreCallback<Void> callback) {
+        userCardsRef.child(card.getUserId()).setValue(card)
+                .addOnSuccessListener(aVoid -> callback.onSuccess(null))
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
+    @Override
+    public void createProfile(@NonNull User user, boolean reserveUsername, @NonNull StoreCallback<Boolean> callback) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("/users/" + user.getUserId(), UserCodec.toMap(user));
+        if (reserveUsername) {
+            addReservation(updates, user.getUserId(), user.getUsername(), null);
+        }
+        writeWithCard(user, updates, reserveUsername, callback);
+    }
+
+    @Override
+    public void updateProfile(@NonNull User user, @Nullable String previousUsername,
+                              @NonNull StoreCallback<Boolean> callback) {
+        String userId = user.getUserId();
+        Map<String, Object> updates = new HashMap<>();
+        String userPath = "/users/" + userId + "/";
+        updates.put(userPath + "userId", userId);
+        updates.put(userPath + "id", userId);
+        updates.put(userPath + "username", user.getUsername());
+        updates.put(userPath + "bio", user.getBio());
+        updates.put(userPath + "profileIconIndex", user.getProfileIconIndex());
+        updates.put(userPath + "profileColorIndex", user.getProfileColorIndex());
+        updates.put(userPath + "profileImageUrl", user.getProfileImageUrl());
+        updates.put(userPath + "bannerImageUrl", user.getBannerImageUrl());
+        if (UsernameHandle.normalize(user.getUsername()).equals(UsernameHandle.normalize(previousUsername))) {
+            writeWithCard(user, updates, false, callback);
+            return;
+        }
+        if (!UsernameHandle.isValid(previousUsername)) {
+            // Un ancien nom invalide n'a jamais été réservé
+            addReservation(updates, userId, user.getUsername(), null);
+            writeWithCard(user, updates, true, callback);
+            return;
+        }
+        getUsernameOwner(previousUsername, new StoreCallback<String>() {
+            @Override
+            public void onSuccess(String owner) {
+                addReservation(updates, userId, user.getUsername(), userId.equals(owner) ? previousUsername : null);
+                writeWithCard(user, updates, true, callback);
+            }
+
+            @Override
+            public void onError(String message) {
+                // Si la lecture échoue, l'ancienne réservation est gardée plutôt que de faire échouer l'écriture
+                addReservation(updates, userId, user.getUsername(), null);
+                writeWithCard(user, updates, true, callback);
+            }
+        });
+    }
+
+    @Override
+    public void getUsernameOwner(@NonNull String username, @NonNull StoreCallback<String> callback) {
+        usernamesRef.child(UsernameHandle.normalize(username)).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Object owner = snapshot.getValue();
+                callback.onSuccess(owner instanceof String ? (String) owner : null);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void reserveUsername(@NonNull String userId, @NonNull String username,
+                                @NonNull StoreCallback<Boolean> callback) {
+        usernamesRef.child(UsernameHandle.normalize(username)).setValue(userId,
+                Stores.conditionalWrite(takenByOther(username, userId), true, callback));
+    }
+
+    @NonNull
+    @Override
+    public Registration observeUser(@NonNull String userId, @NonNull StoreListener<User> listener) {
+        DatabaseReference ref = usersRef.child(userId);
+        ValueEventListener valueListener = ref.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onValue(UserCodec.fromSnapshot(snapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        });
+        return () -> ref.removeEventListener(valueListener);
+    }
+
+    /**
+     * Écrit le profil avec sa carte. Si l'écriture réserve le nom, que les règles la refusent et que
+     * le nom est réservé par un autre compte, le callback reçoit false.
+     */
+    private void writeWithCard(User user, Map<String, Object> updates, boolean reservesUsername,
+                               StoreCallback<Boolean> callback) {
+        updates.put("/userCards/" + user.getUserId(), UserCard.fromUser(user));
+        Consumer<StoreCallback<Boolean>> taken = reservesUsername
+                ? takenByOther(user.getUsername(), user.getUserId())
+                : notTaken -> notTaken.onSuccess(false);
+        rootRef.updateChildren(updates, Stores.conditionalWrite(taken, true, callback));
+    }
+
+    /**
+     * Lecture de l'état qui explique un refus : le nom est réservé par un autre compte.
+     */
+    private Consumer<StoreCallback<Boolean>> takenByOther(String username, String userId) {
+        return taken -> {
+            if (!UsernameHandle.isValid(username)) {
+                taken.onSuccess(false);
+                return;
+            }
+            getUsernameOwner(username, new StoreCallback<String>() {
+                @Override
+                public void onSuccess(String owner) {
+                    taken.onSuccess(owner != null && !owner.equals(userId));
+                }
+
+                @Override
+                public void onError(String message) {
+                    taken.onError(message);
+                }
+            });
+        };
+    }
+
+    /**
+     * Ajoute à une écriture multi-chemins la réservation d'un nom et, s'il a changé,
+     * la libération de l'ancien.
+     *
+     * @param previousUsername L'ancien nom s'il est réservé par userId, sinon null (les règles refusent
+     *                         la suppression d'une clé absente ou réservée par un autre compte)
+     */
+    private static void addReservation(Map<String, Object> updates, String userId,
+                                       String username, @Nullable String previousUsername) {
+        String key = UsernameHandle.normalize(username);
+        updates.put("/" + UsernameRegistry.USERNAMES + "/" + key, userId);
+        // Les anciens noms invalides n'ont jamais été réservés (et ne forment pas un chemin valide)
+        if (UsernameHandle.isValid(previousUsername)) {
+            String previousKey = UsernameHandle.normalize(previousUsername);
+            if (!previousKey.equals(key)) {
+                updates.put("/" + UsernameRegistry.USERNAMES + "/" + previousKey, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,633 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index mémoire compact du graphe d'abonnements, pour les comptes à plusieurs centaines de
+ * milliers d'arêtes. Chaque uid est interné une seule fois et reçoit un entier ; les listes
+ * d'abonnements et d'abonnés connues sont des tableaux d'entiers triés, sans objets par arête.
+ * Les intersections (abonnés mutuels, « suivi par des comptes que vous suivez ») sont des fusions
+ * de tableaux triés, par recherche galopante quand une liste est beaucoup plus courte que l'autre.
+ * Seules les listes chargées (setFollowing, setFollowers) sont indexées : une liste inconnue
+ * est traitée comme vide. Les uids sont comptés par référence (listes qui les contiennent, listes
+ * qu'ils possèdent) : un uid qui n'est plus référencé, par exemple après forgetFollowers sur un compte
+ * très suivi, est retiré de la table et son entier est réutilisé. Cette classe implémente le pattern
+ * Singleton ; ses méthodes sont synchronisées et peuvent être appelées depuis n'importe quel thread.
+ */
+public class FollowGraphIndex {
+    private static FollowGraphIndex instance;
+
+    // Au-delà de ce rapport de tailles, l'intersection cherche les éléments de la petite liste dans la grande
+    private static final int GALLOP_RATIO = 16;
+    private static final int[] EMPTY = new int[0];
+
+    // Table d'internement à adressage ouvert : uid -> entier, sans Integer ni entrée de HashMap
+    private String[] slots = new String[1024];
+    private int[] slotIds = new int[1024];
+    private String[] uids = new String[256];
+    // Nombre de références de chaque entier ; l'uid est libéré à zéro
+    private int[] refs = new int[256];
+    private int size;
+    // Plus grand entier attribué + 1, et entiers libérés à réutiliser
+    private int nextId;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    // Incrémenté à chaque libération : les entiers gardés hors du verrou ne désignent plus forcément le même uid
+    private int releaseGeneration;
+
+    // Listes triées, indexées par l'entier de l'utilisateur ; null si la liste n'a pas été chargée
+    private int[][] following = new int[256][];
+    private int[] followingSize = new int[256];
+    private int[][] followers = new int[256][];
+    private int[] followersSize = new int[256];
+
+    /**
+     * Crée un index indépendant de l'instance partagée (tests, benchmarks).
+     */
+    public FollowGraphIndex() {
+    }
+
+    /**
+     * Obtient l'instance unique de l'index.
+     *
+     * @return L'instance unique de FollowGraphIndex
+     */
+    public static synchronized FollowGraphIndex getInstance() {
+        if (instance == null) {
+            instance = new FollowGraphIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Remplace la liste des comptes suivis par un utilisateur.
+     *
+     * @param userId    L'utilisateur
+     * @param targetIds Les comptes qu'il suit, dans n'importe quel ordre
+     */
+    public synchronized void setFollowing(@NonNull String userId, @NonNull Iterable<String> targetIds) {
+        int id = intern(userId);
+        int[] edges = internAll(targetIds);
+        int[] previous = following[id];
+        int previousSize = followingSize[id];
+        following[id] = edges;
+        followingSize[id] = edges.length;
+        replaced(id, edges, previous, previousSize);
+    }
+
+    /**
+     * Remplace la liste des abonnés d'un utilisateur.
+     *
+     * @param userId      L'utilisateur
+     * @param followerIds Ses abonnés, dans n'importe quel ordre
+     */
+    public synchronized void setFollowers(@NonNull String userId, @NonNull Iterable<String> followerIds) {
+        int id = intern(userId);
+        int[] edges = internAll(followerIds);
+        int[] previous = followers[id];
+        int previousSize = followersSize[id];
+        followers[id] = edges;
+        followersSize[id] = edges.length;
+        replaced(id, edges, previous, previousSize);
+    }
+
+    /**
+     * Ajoute ou retire une arête dans les listes déjà chargées de ses deux extrémités.
+     */
+    public synchronized void setEdge(@NonNull String followerId, @NonNull String targetId, boolean follow) {
+        int follower = find(followerId);
+        int target = find(targetId);
+        // Un uid absent de la table ne figure dans aucune liste : il n'est interné que pour un ajout
+        if (follower >= 0 && following[follower] != null && (target >= 0 || follow)) {
+            if (target < 0) {
+                target = intern(targetId);
+            }
+            followingSize[follower] = update(following, followingSize[follower], follower, target, follow);
+        }
+        if (target >= 0 && followers[target] != null && (follower >= 0 || follow)) {
+            if (follower < 0) {
+                follower = intern(followerId);
+            }
+            followersSize[target] = update(followers, followersSize[target], target, follower, follow);
+        }
+    }
+
+    /**
+     * Oublie les listes d'un utilisateur ; les uids qui ne sont plus référencés sont libérés.
+     */
+    public synchronized void forget(@NonNull String userId) {
+        forgetFollowing(userId);
+        forgetFollowers(userId);
+    }
+
+    /**
+     * Oublie seulement la liste des comptes suivis par un utilisateur.
+     */
+    public synchronized void forgetFollowing(@NonNull String userId) {
+        int id = find(userId);
+        if (id >= 0 && following[id] != null) {
+            int[] list = following[id];
+            int length = followingSize[id];
+            following[id] = null;
+            followingSize[id] = 0;
+            releaseAll(list, length);
+            release(id);
+        }
+    }
+
+    /**
+     * Oublie seulement la liste des abonnés d'un utilisateur.
+     */
+    public synchronized void forgetFollowers(@NonNull String userId) {
+        int id = find(userId);
+        if (id >= 0 && followers[id] != null) {
+            int[] list = followers[id];
+            int length = followersSize[id];
+            followers[id] = null;
+            followersSize[id] = 0;
+            releaseAll(list, length);
+            release(id);
+        }
+    }
+
+    /**
+     * @return true si la liste des comptes suivis par l'utilisateur est chargée
+     */
+    public synchronized boolean hasFollowing(@NonNull String userId) {
+        int id = find(userId);
+        return id >= 0 && following[id] != null;
+    }
+
+    /**
+     * @return true si la liste des abonnés de l'utilisateur est chargée
+     */
+    public synchronized boolean hasFollowers(@NonNull String userId) {
+        int id = find(userId);
+        return id >= 0 && followers[id] != null;
+    }
+
+    /**
+     * Indique si followerId suit targetId, d'après la liste chargée de l'un ou de l'autre.
+     */
+    public synchronized boolean isFollowing(@NonNull String followerId, @NonNull String targetId) {
+        int follower = find(followerId);
+        int target = find(targetId);
+        if (follower < 0 || target < 0) {
+            return false;
+        }
+        if (following[follower] != null) {
+            return Arrays.binarySearch(following[follower], 0, followingSize[follower], target) >= 0;
+        }
+        return followers[target] != null
+                && Arrays.binarySearch(followers[target], 0, followersSize[target], follower) >= 0;
+    }
+
+    /**
+     * @return true si les deux utilisateurs se suivent mutuellement
+     */
+    public synchronized boolean isMutual(@NonNull String userId, @NonNull String otherId) {
+        return isFollowing(userId, otherId) && isFollowing(otherId, userId);
+    }
+
+    public synchronized int followingCount(@NonNull String userId) {
+        int id = find(userId);
+        return id >= 0 ? followingSize[id] : 0;
+    }
+
+    public synchronized int followersCount(@NonNull String userId) {
+        int id = find(userId);
+        return id >= 0 ? followersSize[id] : 0;
+    }
+
+    /**
+     * @return Les comptes suivis par l'utilisateur, dans l'ordre d'internement
+     */
+    @NonNull
+    public synchronized List<String> following(@NonNull String userId) {
+        int id = find(userId);
+        return id >= 0 ? toUids(following[id], followingSize[id]) : new ArrayList<>();
+    }
+
+    /**
+     * @return Les abonnés de l'utilisateur, dans l'ordre d'internement
+     */
+    @NonNull
+    public synchronized List<String> followers(@NonNull String userId) {
+        int id = find(userId);
+        return id >= 0 ? toUids(followers[id], followersSize[id]) : new ArrayList<>();
+    }
+
+    /**
+     * Abonnés mutuels : les comptes que l'utilisateur suit et qui le suivent.
+     *
+     * @param limit Nombre maximal de résultats
+     */
+    @NonNull
+    public synchronized List<String> mutuals(@NonNull String userId, int limit) {
+        int id = find(userId);
+        if (id < 0) {
+            return new ArrayList<>();
+        }
+        return intersection(following[id], followingSize[id], followers[id], followersSize[id], limit);
+    }
+
+    public synchronized int mutualCount(@NonNull String userId) {
+        int id = find(userId);
+        if (id < 0) {
+            return 0;
+        }
+        return intersectionCount(following[id], followingSize[id], followers[id], followersSize[id]);
+    }
+
+    /**
+     * « Suivi par des comptes que vous suivez » : les abonnés de targetId que viewerId suit.
+     *
+     * @param limit Nombre maximal de résultats
+     */
+    @NonNull
+    public synchronized List<String> followedByFollowing(@NonNull String viewerId, @NonNull String targetId, int limit) {
+        int viewer = find(viewerId);
+        int target = find(targetId);
+        if (viewer < 0 || target < 0) {
+            return new ArrayList<>();
+        }
+        return intersection(following[viewer], followingSize[viewer], followers[target], followersSize[target], limit);
+    }
+
+    public synchronized int followedByFollowingCount(@NonNull String viewerId, @NonNull String targetId) {
+        int viewer = find(viewerId);
+        int target = find(targetId);
+        if (viewer < 0 || target < 0) {
+            return 0;
+        }
+        return intersectionCount(following[viewer], followingSize[viewer], followers[target], followersSize[target]);
+    }
+
+    /**
+     * Comptes suivis à la fois par userId et par otherId.
+     *
+     * @param limit Nombre maximal de résultats
+     */
+    @NonNull
+    public synchronized List<String> commonFollowing(@NonNull String userId, @NonNull String otherId, int limit) {
+        int user = find(userId);
+        int other = find(otherId);
+        if (user < 0 || other < 0) {
+            return new ArrayList<>();
+        }
+        return intersection(following[user], followingSize[user], following[other], followingSize[other], limit);
+    }
+
+    public synchronized int commonFollowingCount(@NonNull String userId, @NonNull String otherId) {
+        int user = find(userId);
+        int other = find(otherId);
+        if (user < 0 || other < 0) {
+            return 0;
+        }
+        return intersectionCount(following[user], followingSize[user], following[other], followingSize[other]);
+    }
+
+    /**
+     * @return Le nombre d'uids internés (référencés par au moins une liste chargée)
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // --- Accès par entiers, pour FollowRecommender : à appeler sous le verrou de l'index ---
+
+    /**
+     * @return Borne (exclue) des entiers attribués, pour dimensionner un tableau indexé par entier
+     */
+    int idLimit() {
+        return nextId;
+    }
+
+    /**
+     * @return Le nombre de libérations d'uids : tant qu'il ne change pas, un entier désigne le même uid
+     */
+    int releaseGeneration() {
+        return releaseGeneration;
+    }
+
+    /**
+     * @return L'entier de l'uid, ou -1 s'il n'est pas interné
+     */
+    int idOf(@NonNull String uid) {
+        return find(uid);
+    }
+
+    String uidAt(int id) {
+        return uids[id];
+    }
+
+    /**
+     * @return La liste triée des comptes suivis (plus longue que followingLength), ou null si elle n'est pas chargée
+     */
+    @Nullable
+    int[] followingArray(int id) {
+        return following[id];
+    }
+
+    int followingLength(int id) {
+        return followingSize[id];
+    }
+
+    // --- Internement ---
+
+    private int find(String uid) {
+        int mask = slots.length - 1;
+        for (int slot = mix(uid.hashCode()) & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+            if (slots[slot].equals(uid)) {
+                return slotIds[slot];
+            }
+        }
+        return -1;
+    }
+
+    private int intern(String uid) {
+        int mask = slots.length - 1;
+        int slot = mix(uid.hashCode()) & mask;
+        for (; slots[slot] != null; slot = (slot + 1) & mask) {
+            if (slots[slot].equals(uid)) {
+                return slotIds[slot];
+            }
+        }
+        int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+        size++;
+        slots[slot] = uid;
+        slotIds[slot] = id;
+        if (id == uids.length) {
+            int capacity = uids.length * 2;
+            uids = Arrays.copyOf(uids, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+            following = Arrays.copyOf(following, capacity);
+            followingSize = Arrays.copyOf(followingSize, capacity);
+            followers = Arrays.copyOf(followers, capacity);
+            followersSize = Arrays.copyOf(followersSize, capacity);
+        }
+        uids[id] = uid;
+        // Taux de remplissage maximal de 1/2
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Ajoute une référence à chaque entier d'une liste.
+     */
+    private void retainAll(int[] ids, int length) {
+        for (int i = 0; i < length; i++) {
+            refs[ids[i]]++;
+        }
+    }
+
+    /**
+     * Retire une référence à chaque entier d'une liste, en libérant ceux qui n'en ont plus.
+     */
+    private void releaseAll(int[] ids, int length) {
+        for (int i = 0; i < length; i++) {
+            release(ids[i]);
+        }
+    }
+
+    /**
+     * Compte les références d'une liste qui en remplace une autre (null si elle n'était pas chargée) :
+     * les nouvelles arêtes d'abord, pour ne pas libérer un uid présent dans les deux.
+     */
+    private void replaced(int owner, int[] edges, @Nullable int[] previous, int previousSize) {
+        retainAll(edges, edges.length);
+        if (previous == null) {
+            // La liste appartient à son propriétaire : il reste interné tant qu'elle est chargée
+            refs[owner]++;
+        } else {
+            releaseAll(previous, previousSize);
+        }
+    }
+
+    private void release(int id) {
+        if (--refs[id] > 0) {
+            return;
+        }
+        // Suppression par décalage arrière : les uids suivants de la même séquence de sondage remontent
+        int mask = slots.length - 1;
+        int hole = mix(uids[id].hashCode()) & mask;
+        while (!uids[id].equals(slots[hole])) {
+            hole = (hole + 1) & mask;
+        }
+        slots[hole] = null;
+        for (int next = (hole + 1) & mask; slots[next] != null; next = (next + 1) & mask) {
+            int home = mix(slots[next].hashCode()) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                slotIds[hole] = slotIds[next];
+                slots[next] = null;
+                hole = next;
+            }
+        }
+        uids[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        size--;
+        releaseGeneration++;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldSlots = slots;
+        int[] oldIds = slotIds;
+        slots = new String[capacity];
+        slotIds = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != null) {
+                int slot = mix(oldSlots[i].hashCode()) & mask;
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                slotIds[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int[] internAll(Iterable<String> values) {
+        int[] ids = new int[16];
+        int count = 0;
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = intern(value);
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(ids, 0, count);
+        // Doublons éventuels de la source
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (ids[i] != ids[unique - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+
+    /**
+     * Insère ou retire une valeur d'une liste triée en place, en comptant sa référence.
+     *
+     * @return La nouvelle taille de la liste
+     */
+    private int update(int[][] lists, int length, int owner, int value, boolean add) {
+        int[] list = lists[owner];
+        int position = Arrays.binarySearch(list, 0, length, value);
+        if (add) {
+            if (position >= 0) {
+                return length;
+            }
+            int insertAt = -position - 1;
+            if (length == list.length) {
+                list = Arrays.copyOf(list, Math.max(4, length + (length >> 1)));
+                lists[owner] = list;
+            }
+            System.arraycopy(list, insertAt, list, insertAt + 1, length - insertAt);
+            list[insertAt] = value;
+            refs[value]++;
+            return length + 1;
+        }
+        if (position < 0) {
+            return length;
+        }
+        System.arraycopy(list, position + 1, list, position, length - position - 1);
+        release(value);
+        return length - 1;
+    }
+
+    // --- Intersections ---
+
+    private List<String> intersection(@Nullable int[] a, int aLength, @Nullable int[] b, int bLength, int limit) {
+        List<String> result = new ArrayList<>();
+        if (a == null || b == null || limit <= 0) {
+            return result;
+        }
+        if (aLength > bLength) {
+            int[] list = a;
+            a = b;
+            b = list;
+            int length = aLength;
+            aLength = bLength;
+            bLength = length;
+        }
+        if (aLength * GALLOP_RATIO < bLength) {
+            int from = 0;
+            for (int i = 0; i < aLength && result.size() < limit; i++) {
+                int position = gallop(b, from, bLength, a[i]);
+                if (position < bLength && b[position] == a[i]) {
+                    result.add(uids[a[i]]);
+                    position++;
+                }
+                from = position;
+            }
+            return result;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < aLength && j < bLength && result.size() < limit) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result.add(uids[a[i]]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private static int intersectionCount(@Nullable int[] a, int aLength, @Nullable int[] b, int bLength) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        if (aLength > bLength) {
+            return intersectionCount(b, bLength, a, aLength);
+        }
+        int count = 0;
+        if (aLength * GALLOP_RATIO < bLength) {
+            int from = 0;
+            for (int i = 0; i < aLength; i++) {
+                int position = gallop(b, from, bLength, a[i]);
+                if (position < bLength && b[position] == a[i]) {
+                    count++;
+                    position++;
+                }
+                from = position;
+            }
+            return count;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Recherche galopante : la première position de list[from, length) dont la valeur est >= value.
+     */
+    private static int gallop(int[] list, int from, int length, int value) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < length && list[high] < value) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, length);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<String> toUids(@Nullable int[] ids, int length) {
+        int count = ids != null ? length : 0;
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(uids[ids[i]]);
+        }
+        return result;
+    }
+}
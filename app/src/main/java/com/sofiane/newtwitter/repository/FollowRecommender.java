@@ -0,0 +1,446 @@
+package com.sofiane.newtwitter.repository;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.repository.store.FollowGraphStore;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.utils.AppExecutors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Suggestions d'abonnements par amis d'amis : les comptes suivis par les comptes que l'utilisateur
+ * suit, classés par nombre de ces comptes qui les suivent (« suivi par N comptes que vous suivez »).
+ * Le parcours à deux sauts est borné : au plus MAX_SOURCES comptes suivis sont explorés et au plus
+ * MAX_EDGES_PER_SOURCE arêtes de chacun, bornées dès la lecture (getFollowingSample) pour ne pas
+ * télécharger la liste entière d'un compte qui suit beaucoup de monde. Les listes passent par
+ * FollowGraphIndex ; le calcul se fait sur ses entiers, hors du thread principal.
+ * Les scores sont gardés par utilisateur pendant CACHE_TTL_MS. Pour l'utilisateur connecté, ils sont
+ * mis à jour arête par arête depuis FollowStatusService : un nouvel abonnement ajoute sa liste
+ * aux scores, un désabonnement la retire, sans tout recalculer.
+ * Cette classe implémente le pattern Singleton ; toutes les méthodes doivent être appelées
+ * depuis le thread principal.
+ */
+public class FollowRecommender implements FollowStatusService.ChangeListener {
+    private static final String TAG = "FollowRecommender";
+    private static FollowRecommender instance;
+
+    // Nombre maximal de comptes suivis explorés
+    public static final int MAX_SOURCES = 200;
+    // Nombre maximal d'arêtes lues par compte exploré
+    public static final int MAX_EDGES_PER_SOURCE = 500;
+    // Nombre maximal de lectures de listes simultanées
+    public static final int MAX_IN_FLIGHT = 8;
+    // Durée de validité des scores et des listes lues (10 minutes)
+    public static final long CACHE_TTL_MS = 10 * 60 * 1000L;
+
+    /**
+     * Un compte suggéré et le nombre de comptes suivis qui le suivent.
+     */
+    public static final class Recommendation {
+        public final String userId;
+        public final int mutualCount;
+
+        Recommendation(String userId, int mutualCount) {
+            this.userId = userId;
+            this.mutualCount = mutualCount;
+        }
+    }
+
+    /**
+     * Interface de callback pour recevoir les suggestions.
+     */
+    public interface Callback {
+        /**
+         * @param recommendations Les suggestions, de la plus à la moins suivie (liste vide si aucune)
+         */
+        void onRecommendations(@NonNull List<Recommendation> recommendations);
+    }
+
+    private final FollowGraphStore followGraphStore;
+    private final FollowGraphIndex index;
+    private final FollowStatusService followStatus;
+    private final Executor computeExecutor;
+    private final Executor mainExecutor;
+    private final LongSupplier clock;
+
+    private final Map<String, Scores> cache = new HashMap<>();
+    // Date de lecture des listes d'abonnements indexées par ce service
+    private final Map<String, Long> listLoadedAt = new HashMap<>();
+    // Listes indexées tronquées à MAX_EDGES_PER_SOURCE : à relire en entier pour l'utilisateur lui-même
+    private final Set<String> partialLists = new HashSet<>();
+    // Calculs en cours : les callbacks en attente pour chaque utilisateur
+    private final Map<String, List<Runnable>> inFlight = new HashMap<>();
+    // Changements d'abonnements de l'utilisateur connecté, pour invalider un calcul en cours
+    private int generation;
+
+    FollowRecommender(@NonNull FollowGraphStore followGraphStore, @NonNull FollowGraphIndex index,
+                      @NonNull FollowStatusService followStatus, @NonNull Executor computeExecutor,
+                      @NonNull Executor mainExecutor, @NonNull LongSupplier clock) {
+        this.followGraphStore = followGraphStore;
+        this.index = index;
+        this.followStatus = followStatus;
+        this.computeExecutor = computeExecutor;
+        this.mainExecutor = mainExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * Obtient l'instance unique du service.
+     *
+     * @return L'instance unique de FollowRecommender
+     */
+    public static FollowRecommender getInstance() {
+        if (instance == null) {
+            instance = new FollowRecommender(Stores.getInstance().getFollowGraphStore(),
+                    FollowGraphIndex.getInstance(), FollowStatusService.getInstance(),
+                    AppExecutors.parsing(), AppExecutors.mainThread(), SystemClock::elapsedRealtime);
+            instance.followStatus.addListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Calcule les suggestions d'un utilisateur, ou les lit dans le cache s'il est encore valide.
+     *
+     * @param viewerId L'utilisateur qui reçoit les suggestions
+     * @param limit    Nombre maximal de suggestions
+     * @param callback Le callback recevant le résultat, sur le thread principal
+     */
+    public void recommend(@NonNull String viewerId, int limit, @NonNull Callback callback) {
+        Scores scores = cache.get(viewerId);
+        if (scores != null && clock.getAsLong() - scores.computedAt <= CACHE_TTL_MS && scores.isCurrent()) {
+            callback.onRecommendations(scores.top(limit));
+            return;
+        }
+
+        Runnable deliver = () -> {
+            Scores computed = cache.get(viewerId);
+            callback.onRecommendations(computed != null ? computed.top(limit) : new ArrayList<>());
+        };
+        List<Runnable> waiting = inFlight.get(viewerId);
+        if (waiting != null) {
+            waiting.add(deliver);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(deliver);
+        inFlight.put(viewerId, waiting);
+        loadViewer(viewerId);
+    }
+
+    /**
+     * Oublie les suggestions calculées (ex : après une déconnexion).
+     */
+    public void clear() {
+        cache.clear();
+        generation++;
+    }
+
+    @Override
+    public void onFollowStatusChanged(@Nullable String targetUserId) {
+        generation++;
+        String viewerId = followStatus.getUserId();
+        if (targetUserId == null || viewerId == null) {
+            // Ensemble rechargé ou utilisateur changé : les scores incrémentaux ne sont plus sûrs
+            if (viewerId != null) {
+                cache.remove(viewerId);
+            }
+            return;
+        }
+        Scores scores = cache.get(viewerId);
+        if (scores == null) {
+            return;
+        }
+        if (!scores.isCurrent()) {
+            // Des entiers de l'index ont été libérés : les scores seront recalculés à la prochaine demande
+            cache.remove(viewerId);
+            return;
+        }
+        if (!followStatus.isFollowing(targetUserId)) {
+            scores.removeSource(targetUserId);
+        } else if (scores.sourceCount() < MAX_SOURCES && !scores.hasSource(targetUserId)) {
+            // Un nouveau compte suivi devient une source : sa liste s'ajoute aux scores
+            loadLists(Collections.singletonList(targetUserId), () -> {
+                Scores current = cache.get(viewerId);
+                if (current == scores && followStatus.isFollowing(targetUserId)) {
+                    current.addSource(targetUserId);
+                }
+            });
+        }
+    }
+
+    private void loadViewer(String viewerId) {
+        boolean live = viewerId.equals(followStatus.getUserId()) && followStatus.isLoaded();
+        if (live || (isFresh(viewerId) && !partialLists.contains(viewerId))) {
+            loadSources(viewerId);
+            return;
+        }
+        followGraphStore.getFollowing(viewerId, new StoreCallback<Set<String>>() {
+            @Override
+            public void onSuccess(@Nullable Set<String> following) {
+                // La liste tenue à jour par FollowStatusService ne doit pas être remplacée par une lecture
+                if (!(viewerId.equals(followStatus.getUserId()) && followStatus.isLoaded())) {
+                    index.setFollowing(viewerId, following != null ? following : Collections.emptySet());
+                    listLoadedAt.put(viewerId, clock.getAsLong());
+                    partialLists.remove(viewerId);
+                }
+                loadSources(viewerId);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error loading following of " + viewerId + ": " + message);
+                finish(viewerId);
+            }
+        });
+    }
+
+    private void loadSources(String viewerId) {
+        List<String> following = index.following(viewerId);
+        List<String> sources = following.size() > MAX_SOURCES
+                ? new ArrayList<>(following.subList(0, MAX_SOURCES))
+                : following;
+        int startGeneration = generation;
+        loadLists(sources, () -> computeExecutor.execute(() -> {
+            Scores scores = Scores.compute(index, viewerId, sources);
+            mainExecutor.execute(() -> {
+                if (generation != startGeneration && viewerId.equals(followStatus.getUserId())) {
+                    // Les abonnements ont changé pendant le calcul : recommencer avec la liste à jour
+                    loadSources(viewerId);
+                    return;
+                }
+                scores.computedAt = clock.getAsLong();
+                cache.put(viewerId, scores);
+                finish(viewerId);
+            });
+        }));
+    }
+
+    /**
+     * Lit les listes d'abonnements absentes ou expirées, au plus MAX_IN_FLIGHT à la fois,
+     * puis appelle onLoaded. Chaque lecture est bornée à MAX_EDGES_PER_SOURCE arêtes.
+     * Les erreurs sont ignorées : la source compte pour une liste vide.
+     */
+    private void loadLists(List<String> userIds, Runnable onLoaded) {
+        Deque<String> missing = new ArrayDeque<>();
+        for (String userId : userIds) {
+            if (!isFresh(userId)) {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            onLoaded.run();
+            return;
+        }
+        int[] remaining = {missing.size()};
+        Runnable[] next = new Runnable[1];
+        next[0] = () -> {
+            String userId = missing.poll();
+            if (userId == null) {
+                return;
+            }
+            followGraphStore.getFollowingSample(userId, MAX_EDGES_PER_SOURCE, new StoreCallback<Set<String>>() {
+                @Override
+                public void onSuccess(@Nullable Set<String> following) {
+                    index.setFollowing(userId, following != null ? following : Collections.emptySet());
+                    listLoadedAt.put(userId, clock.getAsLong());
+                    if (following != null && following.size() >= MAX_EDGES_PER_SOURCE) {
+                        partialLists.add(userId);
+                    } else {
+                        partialLists.remove(userId);
+                    }
+                    done();
+                }
+
+                @Override
+                public void onError(String message) {
+                    Log.e(TAG, "Error loading following of " + userId + ": " + message);
+                    done();
+                }
+
+                private void done() {
+                    if (--remaining[0] == 0) {
+                        onLoaded.run();
+                    } else {
+                        next[0].run();
+                    }
+                }
+            });
+        };
+        for (int i = 0; i < MAX_IN_FLIGHT && !missing.isEmpty(); i++) {
+            next[0].run();
+        }
+    }
+
+    private boolean isFresh(String userId) {
+        Long loadedAt = listLoadedAt.get(userId);
+        return loadedAt != null && clock.getAsLong() - loadedAt <= CACHE_TTL_MS && index.hasFollowing(userId);
+    }
+
+    private void finish(String viewerId) {
+        List<Runnable> waiting = inFlight.remove(viewerId);
+        if (waiting != null) {
+            for (Runnable deliver : waiting) {
+                deliver.run();
+            }
+        }
+    }
+
+    /**
+     * Scores des candidats d'un utilisateur : pour chaque entier de l'index, le nombre de sources
+     * qui le suivent, avec l'échantillon d'arêtes compté pour chaque source (pour pouvoir le retirer).
+     * Les scores ne valent que tant que l'index n'a libéré aucun uid (isCurrent) : un entier libéré
+     * peut ensuite désigner un autre uid.
+     */
+    static final class Scores {
+        private final FollowGraphIndex index;
+        private final String viewerId;
+        private final int releaseGeneration;
+        private int[] counts;
+        private final Map<Integer, int[]> contributions = new HashMap<>();
+        long computedAt;
+
+        private Scores(FollowGraphIndex index, String viewerId, int capacity) {
+            this.index = index;
+            this.viewerId = viewerId;
+            this.releaseGeneration = index.releaseGeneration();
+            this.counts = new int[capacity];
+        }
+
+        static Scores compute(FollowGraphIndex index, String viewerId, List<String> sources) {
+            synchronized (index) {
+                Scores scores = new Scores(index, viewerId, index.idLimit());
+                for (String source : sources) {
+                    scores.addSourceLocked(source);
+                }
+                return scores;
+            }
+        }
+
+        int sourceCount() {
+            return contributions.size();
+        }
+
+        /**
+         * @return true si les entiers des scores désignent toujours les mêmes uids
+         */
+        boolean isCurrent() {
+            synchronized (index) {
+                return index.releaseGeneration() == releaseGeneration;
+            }
+        }
+
+        boolean hasSource(String userId) {
+            synchronized (index) {
+                int id = index.idOf(userId);
+                return id >= 0 && contributions.containsKey(id);
+            }
+        }
+
+        void addSource(String userId) {
+            synchronized (index) {
+                addSourceLocked(userId);
+            }
+        }
+
+        void removeSource(String userId) {
+            synchronized (index) {
+                int id = index.idOf(userId);
+                int[] targets = id >= 0 ? contributions.remove(id) : null;
+                if (targets != null) {
+                    for (int target : targets) {
+                        counts[target]--;
+                    }
+                }
+            }
+        }
+
+        private void addSourceLocked(String userId) {
+            int id = index.idOf(userId);
+            if (id < 0 || contributions.containsKey(id) || index.followingArray(id) == null) {
+                return;
+            }
+            int[] targets = sample(index.followingArray(id), index.followingLength(id));
+            if (index.idLimit() > counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index.idLimit(), counts.length * 2));
+            }
+            for (int target : targets) {
+                counts[target]++;
+            }
+            contributions.put(id, targets);
+        }
+
+        /**
+         * Échantillon régulier d'au plus MAX_EDGES_PER_SOURCE arêtes, pour les listes complètes
+         * indexées ailleurs (FollowListFragment) : un compte qui suit des dizaines de milliers
+         * de personnes ne domine pas le calcul.
+         */
+        private static int[] sample(int[] following, int length) {
+            if (length <= MAX_EDGES_PER_SOURCE) {
+                return Arrays.copyOf(following, length);
+            }
+            int[] sample = new int[MAX_EDGES_PER_SOURCE];
+            for (int i = 0; i < MAX_EDGES_PER_SOURCE; i++) {
+                sample[i] = following[(int) ((long) i * length / MAX_EDGES_PER_SOURCE)];
+            }
+            return sample;
+        }
+
+        /**
+         * Les meilleurs candidats, hors utilisateur lui-même et comptes qu'il suit déjà
+         * (d'après la liste courante de l'index, pas celle du calcul).
+         */
+        List<Recommendation> top(int limit) {
+            synchronized (index) {
+                if (limit <= 0 || index.releaseGeneration() != releaseGeneration) {
+                    return new ArrayList<>();
+                }
+                int viewer = index.idOf(viewerId);
+                int[] following = viewer >= 0 ? index.followingArray(viewer) : null;
+                int followingLength = viewer >= 0 ? index.followingLength(viewer) : 0;
+                // Tas des limit meilleurs : le plus faible en tête
+                Comparator<Integer> weakestFirst = (a, b) -> counts[a] != counts[b]
+                        ? Integer.compare(counts[a], counts[b])
+                        : index.uidAt(b).compareTo(index.uidAt(a));
+                PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, weakestFirst);
+                for (int candidate = 0; candidate < counts.length; candidate++) {
+                    if (counts[candidate] <= 0 || candidate == viewer
+                            || (following != null && Arrays.binarySearch(following, 0, followingLength, candidate) >= 0)) {
+                        continue;
+                    }
+                    if (best.size() < limit) {
+                        best.add(candidate);
+                    } else if (weakestFirst.compare(candidate, best.peek()) > 0) {
+                        best.poll();
+                        best.add(candidate);
+                    }
+                }
+                List<Recommendation> result = new ArrayList<>(best.size());
+                while (!best.isEmpty()) {
+                    int candidate = best.poll();
+                    result.add(new Recommendation(index.uidAt(candidate), counts[candidate]));
+                }
+                Collections.reverse(result);
+                return result;
+            }
+        }
+    }
+}
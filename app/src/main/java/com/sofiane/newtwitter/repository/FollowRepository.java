@@ -2,35 +2,43 @@ package com.sofiane.newtwitter.repository;
 
 import android.util.Log;
 
-import androidx.annotation.NonNull;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
-import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.repository.store.FollowGraphStore;
+import com.sofiane.newtwitter.repository.store.Registration;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.StoreListener;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.ref.WeakReference;
 
 /**
  * Repository pour gérer les relations de suivi entre utilisateurs.
  * Cette classe implémente le pattern Singleton pour assurer une instance unique.
  * Elle gère les opérations de suivi/ne plus suivre et maintient les compteurs associés.
- * Les données sont stockées dans Firebase Realtime Database.
+ * Les arêtes du graphe sont stockées dans follows/{uid}/following et follows/{uid}/followers,
+ * les compteurs dans users/{uid}/followersCount et users/{uid}/followingCount.
+ * Toutes les lectures et écritures passent par le FollowGraphStore de l'application (voir Stores) ;
+ * les écoutes sont rattachées au cycle de vie des écrans par ListenerRegistry.bind.
  */
 public class FollowRepository {
     private static final String TAG = "FollowRepository";
     private static FollowRepository instance;
+
+    // Compteurs stockés dans users/{uid}
+    public static final String FOLLOWERS_COUNT = "followersCount";
+    public static final String FOLLOWING_COUNT = "followingCount";
     
-    // Firebase references
-    private final DatabaseReference usersRef;
-    private final DatabaseReference followsRef;
+    // Écritures du graphe d'abonnements (Firebase par défaut, en mémoire dans les tests)
+    private final FollowGraphStore followGraphStore;
+    // Listes d'abonnements déjà chargées, en tableaux d'entiers triés
+    private final FollowGraphIndex followGraphIndex = FollowGraphIndex.getInstance();
     
     // LiveData
     private final MutableLiveData<Boolean> followStatusLiveData = new MutableLiveData<>();
@@ -38,15 +46,22 @@ public class FollowRepository {
     private final MutableLiveData<Integer> followingCountLiveData = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessageLiveData = new MutableLiveData<>();
 
+    // Statut d'abonnement suivi en temps réel, pour le compte d'un écran
+    private Registration statusRegistration;
+    // Compteurs suivis en temps réel, pour le compte d'un écran
+    private String countsUserId;
+    // Référence faible : le repository ne doit pas retenir une vue détruite
+    private WeakReference<LifecycleOwner> countsOwner;
+    private Registration followersCountRegistration;
+    private Registration followingCountRegistration;
+    // Utilisateur dont les compteurs ont déjà été recalculés pendant la session
+    private String recountedUserId;
+
     /**
      * Constructeur privé pour empêcher l'instanciation directe.
-     * Initialise les références Firebase nécessaires.
      */
     private FollowRepository() {
-        // Initialize Firebase Database references
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        usersRef = database.getReference("users");
-        followsRef = database.getReference("follows");
+        followGraphStore = Stores.getInstance().getFollowGraphStore();
     }
 
     /**
@@ -98,13 +113,24 @@ public class FollowRepository {
         return errorMessageLiveData;
     }
 
+    /**
+     * Récupère l'index compact des listes d'abonnements chargées (abonnés mutuels,
+     * comptes suivis en commun, comptes suivis parmi les abonnés d'un utilisateur).
+     *
+     * @return L'index partagé par l'application
+     */
+    public FollowGraphIndex getFollowGraphIndex() {
+        return followGraphIndex;
+    }
+
     /**
      * Vérifie si l'utilisateur actuel suit un utilisateur cible.
-     * Met à jour le followStatusLiveData avec le résultat.
+     * Met à jour le followStatusLiveData avec le résultat, tant que le propriétaire est actif.
      *
+     * @param owner        Le cycle de vie auquel rattacher l'écoute
      * @param targetUserId L'identifiant de l'utilisateur cible
      */
-    public void checkFollowStatus(String targetUserId) {
+    public void checkFollowStatus(LifecycleOwner owner, String targetUserId) {
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
         if (currentUser == null) {
             followStatusLiveData.setValue(false);
@@ -113,22 +139,24 @@ public class FollowRepository {
         
         String currentUserId = currentUser.getUid();
         
-        // Check in the follows node
-        followsRef.child(currentUserId).child("following").child(targetUserId)
-                .addValueEventListener(new ValueEventListener() {
+        // Un écran qui vérifie un autre compte remplace l'écoute précédente
+        if (statusRegistration != null) {
+            statusRegistration.remove();
+        }
+        statusRegistration = ListenerRegistry.getInstance().bind(owner,
+                followGraphStore.observeFollowing(currentUserId, targetUserId, new StoreListener<Boolean>() {
                     @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        boolean isFollowing = snapshot.exists();
-                        followStatusLiveData.setValue(isFollowing);
+                    public void onValue(Boolean isFollowing) {
+                        followStatusLiveData.setValue(Boolean.TRUE.equals(isFollowing));
                     }
 
                     @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error checking follow status: " + error.getMessage());
-                        errorMessageLiveData.setValue("Error checking follow status: " + error.getMessage());
+                    public void onError(String message) {
+                        Log.e(TAG, "Error checking follow status: " + message);
+                        errorMessageLiveData.setValue("Error checking follow status: " + message);
                         followStatusLiveData.setValue(false);
                     }
-                });
+                }));
     }
 
     /**
@@ -138,181 +166,157 @@ public class FollowRepository {
      * @param targetUserId L'identifiant de l'utilisateur à suivre
      */
     public void followUser(String targetUserId) {
+        setFollowing(targetUserId, true)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Successfully followed user: " + targetUserId);
+                    followStatusLiveData.setValue(true);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error following user: " + e.getMessage(), e);
+                    errorMessageLiveData.setValue("Error following user: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Permet à l'utilisateur actuel de ne plus suivre un utilisateur cible.
+     * Met à jour les compteurs de followers et following pour les deux utilisateurs.
+     *
+     * @param targetUserId L'identifiant de l'utilisateur à ne plus suivre
+     */
+    public void unfollowUser(String targetUserId) {
+        setFollowing(targetUserId, false)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Successfully unfollowed user: " + targetUserId);
+                    followStatusLiveData.setValue(false);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error unfollowing user: " + e.getMessage(), e);
+                    errorMessageLiveData.setValue("Error unfollowing user: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Suit ou ne suit plus un utilisateur en une seule écriture multi-chemins : les deux arêtes
+     * du nœud follows et les incréments atomiques (ServerValue.increment) de followingCount et
+     * followersCount, par FollowGraphStore. Toutes les opérations de suivi de l'application
+     * passent par cette méthode. Les règles refusent l'écriture si l'arête est déjà dans l'état
+     * demandé, les compteurs ne peuvent donc pas dériver ; la tâche échoue alors.
+     *
+     * @param targetUserId L'identifiant de l'utilisateur cible
+     * @param follow       true pour suivre, false pour ne plus suivre
+     * @return La tâche Firebase de l'écriture
+     */
+    public Task<Void> setFollowing(String targetUserId, boolean follow) {
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
         if (currentUser == null) {
-            errorMessageLiveData.setValue("You must be logged in to follow users");
-            return;
+            return Tasks.forException(new IllegalStateException(
+                    follow ? "You must be logged in to follow users" : "You must be logged in to unfollow users"));
         }
-        
+
         String currentUserId = currentUser.getUid();
-        
+
         // Don't allow self-follow
         if (currentUserId.equals(targetUserId)) {
-            errorMessageLiveData.setValue("You cannot follow yourself");
-            return;
+            return Tasks.forException(new IllegalArgumentException("You cannot follow yourself"));
         }
-        
-        // Update follows node
-        Map<String, Object> followUpdates = new HashMap<>();
-        followUpdates.put("/follows/" + currentUserId + "/following/" + targetUserId, true);
-        followUpdates.put("/follows/" + targetUserId + "/followers/" + currentUserId, true);
-        
-        // Update user nodes
-        followUpdates.put("/users/" + currentUserId + "/following/" + targetUserId, true);
-        followUpdates.put("/users/" + targetUserId + "/followers/" + currentUserId, true);
-        
-        // Update counts
-        usersRef.child(currentUserId).child("followingCount").addListenerForSingleValueEvent(new ValueEventListener() {
+
+        TaskCompletionSource<Void> result = new TaskCompletionSource<>();
+        followGraphStore.setFollowing(currentUserId, targetUserId, follow, new StoreCallback<Boolean>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                int count = 0;
-                if (snapshot.exists()) {
-                    count = snapshot.getValue(Integer.class);
+            public void onSuccess(Boolean changed) {
+                if (Boolean.TRUE.equals(changed)) {
+                    followGraphIndex.setEdge(currentUserId, targetUserId, follow);
+                    result.setResult(null);
+                } else {
+                    result.setException(new IllegalStateException(
+                            follow ? "You already follow this user" : "You do not follow this user"));
                 }
-                followUpdates.put("/users/" + currentUserId + "/followingCount", count + 1);
-                
-                usersRef.child(targetUserId).child("followersCount").addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int count = 0;
-                        if (snapshot.exists()) {
-                            count = snapshot.getValue(Integer.class);
-                        }
-                        followUpdates.put("/users/" + targetUserId + "/followersCount", count + 1);
-                        
-                        // Apply all updates in a single transaction
-                        FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app")
-                                .getReference().updateChildren(followUpdates)
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d(TAG, "Successfully followed user: " + targetUserId);
-                                    followStatusLiveData.setValue(true);
-                                    loadFollowCounts(targetUserId);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Error following user: " + e.getMessage(), e);
-                                    errorMessageLiveData.setValue("Error following user: " + e.getMessage());
-                                });
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error getting followers count: " + error.getMessage());
-                        errorMessageLiveData.setValue("Error getting followers count: " + error.getMessage());
-                    }
-                });
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error getting following count: " + error.getMessage());
-                errorMessageLiveData.setValue("Error getting following count: " + error.getMessage());
+            public void onError(String message) {
+                result.setException(new IllegalStateException(message));
             }
         });
+        return result.getTask();
     }
 
     /**
-     * Permet à l'utilisateur actuel de ne plus suivre un utilisateur cible.
-     * Met à jour les compteurs de followers et following pour les deux utilisateurs.
-     *
-     * @param targetUserId L'identifiant de l'utilisateur à ne plus suivre
+     * Recalcule les compteurs de l'utilisateur connecté à partir du nœud follows.
+     * Les anciennes versions de l'application ne mettaient pas toujours les compteurs à jour ;
+     * le recalcul n'est fait qu'une fois par session. Un suivi reçu pendant le recalcul peut
+     * être écrasé ; il sera pris en compte au recalcul suivant.
      */
-    public void unfollowUser(String targetUserId) {
+    public void recountFollowCountsOnce() {
         FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
-        if (currentUser == null) {
-            errorMessageLiveData.setValue("You must be logged in to unfollow users");
+        if (currentUser == null || currentUser.getUid().equals(recountedUserId)) {
             return;
         }
-        
-        String currentUserId = currentUser.getUid();
-        
-        // Update follows node
-        Map<String, Object> unfollowUpdates = new HashMap<>();
-        unfollowUpdates.put("/follows/" + currentUserId + "/following/" + targetUserId, null);
-        unfollowUpdates.put("/follows/" + targetUserId + "/followers/" + currentUserId, null);
-        
-        // Update user nodes
-        unfollowUpdates.put("/users/" + currentUserId + "/following/" + targetUserId, null);
-        unfollowUpdates.put("/users/" + targetUserId + "/followers/" + currentUserId, null);
-        
-        // Update counts
-        usersRef.child(currentUserId).child("followingCount").addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                int count = 0;
-                if (snapshot.exists()) {
-                    count = snapshot.getValue(Integer.class);
-                }
-                if (count > 0) {
-                    unfollowUpdates.put("/users/" + currentUserId + "/followingCount", count - 1);
-                }
-                
-                usersRef.child(targetUserId).child("followersCount").addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int count = 0;
-                        if (snapshot.exists()) {
-                            count = snapshot.getValue(Integer.class);
-                        }
-                        if (count > 0) {
-                            unfollowUpdates.put("/users/" + targetUserId + "/followersCount", count - 1);
-                        }
-                        
-                        // Apply all updates in a single transaction
-                        FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app")
-                                .getReference().updateChildren(unfollowUpdates)
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d(TAG, "Successfully unfollowed user: " + targetUserId);
-                                    followStatusLiveData.setValue(false);
-                                    loadFollowCounts(targetUserId);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Error unfollowing user: " + e.getMessage(), e);
-                                    errorMessageLiveData.setValue("Error unfollowing user: " + e.getMessage());
-                                });
-                    }
+        String userId = currentUser.getUid();
+        recountedUserId = userId;
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error getting followers count: " + error.getMessage());
-                        errorMessageLiveData.setValue("Error getting followers count: " + error.getMessage());
-                    }
-                });
+        followGraphStore.recountFollows(userId, new StoreCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                Log.d(TAG, "Recounted follows of " + userId);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error getting following count: " + error.getMessage());
-                errorMessageLiveData.setValue("Error getting following count: " + error.getMessage());
+            public void onError(String message) {
+                Log.e(TAG, "Error recounting follows: " + message);
+                recountedUserId = null;
             }
         });
     }
 
     /**
-     * Charge les compteurs de followers et following pour un utilisateur.
+     * Charge les compteurs de followers et following pour un utilisateur et les suit en temps réel,
+     * jusqu'à la destruction du propriétaire ou jusqu'à l'affichage d'un autre utilisateur.
+     * Seuls les deux compteurs sont lus (pas le profil complet ni les maps d'abonnements).
      * Met à jour followersCountLiveData et followingCountLiveData avec les résultats.
      *
+     * @param owner  Le cycle de vie auquel rattacher l'écoute
      * @param userId L'identifiant de l'utilisateur dont on veut charger les compteurs
      */
-    // Load followers and following counts for a user
-    public void loadFollowCounts(String userId) {
-        usersRef.child(userId).addValueEventListener(new ValueEventListener() {
+    public void loadFollowCounts(LifecycleOwner owner, String userId) {
+        if (userId == null || (userId.equals(countsUserId) && countsOwner.get() == owner)) {
+            return;
+        }
+        stopCountListeners();
+        countsUserId = userId;
+        countsOwner = new WeakReference<>(owner);
+        ListenerRegistry registry = ListenerRegistry.getInstance();
+        followersCountRegistration = registry.bind(owner,
+                followGraphStore.observeFollowersCount(userId, countListener(followersCountLiveData)));
+        followingCountRegistration = registry.bind(owner,
+                followGraphStore.observeFollowingCount(userId, countListener(followingCountLiveData)));
+    }
+
+    private StoreListener<Integer> countListener(MutableLiveData<Integer> target) {
+        return new StoreListener<Integer>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                User user = snapshot.getValue(User.class);
-                if (user != null) {
-                    followersCountLiveData.setValue(user.getFollowersCount());
-                    followingCountLiveData.setValue(user.getFollowingCount());
-                } else {
-                    followersCountLiveData.setValue(0);
-                    followingCountLiveData.setValue(0);
-                }
+            public void onValue(Integer count) {
+                target.setValue(count != null ? Math.max(count, 0) : 0);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error loading follow counts: " + error.getMessage());
-                errorMessageLiveData.setValue("Error loading follow counts: " + error.getMessage());
+            public void onError(String message) {
+                Log.e(TAG, "Error loading follow counts: " + message);
+                errorMessageLiveData.setValue("Error loading follow counts: " + message);
             }
-        });
+        };
+    }
+
+    private void stopCountListeners() {
+        if (followersCountRegistration != null) {
+            followersCountRegistration.remove();
+            followersCountRegistration = null;
+        }
+        if (followingCountRegistration != null) {
+            followingCountRegistration.remove();
+            followingCountRegistration = null;
+        }
+        countsUserId = null;
+        countsOwner = null;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.repository.store.FollowGraphStore;
+import com.sofiane.newtwitter.repository.store.KeySetListener;
+import com.sofiane.newtwitter.repository.store.Registration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Statut d'abonnement de l'utilisateur connecté envers les autres comptes, gardé en mémoire.
+ * L'ensemble follows/{uid}/following est lu une seule fois puis tenu à jour par événements
+ * d'enfants : isFollowing répond sans lecture réseau, quel que soit le nombre de lignes affichées.
+ * Les abonnements de l'utilisateur passent par le cache local de Firebase et sont donc visibles
+ * immédiatement, avant la confirmation du serveur. L'ensemble est aussi reporté dans
+ * FollowGraphIndex, pour les intersections avec les listes d'abonnés affichées.
+ * Cette classe implémente le pattern Singleton ; toutes les méthodes doivent être appelées
+ * depuis le thread principal.
+ */
+public class FollowStatusService {
+    private static final String TAG = "FollowStatusService";
+    private static FollowStatusService instance;
+
+    /**
+     * Interface de callback pour recevoir un statut d'abonnement.
+     */
+    public interface StatusCallback {
+        void onStatus(@NonNull String targetUserId, boolean isFollowing);
+    }
+
+    /**
+     * Listener des changements de l'ensemble des comptes suivis.
+     */
+    public interface ChangeListener {
+        /**
+         * @param targetUserId Le compte dont le statut a changé, ou null si tout l'ensemble a été (re)chargé
+         */
+        void onFollowStatusChanged(@Nullable String targetUserId);
+    }
+
+    private final FollowGraphStore followGraphStore;
+    private final FollowGraphIndex followGraphIndex;
+    private final Set<String> following = new HashSet<>();
+    private final List<ChangeListener> listeners = new ArrayList<>();
+    // Demandes reçues avant la fin du chargement initial
+    private final List<Runnable> pending = new ArrayList<>();
+    private String userId;
+    private Registration registration;
+    private boolean loaded;
+
+    FollowStatusService(@NonNull FollowGraphStore followGraphStore, @NonNull FollowGraphIndex followGraphIndex) {
+        this.followGraphStore = followGraphStore;
+        this.followGraphIndex = followGraphIndex;
+    }
+
+    /**
+     * Obtient l'instance unique du service.
+     *
+     * @return L'instance unique de FollowStatusService
+     */
+    public static FollowStatusService getInstance() {
+        if (instance == null) {
+            instance = new FollowStatusService(Stores.getInstance().getFollowGraphStore(),
+                    FollowGraphIndex.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Désigne l'utilisateur connecté. Sans effet s'il n'a pas changé ; sinon l'ensemble
+     * précédent est oublié et celui du nouvel utilisateur est chargé.
+     *
+     * @param currentUserId L'identifiant de l'utilisateur connecté, ou null après une déconnexion
+     */
+    public void setUser(@Nullable String currentUserId) {
+        if (currentUserId != null && currentUserId.isEmpty()) {
+            currentUserId = null;
+        }
+        if (Objects.equals(userId, currentUserId)) {
+            return;
+        }
+        stop();
+        userId = currentUserId;
+        if (userId == null) {
+            return;
+        }
+        final String observedUserId = userId;
+        registration = followGraphStore.observeFollowingSet(observedUserId, new KeySetListener() {
+            @Override
+            public void onAdded(@NonNull String key) {
+                if (following.add(key) && loaded) {
+                    followGraphIndex.setEdge(observedUserId, key, true);
+                    notifyChanged(key);
+                }
+            }
+
+            @Override
+            public void onRemoved(@NonNull String key) {
+                if (following.remove(key) && loaded) {
+                    followGraphIndex.setEdge(observedUserId, key, false);
+                    notifyChanged(key);
+                }
+            }
+
+            @Override
+            public void onLoaded() {
+                markLoaded();
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error observing following of " + observedUserId + ": " + message);
+                // Les demandes en attente reçoivent l'état connu plutôt que de rester sans réponse
+                markLoaded();
+            }
+        });
+    }
+
+    /**
+     * @return L'utilisateur dont l'ensemble est suivi, ou null
+     */
+    @Nullable
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return true si l'ensemble des comptes suivis a été chargé
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Indique, depuis la mémoire, si l'utilisateur connecté suit un compte.
+     * Renvoie false tant que le chargement initial n'est pas terminé (voir getStatus).
+     *
+     * @param targetUserId L'identifiant du compte
+     * @return true si l'utilisateur connecté suit ce compte
+     */
+    public boolean isFollowing(String targetUserId) {
+        return following.contains(targetUserId);
+    }
+
+    /**
+     * Transmet le statut d'abonnement envers un compte : immédiatement si l'ensemble est chargé,
+     * sinon dès la fin du chargement initial.
+     *
+     * @param targetUserId L'identifiant du compte
+     * @param callback     Le callback recevant le statut
+     */
+    public void getStatus(@NonNull String targetUserId, @NonNull StatusCallback callback) {
+        if (loaded || userId == null) {
+            callback.onStatus(targetUserId, isFollowing(targetUserId));
+        } else {
+            pending.add(() -> callback.onStatus(targetUserId, isFollowing(targetUserId)));
+        }
+    }
+
+    public void addListener(@NonNull ChangeListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(@NonNull ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void markLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        // Un seul tri pour l'état initial ; les arêtes suivantes sont insérées une par une
+        followGraphIndex.setFollowing(userId, following);
+        List<Runnable> waiting = new ArrayList<>(pending);
+        pending.clear();
+        for (Runnable runnable : waiting) {
+            runnable.run();
+        }
+        notifyChanged(null);
+    }
+
+    private void notifyChanged(@Nullable String targetUserId) {
+        for (ChangeListener listener : new ArrayList<>(listeners)) {
+            listener.onFollowStatusChanged(targetUserId);
+        }
+    }
+
+    private void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        if (userId != null) {
+            // La liste de l'ancien utilisateur ne serait plus tenue à jour
+            followGraphIndex.forget(userId);
+        }
+        following.clear();
+        loaded = false;
+        // Les demandes en attente concernaient l'utilisateur précédent
+        pending.clear();
+        notifyChanged(null);
+    }
+}
@@ -0,0 +1,269 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chargeur du fil personnel d'un utilisateur (posts des comptes suivis).
+ * Chaque page lit l'index timelines/{uid} rempli par TimelineFanout, ainsi que l'index
+ * userPosts/{auteur} de chaque compte suivi inscrit dans highFanoutAuthors (fan-out à la lecture).
+ * Les entrées sont fusionnées par date, puis seuls les posts de la page sont lus par identifiant :
+ * le coût d'une page ne dépend pas du nombre total de posts de la base.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+class HomeTimelineLoader {
+    private static final String TAG = "HomeTimelineLoader";
+
+    /**
+     * Position d'une entrée dans les index ; sert de curseur entre deux pages.
+     */
+    static final class Cursor {
+        final String postId;
+        final long time;
+
+        Cursor(String postId, long time) {
+            this.postId = postId;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Interface de callback pour le résultat du chargement d'une page.
+     */
+    interface PageCallback {
+        /**
+         * @param posts     Les posts de la page, du plus récent au plus ancien
+         * @param cursor    La dernière entrée de la page, à passer à la page suivante
+         * @param exhausted true s'il n'y a plus d'entrées plus anciennes
+         */
+        void onPageLoaded(List<Post> posts, @Nullable Cursor cursor, boolean exhausted);
+
+        /**
+         * @param message Message d'erreur
+         */
+        void onError(String message);
+    }
+
+    private final DatabaseReference rootRef;
+    private final int pageSize;
+
+    // Comptes suivis à lire à la demande, résolus une fois par utilisateur
+    private String userId;
+    private List<String> highFanoutFollowees;
+    // Permet d'ignorer les pages arrivées après un changement d'utilisateur
+    private int generation = 0;
+
+    /**
+     * @param rootRef  La racine de la base de données
+     * @param pageSize Nombre de posts par page
+     */
+    HomeTimelineLoader(DatabaseReference rootRef, int pageSize) {
+        this.rootRef = rootRef;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Charge une page du fil personnel.
+     *
+     * @param userId   L'utilisateur dont on charge le fil
+     * @param cursor   La dernière entrée de la page précédente, ou null pour la première page
+     * @param callback Callback notifié à la fin du chargement
+     */
+    void load(@NonNull String userId, @Nullable Cursor cursor, @NonNull PageCallback callback) {
+        if (!userId.equals(this.userId) || cursor == null) {
+            // Nouvelle session : les abonnements ont pu changer
+            this.userId = userId;
+            highFanoutFollowees = null;
+            generation++;
+        }
+        final int currentGeneration = generation;
+        if (highFanoutFollowees != null) {
+            loadEntries(currentGeneration, cursor, callback);
+            return;
+        }
+        resolveHighFanoutFollowees(currentGeneration, () -> loadEntries(currentGeneration, cursor, callback), callback);
+    }
+
+    /**
+     * Lit les comptes suivis et la liste des auteurs non recopiés, et garde leur intersection.
+     */
+    private void resolveHighFanoutFollowees(int currentGeneration, Runnable then, PageCallback callback) {
+        final DataSnapshot[] results = new DataSnapshot[2];
+        final int[] pending = {2};
+        final boolean[] failed = {false};
+        Runnable join = () -> {
+            if (--pending[0] > 0 || failed[0] || currentGeneration != generation) {
+                return;
+            }
+            List<String> followees = new ArrayList<>();
+            for (DataSnapshot followee : results[0].getChildren()) {
+                if (results[1].hasChild(followee.getKey())) {
+                    followees.add(followee.getKey());
+                }
+            }
+            highFanoutFollowees = followees;
+            then.run();
+        };
+        readOnce(rootRef.child("follows").child(userId).child("following"), 0, results, join, failed, callback);
+        readOnce(rootRef.child(TimelineFanout.HIGH_FANOUT_AUTHORS), 1, results, join, failed, callback);
+    }
+
+    private void loadEntries(int currentGeneration, @Nullable Cursor cursor, PageCallback callback) {
+        List<Query> sources = new ArrayList<>();
+        sources.add(QueryShapes.TIMELINE_BY_TIME.on(rootRef.child(TimelineFanout.TIMELINES).child(userId)));
+        for (String followee : highFanoutFollowees) {
+            sources.add(QueryShapes.USER_POSTS_BY_TIME.on(rootRef.child(TimelineFanout.USER_POSTS).child(followee)));
+        }
+
+        // endAt est inclusif : on demande une entrée de plus pour compenser le curseur lui-même
+        final int requested = pageSize + 1;
+        final DataSnapshot[] results = new DataSnapshot[sources.size()];
+        final int[] pending = {sources.size()};
+        final boolean[] failed = {false};
+        Runnable join = () -> {
+            if (--pending[0] > 0 || failed[0] || currentGeneration != generation) {
+                return;
+            }
+            mergeEntries(currentGeneration, results, requested, cursor, callback);
+        };
+        for (int i = 0; i < sources.size(); i++) {
+            Query query = sources.get(i);
+            if (cursor != null) {
+                query = query.endAt(cursor.time, cursor.postId);
+            }
+            readOnce(query.limitToLast(requested), i, results, join, failed, callback);
+        }
+    }
+
+    private void mergeEntries(int currentGeneration, DataSnapshot[] results, int requested,
+                              @Nullable Cursor cursor, PageCallback callback) {
+        boolean sourceHasMore = false;
+        Map<String, Cursor> byId = new LinkedHashMap<>();
+        for (DataSnapshot result : results) {
+            if (result.getChildrenCount() >= requested) {
+                sourceHasMore = true;
+            }
+            for (DataSnapshot entry : result.getChildren()) {
+                Long time = entry.getValue(Long.class);
+                if (time == null || (cursor != null && cursor.postId.equals(entry.getKey()))) {
+                    continue;
+                }
+                byId.put(entry.getKey(), new Cursor(entry.getKey(), time));
+            }
+        }
+
+        List<Cursor> entries = new ArrayList<>(byId.values());
+        Collections.sort(entries, (e1, e2) -> {
+            int byTime = Long.compare(e2.time, e1.time);
+            return byTime != 0 ? byTime : e2.postId.compareTo(e1.postId);
+        });
+        boolean exhausted = !sourceHasMore && entries.size() <= pageSize;
+        if (entries.size() > pageSize) {
+            entries = entries.subList(0, pageSize);
+        }
+        Cursor last = entries.isEmpty() ? cursor : entries.get(entries.size() - 1);
+        if (entries.isEmpty()) {
+            callback.onPageLoaded(new ArrayList<>(), last, true);
+            return;
+        }
+
+        // Les entrées du fil personnel lues dans cette page, pour nettoyer celles dont le post a disparu
+        Set<String> ownEntries = new HashSet<>();
+        for (DataSnapshot entry : results[0].getChildren()) {
+            ownEntries.add(entry.getKey());
+        }
+        fetchPosts(currentGeneration, entries, ownEntries, last, exhausted, callback);
+    }
+
+    private void fetchPosts(int currentGeneration, List<Cursor> entries, Set<String> ownEntries,
+                            Cursor last, boolean exhausted, PageCallback callback) {
+        final Post[] posts = new Post[entries.size()];
+        final int[] pending = {entries.size()};
+        Runnable join = () -> {
+            if (--pending[0] > 0 || currentGeneration != generation) {
+                return;
+            }
+            List<Post> page = new ArrayList<>();
+            Map<String, Object> danglingEntries = new LinkedHashMap<>();
+            for (int i = 0; i < posts.length; i++) {
+                if (posts[i] != null) {
+                    page.add(posts[i]);
+                } else if (ownEntries.contains(entries.get(i).postId)) {
+                    danglingEntries.put(entries.get(i).postId, null);
+                }
+            }
+            if (!danglingEntries.isEmpty()) {
+                // Post supprimé par son auteur après le fan-out
+                rootRef.child(TimelineFanout.TIMELINES).child(userId).updateChildren(danglingEntries)
+                        .addOnFailureListener(e -> Log.e(TAG, "Error cleaning timeline: " + e.getMessage(), e));
+            }
+            Log.d(TAG, "Loaded home timeline page of " + page.size() + " posts");
+            callback.onPageLoaded(page, last, exhausted);
+        };
+        for (int i = 0; i < entries.size(); i++) {
+            final int index = i;
+            final String postId = entries.get(i).postId;
+            rootRef.child("posts").child(postId).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    try {
+                        Post post = PostCodec.fromSnapshot(snapshot);
+                        if (post != null && post.getId() == null) {
+                            post.setId(postId);
+                        }
+                        posts[index] = post;
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error parsing post " + postId + ": " + e.getMessage(), e);
+                    }
+                    join.run();
+                }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    Log.e(TAG, "Error loading post " + postId + ": " + error.getMessage());
+                    join.run();
+                }
+            });
+        }
+    }
+
+    private void readOnce(Query query, int index, DataSnapshot[] results, Runnable join,
+                          boolean[] failed, PageCallback callback) {
+        final int currentGeneration = generation;
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                results[index] = snapshot;
+                join.run();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                if (failed[0] || currentGeneration != generation) {
+                    return;
+                }
+                failed[0] = true;
+                Log.e(TAG, "Error loading home timeline: " + error.getMessage());
+                callback.onError("Database error: " + error.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,278 @@
+package com.sofiane.newtwitter.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.repository.store.Registration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registre des abonnements Firebase liés au cycle de vie des écrans.
+ * Cette classe implémente le pattern Singleton pour assurer une instance unique.
+ * Chaque abonnement est rattaché à un LifecycleOwner (getViewLifecycleOwner() dans un fragment)
+ * et retiré automatiquement à sa destruction : aucun callback n'arrive dans une vue détruite.
+ * Les abonnements à une même référence (même chemin, clé : son URL publique) partagent un seul
+ * listener Firebase, détaché SharedQueries.LINGER_MS après le départ du dernier abonné ; le dernier
+ * résultat est transmis immédiatement aux nouveaux abonnés (une rotation ne relit pas le réseau).
+ * Les abonnements des stores (Registration) peuvent aussi être rattachés à un cycle de vie avec bind.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class ListenerRegistry {
+    private static final String TAG = "ListenerRegistry";
+    private static ListenerRegistry instance;
+
+    /**
+     * Un abonné : le callback et le cycle de vie auquel il est rattaché.
+     */
+    private static final class Observer {
+        final LifecycleOwner owner;
+        final ValueEventListener callback;
+
+        Observer(LifecycleOwner owner, ValueEventListener callback) {
+            this.owner = owner;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Un listener Firebase partagé par tous les abonnés d'une même référence.
+     */
+    private final class Subscription implements ValueEventListener {
+        final String key;
+        final DatabaseReference ref;
+        final List<Observer> observers = new ArrayList<>();
+        DataSnapshot lastSnapshot;
+        final Runnable detach = this::detach;
+
+        Subscription(String key, DatabaseReference ref) {
+            this.key = key;
+            this.ref = ref;
+        }
+
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            lastSnapshot = snapshot;
+            // Copie : un callback peut se désabonner pendant la notification
+            for (Observer observer : new ArrayList<>(observers)) {
+                if (observers.contains(observer)) {
+                    observer.callback.onDataChange(snapshot);
+                }
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Listener cancelled on " + ref + ": " + error.getMessage());
+            // Firebase a déjà retiré le listener annulé
+            mainHandler.removeCallbacks(detach);
+            subscriptions.remove(key);
+            publishCount();
+            for (Observer observer : new ArrayList<>(observers)) {
+                observer.callback.onCancelled(error);
+            }
+            observers.clear();
+        }
+
+        /**
+         * Retire un propriétaire ; sans abonné, le détachement est programmé après le délai de grâce.
+         */
+        void removeObserver(LifecycleOwner owner) {
+            boolean removed = observers.removeIf(observer -> observer.owner == owner);
+            if (removed && observers.isEmpty()) {
+                mainHandler.removeCallbacks(detach);
+                mainHandler.postDelayed(detach, SharedQueries.LINGER_MS);
+            }
+        }
+
+        private void detach() {
+            if (!observers.isEmpty()) {
+                return;
+            }
+            ref.removeEventListener(this);
+            subscriptions.remove(key);
+            publishCount();
+        }
+    }
+
+    private final Map<String, Subscription> subscriptions = new HashMap<>();
+    // Cycles de vie déjà suivis, pour n'enregistrer qu'un observateur par propriétaire
+    private final Map<LifecycleOwner, LifecycleEventObserver> owners = new HashMap<>();
+    // Abonnements des stores rattachés à un cycle de vie
+    private final Map<LifecycleOwner, List<Registration>> registrations = new HashMap<>();
+    private final MutableLiveData<Integer> activeListenerCountLiveData = new MutableLiveData<>(0);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Constructeur privé pour empêcher l'instanciation directe.
+     */
+    private ListenerRegistry() {
+    }
+
+    /**
+     * Obtient l'instance unique du registre.
+     * Crée une nouvelle instance si elle n'existe pas encore.
+     *
+     * @return L'instance unique de ListenerRegistry
+     */
+    public static ListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new ListenerRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Abonne un callback à une référence jusqu'à la destruction du propriétaire.
+     * Si le propriétaire est déjà abonné à cette référence, son ancien callback est remplacé
+     * (un écran qui recharge ses données n'empile pas de listeners).
+     *
+     * @param owner    Le cycle de vie auquel rattacher l'abonnement
+     * @param ref      La référence à écouter (les requêtes triées passent par SharedQueries)
+     * @param callback Le callback recevant les valeurs
+     */
+    public void observe(@NonNull LifecycleOwner owner, @NonNull DatabaseReference ref, @NonNull ValueEventListener callback) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        trackOwner(owner);
+
+        String key = ref.toString();
+        Subscription subscription = subscriptions.get(key);
+        if (subscription == null) {
+            subscription = new Subscription(key, ref);
+            subscriptions.put(key, subscription);
+            ref.addValueEventListener(subscription);
+            publishCount();
+        } else {
+            mainHandler.removeCallbacks(subscription.detach);
+            subscription.observers.removeIf(observer -> observer.owner == owner);
+        }
+
+        subscription.observers.add(new Observer(owner, callback));
+        if (subscription.lastSnapshot != null) {
+            callback.onDataChange(subscription.lastSnapshot);
+        }
+    }
+
+    /**
+     * Rattache l'abonnement d'un store à un cycle de vie : il est détaché à la destruction du propriétaire.
+     * Si le propriétaire est déjà détruit, l'abonnement est détaché immédiatement.
+     *
+     * @param owner        Le cycle de vie auquel rattacher l'abonnement
+     * @param registration L'abonnement rendu par le store
+     * @return L'abonnement, à détacher avec remove() avant la fin du cycle de vie si besoin
+     */
+    @NonNull
+    public Registration bind(@NonNull LifecycleOwner owner, @NonNull Registration registration) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            registration.remove();
+            return registration;
+        }
+        trackOwner(owner);
+        List<Registration> bound = registrations.get(owner);
+        if (bound == null) {
+            bound = new ArrayList<>();
+            registrations.put(owner, bound);
+        }
+        bound.add(registration);
+        return () -> {
+            List<Registration> current = registrations.get(owner);
+            if (current != null && current.remove(registration)) {
+                registration.remove();
+            }
+        };
+    }
+
+    /**
+     * Retire l'abonnement d'un propriétaire à une référence, avant la fin de son cycle de vie.
+     *
+     * @param owner Le propriétaire de l'abonnement
+     * @param ref   La référence à ne plus écouter
+     */
+    public void stopObserving(@NonNull LifecycleOwner owner, @NonNull DatabaseReference ref) {
+        Subscription subscription = subscriptions.get(ref.toString());
+        if (subscription == null) {
+            return;
+        }
+        subscription.removeObserver(owner);
+    }
+
+    /**
+     * Retire tous les abonnements d'un propriétaire ; les listeners Firebase devenus inutiles
+     * sont détachés après le délai de grâce.
+     *
+     * @param owner Le propriétaire des abonnements
+     */
+    public void removeAll(@NonNull LifecycleOwner owner) {
+        for (Subscription subscription : new ArrayList<>(subscriptions.values())) {
+            subscription.removeObserver(owner);
+        }
+        List<Registration> bound = registrations.remove(owner);
+        if (bound != null) {
+            for (Registration registration : bound) {
+                registration.remove();
+            }
+        }
+        LifecycleEventObserver lifecycleObserver = owners.remove(owner);
+        if (lifecycleObserver != null) {
+            owner.getLifecycle().removeObserver(lifecycleObserver);
+        }
+    }
+
+    /**
+     * Nombre de listeners Firebase actuellement attachés par le registre, y compris ceux en attente
+     * de détachement (pour le débogage).
+     *
+     * @return Le nombre de références écoutées
+     */
+    public int getActiveListenerCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Récupère le LiveData du nombre de listeners Firebase attachés (pour le débogage).
+     *
+     * @return LiveData contenant le nombre de références écoutées
+     */
+    public LiveData<Integer> getActiveListenerCountLiveData() {
+        return activeListenerCountLiveData;
+    }
+
+    private void trackOwner(LifecycleOwner owner) {
+        if (owners.containsKey(owner)) {
+            return;
+        }
+        LifecycleEventObserver lifecycleObserver = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                removeAll(source);
+            }
+        };
+        owners.put(owner, lifecycleObserver);
+        owner.getLifecycle().addObserver(lifecycleObserver);
+    }
+
+    private void publishCount() {
+        int count = subscriptions.size();
+        Integer previous = activeListenerCountLiveData.getValue();
+        if (previous == null || previous != count) {
+            Log.d(TAG, "Active Firebase listeners: " + count);
+            activeListenerCountLiveData.setValue(count);
+        }
+    }
+}
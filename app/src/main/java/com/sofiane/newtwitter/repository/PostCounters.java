@@ -0,0 +1,126 @@
+package com.sofiane.newtwitter.repository;
+
+import com.google.firebase.database.ServerValue;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Construit les écritures multi-chemins des interactions sur les posts (like, réponse, retweet).
+ * Chaque écriture combine le marqueur de l'interaction et l'incrément atomique du compteur
+ * associé (ServerValue.increment) : elle est appliquée en un seul aller-retour, et le serveur
+ * additionne les incréments concurrents sans perte de mise à jour.
+ * Les règles de sécurité (firebase_rules.json) n'acceptent une variation de likeCount ou de
+ * retweetCount que si le marqueur de l'utilisateur change dans la même écriture, ce qui empêche
+ * un double like ou un double retweet de fausser les compteurs.
+ */
+final class PostCounters {
+    static final String LIKE_COUNT = "likeCount";
+    static final String COMMENT_COUNT = "commentCount";
+    static final String RETWEET_COUNT = "retweetCount";
+
+    private PostCounters() {
+    }
+
+    /**
+     * @return La clé du marqueur de like d'un utilisateur sur un post (nœud likes)
+     */
+    static String likeKey(String postId, String userId) {
+        return postId + "_" + userId;
+    }
+
+    /**
+     * @return La clé du marqueur de retweet d'un utilisateur sur un post (nœud retweets)
+     */
+    static String retweetKey(String postId, String userId) {
+        return postId + "_" + userId + "_retweet";
+    }
+
+    /**
+     * Écriture d'un like ou de son annulation.
+     *
+     * @param postId L'identifiant du post
+     * @param userId L'identifiant de l'utilisateur
+     * @param liked  true pour liker, false pour retirer le like
+     * @return Les chemins à passer à updateChildren sur la racine
+     */
+    static Map<String, Object> like(String postId, String userId, boolean liked) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("/likes/" + likeKey(postId, userId), liked ? true : null);
+        updates.put(counterPath(postId, LIKE_COUNT), ServerValue.increment(liked ? 1 : -1));
+        return updates;
+    }
+
+    /**
+     * Écriture d'une réponse, de son entrée dans l'index replies/{parentId} (lu par
+     * FirebasePostStore.loadReplies) et de l'incrément du compteur de réponses du post parent.
+     *
+     * @param reply La réponse (son identifiant et celui du parent doivent être renseignés)
+     * @return Les chemins à passer à updateChildren sur la racine
+     */
+    static Map<String, Object> reply(Post reply) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("/posts/" + reply.getId(), PostCodec.toMap(reply));
+        updates.put(replyIndexPath(reply.getParentId(), reply.getId()),
+                reply.getCreatedAt() != null ? reply.getCreatedAt().getTime() : System.currentTimeMillis());
+        updates.put(counterPath(reply.getParentId(), COMMENT_COUNT), ServerValue.increment(1));
+        return updates;
+    }
+
+    /**
+     * Écriture de la suppression d'une réponse : le post, son entrée d'index et le décrément
+     * du compteur de réponses du post parent.
+     *
+     * @param reply La réponse supprimée
+     * @return Les chemins à passer à updateChildren sur la racine
+     */
+    static Map<String, Object> deleteReply(Post reply) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("/posts/" + reply.getId(), null);
+        updates.put(replyIndexPath(reply.getParentId(), reply.getId()), null);
+        updates.put(counterPath(reply.getParentId(), COMMENT_COUNT), ServerValue.increment(-1));
+        return updates;
+    }
+
+    /**
+     * Écriture d'un retweet : le post de retweet, son marqueur et l'incrément du post original.
+     *
+     * @param retweet Le post de retweet (son identifiant et celui du post original doivent être renseignés)
+     * @return Les chemins à passer à updateChildren sur la racine
+     */
+    static Map<String, Object> retweet(Post retweet) {
+        String originalPostId = retweet.getOriginalPostId();
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("/posts/" + retweet.getId(), PostCodec.toMap(retweet));
+        updates.put("/retweets/" + retweetKey(originalPostId, retweet.getUserId()), retweet.getId());
+        updates.put(counterPath(originalPostId, RETWEET_COUNT), ServerValue.increment(1));
+        return updates;
+    }
+
+    /**
+     * Écriture de l'annulation d'un retweet : suppression du post de retweet et de son marqueur,
+     * et décrément du post original.
+     *
+     * @param originalPostId L'identifiant du post original
+     * @param userId         L'identifiant de l'utilisateur
+     * @param retweetId      L'identifiant du post de retweet
+     * @return Les chemins à passer à updateChildren sur la racine
+     */
+    static Map<String, Object> unretweet(String originalPostId, String userId, String retweetId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("/posts/" + retweetId, null);
+        updates.put("/retweets/" + retweetKey(originalPostId, userId), null);
+        updates.put(counterPath(originalPostId, RETWEET_COUNT), ServerValue.increment(-1));
+        return updates;
+    }
+
+    private static String replyIndexPath(String parentId, String replyId) {
+        return "/" + ThreadLoader.REPLIES + "/" + parentId + "/" + replyId;
+    }
+
+    private static String counterPath(String postId, String counter) {
+        return "/posts/" + postId + "/" + counter;
+    }
+}
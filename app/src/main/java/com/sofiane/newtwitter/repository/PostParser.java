@@ -0,0 +1,92 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+import com.sofiane.newtwitter.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Désérialisation des posts reçus de Firebase, par PostCodec (sans réflexion).
+ * Sur un gros snapshot, le parsing, le filtrage et le tri sont exécutés sur
+ * AppExecutors.parsing() et seul le résultat revient sur le thread principal.
+ * Les snapshots sont immuables et peuvent être lus depuis n'importe quel thread.
+ */
+public final class PostParser {
+    private static final String TAG = "PostParser";
+
+    private PostParser() {
+    }
+
+    /**
+     * Convertit un snapshot en post ; l'identifiant est complété par la clé si nécessaire.
+     *
+     * @param snapshot Le snapshot d'un post
+     * @return Le post, ou null si le snapshot est vide ou invalide
+     */
+    @Nullable
+    public static Post parse(@NonNull DataSnapshot snapshot) {
+        try {
+            Post post = PostCodec.fromSnapshot(snapshot);
+            if (post != null && post.getId() == null) {
+                post.setId(snapshot.getKey());
+            }
+            return post;
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing post " + snapshot.getKey() + ": " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Convertit les enfants d'un snapshot, dans l'ordre de la requête. Les posts invalides sont ignorés.
+     *
+     * @param snapshot Le snapshot d'une liste de posts
+     * @return Les posts
+     */
+    @NonNull
+    public static List<Post> parseChildren(@NonNull DataSnapshot snapshot) {
+        List<Post> posts = new ArrayList<>((int) snapshot.getChildrenCount());
+        for (DataSnapshot child : snapshot.getChildren()) {
+            Post post = parse(child);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    /**
+     * Convertit, filtre et trie les enfants d'un snapshot en arrière-plan, puis transmet
+     * le résultat sur le thread principal.
+     *
+     * @param snapshot Le snapshot d'une liste de posts
+     * @param filter   Les posts à garder (null pour tout garder)
+     * @param order    L'ordre du résultat (null pour garder l'ordre de la requête)
+     * @param onResult Callback appelé sur le thread principal
+     */
+    public static void parseChildrenAsync(@NonNull DataSnapshot snapshot, @Nullable Predicate<Post> filter,
+                                          @Nullable Comparator<Post> order, @NonNull Consumer<List<Post>> onResult) {
+        AppExecutors.parsing().execute(() -> {
+            List<Post> posts = parseChildren(snapshot);
+            if (filter != null) {
+                posts.removeIf(post -> !filter.test(post));
+            }
+            if (order != null) {
+                Collections.sort(posts, order);
+            }
+            AppExecutors.mainThread().execute(() -> onResult.accept(posts));
+        });
+    }
+}
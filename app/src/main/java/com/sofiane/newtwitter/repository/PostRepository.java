@@ -5,18 +5,17 @@ import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.Query;
-import com.google.firebase.database.ValueEventListener;
 import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.local.LocalPostStore;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.StoreListener;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -30,34 +29,128 @@ import java.util.UUID;
  * Cette classe implémente le pattern Singleton pour assurer une instance unique.
  * Elle gère les opérations CRUD pour les posts, ainsi que les interactions comme
  * les likes, les retweets et les réponses.
- * Les données sont stockées dans Firebase Realtime Database.
+ * Les lectures et écritures de posts passent par le PostStore des stores injectés. Le fil d'actualité,
+ * le fil personnel et les posts d'un profil reposent sur des requêtes Firebase partagées (fenêtres
+ * bornées suivies en temps réel, index de fan-out) sans équivalent dans PostStore : ils sont lus depuis
+ * la racine de ces stores, qui doivent donc s'appuyer sur Firebase.
  */
 public class PostRepository {
     private static final String TAG = "PostRepository";
     private static PostRepository instance;
+
+    // Nombre de posts chargés par page dans le fil d'actualité
+    public static final int TIMELINE_PAGE_SIZE = 20;
     
-    // Firebase references
+    // Requêtes partagées du fil et des profils (voir la description de la classe)
     private final DatabaseReference postsRef;
-    private final DatabaseReference likesRef;
-    private final DatabaseReference retweetsRef;
+
+    // Écritures des posts et des interactions (Firebase par défaut, en mémoire dans les tests)
+    private final Stores stores;
+
+    // Stockage local (source de vérité du fil) et synchronisation avec Firebase
+    private final LocalPostStore localPostStore;
+    private final TimelineSync timelineSync;
     
+    // Index incrémental du fil d'actualité (posts originaux uniquement)
+    private final FeedEngine timelineEngine;
+
     // LiveData
-    private final MutableLiveData<List<Post>> allPostsLiveData = new MutableLiveData<>();
+    // Les abonnés actifs reçoivent une copie de tous les posts chargés ; la copie n'est
+    // construite que lorsque quelqu'un l'observe (le fil principal utilise timelineChangesLiveData)
+    private final MutableLiveData<List<Post>> allPostsLiveData = new MutableLiveData<List<Post>>() {
+        @Override
+        protected void onActive() {
+            super.onActive();
+            setValue(timelineEngine.getAllPosts());
+        }
+    };
+    private final MutableLiveData<FeedEngine.Change> timelineChangesLiveData = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> timelineLoadingLiveData = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessageLiveData = new MutableLiveData<>();
 
+    // Fenêtre du fil lue depuis le stockage local (nombre de posts, toutes catégories confondues)
+    private int timelineWindow = TIMELINE_PAGE_SIZE;
+    private int storedTimelineCount = 0;
+    // Lectures du disque : seule la dernière demandée est appliquée
+    private int timelineReadGeneration = 0;
+    private boolean timelineReadPending = false;
+    // Événements appliqués sur place pendant une lecture (null = suppression), reportés sur son
+    // résultat s'il a été lu avant leur écriture
+    private final Map<String, Post> timelineEventsSinceRead = new HashMap<>();
+    private boolean timelineWindowPending = false;
+
+    // Synchronisation réseau du fil d'actualité
+    private Post timelineCursor;          // Plus ancien post reçu du serveur
+    private boolean timelineSyncStarted = false;
+    private boolean timelineLoading = false;
+    private boolean timelineExhausted = false;
+    private boolean wasConnected = false;
+    private boolean connected = false;
+
+    // Fil personnel (posts des comptes suivis), lu depuis les index de fan-out
+    private final HomeTimelineLoader homeTimelineLoader;
+    private final MutableLiveData<List<Post>> homeTimelineLiveData = new MutableLiveData<>();
+    private final List<Post> homeTimelinePosts = new ArrayList<>();
+    private String homeTimelineUserId;
+    private HomeTimelineLoader.Cursor homeTimelineCursor;
+    private boolean homeTimelineLoading = false;
+    private boolean homeTimelineExhausted = false;
+
+    // États connus des interactions de l'utilisateur connecté, pour éviter une lecture avant chaque écriture
+    private String interactionStatesUserId;
+    private final Map<String, Boolean> likeStates = new HashMap<>();     // postId -> liké ou non
+    private final Map<String, String> retweetStates = new HashMap<>();   // postId -> id du retweet (null si non retweeté)
+
     /**
-     * Constructeur privé pour empêcher l'instanciation directe.
-     * Initialise les références Firebase nécessaires.
+     * Constructeur privé pour empêcher l'instanciation directe (voir getInstance).
+     *
+     * @param stores Les stores des posts et de la connexion
      */
-    private PostRepository() {
-        // Initialize Firebase Database references
-        FirebaseDatabase database = FirebaseDatabase.getInstance("https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app");
-        postsRef = database.getReference("posts");
-        likesRef = database.getReference("likes");
-        retweetsRef = database.getReference("retweets");
-        
-        // Load initial data
-        loadAllPosts();
+    private PostRepository(@NonNull Stores stores) {
+        this.stores = stores;
+        DatabaseReference rootRef = stores.getRootRef();
+        postsRef = rootRef.child("posts");
+
+        localPostStore = LocalPostStore.getInstance();
+        timelineSync = new TimelineSync(QueryShapes.POSTS_BY_CREATED_AT.bounded(postsRef), TIMELINE_PAGE_SIZE,
+                localPostStore, new TimelineSync.Listener() {
+                    @Override
+                    public void onPostSaved(@NonNull Post post) {
+                        // Like, retweet, réponse ou nouveau post : une seule position du fil change
+                        if (timelineReadPending) {
+                            timelineEventsSinceRead.put(post.getId(), post);
+                        }
+                        timelineEngine.upsert(post);
+                    }
+
+                    @Override
+                    public void onPostRemoved(@NonNull String postId) {
+                        if (timelineReadPending) {
+                            timelineEventsSinceRead.put(postId, null);
+                        }
+                        timelineEngine.remove(postId);
+                    }
+                });
+        homeTimelineLoader = new HomeTimelineLoader(rootRef, TIMELINE_PAGE_SIZE);
+
+        timelineEngine = new FeedEngine(FeedEngine.ORIGINAL_POSTS, new FeedEngine.Listener() {
+            @Override
+            public void onFeedChanged(FeedEngine.Change change) {
+                timelineChangesLiveData.setValue(change);
+            }
+
+            @Override
+            public void onIndexChanged() {
+                if (allPostsLiveData.hasActiveObservers()) {
+                    allPostsLiveData.setValue(timelineEngine.getAllPosts());
+                }
+            }
+        });
+
+        // Le fil est d'abord lu depuis le disque, la synchronisation réseau démarre en parallèle
+        loadTimelineWindow(TIMELINE_PAGE_SIZE);
+        observeConnection();
+        startTimelineSync();
     }
 
     /**
@@ -67,14 +160,25 @@ public class PostRepository {
      * @return L'instance unique de PostRepository
      */
     public static PostRepository getInstance() {
+        return getInstance(Stores.getInstance());
+    }
+
+    /**
+     * Obtient le repository construit sur des stores donnés : l'instance unique si elle les utilise
+     * déjà (ou si elle n'existe pas encore), sinon une instance propre à ces stores.
+     *
+     * @param stores Les stores à utiliser
+     * @return Le repository sur ces stores
+     */
+    public static synchronized PostRepository getInstance(@NonNull Stores stores) {
         if (instance == null) {
-            instance = new PostRepository();
+            instance = new PostRepository(stores);
         }
-        return instance;
+        return instance.stores == stores ? instance : new PostRepository(stores);
     }
 
     /**
-     * Récupère le LiveData contenant tous les posts.
+     * Récupère le LiveData contenant tous les posts chargés (y compris les réponses et retweets).
      *
      * @return LiveData contenant la liste des posts
      */
@@ -82,6 +186,35 @@ public class PostRepository {
         return allPostsLiveData;
     }
 
+    /**
+     * Récupère le LiveData des modifications incrémentales du fil d'actualité.
+     * Chaque valeur décrit une seule insertion, mise à jour, suppression ou déplacement.
+     *
+     * @return LiveData contenant la dernière modification du fil
+     */
+    public LiveData<FeedEngine.Change> getTimelineChangesLiveData() {
+        return timelineChangesLiveData;
+    }
+
+    /**
+     * Récupère le LiveData indiquant si une page du fil est en cours de chargement.
+     *
+     * @return LiveData contenant l'état de chargement
+     */
+    public LiveData<Boolean> getTimelineLoadingLiveData() {
+        return timelineLoadingLiveData;
+    }
+
+    /**
+     * Récupère une copie des posts actuellement affichés dans le fil d'actualité.
+     * Sert à resynchroniser un adaptateur qui a manqué des modifications.
+     *
+     * @return La liste des posts du fil, du plus récent au plus ancien
+     */
+    public List<Post> getTimelinePosts() {
+        return timelineEngine.getVisiblePosts();
+    }
+
     /**
      * Récupère le LiveData contenant les messages d'erreur.
      *
@@ -92,49 +225,291 @@ public class PostRepository {
     }
 
     /**
-     * Charge tous les posts depuis Firebase et met à jour le LiveData.
+     * Démarre la synchronisation du fil avec Firebase si elle n'est pas déjà active.
+     * Le fil affiché provient du stockage local et n'attend pas le réseau.
+     */
+    public void startTimelineSync() {
+        if (!timelineSyncStarted) {
+            refreshTimeline();
+        }
+    }
+
+    /**
+     * Resynchronise le fil d'actualité depuis la page la plus récente.
+     * Les listeners des pages déjà chargées sont détachés et le curseur est réinitialisé ;
+     * les posts déjà affichés restent visibles pendant le chargement.
      */
-    public void loadAllPosts() {
+    public void refreshTimeline() {
+        timelineSyncStarted = true;
+        timelineCursor = null;
+        timelineExhausted = false;
+        if (timelineWindow != TIMELINE_PAGE_SIZE) {
+            loadTimelineWindow(TIMELINE_PAGE_SIZE);
+        }
+        setTimelineLoading(true);
         try {
-            postsRef.addValueEventListener(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    try {
-                        List<Post> posts = new ArrayList<>();
-                        
-                        for (DataSnapshot postSnapshot : dataSnapshot.getChildren()) {
-                            Post post = postSnapshot.getValue(Post.class);
-                            if (post != null) {
-                                posts.add(post);
-                            }
-                        }
-                        
-                        // Sort by creation date (newest first)
-                        posts.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-                        
-                        // Update LiveData
-                        allPostsLiveData.setValue(posts);
-                        Log.d(TAG, "Loaded " + posts.size() + " posts");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing posts: " + e.getMessage(), e);
-                        errorMessageLiveData.setValue("Error parsing posts: " + e.getMessage());
-                    }
+            timelineSync.start(timelinePageCallback);
+        } catch (Exception e) {
+            setTimelineLoading(false);
+            Log.e(TAG, "Error loading timeline page: " + e.getMessage(), e);
+            errorMessageLiveData.setValue("Error loading timeline page: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Charge la page suivante (plus ancienne) du fil d'actualité.
+     * Les posts déjà présents sur le disque sont affichés sans requête réseau ; le serveur n'est
+     * interrogé que lorsque le stockage local ne contient plus de posts plus anciens.
+     * Ne fait rien si une page est déjà en cours de chargement ou si tous les posts ont été chargés.
+     */
+    public void loadNextTimelinePage() {
+        if (timelineLoading || timelineWindowPending || timelineExhausted) {
+            return;
+        }
+        if (storedTimelineCount < timelineWindow) {
+            // Le disque ne contient rien de plus ancien
+            loadOlderFromNetwork();
+            return;
+        }
+        timelineWindowPending = true;
+        loadTimelineWindow(timelineWindow + TIMELINE_PAGE_SIZE);
+    }
+
+    /**
+     * Indique s'il reste des posts plus anciens à charger.
+     *
+     * @return true si une page suivante peut encore être demandée
+     */
+    public boolean hasMoreTimelinePages() {
+        return !timelineExhausted || storedTimelineCount >= timelineWindow;
+    }
+
+    /**
+     * Indique si une page du fil d'actualité est en cours de chargement.
+     *
+     * @return true si une requête de page est en cours
+     */
+    public boolean isTimelineLoading() {
+        return timelineLoading || timelineWindowPending;
+    }
+
+    /**
+     * Récupère le LiveData du fil personnel (posts et retweets des comptes suivis).
+     *
+     * @return LiveData contenant les posts chargés, du plus récent au plus ancien
+     */
+    public LiveData<List<Post>> getHomeTimelineLiveData() {
+        return homeTimelineLiveData;
+    }
+
+    /**
+     * Charge la première page du fil personnel d'un utilisateur.
+     * Seuls les index timelines/{uid} et userPosts des auteurs non recopiés sont lus,
+     * puis les posts de la page par identifiant.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     */
+    public void loadHomeTimeline(String userId) {
+        if (userId == null || userId.isEmpty()) {
+            errorMessageLiveData.setValue("You must be logged in to load your timeline");
+            return;
+        }
+        homeTimelineUserId = userId;
+        homeTimelineCursor = null;
+        homeTimelineExhausted = false;
+        homeTimelineLoading = false;
+        homeTimelinePosts.clear();
+        loadHomeTimelinePage();
+    }
+
+    /**
+     * Charge la page suivante (plus ancienne) du fil personnel.
+     * Ne fait rien si une page est déjà en cours de chargement ou si tout a été chargé.
+     */
+    public void loadMoreHomeTimeline() {
+        if (homeTimelineUserId == null || homeTimelineLoading || homeTimelineExhausted) {
+            return;
+        }
+        loadHomeTimelinePage();
+    }
+
+    /**
+     * Indique s'il reste des posts plus anciens dans le fil personnel.
+     *
+     * @return true si une page suivante peut encore être demandée
+     */
+    public boolean hasMoreHomeTimeline() {
+        return !homeTimelineExhausted;
+    }
+
+    /**
+     * Indique si une page du fil personnel est en cours de chargement.
+     *
+     * @return true pendant le chargement d'une page
+     */
+    public boolean isHomeTimelineLoading() {
+        return homeTimelineLoading;
+    }
+
+    private void loadHomeTimelinePage() {
+        final String userId = homeTimelineUserId;
+        homeTimelineLoading = true;
+        homeTimelineLoader.load(userId, homeTimelineCursor, new HomeTimelineLoader.PageCallback() {
+            @Override
+            public void onPageLoaded(List<Post> posts, @Nullable HomeTimelineLoader.Cursor cursor, boolean exhausted) {
+                if (!userId.equals(homeTimelineUserId)) {
+                    return;
                 }
+                homeTimelineLoading = false;
+                homeTimelineCursor = cursor;
+                homeTimelineExhausted = exhausted;
+                homeTimelinePosts.addAll(posts);
+                homeTimelineLiveData.setValue(new ArrayList<>(homeTimelinePosts));
+            }
 
-                @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Database error: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Database error: " + databaseError.getMessage());
+            @Override
+            public void onError(String message) {
+                homeTimelineLoading = false;
+                errorMessageLiveData.setValue(message);
+            }
+        });
+    }
+
+    /**
+     * Lit une fenêtre plus ou moins grande du fil dans le stockage local. Le disque n'est relu qu'au
+     * démarrage, au défilement et après chaque page reçue du serveur ; les événements en temps réel
+     * sont appliqués sur place (voir TimelineSync.Listener).
+     */
+    private void loadTimelineWindow(int window) {
+        timelineWindow = window;
+        final int readGeneration = ++timelineReadGeneration;
+        timelineReadPending = true;
+        timelineEventsSinceRead.clear();
+        localPostStore.loadLatest(window, posts -> {
+            if (readGeneration == timelineReadGeneration) {
+                timelineReadPending = false;
+                onStoredTimelineLoaded(posts);
+            }
+        });
+    }
+
+    /**
+     * Appelé après chaque lecture du stockage local : applique la différence au moteur du fil.
+     */
+    private void onStoredTimelineLoaded(List<Post> posts) {
+        storedTimelineCount = posts.size();
+        List<Post> merged = posts;
+        if (!timelineEventsSinceRead.isEmpty()) {
+            // Un événement reçu pendant la lecture n'y figure peut-être pas : il prime sur le disque
+            merged = new ArrayList<>();
+            for (Post post : posts) {
+                if (!timelineEventsSinceRead.containsKey(post.getId())) {
+                    merged.add(post);
                 }
-            });
+            }
+            for (Post post : timelineEventsSinceRead.values()) {
+                if (post != null) {
+                    merged.add(post);
+                }
+            }
+            timelineEventsSinceRead.clear();
+        }
+        timelineEngine.replaceAll(merged);
+        if (timelineWindowPending) {
+            timelineWindowPending = false;
+            if (storedTimelineCount < timelineWindow) {
+                // La fenêtre agrandie n'est pas remplie par le disque : compléter depuis le serveur
+                loadOlderFromNetwork();
+            } else {
+                timelineLoadingLiveData.setValue(timelineLoading);
+            }
+        }
+    }
+
+    /**
+     * Demande au serveur la page plus ancienne que le plus ancien post connu
+     * (reçu du serveur ou affiché depuis le disque).
+     */
+    private void loadOlderFromNetwork() {
+        if (timelineLoading || timelineExhausted) {
+            timelineLoadingLiveData.setValue(timelineLoading);
+            return;
+        }
+        List<Post> stored = timelineEngine.getAllPosts();
+        Post cursor = timelineCursor;
+        if (!stored.isEmpty()) {
+            Post oldestStored = stored.get(stored.size() - 1);
+            if (cursor == null || FeedEngine.NEWEST_FIRST.compare(oldestStored, cursor) > 0) {
+                cursor = oldestStored;
+            }
+        }
+        if (cursor == null) {
+            // La première page n'est pas encore arrivée
+            timelineLoadingLiveData.setValue(false);
+            return;
+        }
+        if (storedTimelineCount >= timelineWindow) {
+            timelineWindow += TIMELINE_PAGE_SIZE;
+        }
+        setTimelineLoading(true);
+        try {
+            timelineSync.loadOlder(cursor, timelinePageCallback);
         } catch (Exception e) {
-            Log.e(TAG, "Error setting up posts listener: " + e.getMessage(), e);
-            errorMessageLiveData.setValue("Error setting up posts listener: " + e.getMessage());
-            // En cas d'erreur, mettre à jour la LiveData avec une liste vide
-            allPostsLiveData.setValue(new ArrayList<>());
+            setTimelineLoading(false);
+            Log.e(TAG, "Error loading timeline page: " + e.getMessage(), e);
+            errorMessageLiveData.setValue("Error loading timeline page: " + e.getMessage());
         }
     }
 
+    private final TimelineSync.PageCallback timelinePageCallback = new TimelineSync.PageCallback() {
+        @Override
+        public void onPageLoaded(@Nullable Post oldest, boolean exhausted) {
+            if (oldest != null && (timelineCursor == null || FeedEngine.NEWEST_FIRST.compare(oldest, timelineCursor) > 0)) {
+                timelineCursor = oldest;
+            }
+            timelineExhausted = exhausted;
+            setTimelineLoading(false);
+            // La page est enregistrée sur le disque (posts supprimés sur le serveur compris) : relire la fenêtre
+            loadTimelineWindow(timelineWindow);
+        }
+
+        @Override
+        public void onError(String message) {
+            setTimelineLoading(false);
+            errorMessageLiveData.setValue(message);
+        }
+    };
+
+    private void setTimelineLoading(boolean loading) {
+        timelineLoading = loading;
+        // Hors connexion, la requête attend la reconnexion sans bloquer l'indicateur
+        timelineLoadingLiveData.setValue(loading && (connected || !wasConnected));
+    }
+
+    /**
+     * Arrête l'indicateur de chargement lorsque la connexion est perdue : le fil reste affiché
+     * depuis le disque, et la requête en attente se terminera à la reconnexion.
+     */
+    private void observeConnection() {
+        stores.observeConnection(new StoreListener<Boolean>() {
+            @Override
+            public void onValue(Boolean value) {
+                connected = Boolean.TRUE.equals(value);
+                if (connected) {
+                    wasConnected = true;
+                } else if (wasConnected && timelineLoading) {
+                    Log.d(TAG, "Connection lost, showing local timeline");
+                    timelineLoadingLiveData.setValue(false);
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error observing connection state: " + message);
+            }
+        });
+    }
+
     /**
      * Crée un nouveau post pour l'utilisateur actuellement connecté.
      *
@@ -155,11 +530,7 @@ public class PostRepository {
             }
             
             // Generate a unique key for the new post
-            String postId = postsRef.push().getKey();
-            if (postId == null) {
-                errorMessageLiveData.setValue("Failed to create post ID");
-                return;
-            }
+            String postId = stores.getPostStore().newPostId();
             
             // Create post object
             Post post = new Post(
@@ -173,14 +544,7 @@ public class PostRepository {
             );
             
             // Save post to Firebase
-            postsRef.child(postId).setValue(post)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Post created successfully with ID: " + postId);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error creating post: " + e.getMessage(), e);
-                    errorMessageLiveData.setValue("Failed to create post: " + e.getMessage());
-                });
+            publishPost(post);
         } catch (Exception e) {
             Log.e(TAG, "Error creating post: " + e.getMessage(), e);
             errorMessageLiveData.setValue("Error creating post: " + e.getMessage());
@@ -197,11 +561,7 @@ public class PostRepository {
     public void createPost(String userId, String username, String content) {
         try {
             // Generate a unique key for the new post
-            String postId = postsRef.push().getKey();
-            if (postId == null) {
-                errorMessageLiveData.setValue("Failed to create post ID");
-                return;
-            }
+            String postId = stores.getPostStore().newPostId();
             
             // Create post object
             Post post = new Post(
@@ -215,14 +575,7 @@ public class PostRepository {
             );
             
             // Save post to Firebase
-            postsRef.child(postId).setValue(post)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Post created successfully with ID: " + postId);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error creating post: " + e.getMessage(), e);
-                    errorMessageLiveData.setValue("Failed to create post: " + e.getMessage());
-                });
+            publishPost(post);
         } catch (Exception e) {
             Log.e(TAG, "Error creating post: " + e.getMessage(), e);
             errorMessageLiveData.setValue("Error creating post: " + e.getMessage());
@@ -230,120 +583,100 @@ public class PostRepository {
     }
 
     /**
-     * Charge les posts d'un utilisateur spécifique.
+     * Enregistre un nouveau post avec ses entrées dans les index de son auteur, puis le recopie
+     * dans le fil de ses followers.
+     */
+    private void publishPost(Post post) {
+        stores.getPostStore().publish(post, new StoreCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                Log.d(TAG, "Post created successfully with ID: " + post.getId());
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error creating post: " + message);
+                errorMessageLiveData.setValue("Failed to create post: " + message);
+            }
+        });
+    }
+
+    /**
+     * Charge les posts d'un utilisateur spécifique et les suit en temps réel.
+     * Les modifications sont transmises une par une au listener ; l'appelant doit
+     * appeler reset() sur le moteur retourné pour détacher les listeners Firebase.
      *
-     * @param userId L'identifiant de l'utilisateur
+     * @param userId   L'identifiant de l'utilisateur
+     * @param listener Callback notifié des modifications (réponses exclues de la liste visible)
+     * @return Le moteur de fil contenant les posts de l'utilisateur
      */
-    public void loadPostsByUser(String userId) {
+    public FeedEngine loadPostsByUser(String userId, FeedEngine.Listener listener) {
+        FeedEngine engine = new FeedEngine(post -> !post.isReply(), listener);
         try {
-            Query query = postsRef.orderByChild("userId").equalTo(userId);
-            
-            query.addValueEventListener(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    try {
-                        List<Post> userPosts = new ArrayList<>();
-                        
-                        for (DataSnapshot postSnapshot : dataSnapshot.getChildren()) {
-                            Post post = postSnapshot.getValue(Post.class);
-                            if (post != null) {
-                                userPosts.add(post);
-                            }
-                        }
-                        
-                        // Sort by creation date (newest first)
-                        userPosts.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-                        
-                        // We're not setting allPostsLiveData here as this is for a specific user view
-                        Log.d(TAG, "Loaded " + userPosts.size() + " posts for user " + userId);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing user posts: " + e.getMessage(), e);
-                        errorMessageLiveData.setValue("Error loading user posts: " + e.getMessage());
-                    }
-                }
-
-                @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Database error: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Database error: " + databaseError.getMessage());
-                }
-            });
+            engine.attach(QueryShapes.POSTS_BY_USER.bounded(postsRef).equalTo(userId));
         } catch (Exception e) {
             Log.e(TAG, "Error setting up user posts listener: " + e.getMessage(), e);
             errorMessageLiveData.setValue("Error setting up user posts listener: " + e.getMessage());
         }
+        return engine;
     }
 
     /**
      * Ajoute ou supprime un like sur un post.
-     * Met à jour le compteur de likes du post.
+     * Si l'état du like est déjà connu (like ou unlike précédent dans la session), l'opération
+     * inverse est envoyée directement. Sinon un like est tenté : les règles le refusent si
+     * l'utilisateur a déjà liké le post, et le like est alors retiré.
      *
      * @param postId L'identifiant du post à liker/unliker
      */
     public void likePost(String postId) {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            errorMessageLiveData.setValue("You must be logged in to like posts");
+            return;
+        }
+        syncInteractionStates(currentUser.getUid());
+        Boolean liked = likeStates.get(postId);
+        setLiked(postId, liked == null || !liked, liked == null);
+    }
+
+    /**
+     * Like ou retire le like d'un post en une seule écriture multi-chemins
+     * (marqueur dans likes et incrément atomique de likeCount).
+     *
+     * @param postId L'identifiant du post
+     * @param liked  true pour liker, false pour retirer le like
+     */
+    public void setLiked(String postId, boolean liked) {
+        setLiked(postId, liked, false);
+    }
+
+    private void setLiked(String postId, boolean liked, boolean retryOnConflict) {
         try {
             FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
             if (currentUser == null) {
                 errorMessageLiveData.setValue("You must be logged in to like posts");
                 return;
             }
-            
-            String userId = currentUser.getUid();
-            String likeKey = postId + "_" + userId;
-            
-            // Check if user already liked this post
-            likesRef.child(likeKey).addListenerForSingleValueEvent(new ValueEventListener() {
+            syncInteractionStates(currentUser.getUid());
+
+            stores.getPostStore().setLiked(postId, currentUser.getUid(), liked, new StoreCallback<Boolean>() {
                 @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    if (dataSnapshot.exists()) {
-                        // User already liked this post, unlike it
-                        likesRef.child(likeKey).removeValue();
-                        
-                        // Decrement like count
-                        postsRef.child(postId).child("likeCount").addListenerForSingleValueEvent(
-                            new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                    Integer currentLikes = snapshot.getValue(Integer.class);
-                                    if (currentLikes != null && currentLikes > 0) {
-                                        postsRef.child(postId).child("likeCount").setValue(currentLikes - 1);
-                                    }
-                                }
-
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {
-                                    Log.e(TAG, "Error updating like count: " + error.getMessage());
-                                }
-                            });
-                    } else {
-                        // User hasn't liked this post yet, like it
-                        likesRef.child(likeKey).setValue(true);
-                        
-                        // Increment like count
-                        postsRef.child(postId).child("likeCount").addListenerForSingleValueEvent(
-                            new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                    Integer currentLikes = snapshot.getValue(Integer.class);
-                                    if (currentLikes != null) {
-                                        postsRef.child(postId).child("likeCount").setValue(currentLikes + 1);
-                                    } else {
-                                        postsRef.child(postId).child("likeCount").setValue(1);
-                                    }
-                                }
-
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {
-                                    Log.e(TAG, "Error updating like count: " + error.getMessage());
-                                }
-                            });
+                public void onSuccess(Boolean changed) {
+                    if (!Boolean.TRUE.equals(changed) && retryOnConflict) {
+                        // Le like existe déjà : les règles ont refusé l'incrément, on le retire
+                        setLiked(postId, !liked, false);
+                        return;
                     }
+                    // Sans changement, le like était déjà dans l'état demandé
+                    likeStates.put(postId, liked);
                 }
 
                 @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Database error: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Database error: " + databaseError.getMessage());
+                public void onError(String message) {
+                    likeStates.remove(postId);
+                    Log.e(TAG, "Error updating like: " + message);
+                    errorMessageLiveData.setValue("Failed to update like: " + message);
                 }
             });
         } catch (Exception e) {
@@ -366,21 +699,24 @@ public class PostRepository {
             }
             
             // Check if the current user is the author of the post
-            postsRef.child(postId).addListenerForSingleValueEvent(new ValueEventListener() {
+            stores.getPostStore().getPost(postId, new StoreCallback<Post>() {
                 @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    Post post = dataSnapshot.getValue(Post.class);
-                    
+                public void onSuccess(Post post) {
                     if (post != null && post.getUserId().equals(currentUser.getUid())) {
-                        // User is the author, delete the post
-                        postsRef.child(postId).removeValue()
-                            .addOnSuccessListener(aVoid -> {
+                        // User is the author, delete the post and its author index entries
+                        post.setId(postId);
+                        stores.getPostStore().delete(post, new StoreCallback<Void>() {
+                            @Override
+                            public void onSuccess(Void result) {
                                 Log.d(TAG, "Post deleted successfully: " + postId);
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error deleting post: " + e.getMessage(), e);
-                                errorMessageLiveData.setValue("Failed to delete post: " + e.getMessage());
-                            });
+                            }
+
+                            @Override
+                            public void onError(String message) {
+                                Log.e(TAG, "Error deleting post: " + message);
+                                errorMessageLiveData.setValue("Failed to delete post: " + message);
+                            }
+                        });
                     } else {
                         // User is not the author
                         errorMessageLiveData.setValue("You can only delete your own posts");
@@ -388,9 +724,9 @@ public class PostRepository {
                 }
 
                 @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Database error: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Database error: " + databaseError.getMessage());
+                public void onError(String message) {
+                    Log.e(TAG, "Database error: " + message);
+                    errorMessageLiveData.setValue("Database error: " + message);
                 }
             });
         } catch (Exception e) {
@@ -401,11 +737,44 @@ public class PostRepository {
 
     /**
      * Crée une réponse à un post existant.
+     * Le nom de l'auteur du post parent est lu avant l'écriture ; utiliser
+     * createReply(content, parentPostId, parentUsername) lorsqu'il est déjà connu.
      *
      * @param content      Le contenu de la réponse
      * @param parentPostId L'identifiant du post parent
      */
     public void createReply(String content, String parentPostId) {
+        try {
+            // Récupérer le post parent pour obtenir le nom d'utilisateur
+            stores.getPostStore().getPost(parentPostId, new StoreCallback<Post>() {
+                @Override
+                public void onSuccess(Post parent) {
+                    String parentUsername = parent != null ? parent.getUsername() : null;
+                    createReply(content, parentPostId, parentUsername != null ? parentUsername : "");
+                }
+
+                @Override
+                public void onError(String message) {
+                    Log.e(TAG, "Error retrieving parent post: " + message);
+                    errorMessageLiveData.setValue("Error retrieving parent post: " + message);
+                }
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "Error creating reply: " + e.getMessage(), e);
+            errorMessageLiveData.setValue("Error creating reply: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Crée une réponse à un post existant.
+     * La réponse et l'incrément atomique du compteur de réponses du parent sont
+     * envoyés en une seule écriture multi-chemins.
+     *
+     * @param content        Le contenu de la réponse
+     * @param parentPostId   L'identifiant du post parent
+     * @param parentUsername Le nom d'utilisateur de l'auteur du post parent
+     */
+    public void createReply(String content, String parentPostId, String parentUsername) {
         try {
             FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
             if (currentUser == null) {
@@ -419,80 +788,33 @@ public class PostRepository {
                 username = "User" + userId.substring(0, 5);
             }
             
-            // Créer des copies finales des variables pour utilisation dans la classe anonyme
-            final String finalUserId = userId;
-            final String finalUsername = username;
-            final String finalContent = content;
-            final String finalParentPostId = parentPostId;
-            
             // Generate a unique key for the new reply
-            String replyId = postsRef.push().getKey();
-            if (replyId == null) {
-                errorMessageLiveData.setValue("Failed to create reply ID");
-                return;
-            }
+            String replyId = stores.getPostStore().newPostId();
             
-            final String finalReplyId = replyId;
+            // Create reply object
+            Post reply = new Post(
+                replyId,
+                userId,
+                username,
+                content,
+                null, // No image URL for now
+                new Date(),
+                0, // Initial like count
+                parentPostId, // Parent post ID
+                parentUsername // Parent username
+            );
             
-            // Récupérer le post parent pour obtenir le nom d'utilisateur
-            postsRef.child(finalParentPostId).addListenerForSingleValueEvent(new ValueEventListener() {
+            // Save reply and increment comment count on parent post
+            stores.getPostStore().reply(reply, new StoreCallback<Void>() {
                 @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    try {
-                        Post parentPost = dataSnapshot.getValue(Post.class);
-                        String parentUsername = parentPost != null ? parentPost.getUsername() : "";
-                        
-                        // Create reply object
-                        Post reply = new Post(
-                            finalReplyId,
-                            finalUserId,
-                            finalUsername,
-                            finalContent,
-                            null, // No image URL for now
-                            new Date(),
-                            0, // Initial like count
-                            finalParentPostId, // Parent post ID
-                            parentUsername // Parent username
-                        );
-                        
-                        // Save reply to Firebase
-                        postsRef.child(finalReplyId).setValue(reply)
-                            .addOnSuccessListener(aVoid -> {
-                                Log.d(TAG, "Reply created successfully with ID: " + finalReplyId);
-                                
-                                // Increment comment count on parent post
-                                postsRef.child(finalParentPostId).child("commentCount").addListenerForSingleValueEvent(
-                                    new ValueEventListener() {
-                                        @Override
-                                        public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                            Integer currentComments = snapshot.getValue(Integer.class);
-                                            if (currentComments != null) {
-                                                postsRef.child(finalParentPostId).child("commentCount").setValue(currentComments + 1);
-                                            } else {
-                                                postsRef.child(finalParentPostId).child("commentCount").setValue(1);
-                                            }
-                                        }
-
-                                        @Override
-                                        public void onCancelled(@NonNull DatabaseError error) {
-                                            Log.e(TAG, "Error updating comment count: " + error.getMessage());
-                                        }
-                                    });
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error creating reply: " + e.getMessage(), e);
-                                errorMessageLiveData.setValue("Failed to create reply: " + e.getMessage());
-                            });
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error creating reply: " + e.getMessage(), e);
-                        errorMessageLiveData.setValue("Error creating reply: " + e.getMessage());
-                    }
+                public void onSuccess(Void result) {
+                    Log.d(TAG, "Reply created successfully with ID: " + replyId);
                 }
-                
+
                 @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Error retrieving parent post: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Error retrieving parent post: " + databaseError.getMessage());
+                public void onError(String message) {
+                    Log.e(TAG, "Error creating reply: " + message);
+                    errorMessageLiveData.setValue("Failed to create reply: " + message);
                 }
             });
         } catch (Exception e) {
@@ -502,7 +824,11 @@ public class PostRepository {
     }
 
     /**
-     * Crée un retweet d'un post existant.
+     * Crée un retweet d'un post existant, ou l'annule si l'utilisateur l'a déjà retweeté.
+     * Le post de retweet, son marqueur et le compteur du post original sont modifiés
+     * en une seule écriture multi-chemins. Si l'état du retweet n'est pas connu, un retweet
+     * est tenté : les règles le refusent s'il existe déjà, et le marqueur est alors lu
+     * pour retrouver le retweet à annuler.
      *
      * @param originalPost Le post original à retweeter
      */
@@ -515,6 +841,18 @@ public class PostRepository {
             }
             
             final String userId = currentUser.getUid();
+            final String originalPostId = originalPost.getId();
+            syncInteractionStates(userId);
+            if (retweetStates.containsKey(originalPostId)) {
+                String retweetId = retweetStates.get(originalPostId);
+                if (retweetId != null) {
+                    // L'utilisateur a déjà retweeté ce post, annuler le retweet
+                    undoRetweet(originalPostId, userId, retweetId);
+                    return;
+                }
+            }
+            final boolean stateKnown = retweetStates.containsKey(originalPostId);
+            
             final String username;
             if (currentUser.getDisplayName() == null || currentUser.getDisplayName().isEmpty()) {
                 username = "User" + userId.substring(0, 5);
@@ -522,98 +860,41 @@ public class PostRepository {
                 username = currentUser.getDisplayName();
             }
             
-            // Vérifier si l'utilisateur a déjà retweeté ce post
-            String retweetKey = originalPost.getId() + "_" + userId + "_retweet";
-            retweetsRef.child(retweetKey).addListenerForSingleValueEvent(new ValueEventListener() {
+            // Generate a unique key for the new retweet
+            String retweetId = stores.getPostStore().newPostId();
+            
+            // Create retweet object
+            Post retweet = new Post(
+                retweetId,
+                userId,
+                username,
+                originalPostId,
+                originalPost.getUserId(),
+                originalPost.getUsername(),
+                originalPost.getContent(),
+                originalPost.getImageUrl(),
+                new Date()
+            );
+            
+            stores.getPostStore().retweet(retweet, new StoreCallback<Boolean>() {
                 @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    if (dataSnapshot.exists()) {
-                        // L'utilisateur a déjà retweeté ce post, annuler le retweet
-                        retweetsRef.child(retweetKey).removeValue();
-                        
-                        // Supprimer le retweet
-                        String retweetId = dataSnapshot.getValue(String.class);
-                        if (retweetId != null) {
-                            postsRef.child(retweetId).removeValue();
-                        }
-                        
-                        // Décrémenter le compteur de retweets
-                        postsRef.child(originalPost.getId()).child("retweetCount").addListenerForSingleValueEvent(
-                            new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                    Integer currentRetweets = snapshot.getValue(Integer.class);
-                                    if (currentRetweets != null && currentRetweets > 0) {
-                                        postsRef.child(originalPost.getId()).child("retweetCount").setValue(currentRetweets - 1);
-                                    }
-                                }
-
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {
-                                    Log.e(TAG, "Error updating retweet count: " + error.getMessage());
-                                }
-                            });
+                public void onSuccess(Boolean created) {
+                    if (Boolean.TRUE.equals(created)) {
+                        Log.d(TAG, "Retweet created successfully with ID: " + retweetId);
+                        retweetStates.put(originalPostId, retweetId);
+                    } else if (!stateKnown) {
+                        // Le retweet existe déjà : retrouver son identifiant pour l'annuler
+                        undoExistingRetweet(originalPostId, userId);
                     } else {
-                        // L'utilisateur n'a pas encore retweeté ce post, créer un retweet
-                        
-                        // Generate a unique key for the new retweet
-                        String retweetId = postsRef.push().getKey();
-                        if (retweetId == null) {
-                            errorMessageLiveData.setValue("Failed to create retweet ID");
-                            return;
-                        }
-                        
-                        // Create retweet object
-                        Post retweet = new Post(
-                            retweetId,
-                            userId,
-                            username,
-                            originalPost.getId(),
-                            originalPost.getUserId(),
-                            originalPost.getUsername(),
-                            originalPost.getContent(),
-                            originalPost.getImageUrl(),
-                            new Date()
-                        );
-                        
-                        // Save retweet to Firebase
-                        postsRef.child(retweetId).setValue(retweet)
-                            .addOnSuccessListener(aVoid -> {
-                                Log.d(TAG, "Retweet created successfully with ID: " + retweetId);
-                                
-                                // Enregistrer la référence du retweet
-                                retweetsRef.child(retweetKey).setValue(retweetId);
-                                
-                                // Incrémenter le compteur de retweets
-                                postsRef.child(originalPost.getId()).child("retweetCount").addListenerForSingleValueEvent(
-                                    new ValueEventListener() {
-                                        @Override
-                                        public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                            Integer currentRetweets = snapshot.getValue(Integer.class);
-                                            if (currentRetweets != null) {
-                                                postsRef.child(originalPost.getId()).child("retweetCount").setValue(currentRetweets + 1);
-                                            } else {
-                                                postsRef.child(originalPost.getId()).child("retweetCount").setValue(1);
-                                            }
-                                        }
-
-                                        @Override
-                                        public void onCancelled(@NonNull DatabaseError error) {
-                                            Log.e(TAG, "Error updating retweet count: " + error.getMessage());
-                                        }
-                                    });
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Error creating retweet: " + e.getMessage(), e);
-                                errorMessageLiveData.setValue("Failed to create retweet: " + e.getMessage());
-                            });
+                        retweetStates.remove(originalPostId);
+                        errorMessageLiveData.setValue("Failed to create retweet");
                     }
                 }
 
                 @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Database error: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Database error: " + databaseError.getMessage());
+                public void onError(String message) {
+                    Log.e(TAG, "Error creating retweet: " + message);
+                    errorMessageLiveData.setValue("Failed to create retweet: " + message);
                 }
             });
         } catch (Exception e) {
@@ -622,116 +903,50 @@ public class PostRepository {
         }
     }
 
-    /**
-     * Charge les retweets et les réponses pour les afficher dans le fil d'actualité.
-     * Met à jour allPostsLiveData avec les résultats.
-     */
-    public void loadRetweetsAndReplies() {
-        try {
-            Log.d(TAG, "Starting to load retweets and replies from Firebase");
-            Query query = postsRef;
-            
-            query.addValueEventListener(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    try {
-                        List<Post> posts = new ArrayList<>();
-                        Log.d(TAG, "onDataChange called for retweets and replies, snapshot has " + dataSnapshot.getChildrenCount() + " children");
-                        
-                        // Loop through all posts
-                        for (DataSnapshot postSnapshot : dataSnapshot.getChildren()) {
-                            try {
-                                Post post = postSnapshot.getValue(Post.class);
-                                if (post != null) {
-                                    // Ne garder que les retweets et les réponses
-                                    if (post.isRetweet() || post.isReply()) {
-                                        posts.add(post);
-                                        Log.d(TAG, "Loaded retweet/reply: " + post.getId() + ", content: " + post.getContent());
-                                    }
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error parsing retweet/reply: " + e.getMessage(), e);
-                            }
-                        }
-                        
-                        // Trier les posts par date (du plus récent au plus ancien)
-                        posts.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-                        
-                        // Mettre à jour une LiveData spécifique pour les retweets et réponses si nécessaire
-                        // Pour l'instant, nous n'avons pas créé cette LiveData, mais on pourrait l'ajouter
-                        // retweetsAndRepliesLiveData.setValue(posts);
-                        
-                        Log.d(TAG, "Loaded " + posts.size() + " retweets and replies from Firebase");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing retweets and replies: " + e.getMessage(), e);
-                    }
+    private void undoExistingRetweet(String originalPostId, String userId) {
+        stores.getPostStore().findRetweet(originalPostId, userId, new StoreCallback<String>() {
+            @Override
+            public void onSuccess(String retweetId) {
+                if (retweetId != null) {
+                    undoRetweet(originalPostId, userId, retweetId);
+                } else {
+                    errorMessageLiveData.setValue("Failed to create retweet");
                 }
+            }
 
-                @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Error loading retweets and replies: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Error loading retweets and replies: " + databaseError.getMessage());
-                }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error setting up retweets and replies listener: " + e.getMessage(), e);
-            errorMessageLiveData.setValue("Error setting up retweets and replies listener: " + e.getMessage());
-        }
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Database error: " + message);
+                errorMessageLiveData.setValue("Database error: " + message);
+            }
+        });
+    }
+
+    private void undoRetweet(String originalPostId, String userId, String retweetId) {
+        stores.getPostStore().unretweet(originalPostId, userId, retweetId, new StoreCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                Log.d(TAG, "Retweet removed: " + retweetId);
+                retweetStates.put(originalPostId, null);
+            }
+
+            @Override
+            public void onError(String message) {
+                retweetStates.remove(originalPostId);
+                Log.e(TAG, "Error removing retweet: " + message);
+                errorMessageLiveData.setValue("Failed to remove retweet: " + message);
+            }
+        });
     }
 
     /**
-     * Charge les réponses à un post spécifique.
-     * Met à jour allPostsLiveData avec les résultats.
-     *
-     * @param parentPostId L'identifiant du post parent
+     * Oublie les états d'interaction connus lorsque l'utilisateur connecté change.
      */
-    public void loadRepliesForPost(String parentPostId) {
-        try {
-            Log.d(TAG, "Starting to load replies for post: " + parentPostId);
-            Query query = postsRef.orderByChild("parentId").equalTo(parentPostId);
-            
-            query.addValueEventListener(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                    try {
-                        List<Post> replies = new ArrayList<>();
-                        Log.d(TAG, "onDataChange called for replies, snapshot has " + dataSnapshot.getChildrenCount() + " children");
-                        
-                        // Loop through all replies
-                        for (DataSnapshot postSnapshot : dataSnapshot.getChildren()) {
-                            try {
-                                Post post = postSnapshot.getValue(Post.class);
-                                if (post != null && post.isReply() && parentPostId.equals(post.getParentId())) {
-                                    replies.add(post);
-                                    Log.d(TAG, "Loaded reply: " + post.getId() + ", content: " + post.getContent());
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error parsing reply: " + e.getMessage(), e);
-                            }
-                        }
-                        
-                        // Trier les réponses par date (du plus récent au plus ancien)
-                        replies.sort((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-                        
-                        // Mettre à jour une LiveData spécifique pour les réponses
-                        // Pour l'instant, nous n'avons pas créé cette LiveData, mais on pourrait l'ajouter
-                        // repliesLiveData.setValue(replies);
-                        
-                        Log.d(TAG, "Loaded " + replies.size() + " replies for post " + parentPostId);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing replies: " + e.getMessage(), e);
-                    }
-                }
-
-                @Override
-                public void onCancelled(@NonNull DatabaseError databaseError) {
-                    Log.e(TAG, "Error loading replies: " + databaseError.getMessage());
-                    errorMessageLiveData.setValue("Error loading replies: " + databaseError.getMessage());
-                }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error setting up replies listener: " + e.getMessage(), e);
-            errorMessageLiveData.setValue("Error setting up replies listener: " + e.getMessage());
+    private void syncInteractionStates(String userId) {
+        if (!userId.equals(interactionStatesUserId)) {
+            likeStates.clear();
+            retweetStates.clear();
+            interactionStatesUserId = userId;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.sofiane.newtwitter.repository;
+
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registre des formes de requêtes triées utilisées par les repositories.
+ * Toute requête orderByChild/orderByValue doit être construite à partir d'une forme de ce registre,
+ * et chaque forme doit être couverte par un .indexOn dans firebase_rules.json :
+ * sans index, le serveur renvoie tout le nœud et le filtrage se fait sur le client.
+ * QueryShapesTest vérifie les fichiers de règles, QueryIndexEmulatorTest vérifie que l'émulateur
+ * n'émet aucun avertissement d'index manquant pour ces requêtes.
+ */
+public final class QueryShapes {
+    // Clé de tri spéciale : la valeur de chaque enfant
+    public static final String VALUE = ".value";
+
+    /**
+     * Forme d'une requête : la liste interrogée et sa clé de tri.
+     */
+    public static final class Shape {
+        // Chemin de la liste interrogée ; les segments variables commencent par "$"
+        public final String path;
+        // Clé enfant utilisée par orderByChild, ou VALUE pour orderByValue
+        public final String orderBy;
+
+        Shape(String path, String orderBy) {
+            this.path = path;
+            this.orderBy = orderBy;
+        }
+
+        /**
+         * Applique le tri de cette forme à une liste.
+         *
+         * @param list La référence de la liste correspondant à path
+         * @return La requête triée
+         */
+        public Query on(DatabaseReference list) {
+            return VALUE.equals(orderBy) ? list.orderByValue() : list.orderByChild(orderBy);
+        }
+
+        /**
+         * Comme on(), mais sous une forme qui garde ses paramètres lisibles (voir Bounded).
+         *
+         * @param list La référence de la liste correspondant à path
+         * @return La requête triée, sans bornes
+         */
+        public Bounded bounded(DatabaseReference list) {
+            return new Bounded(this, list, null, null, null, null, null, null);
+        }
+
+        @Override
+        public String toString() {
+            return path + " orderBy " + orderBy;
+        }
+    }
+
+    /**
+     * Requête d'une forme avec ses bornes (equalTo, startAt, endAt, limitToLast).
+     * Firebase n'expose pas les paramètres d'une Query ; cette valeur les garde pour fournir une clé
+     * (key()) aux requêtes partagées, puis construit la Query correspondante (toQuery()).
+     * Immuable : chaque borne renvoie une nouvelle requête.
+     */
+    public static final class Bounded {
+        private final Shape shape;
+        private final DatabaseReference list;
+        private final String equalTo;
+        private final Double startAt;
+        private final String startAtKey;
+        private final Double endAt;
+        private final String endAtKey;
+        private final Integer limitToLast;
+        private final String key;
+
+        private Bounded(Shape shape, DatabaseReference list, String equalTo, Double startAt, String startAtKey,
+                        Double endAt, String endAtKey, Integer limitToLast) {
+            this.shape = shape;
+            this.list = list;
+            this.equalTo = equalTo;
+            this.startAt = startAt;
+            this.startAtKey = startAtKey;
+            this.endAt = endAt;
+            this.endAtKey = endAtKey;
+            this.limitToLast = limitToLast;
+            this.key = list + " orderBy " + shape.orderBy
+                    + (equalTo != null ? " equalTo " + equalTo : "")
+                    + (startAt != null ? " startAt " + startAt + "," + startAtKey : "")
+                    + (endAt != null ? " endAt " + endAt + "," + endAtKey : "")
+                    + (limitToLast != null ? " limitToLast " + limitToLast : "");
+        }
+
+        public Bounded equalTo(String value) {
+            return new Bounded(shape, list, value, startAt, startAtKey, endAt, endAtKey, limitToLast);
+        }
+
+        public Bounded startAt(double value, String childKey) {
+            return new Bounded(shape, list, equalTo, value, childKey, endAt, endAtKey, limitToLast);
+        }
+
+        public Bounded endAt(double value, String childKey) {
+            return new Bounded(shape, list, equalTo, startAt, startAtKey, value, childKey, limitToLast);
+        }
+
+        public Bounded limitToLast(int limit) {
+            return new Bounded(shape, list, equalTo, startAt, startAtKey, endAt, endAtKey, limit);
+        }
+
+        /**
+         * @return Une clé égale pour deux requêtes identiques : URL de la liste, tri et bornes
+         */
+        public String key() {
+            return key;
+        }
+
+        /**
+         * @return La requête Firebase correspondante
+         */
+        public Query toQuery() {
+            Query query = shape.on(list);
+            if (equalTo != null) {
+                query = query.equalTo(equalTo);
+            }
+            if (startAt != null) {
+                query = query.startAt(startAt, startAtKey);
+            }
+            if (endAt != null) {
+                query = query.endAt(endAt, endAtKey);
+            }
+            if (limitToLast != null) {
+                query = query.limitToLast(limitToLast);
+            }
+            return query;
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+    // Fil d'actualité et pagination : createdAt est sérialisé en objet
+    // et "time" contient le timestamp (voir PostCodec)
+    public static final Shape POSTS_BY_CREATED_AT = new Shape("posts", "createdAt/time");
+    // Posts d'un profil
+    public static final Shape POSTS_BY_USER = new Shape("posts", "userId");
+    // Réponses écrites avant l'index replies
+    public static final Shape POSTS_BY_PARENT = new Shape("posts", "parentId");
+    // Fil personnel rempli par fan-out
+    public static final Shape TIMELINE_BY_TIME = new Shape("timelines/$userId", VALUE);
+    // Posts d'un auteur très suivi (fan-out à la lecture)
+    public static final Shape USER_POSTS_BY_TIME = new Shape("userPosts/$userId", VALUE);
+    // Réponses d'un post
+    public static final Shape REPLIES_BY_TIME = new Shape("replies/$parentId", VALUE);
+
+    public static final List<Shape> ALL = Collections.unmodifiableList(Arrays.asList(
+            POSTS_BY_CREATED_AT,
+            POSTS_BY_USER,
+            POSTS_BY_PARENT,
+            TIMELINE_BY_TIME,
+            USER_POSTS_BY_TIME,
+            REPLIES_BY_TIME
+    ));
+
+    private QueryShapes() {
+    }
+}
@@ -0,0 +1,688 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.Post;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche local : index inversé sur le contenu des posts et arbre de préfixes (trie)
+ * sur les noms d'utilisateur.
+ * Il est alimenté par la synchronisation, au fil de l'eau : LocalPostStore y reporte chaque post
+ * enregistré ou supprimé, UserProfileCache chaque carte utilisateur lue. Une requête ne parcourt
+ * que les listes de postings des termes cherchés (triées par entier de document), jamais
+ * l'ensemble des posts.
+ * Les posts sont classés par pertinence (BM25), puis du plus récent au plus ancien ; le dernier mot
+ * d'une requête est aussi cherché comme préfixe, pour la saisie en cours. Les utilisateurs sont
+ * classés par ordre alphabétique, le nom exact en premier.
+ * Les accents et la casse sont ignorés. Toutes les méthodes sont synchronisées : l'index est
+ * alimenté depuis les exécuteurs de parsing et interrogé depuis le thread principal.
+ * La recherche ne couvre que ce qui est connu localement : les posts du disque (au plus
+ * LocalPostStore.MAX_STORED_POSTS au démarrage, plus les pages chargées pendant la session) et les
+ * utilisateurs déjà vus. Ce n'est pas une recherche sur le serveur. Les écrans l'interrogent par
+ * SearchRepository, qui renvoie les posts et les cartes des résultats.
+ */
+public class SearchIndex {
+    private static SearchIndex instance;
+
+    // Nombre maximal de termes complétés pour le dernier mot d'une requête
+    public static final int MAX_PREFIX_TERMS = 64;
+    // Longueur maximale d'un terme indexé (les URL et suites de caractères sont tronquées)
+    static final int MAX_TERM_LENGTH = 32;
+
+    // Poids d'un terme trouvé seulement par complétion du préfixe ; sa rareté est celle du préfixe
+    // (tous les documents qu'il complète), de sorte que le mot exact passe avant ses complétions
+    private static final float PREFIX_WEIGHT = 0.5f;
+    // Paramètres BM25
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    /**
+     * Une page de résultats : les identifiants (posts ou utilisateurs), dans l'ordre du classement.
+     */
+    public static final class Page {
+        public final List<String> ids;
+        // Nombre total de résultats
+        public final int total;
+        // Position de la page suivante, ou -1 s'il n'y en a pas
+        public final int nextOffset;
+
+        Page(List<String> ids, int total, int nextOffset) {
+            this.ids = ids;
+            this.total = total;
+            this.nextOffset = nextOffset;
+        }
+
+        static Page empty() {
+            return new Page(new ArrayList<>(), 0, -1);
+        }
+    }
+
+    /**
+     * Liste de postings d'un terme : les documents qui le contiennent, triés, et le nombre d'occurrences.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        short[] counts = new short[4];
+        int size;
+
+        void put(int doc, int count) {
+            short value = (short) Math.min(count, Short.MAX_VALUE);
+            // Les nouveaux documents ont les plus grands entiers : ajout en fin dans le cas courant
+            int position = size > 0 && docs[size - 1] >= doc ? Arrays.binarySearch(docs, 0, size, doc) : -(size + 1);
+            if (position >= 0) {
+                counts[position] = value;
+                return;
+            }
+            position = -(position + 1);
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            System.arraycopy(docs, position, docs, position + 1, size - position);
+            System.arraycopy(counts, position, counts, position + 1, size - position);
+            docs[position] = doc;
+            counts[position] = value;
+            size++;
+        }
+
+        void remove(int doc) {
+            int position = Arrays.binarySearch(docs, 0, size, doc);
+            if (position >= 0) {
+                System.arraycopy(docs, position + 1, docs, position, size - position - 1);
+                System.arraycopy(counts, position + 1, counts, position, size - position - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Nœud du trie des noms d'utilisateur. count est le nombre d'utilisateurs du sous-arbre,
+     * pour sauter directement les pages précédentes.
+     */
+    private static final class TrieNode {
+        char[] keys = new char[0];
+        TrieNode[] children = new TrieNode[0];
+        int childCount;
+        // Utilisateurs dont le nom s'arrête ici, triés
+        List<String> userIds;
+        int count;
+
+        @Nullable
+        TrieNode child(char key) {
+            int position = Arrays.binarySearch(keys, 0, childCount, key);
+            return position >= 0 ? children[position] : null;
+        }
+
+        TrieNode childOrCreate(char key) {
+            int position = Arrays.binarySearch(keys, 0, childCount, key);
+            if (position >= 0) {
+                return children[position];
+            }
+            position = -(position + 1);
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, position, keys, position + 1, childCount - position);
+            System.arraycopy(children, position, children, position + 1, childCount - position);
+            TrieNode node = new TrieNode();
+            keys[position] = key;
+            children[position] = node;
+            childCount++;
+            return node;
+        }
+    }
+
+    // --- Posts ---
+    private final Map<String, Integer> docsByPostId = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private String[] docPostIds = new String[64];
+    private long[] docTimes = new long[64];
+    private String[][] docTerms = new String[64][];
+    private int[] docLengths = new int[64];
+    private int docCount;
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private long totalLength;
+    // Tableaux de travail des requêtes, remis à zéro après chaque requête
+    private int[] matched = new int[64];
+    private float[] scores = new float[64];
+
+    // --- Utilisateurs ---
+    private final TrieNode usersRoot = new TrieNode();
+    private final Map<String, String> userKeys = new HashMap<>();
+
+    /**
+     * Index vide ; l'application utilise l'instance unique alimentée par la synchronisation (getInstance).
+     */
+    SearchIndex() {
+    }
+
+    /**
+     * Obtient l'instance unique de l'index, partagée par la synchronisation et les écrans.
+     *
+     * @return L'instance unique de SearchIndex
+     */
+    public static synchronized SearchIndex getInstance() {
+        if (instance == null) {
+            instance = new SearchIndex();
+        }
+        return instance;
+    }
+
+    // --- Alimentation ---
+
+    /**
+     * Indexe (ou réindexe) le contenu d'un post. Son auteur est aussi indexé s'il n'est pas encore connu :
+     * les cartes utilisateur, plus à jour, restent prioritaires.
+     *
+     * @param post Le post reçu
+     */
+    public synchronized void indexPost(@Nullable Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        if (post.getUserId() != null && !userKeys.containsKey(post.getUserId())) {
+            indexUserLocked(post.getUserId(), post.getUsername());
+        }
+        List<String> tokens = tokenize(post.getContent());
+        if (tokens.isEmpty()) {
+            removePostLocked(post.getId());
+            return;
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String token : tokens) {
+            Integer count = counts.get(token);
+            counts.put(token, count == null ? 1 : count + 1);
+        }
+
+        Integer existing = docsByPostId.get(post.getId());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            removeTerms(doc);
+        } else {
+            doc = allocateDoc();
+            docsByPostId.put(post.getId(), doc);
+            docPostIds[doc] = post.getId();
+        }
+        String[] keys = new String[counts.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            Postings postings = terms.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(entry.getKey(), postings);
+            }
+            postings.put(doc, entry.getValue());
+            keys[i++] = entry.getKey();
+        }
+        docTerms[doc] = keys;
+        docLengths[doc] = tokens.size();
+        docTimes[doc] = post.getCreatedAt() != null ? post.getCreatedAt().getTime() : 0L;
+        totalLength += tokens.size();
+    }
+
+    /**
+     * Indexe une liste de posts (une page reçue, ou le contenu du stockage local).
+     */
+    public synchronized void indexPosts(@NonNull List<Post> posts) {
+        for (Post post : posts) {
+            indexPost(post);
+        }
+    }
+
+    /**
+     * Retire un post de l'index.
+     *
+     * @param postId L'identifiant du post supprimé
+     */
+    public synchronized void removePost(@Nullable String postId) {
+        if (postId != null) {
+            removePostLocked(postId);
+        }
+    }
+
+    /**
+     * Indexe (ou renomme) un utilisateur.
+     *
+     * @param userId   L'identifiant de l'utilisateur
+     * @param username Son nom d'utilisateur ; null ou vide le retire de l'index
+     */
+    public synchronized void indexUser(@Nullable String userId, @Nullable String username) {
+        if (userId != null) {
+            indexUserLocked(userId, username);
+        }
+    }
+
+    /**
+     * Retire un utilisateur de l'index.
+     */
+    public synchronized void removeUser(@Nullable String userId) {
+        if (userId != null) {
+            indexUserLocked(userId, null);
+        }
+    }
+
+    /**
+     * @return Le nombre de posts indexés
+     */
+    public synchronized int postCount() {
+        return docsByPostId.size();
+    }
+
+    /**
+     * @return Le nombre d'utilisateurs indexés
+     */
+    public synchronized int userCount() {
+        return userKeys.size();
+    }
+
+    // --- Requêtes ---
+
+    /**
+     * Cherche les posts contenant tous les mots de la requête ; le dernier mot peut n'être qu'un début
+     * de mot, sauf si la requête se termine par un espace.
+     *
+     * @param query  Le texte saisi
+     * @param offset Position du premier résultat (0, puis Page.nextOffset)
+     * @param limit  Nombre maximal de résultats
+     * @return Les identifiants des posts, du plus pertinent au moins pertinent
+     */
+    @NonNull
+    public synchronized Page searchPosts(@Nullable String query, int offset, int limit) {
+        List<String> tokens = distinct(tokenize(query));
+        if (tokens.isEmpty() || limit <= 0 || offset < 0) {
+            return Page.empty();
+        }
+        boolean prefixLast = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        // Un groupe par mot : ses termes (plusieurs pour le préfixe), leur poids et leur idf
+        List<List<Postings>> groups = new ArrayList<>(tokens.size());
+        List<float[]> weights = new ArrayList<>(tokens.size());
+        List<float[]> idfs = new ArrayList<>(tokens.size());
+        for (int t = 0; t < tokens.size(); t++) {
+            String token = tokens.get(t);
+            List<Postings> group = new ArrayList<>();
+            List<Float> groupWeights = new ArrayList<>();
+            Postings exact = terms.get(token);
+            if (exact != null) {
+                group.add(exact);
+                groupWeights.add(1f);
+            }
+            if (prefixLast && t == tokens.size() - 1) {
+                for (Map.Entry<String, Postings> entry : terms.tailMap(token, false).entrySet()) {
+                    if (!entry.getKey().startsWith(token) || group.size() >= MAX_PREFIX_TERMS) {
+                        break;
+                    }
+                    group.add(entry.getValue());
+                    groupWeights.add(PREFIX_WEIGHT);
+                }
+            }
+            if (group.isEmpty()) {
+                return Page.empty();
+            }
+            int prefixFrequency = 0;
+            for (Postings postings : group) {
+                prefixFrequency += postings.size;
+            }
+            float[] values = new float[group.size()];
+            float[] groupIdfs = new float[group.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = groupWeights.get(i);
+                boolean completion = values[i] != 1f;
+                groupIdfs[i] = idf(completion ? Math.min(prefixFrequency, docsByPostId.size()) : group.get(i).size);
+            }
+            groups.add(group);
+            weights.add(values);
+            idfs.add(groupIdfs);
+        }
+
+        // Les mots les plus rares d'abord : la liste des candidats ne fait que rétrécir
+        Integer[] order = new Integer[groups.size()];
+        long[] sizes = new long[groups.size()];
+        for (int g = 0; g < order.length; g++) {
+            order[g] = g;
+            for (Postings postings : groups.get(g)) {
+                sizes[g] += postings.size;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(sizes[a], sizes[b]));
+
+        float averageLength = docsByPostId.isEmpty() ? 1f : (float) totalLength / docsByPostId.size();
+        int[] candidates = new int[0];
+        int candidateCount = 0;
+        for (int step = 0; step < order.length; step++) {
+            List<Postings> group = groups.get(order[step]);
+            float[] groupWeights = weights.get(order[step]);
+            float[] groupIdfs = idfs.get(order[step]);
+            if (step == 0) {
+                candidates = new int[(int) Math.min(sizes[order[0]], docCount)];
+            }
+            for (int p = 0; p < group.size(); p++) {
+                Postings postings = group.get(p);
+                float idf = groupIdfs[p];
+                float weight = groupWeights[p];
+                if (step > 0 && candidateCount * 8L < postings.size) {
+                    // Peu de candidats : recherche dichotomique dans la longue liste
+                    for (int c = 0; c < candidateCount; c++) {
+                        int position = Arrays.binarySearch(postings.docs, 0, postings.size, candidates[c]);
+                        if (position >= 0) {
+                            candidateCount = accumulate(step, candidates, candidateCount, candidates[c],
+                                    postings.counts[position], idf, weight, averageLength);
+                        }
+                    }
+                } else {
+                    for (int i = 0; i < postings.size; i++) {
+                        candidateCount = accumulate(step, candidates, candidateCount, postings.docs[i],
+                                postings.counts[i], idf, weight, averageLength);
+                    }
+                }
+            }
+            // Ne garder que les documents trouvés pour ce mot
+            int kept = 0;
+            for (int c = 0; c < candidateCount; c++) {
+                int doc = candidates[c];
+                if (matched[doc] == step + 1) {
+                    candidates[kept++] = doc;
+                } else {
+                    matched[doc] = 0;
+                    scores[doc] = 0f;
+                }
+            }
+            candidateCount = kept;
+            if (candidateCount == 0) {
+                break;
+            }
+        }
+
+        Page page = rank(candidates, candidateCount, offset, limit);
+        for (int c = 0; c < candidateCount; c++) {
+            matched[candidates[c]] = 0;
+            scores[candidates[c]] = 0f;
+        }
+        return page;
+    }
+
+    /**
+     * Cherche les utilisateurs dont le nom commence par le texte saisi.
+     *
+     * @param prefix Le début du nom d'utilisateur
+     * @param offset Position du premier résultat (0, puis Page.nextOffset)
+     * @param limit  Nombre maximal de résultats
+     * @return Les identifiants des utilisateurs, par ordre alphabétique de leur nom
+     */
+    @NonNull
+    public synchronized Page searchUsers(@Nullable String prefix, int offset, int limit) {
+        String key = usernameKey(prefix);
+        if (key.isEmpty() || limit <= 0 || offset < 0) {
+            return Page.empty();
+        }
+        TrieNode node = usersRoot;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null || node.count == 0) {
+            return Page.empty();
+        }
+        List<String> ids = new ArrayList<>(Math.min(limit, node.count));
+        collect(node, new int[]{offset}, limit, ids);
+        int next = offset + limit < node.count ? offset + limit : -1;
+        return new Page(ids, node.count, next);
+    }
+
+    // --- Posts : interne ---
+
+    private int accumulate(int step, int[] candidates, int candidateCount, int doc, int count,
+                           float idf, float weight, float averageLength) {
+        if (matched[doc] == step) {
+            matched[doc] = step + 1;
+            if (step == 0) {
+                candidates[candidateCount++] = doc;
+            }
+        } else if (matched[doc] != step + 1) {
+            return candidateCount;
+        }
+        // Plusieurs complétions d'un même mot s'additionnent
+        float norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+        scores[doc] += weight * idf * count * (K1 + 1) / (count + norm);
+        return candidateCount;
+    }
+
+    private float idf(int documentFrequency) {
+        int documents = docsByPostId.size();
+        return (float) Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private Page rank(int[] candidates, int candidateCount, int offset, int limit) {
+        if (offset >= candidateCount) {
+            return new Page(new ArrayList<>(), candidateCount, -1);
+        }
+        // Meilleur d'abord : score, puis date, puis identifiant
+        Comparator<Integer> bestFirst = (a, b) -> {
+            if (scores[a] != scores[b]) {
+                return Float.compare(scores[b], scores[a]);
+            }
+            if (docTimes[a] != docTimes[b]) {
+                return Long.compare(docTimes[b], docTimes[a]);
+            }
+            return docPostIds[a].compareTo(docPostIds[b]);
+        };
+        int needed = (int) Math.min((long) offset + limit, candidateCount);
+        // Tas des needed meilleurs, le moins bon en tête
+        PriorityQueue<Integer> best = new PriorityQueue<>(needed + 1, Collections.reverseOrder(bestFirst));
+        for (int c = 0; c < candidateCount; c++) {
+            int doc = candidates[c];
+            if (best.size() < needed) {
+                best.add(doc);
+            } else if (bestFirst.compare(doc, best.peek()) < 0) {
+                best.poll();
+                best.add(doc);
+            }
+        }
+        List<Integer> sorted = new ArrayList<>(best);
+        Collections.sort(sorted, bestFirst);
+        List<String> ids = new ArrayList<>(needed - offset);
+        for (int i = offset; i < needed; i++) {
+            ids.add(docPostIds[sorted.get(i)]);
+        }
+        return new Page(ids, candidateCount, needed < candidateCount ? needed : -1);
+    }
+
+    private int allocateDoc() {
+        if (freeCount > 0) {
+            return freeDocs[--freeCount];
+        }
+        if (docCount == docPostIds.length) {
+            int capacity = docCount * 2;
+            docPostIds = Arrays.copyOf(docPostIds, capacity);
+            docTimes = Arrays.copyOf(docTimes, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            matched = Arrays.copyOf(matched, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        return docCount++;
+    }
+
+    private void removePostLocked(String postId) {
+        Integer doc = docsByPostId.remove(postId);
+        if (doc == null) {
+            return;
+        }
+        removeTerms(doc);
+        docPostIds[doc] = null;
+        docTerms[doc] = null;
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        }
+        freeDocs[freeCount++] = doc;
+    }
+
+    private void removeTerms(int doc) {
+        String[] keys = docTerms[doc];
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Postings postings = terms.get(key);
+            if (postings != null) {
+                postings.remove(doc);
+                if (postings.size == 0) {
+                    terms.remove(key);
+                }
+            }
+        }
+        totalLength -= docLengths[doc];
+        docLengths[doc] = 0;
+    }
+
+    // --- Utilisateurs : interne ---
+
+    private void indexUserLocked(String userId, @Nullable String username) {
+        String key = usernameKey(username);
+        String previous = userKeys.get(userId);
+        if (key.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            removeFromTrie(previous, userId);
+            userKeys.remove(userId);
+        }
+        if (key.isEmpty()) {
+            return;
+        }
+        userKeys.put(userId, key);
+        TrieNode node = usersRoot;
+        node.count++;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            node.count++;
+        }
+        if (node.userIds == null) {
+            node.userIds = new ArrayList<>(1);
+        }
+        int position = Collections.binarySearch(node.userIds, userId);
+        node.userIds.add(-(position + 1), userId);
+    }
+
+    private void removeFromTrie(String key, String userId) {
+        TrieNode[] path = new TrieNode[key.length() + 1];
+        path[0] = usersRoot;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        TrieNode end = path[key.length()];
+        if (end.userIds == null || !end.userIds.remove(userId)) {
+            return;
+        }
+        // Les nœuds vides restent en place : leur compte à zéro les fait ignorer
+        for (TrieNode node : path) {
+            node.count--;
+        }
+    }
+
+    private static void collect(TrieNode node, int[] skip, int limit, List<String> out) {
+        if (node.count <= skip[0]) {
+            skip[0] -= node.count;
+            return;
+        }
+        if (node.userIds != null) {
+            for (String userId : node.userIds) {
+                if (out.size() >= limit) {
+                    return;
+                }
+                if (skip[0] > 0) {
+                    skip[0]--;
+                } else {
+                    out.add(userId);
+                }
+            }
+        }
+        for (int i = 0; i < node.childCount && out.size() < limit; i++) {
+            if (node.children[i].count > 0) {
+                collect(node.children[i], skip, limit, out);
+            }
+        }
+    }
+
+    // --- Normalisation ---
+
+    /**
+     * Minuscules sans accents (« Été » → « ete »).
+     */
+    static String normalize(@NonNull String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+                return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+            }
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Découpe un texte en termes normalisés : suites de lettres et de chiffres
+     * (les « # » et « @ » sont ignorés, « #android » donne « android »).
+     */
+    static List<String> tokenize(@Nullable String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Clé d'un nom d'utilisateur dans le trie : normalisé, espaces réduits.
+     */
+    static String usernameKey(@Nullable String username) {
+        if (username == null) {
+            return "";
+        }
+        return SPACES.matcher(normalize(username).trim()).replaceAll(" ");
+    }
+
+    private static List<String> distinct(List<String> tokens) {
+        List<String> result = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            if (!result.contains(token)) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+}
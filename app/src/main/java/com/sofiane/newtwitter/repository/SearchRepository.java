@@ -0,0 +1,117 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.repository.local.LocalPostStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository de la recherche de posts et d'utilisateurs.
+ * Cette classe implémente le pattern Singleton pour assurer une instance unique.
+ * Les requêtes sont résolues par SearchIndex, puis les identifiants de la page sont lus depuis le
+ * stockage local (posts) et UserProfileCache (cartes utilisateur).
+ * Seul ce qui est connu localement est trouvé (voir SearchIndex) : les posts enregistrés sur le
+ * disque et les utilisateurs déjà vus, pas l'ensemble des posts et des comptes du serveur.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class SearchRepository {
+    private static SearchRepository instance;
+
+    /**
+     * Interface de callback pour recevoir une page de résultats.
+     *
+     * @param <T> Le type des résultats (Post ou UserCard)
+     */
+    public interface PageCallback<T> {
+        /**
+         * @param results    Les résultats de la page, dans l'ordre du classement
+         * @param total      Nombre total de résultats
+         * @param nextOffset Position de la page suivante, ou -1 s'il n'y en a pas
+         */
+        void onPage(@NonNull List<T> results, int total, int nextOffset);
+    }
+
+    private final SearchIndex searchIndex;
+    private final LocalPostStore localPostStore;
+    private final UserProfileCache userProfileCache;
+
+    /**
+     * Constructeur privé pour empêcher l'instanciation directe.
+     */
+    private SearchRepository() {
+        searchIndex = SearchIndex.getInstance();
+        localPostStore = LocalPostStore.getInstance();
+        userProfileCache = UserProfileCache.getInstance();
+    }
+
+    /**
+     * Obtient l'instance unique du repository.
+     * Crée une nouvelle instance si elle n'existe pas encore.
+     *
+     * @return L'instance unique de SearchRepository
+     */
+    public static SearchRepository getInstance() {
+        if (instance == null) {
+            instance = new SearchRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Cherche des posts par leur contenu. Le dernier mot est aussi cherché comme préfixe.
+     *
+     * @param query    Le texte saisi
+     * @param offset   Position du premier résultat (0, puis nextOffset de la page précédente)
+     * @param limit    Nombre maximal de résultats
+     * @param callback Le callback recevant la page
+     */
+    public void searchPosts(@Nullable String query, int offset, int limit, @NonNull PageCallback<Post> callback) {
+        SearchIndex.Page page = searchIndex.searchPosts(query, offset, limit);
+        if (page.ids.isEmpty()) {
+            callback.onPage(new ArrayList<>(), page.total, page.nextOffset);
+            return;
+        }
+        // Un post retiré du disque entre la requête et la lecture est omis
+        localPostStore.loadPosts(page.ids, posts -> callback.onPage(posts, page.total, page.nextOffset));
+    }
+
+    /**
+     * Cherche des utilisateurs par préfixe de nom.
+     *
+     * @param prefix   Le début du nom saisi
+     * @param offset   Position du premier résultat (0, puis nextOffset de la page précédente)
+     * @param limit    Nombre maximal de résultats
+     * @param callback Le callback recevant la page ; les utilisateurs introuvables sont omis
+     */
+    public void searchUsers(@Nullable String prefix, int offset, int limit, @NonNull PageCallback<UserCard> callback) {
+        SearchIndex.Page page = searchIndex.searchUsers(prefix, offset, limit);
+        if (page.ids.isEmpty()) {
+            callback.onPage(new ArrayList<>(), page.total, page.nextOffset);
+            return;
+        }
+        Map<String, UserCard> cards = new HashMap<>();
+        for (String userId : page.ids) {
+            userProfileCache.get(userId, card -> {
+                cards.put(userId, card);
+                if (cards.size() < page.ids.size()) {
+                    return;
+                }
+                List<UserCard> results = new ArrayList<>();
+                for (String id : page.ids) {
+                    UserCard found = cards.get(id);
+                    if (found != null) {
+                        results.add(found);
+                    }
+                }
+                callback.onPage(results, page.total, page.nextOffset);
+            });
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.sofiane.newtwitter.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multiplexeur des abonnements aux événements enfants de Firebase.
+ * Cette classe implémente le pattern Singleton pour assurer une instance unique.
+ * Les requêtes identiques (même chemin et mêmes paramètres, d'après QueryShapes.Bounded.key())
+ * partagent un seul listener Firebase, compté par abonné. Les enfants reçus sont gardés en mémoire et rejoués à chaque nouvel abonné :
+ * une rotation ou un retour arrière ne coûte ni requête réseau ni double livraison.
+ * Lorsque le dernier abonné se retire, le listener Firebase est conservé LINGER_MS avant d'être
+ * détaché, pour qu'un écran recréé aussitôt le retrouve.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class SharedQueries {
+    private static final String TAG = "SharedQueries";
+    private static SharedQueries instance;
+
+    /**
+     * Délai avant de détacher une requête qui n'a plus d'abonnés.
+     */
+    public static final long LINGER_MS = 10_000;
+
+    /**
+     * Un listener Firebase partagé et l'état courant de ses enfants, dans l'ordre de la requête.
+     */
+    private final class SharedQuery implements ChildEventListener {
+        final String key;
+        final Query query;
+        final List<ChildEventListener> listeners = new ArrayList<>();
+        // Abonnés en attente du rejeu : ils ne reçoivent pas encore les événements en direct
+        final Set<ChildEventListener> pendingReplay = new HashSet<>();
+        final List<String> childKeys = new ArrayList<>();
+        final Map<String, DataSnapshot> children = new HashMap<>();
+        final Runnable detach = this::detach;
+
+        SharedQuery(String key, Query query) {
+            this.key = key;
+            this.query = query;
+        }
+
+        @Override
+        public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            place(snapshot, previousChildName);
+            for (ChildEventListener listener : activeListeners()) {
+                listener.onChildAdded(snapshot, previousChildName);
+            }
+        }
+
+        @Override
+        public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            children.put(snapshot.getKey(), snapshot);
+            for (ChildEventListener listener : activeListeners()) {
+                listener.onChildChanged(snapshot, previousChildName);
+            }
+        }
+
+        @Override
+        public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+            childKeys.remove(snapshot.getKey());
+            children.remove(snapshot.getKey());
+            for (ChildEventListener listener : activeListeners()) {
+                listener.onChildRemoved(snapshot);
+            }
+        }
+
+        @Override
+        public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            childKeys.remove(snapshot.getKey());
+            place(snapshot, previousChildName);
+            for (ChildEventListener listener : activeListeners()) {
+                listener.onChildMoved(snapshot, previousChildName);
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Shared query cancelled on " + query.getRef() + ": " + error.getMessage());
+            // Firebase a déjà retiré le listener annulé
+            mainHandler.removeCallbacks(detach);
+            queries.remove(key);
+            for (ChildEventListener listener : new ArrayList<>(listeners)) {
+                listener.onCancelled(error);
+            }
+            listeners.clear();
+            pendingReplay.clear();
+        }
+
+        /**
+         * Insère un enfant juste après son prédécesseur dans l'ordre de la requête.
+         */
+        private void place(DataSnapshot snapshot, @Nullable String previousChildName) {
+            int position = previousChildName == null ? 0 : childKeys.indexOf(previousChildName) + 1;
+            childKeys.add(position, snapshot.getKey());
+            children.put(snapshot.getKey(), snapshot);
+        }
+
+        /**
+         * Copie des abonnés actifs : un abonné peut se retirer pendant la notification.
+         */
+        private List<ChildEventListener> activeListeners() {
+            List<ChildEventListener> active = new ArrayList<>(listeners.size());
+            for (ChildEventListener listener : listeners) {
+                if (!pendingReplay.contains(listener)) {
+                    active.add(listener);
+                }
+            }
+            return active;
+        }
+
+        /**
+         * Rejoue les enfants connus à un nouvel abonné, puis lui transmet les événements en direct.
+         */
+        private void replay(ChildEventListener listener) {
+            if (!pendingReplay.remove(listener)) {
+                // Retiré avant le rejeu
+                return;
+            }
+            String previous = null;
+            for (String childKey : new ArrayList<>(childKeys)) {
+                listener.onChildAdded(children.get(childKey), previous);
+                previous = childKey;
+            }
+        }
+
+        private void detach() {
+            if (!listeners.isEmpty()) {
+                return;
+            }
+            query.removeEventListener(this);
+            queries.remove(key);
+            Log.d(TAG, "Detached shared query, active queries: " + queries.size());
+        }
+    }
+
+    private final Map<String, SharedQuery> queries = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Constructeur privé pour empêcher l'instanciation directe.
+     */
+    private SharedQueries() {
+    }
+
+    /**
+     * Obtient l'instance unique du multiplexeur.
+     * Crée une nouvelle instance si elle n'existe pas encore.
+     *
+     * @return L'instance unique de SharedQueries
+     */
+    public static SharedQueries getInstance() {
+        if (instance == null) {
+            instance = new SharedQueries();
+        }
+        return instance;
+    }
+
+    /**
+     * Abonne un listener aux événements enfants d'une requête.
+     * Si la requête est déjà suivie, les enfants connus sont rejoués (onChildAdded) de façon
+     * asynchrone, comme le ferait Firebase, avant les événements suivants.
+     *
+     * @param query    La requête à suivre
+     * @param listener Le listener à notifier
+     */
+    public void addChildListener(@NonNull QueryShapes.Bounded query, @NonNull ChildEventListener listener) {
+        String key = query.key();
+        SharedQuery shared = queries.get(key);
+        if (shared == null) {
+            shared = new SharedQuery(key, query.toQuery());
+            queries.put(key, shared);
+            shared.listeners.add(listener);
+            shared.query.addChildEventListener(shared);
+            Log.d(TAG, "Attached shared query, active queries: " + queries.size());
+            return;
+        }
+
+        mainHandler.removeCallbacks(shared.detach);
+        shared.listeners.add(listener);
+        shared.pendingReplay.add(listener);
+        final SharedQuery target = shared;
+        mainHandler.post(() -> target.replay(listener));
+    }
+
+    /**
+     * Retire un listener. Le listener Firebase sous-jacent est détaché LINGER_MS après le départ
+     * du dernier abonné, sauf si un nouvel abonné arrive entre-temps.
+     *
+     * @param query    La requête suivie
+     * @param listener Le listener à retirer
+     */
+    public void removeChildListener(@NonNull QueryShapes.Bounded query, @NonNull ChildEventListener listener) {
+        SharedQuery shared = queries.get(query.key());
+        if (shared == null || !shared.listeners.remove(listener)) {
+            return;
+        }
+        shared.pendingReplay.remove(listener);
+        if (shared.listeners.isEmpty()) {
+            mainHandler.postDelayed(shared.detach, LINGER_MS);
+        }
+    }
+
+    /**
+     * Nombre de requêtes actuellement attachées à Firebase, y compris celles en attente de détachement
+     * (pour le débogage).
+     *
+     * @return Le nombre de listeners Firebase partagés
+     */
+    public int getActiveQueryCount() {
+        return queries.size();
+    }
+}
@@ -0,0 +1,267 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.repository.store.FollowGraphStore;
+import com.sofiane.newtwitter.repository.store.InMemoryFollowGraphStore;
+import com.sofiane.newtwitter.repository.store.InMemoryPostStore;
+import com.sofiane.newtwitter.repository.store.InMemoryUserStore;
+import com.sofiane.newtwitter.repository.store.PostStore;
+import com.sofiane.newtwitter.repository.store.Registration;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.StoreListener;
+import com.sofiane.newtwitter.repository.store.UserStore;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Stores de données utilisés par les repositories et les ViewModels.
+ * L'instance par défaut s'appuie sur Firebase Realtime Database ; les tests et les benchmarks
+ * installent des stores en mémoire avec setInstance(Stores.inMemory(...)) avant le premier accès
+ * aux repositories, ou les passent directement aux constructeurs des ViewModels.
+ * Ce qui lit encore Firebase directement (requêtes partagées du fil de PostRepository, sans équivalent
+ * dans les stores, et écrans abonnés par ListenerRegistry) prend sa racine ici (getRootRef)
+ * plutôt que d'ouvrir la base lui-même.
+ */
+public final class Stores {
+    // Base Realtime Database de l'application
+    public static final String DATABASE_URL = "https://newtwitter-65ad1-default-rtdb.europe-west1.firebasedatabase.app";
+
+    private static Stores instance;
+
+    private final PostStore postStore;
+    private final UserStore userStore;
+    private final FollowGraphStore followGraphStore;
+    // Racine de la base Firebase, null pour des stores en mémoire
+    @Nullable
+    private final DatabaseReference rootRef;
+
+    public Stores(@NonNull PostStore postStore, @NonNull UserStore userStore, @NonNull FollowGraphStore followGraphStore) {
+        this(postStore, userStore, followGraphStore, null);
+    }
+
+    public Stores(@NonNull PostStore postStore, @NonNull UserStore userStore, @NonNull FollowGraphStore followGraphStore,
+                  @Nullable DatabaseReference rootRef) {
+        this.postStore = postStore;
+        this.userStore = userStore;
+        this.followGraphStore = followGraphStore;
+        this.rootRef = rootRef;
+    }
+
+    /**
+     * Obtient les stores de l'application, sur Firebase par défaut.
+     *
+     * @return L'instance partagée
+     */
+    public static synchronized Stores getInstance() {
+        if (instance == null) {
+            DatabaseReference rootRef = FirebaseDatabase.getInstance(DATABASE_URL).getReference();
+            instance = new Stores(new FirebasePostStore(rootRef), new FirebaseUserStore(rootRef),
+                    new FirebaseFollowGraphStore(rootRef), rootRef);
+        }
+        return instance;
+    }
+
+    /**
+     * Remplace les stores de l'application. Les repositories déjà créés gardent les stores précédents.
+     *
+     * @param stores Les stores à utiliser
+     */
+    public static synchronized void setInstance(@NonNull Stores stores) {
+        instance = stores;
+    }
+
+    /**
+     * Crée des stores en mémoire vides, cohérents entre eux (les abonnements mettent à jour les
+     * compteurs du store des utilisateurs).
+     *
+     * @param callbackExecutor L'exécuteur des callbacks et des listeners
+     * @return Les stores
+     */
+    @NonNull
+    public static Stores inMemory(@NonNull Executor callbackExecutor) {
+        InMemoryUserStore users = new InMemoryUserStore(callbackExecutor);
+        return new Stores(new InMemoryPostStore(callbackExecutor), users,
+                new InMemoryFollowGraphStore(users, callbackExecutor));
+    }
+
+    @NonNull
+    public PostStore getPostStore() {
+        return postStore;
+    }
+
+    @NonNull
+    public UserStore getUserStore() {
+        return userStore;
+    }
+
+    @NonNull
+    public FollowGraphStore getFollowGraphStore() {
+        return followGraphStore;
+    }
+
+    /**
+     * @return La racine de la base Firebase sur laquelle reposent ces stores
+     * @throws IllegalStateException pour des stores en mémoire, qui n'ont pas de base
+     */
+    @NonNull
+    public DatabaseReference getRootRef() {
+        if (rootRef == null) {
+            throw new IllegalStateException("These stores have no Firebase database");
+        }
+        return rootRef;
+    }
+
+    /**
+     * Suit l'état de la connexion au serveur (.info/connected). Des stores en mémoire sont toujours connectés.
+     *
+     * @param listener Reçoit true à chaque connexion, false à chaque déconnexion
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    public Registration observeConnection(@NonNull StoreListener<Boolean> listener) {
+        if (rootRef == null) {
+            listener.onValue(true);
+            return () -> {
+            };
+        }
+        DatabaseReference ref = rootRef.child(".info/connected");
+        ValueEventListener valueListener = ref.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Boolean value = snapshot.getValue(Boolean.class);
+                listener.onValue(value != null && value);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        });
+        return () -> ref.removeEventListener(valueListener);
+    }
+
+    /**
+     * Écrit une mise à jour multi-chemins. En cas d'échec, la tâche échoue avec une
+     * DatabaseWriteException qui conserve le code d'erreur (voir isPermissionDenied).
+     *
+     * @param ref     La référence depuis laquelle les chemins sont exprimés
+     * @param updates Les chemins et leurs valeurs
+     * @return La tâche de l'écriture
+     */
+    @NonNull
+    public static Task<Void> updateChildren(@NonNull DatabaseReference ref, @NonNull Map<String, Object> updates) {
+        TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+        ref.updateChildren(updates, completeTask(source));
+        return source.getTask();
+    }
+
+    /**
+     * @return true si l'écriture a été refusée par les règles de sécurité
+     */
+    public static boolean isPermissionDenied(@Nullable Exception e) {
+        return e instanceof DatabaseWriteException
+                && ((DatabaseWriteException) e).getCode() == DatabaseError.PERMISSION_DENIED;
+    }
+
+    /**
+     * Listener d'une écriture qui termine une tâche, avec le code d'erreur en cas d'échec.
+     */
+    static DatabaseReference.CompletionListener completeTask(@NonNull TaskCompletionSource<Void> source) {
+        return (error, ref) -> {
+            if (error == null) {
+                source.setResult(null);
+            } else {
+                source.setException(new DatabaseWriteException(error));
+            }
+        };
+    }
+
+    /**
+     * Callback de store qui termine une tâche ; une erreur la fait échouer avec une
+     * IllegalStateException portant le message du store.
+     */
+    static <T> StoreCallback<T> taskCallback(@NonNull TaskCompletionSource<T> source) {
+        return new StoreCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                source.setResult(result);
+            }
+
+            @Override
+            public void onError(String message) {
+                source.setException(new IllegalStateException(message));
+            }
+        };
+    }
+
+    /**
+     * Listener d'une écriture conditionnelle : les règles refusent l'écriture (PERMISSION_DENIED)
+     * quand l'état demandé est déjà en place. Un refus peut aussi venir d'autre chose (jeton expiré,
+     * autre règle) : l'état est donc relu sur le marqueur, et le refus n'est rendu comme un résultat
+     * false que si le marqueur est bien dans l'état demandé. Sinon, c'est une erreur.
+     *
+     * @param marker  Le nœud qui porte l'état (ex : likes/{postId}_{uid})
+     * @param present true si l'écriture demandée crée le marqueur, false si elle le retire
+     */
+    static DatabaseReference.CompletionListener conditionalWrite(@NonNull DatabaseReference marker, boolean present,
+                                                                 @NonNull StoreCallback<Boolean> callback) {
+        return conditionalWrite(exists -> readExists(marker, exists), present, callback);
+    }
+
+    /**
+     * Comme conditionalWrite(DatabaseReference, ...), avec la lecture du marqueur fournie
+     * (tests : la lecture reçoit un callback à appeler avec l'existence du marqueur).
+     */
+    static DatabaseReference.CompletionListener conditionalWrite(@NonNull Consumer<StoreCallback<Boolean>> readMarker,
+                                                                 boolean present,
+                                                                 @NonNull StoreCallback<Boolean> callback) {
+        return (error, ref) -> {
+            if (error == null) {
+                callback.onSuccess(true);
+            } else if (error.getCode() == DatabaseError.PERMISSION_DENIED) {
+                readMarker.accept(new StoreCallback<Boolean>() {
+                    @Override
+                    public void onSuccess(Boolean exists) {
+                        if (Boolean.valueOf(present).equals(exists)) {
+                            callback.onSuccess(false);
+                        } else {
+                            callback.onError(error.getMessage());
+                        }
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+            } else {
+                callback.onError(error.getMessage());
+            }
+        };
+    }
+
+    private static void readExists(DatabaseReference marker, StoreCallback<Boolean> callback) {
+        marker.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                callback.onSuccess(snapshot.exists());
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
+            }
+        });
+    }
+}
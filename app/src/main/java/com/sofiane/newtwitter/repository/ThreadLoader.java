@@ -0,0 +1,343 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.store.KeySetListener;
+import com.sofiane.newtwitter.repository.store.PostStore;
+import com.sofiane.newtwitter.repository.store.Registration;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.StoreListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chargeur d'un fil de discussion : un post lu par sa clé, ses posts parents et ses réponses.
+ * Les réponses sont paginées par date (de la plus ancienne à la plus récente) via l'index
+ * replies/{parentId}/{replyId} = date de création, écrit avec chaque réponse (voir PostCounters).
+ * Les réponses écrites avant cet index n'y figurent pas : elles sont lues par la requête sur parentId
+ * et fusionnées avec les pages de l'index, tant qu'elles n'y ont pas été recopiées.
+ * Seuls les posts du fil sont lus : l'ouverture d'un fil coûte O(taille du fil).
+ * Toutes les lectures passent par le PostStore de l'application (voir Stores).
+ * Les réponses imbriquées s'ouvrent comme un nouveau fil dont la réponse est le post principal ;
+ * ses parents sont alors affichés au-dessus.
+ * Une instance correspond à un fil ouvert ; toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class ThreadLoader {
+    private static final String TAG = "ThreadLoader";
+
+    static final String REPLIES = "replies";
+
+    // Nombre de réponses par page
+    public static final int REPLIES_PAGE_SIZE = 20;
+    // Nombre maximal de posts parents remontés au-dessus du post principal
+    public static final int MAX_ANCESTORS = 10;
+
+    /**
+     * Interface de callback pour les données du fil.
+     */
+    public interface Listener {
+        /**
+         * @param post Le post principal, à chaque modification (compteurs compris), ou null s'il a été supprimé
+         */
+        void onPostChanged(@Nullable Post post);
+
+        /**
+         * @param ancestors Les posts parents, du plus ancien au plus proche du post principal
+         */
+        void onAncestorsLoaded(List<Post> ancestors);
+
+        /**
+         * @param replies   Toutes les réponses chargées, de la plus ancienne à la plus récente
+         * @param exhausted true si toutes les réponses ont été chargées
+         */
+        void onRepliesChanged(List<Post> replies, boolean exhausted);
+
+        /**
+         * @param message Message d'erreur
+         */
+        void onError(String message);
+    }
+
+    private final String postId;
+    private final Listener listener;
+    private final PostStore postStore;
+
+    private final List<Post> replies = new ArrayList<>();
+    private final Set<String> replyIds = new HashSet<>();
+    // Dernière réponse reçue de l'index (les réponses antérieures à l'index n'y figurent pas)
+    private Post replyCursor;
+    private boolean repliesLoading = false;
+    private boolean repliesExhausted = false;
+    private boolean ancestorsRequested = false;
+    private boolean stopped = false;
+
+    private Registration postRegistration;
+    private Registration newRepliesRegistration;
+
+    /**
+     * @param postId   L'identifiant du post principal
+     * @param listener Le listener recevant les données du fil
+     */
+    public ThreadLoader(String postId, @NonNull Listener listener) {
+        this(Stores.getInstance().getPostStore(), postId, listener);
+    }
+
+    /**
+     * @param postStore Le store des posts
+     * @param postId    L'identifiant du post principal
+     * @param listener  Le listener recevant les données du fil
+     */
+    ThreadLoader(@NonNull PostStore postStore, String postId, @NonNull Listener listener) {
+        this.postId = postId;
+        this.listener = listener;
+        this.postStore = postStore;
+    }
+
+    /**
+     * Lit le post principal (suivi en temps réel), ses parents, la première page de réponses
+     * et les réponses antérieures à l'index.
+     */
+    public void start() {
+        postRegistration = postStore.observePost(postId, new StoreListener<Post>() {
+            @Override
+            public void onValue(Post post) {
+                listener.onPostChanged(post);
+                if (post != null && !ancestorsRequested) {
+                    ancestorsRequested = true;
+                    loadAncestors(post);
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error loading post " + postId + ": " + message);
+                listener.onError("Error loading post: " + message);
+            }
+        });
+        loadMoreReplies();
+        loadLegacyReplies();
+    }
+
+    /**
+     * Charge la page suivante de réponses.
+     * Ne fait rien si une page est déjà en cours de chargement ou si tout a été chargé.
+     */
+    public void loadMoreReplies() {
+        if (stopped || repliesLoading || repliesExhausted) {
+            return;
+        }
+        repliesLoading = true;
+        postStore.loadReplies(postId, REPLIES_PAGE_SIZE, replyCursor, new StoreCallback<List<Post>>() {
+            @Override
+            public void onSuccess(List<Post> page) {
+                if (stopped) {
+                    return;
+                }
+                if (!page.isEmpty()) {
+                    replyCursor = page.get(page.size() - 1);
+                }
+                onRepliesPage(page, page.size() < REPLIES_PAGE_SIZE);
+            }
+
+            @Override
+            public void onError(String message) {
+                repliesLoading = false;
+                Log.e(TAG, "Error loading replies: " + message);
+                listener.onError("Error loading replies: " + message);
+            }
+        });
+    }
+
+    /**
+     * Indique s'il reste des réponses à charger.
+     *
+     * @return true si une page suivante peut encore être demandée
+     */
+    public boolean hasMoreReplies() {
+        return !repliesExhausted;
+    }
+
+    /**
+     * Détache tous les listeners du fil.
+     */
+    public void stop() {
+        stopped = true;
+        if (postRegistration != null) {
+            postRegistration.remove();
+            postRegistration = null;
+        }
+        if (newRepliesRegistration != null) {
+            newRepliesRegistration.remove();
+            newRepliesRegistration = null;
+        }
+    }
+
+    /**
+     * Réponses écrites avant l'index replies/ : lecture par parentId. Elle est toujours faite,
+     * car une seule nouvelle réponse indexée ne doit pas masquer les anciennes ; les réponses déjà
+     * reçues par l'index sont ignorées.
+     */
+    private void loadLegacyReplies() {
+        postStore.getRepliesByParent(postId, new StoreCallback<List<Post>>() {
+            @Override
+            public void onSuccess(List<Post> byParent) {
+                if (stopped) {
+                    return;
+                }
+                List<Post> legacy = new ArrayList<>();
+                for (Post post : byParent) {
+                    if (post.isReply() && !replyIds.contains(post.getId())) {
+                        legacy.add(post);
+                    }
+                }
+                if (legacy.isEmpty()) {
+                    return;
+                }
+                addReplies(legacy);
+                Log.d(TAG, "Merged " + legacy.size() + " legacy replies for post " + postId);
+                listener.onRepliesChanged(new ArrayList<>(replies), repliesExhausted);
+            }
+
+            @Override
+            public void onError(String message) {
+                // Les pages de l'index restent affichées
+                Log.e(TAG, "Error loading legacy replies: " + message);
+            }
+        });
+    }
+
+    private void onRepliesPage(List<Post> page, boolean exhausted) {
+        if (stopped) {
+            return;
+        }
+        repliesLoading = false;
+        repliesExhausted = exhausted;
+        addReplies(page);
+        Log.d(TAG, "Loaded " + page.size() + " replies for post " + postId);
+        listener.onRepliesChanged(new ArrayList<>(replies), exhausted);
+        if (exhausted) {
+            listenForNewReplies();
+        }
+    }
+
+    /**
+     * Une fois toutes les réponses chargées, ajoute en temps réel celles publiées ensuite.
+     */
+    private void listenForNewReplies() {
+        if (newRepliesRegistration != null) {
+            return;
+        }
+        Post after = replyCursor;
+        if (after == null && !replies.isEmpty()) {
+            after = replies.get(replies.size() - 1);
+        }
+        newRepliesRegistration = postStore.observeReplies(postId, after, new KeySetListener() {
+            @Override
+            public void onAdded(@NonNull String replyId) {
+                if (replyIds.contains(replyId)) {
+                    return;
+                }
+                postStore.getPost(replyId, new StoreCallback<Post>() {
+                    @Override
+                    public void onSuccess(Post reply) {
+                        if (stopped || reply == null || replyIds.contains(replyId)) {
+                            return;
+                        }
+                        addReplies(Collections.singletonList(reply));
+                        listener.onRepliesChanged(new ArrayList<>(replies), true);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        Log.e(TAG, "Error loading reply " + replyId + ": " + message);
+                    }
+                });
+            }
+
+            @Override
+            public void onRemoved(@NonNull String replyId) {
+                if (replyIds.remove(replyId)) {
+                    for (int i = 0; i < replies.size(); i++) {
+                        if (replyId.equals(replies.get(i).getId())) {
+                            replies.remove(i);
+                            break;
+                        }
+                    }
+                    listener.onRepliesChanged(new ArrayList<>(replies), true);
+                }
+            }
+
+            @Override
+            public void onLoaded() {
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "New replies listener cancelled: " + message);
+            }
+        });
+    }
+
+    /**
+     * Remonte la chaîne des parents du post principal, une lecture par clé et par niveau.
+     */
+    private void loadAncestors(Post post) {
+        List<Post> ancestors = new ArrayList<>();
+        loadAncestor(post.getParentId(), ancestors);
+    }
+
+    private void loadAncestor(@Nullable String parentId, List<Post> ancestors) {
+        if (stopped) {
+            return;
+        }
+        if (parentId == null || ancestors.size() >= MAX_ANCESTORS) {
+            Collections.reverse(ancestors);
+            listener.onAncestorsLoaded(ancestors);
+            return;
+        }
+        postStore.getPost(parentId, new StoreCallback<Post>() {
+            @Override
+            public void onSuccess(Post parent) {
+                if (parent == null) {
+                    // Parent supprimé : afficher la chaîne connue
+                    loadAncestor(null, ancestors);
+                    return;
+                }
+                ancestors.add(parent);
+                loadAncestor(parent.isReply() ? parent.getParentId() : null, ancestors);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error loading parent post " + parentId + ": " + message);
+                loadAncestor(null, ancestors);
+            }
+        });
+    }
+
+    private void addReplies(List<Post> page) {
+        boolean added = false;
+        for (Post reply : page) {
+            if (replyIds.add(reply.getId())) {
+                replies.add(reply);
+                added = true;
+            }
+        }
+        if (added) {
+            // Les réponses antérieures à l'index et les pages de l'index arrivent dans un ordre quelconque
+            Collections.sort(replies, (p1, p2) -> Long.compare(time(p1), time(p2)));
+        }
+    }
+
+    private static long time(Post post) {
+        return post.getCreatedAt() != null ? post.getCreatedAt().getTime() : 0;
+    }
+}
@@ -0,0 +1,158 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.model.Post;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Construit les écritures des index de fil personnel (fan-out à l'écriture).
+ * Chaque post ou retweet est référencé dans userPosts/{auteur}/{postId} et dans le fil de son
+ * auteur, puis recopié dans timelines/{follower}/{postId} pour chacun de ses followers.
+ * La valeur de chaque entrée est la date de création du post (en millisecondes), ce qui permet
+ * de paginer les index avec orderByValue.
+ * Au-delà de FANOUT_LIMIT followers, l'auteur est inscrit dans highFanoutAuthors et ses posts
+ * ne sont plus recopiés : ses followers les lisent directement dans userPosts (fan-out à la lecture).
+ */
+final class TimelineFanout {
+    private static final String TAG = "TimelineFanout";
+
+    static final String TIMELINES = "timelines";
+    static final String USER_POSTS = "userPosts";
+    static final String HIGH_FANOUT_AUTHORS = "highFanoutAuthors";
+
+    // Nombre de followers au-delà duquel un auteur n'est plus recopié dans les fils de ses followers
+    static final int FANOUT_LIMIT = 2000;
+    // Nombre maximal de fils écrits par une même écriture multi-chemins
+    static final int FANOUT_BATCH_SIZE = 100;
+
+    private TimelineFanout() {
+    }
+
+    /**
+     * Ajoute à une écriture multi-chemins les entrées du post dans les index de son auteur.
+     * Ces entrées sont écrites avec le post lui-même, le fan-out vers les followers suit ensuite.
+     *
+     * @param updates Les chemins à passer à updateChildren sur la racine
+     * @param post    Le post publié (son identifiant et sa date doivent être renseignés)
+     */
+    static void addAuthorEntries(Map<String, Object> updates, Post post) {
+        Object time = entryTime(post);
+        updates.put("/" + USER_POSTS + "/" + post.getUserId() + "/" + post.getId(), time);
+        updates.put("/" + TIMELINES + "/" + post.getUserId() + "/" + post.getId(), time);
+    }
+
+    /**
+     * Ajoute à une écriture multi-chemins la suppression du post des index de son auteur.
+     * Les entrées déjà recopiées chez les followers sont nettoyées à la lecture de leur fil.
+     *
+     * @param updates  Les chemins à passer à updateChildren sur la racine
+     * @param authorId L'identifiant de l'auteur
+     * @param postId   L'identifiant du post supprimé
+     */
+    static void removeAuthorEntries(Map<String, Object> updates, String authorId, String postId) {
+        updates.put("/" + USER_POSTS + "/" + authorId + "/" + postId, null);
+        updates.put("/" + TIMELINES + "/" + authorId + "/" + postId, null);
+    }
+
+    /**
+     * Recopie le post dans le fil de chaque follower de son auteur, par lots de FANOUT_BATCH_SIZE.
+     * Seul le compteur de followers est lu pour décider du mode ; la liste des followers
+     * n'est téléchargée que lorsque le fan-out a lieu.
+     *
+     * @param rootRef La racine de la base de données
+     * @param post    Le post publié
+     */
+    static void fanOut(DatabaseReference rootRef, Post post) {
+        final String authorId = post.getUserId();
+        rootRef.child("users").child(authorId).child(FollowRepository.FOLLOWERS_COUNT)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Integer followersCount = snapshot.getValue(Integer.class);
+                        if (followersCount != null && followersCount > FANOUT_LIMIT) {
+                            // Ses followers liront ses posts dans userPosts ; l'inscription est définitive
+                            // pour que les posts non recopiés restent visibles en remontant le fil
+                            rootRef.child(HIGH_FANOUT_AUTHORS).child(authorId).setValue(true)
+                                    .addOnFailureListener(e -> Log.e(TAG, "Error flagging high fan-out author: " + e.getMessage(), e));
+                            return;
+                        }
+                        fanOutToFollowers(rootRef, post);
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Error reading followers count: " + error.getMessage());
+                    }
+                });
+    }
+
+    private static void fanOutToFollowers(DatabaseReference rootRef, Post post) {
+        rootRef.child("follows").child(post.getUserId()).child("followers")
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        if (!snapshot.hasChildren()) {
+                            return;
+                        }
+                        List<String> followers = new ArrayList<>((int) snapshot.getChildrenCount());
+                        for (DataSnapshot follower : snapshot.getChildren()) {
+                            followers.add(follower.getKey());
+                        }
+                        Object time = entryTime(post);
+                        for (int start = 0; start < followers.size(); start += FANOUT_BATCH_SIZE) {
+                            int end = Math.min(start + FANOUT_BATCH_SIZE, followers.size());
+                            writeBatch(rootRef, post.getId(), time, new ArrayList<>(followers.subList(start, end)));
+                        }
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Error reading followers: " + error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Écrit un lot d'entrées de fil. Les règles refusent toute l'écriture si un seul follower n'a plus
+     * l'arête following correspondante (désabonnement pendant la lecture) : un lot refusé est alors
+     * réécrit entrée par entrée, pour que seuls les fils concernés soient privés du post.
+     */
+    private static void writeBatch(DatabaseReference rootRef, String postId, Object time, List<String> followers) {
+        Map<String, Object> updates = new HashMap<>();
+        for (String followerId : followers) {
+            updates.put("/" + TIMELINES + "/" + followerId + "/" + postId, time);
+        }
+        rootRef.updateChildren(updates, (error, ref) -> {
+            if (error == null) {
+                Log.d(TAG, "Fanned out post " + postId + " to " + followers.size() + " timelines");
+                return;
+            }
+            if (error.getCode() != DatabaseError.PERMISSION_DENIED || followers.size() == 1) {
+                Log.e(TAG, "Error fanning out post " + postId + ": " + error.getMessage());
+                return;
+            }
+            for (String followerId : followers) {
+                rootRef.child(TIMELINES).child(followerId).child(postId).setValue(time, (entryError, entryRef) -> {
+                    if (entryError != null) {
+                        Log.e(TAG, "Error fanning out post " + postId + " to " + followerId + ": " + entryError.getMessage());
+                    }
+                });
+            }
+        });
+    }
+
+    private static Object entryTime(Post post) {
+        return post.getCreatedAt() != null ? post.getCreatedAt().getTime() : System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,257 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.local.LocalPostStore;
+import com.sofiane.newtwitter.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Moteur de synchronisation du fil d'actualité entre Firebase et le stockage local.
+ * Il charge les pages du fil triées par date de création et recopie dans LocalPostStore
+ * tout ce qu'il reçoit ; les écrans ne lisent que le stockage local.
+ * Seule la fenêtre de tête (la page la plus récente et tout ce qui arrive après) reste suivie par
+ * événements enfants, de sorte qu'un like ne réécrit qu'un seul post. Les pages plus anciennes
+ * sont lues une seule fois : le nombre de listeners ne croît pas avec le défilement, et elles sont
+ * relues au prochain start().
+ * Chaque événement de la fenêtre de tête est enregistré sur le disque puis transmis au Listener, qui
+ * l'applique sur place : un like ne provoque pas de relecture du stockage local.
+ * Les snapshots sont désérialisés hors du thread principal (PostParser) ; les événements enfants
+ * passent par un exécuteur série pour conserver leur ordre.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+class TimelineSync {
+    private static final String TAG = "TimelineSync";
+
+    /**
+     * Interface de callback pour le résultat du chargement d'une page.
+     */
+    interface PageCallback {
+        /**
+         * @param oldest    Le post le plus ancien de la page (nouveau curseur), ou null si la page est vide
+         * @param exhausted true s'il n'y a plus de posts plus anciens sur le serveur
+         */
+        void onPageLoaded(@Nullable Post oldest, boolean exhausted);
+
+        /**
+         * @param message Message d'erreur
+         */
+        void onError(String message);
+    }
+
+    /**
+     * Interface notifiée des événements de la fenêtre de tête, sur le thread principal,
+     * une fois le post transmis au stockage local.
+     */
+    interface Listener {
+        /**
+         * @param post Le post ajouté ou modifié
+         */
+        void onPostSaved(@NonNull Post post);
+
+        /**
+         * @param postId L'identifiant du post supprimé
+         */
+        void onPostRemoved(@NonNull String postId);
+    }
+
+    private final QueryShapes.Bounded orderedPosts;
+    private final int pageSize;
+    private final LocalPostStore store;
+    private final Listener listener;
+
+    // Listeners attachés via SharedQueries, pour pouvoir les détacher
+    private final List<QueryShapes.Bounded> attachedQueries = new ArrayList<>();
+    private final List<ChildEventListener> attachedListeners = new ArrayList<>();
+    // Permet d'ignorer les pages arrivées après un redémarrage
+    private int generation = 0;
+    // Parsing ordonné des événements enfants
+    private final Executor eventParsing = AppExecutors.newSerialExecutor();
+
+    /**
+     * @param orderedPosts Les posts triés par date de création (orderByChild sur createdAt/time)
+     * @param pageSize     Nombre de posts par page
+     * @param store        Le stockage local à alimenter
+     * @param listener     Listener des événements de la fenêtre de tête
+     */
+    TimelineSync(QueryShapes.Bounded orderedPosts, int pageSize, LocalPostStore store, Listener listener) {
+        this.orderedPosts = orderedPosts;
+        this.pageSize = pageSize;
+        this.store = store;
+        this.listener = listener;
+    }
+
+    /**
+     * Détache tous les listeners puis charge la page la plus récente. Après le chargement,
+     * tout ce qui est plus récent que son post le plus ancien est suivi en temps réel.
+     *
+     * @param callback Callback notifié à la fin du chargement
+     */
+    void start(@NonNull PageCallback callback) {
+        stop();
+        final int currentGeneration = generation;
+        orderedPosts.limitToLast(pageSize).toQuery().addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                if (currentGeneration != generation) {
+                    return;
+                }
+                // Firebase renvoie les enfants par ordre croissant : le premier est le plus ancien
+                PostParser.parseChildrenAsync(dataSnapshot, null, null, posts -> {
+                    if (currentGeneration != generation) {
+                        return;
+                    }
+                    // La page la plus récente n'a pas de limite haute
+                    store.replaceRange(posts, null);
+
+                    Post oldest = posts.isEmpty() ? null : posts.get(0);
+                    QueryShapes.Bounded head = orderedPosts;
+                    if (oldest != null) {
+                        head = head.startAt(oldest.getCreatedAt().getTime(), oldest.getId());
+                    }
+                    attach(head);
+
+                    Log.d(TAG, "Synced head page of " + posts.size() + " posts");
+                    callback.onPageLoaded(oldest, dataSnapshot.getChildrenCount() < pageSize);
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                if (currentGeneration != generation) {
+                    return;
+                }
+                Log.e(TAG, "Error syncing timeline: " + databaseError.getMessage());
+                callback.onError("Database error: " + databaseError.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Lit une fois la page plus ancienne que le curseur, sans la suivre en temps réel.
+     *
+     * @param cursor   Le post le plus ancien déjà chargé
+     * @param callback Callback notifié à la fin du chargement
+     */
+    void loadOlder(@NonNull Post cursor, @NonNull PageCallback callback) {
+        final int currentGeneration = generation;
+        // endAt est inclusif : on demande un post de plus pour compenser le curseur lui-même
+        final int requested = pageSize + 1;
+        QueryShapes.Bounded query = orderedPosts
+                .endAt(cursor.getCreatedAt().getTime(), cursor.getId())
+                .limitToLast(requested);
+        query.toQuery().addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                if (currentGeneration != generation) {
+                    return;
+                }
+                PostParser.parseChildrenAsync(dataSnapshot, null, null, posts -> {
+                    if (currentGeneration != generation) {
+                        return;
+                    }
+                    store.replaceRange(posts, cursor);
+
+                    Post oldest = posts.isEmpty() ? null : posts.get(0);
+                    boolean exhausted = dataSnapshot.getChildrenCount() < requested
+                            || oldest == null || cursor.getId().equals(oldest.getId());
+                    Log.d(TAG, "Synced older page of " + posts.size() + " posts");
+                    callback.onPageLoaded(oldest, exhausted);
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                if (currentGeneration != generation) {
+                    return;
+                }
+                Log.e(TAG, "Error syncing older posts: " + databaseError.getMessage());
+                callback.onError("Database error: " + databaseError.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Détache tous les listeners Firebase ; les pages en cours de chargement sont ignorées.
+     */
+    void stop() {
+        generation++;
+        for (int i = 0; i < attachedQueries.size(); i++) {
+            SharedQueries.getInstance().removeChildListener(attachedQueries.get(i), attachedListeners.get(i));
+        }
+        attachedQueries.clear();
+        attachedListeners.clear();
+    }
+
+    private void attach(QueryShapes.Bounded query) {
+        final int currentGeneration = generation;
+        ChildEventListener childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                saveParsed(snapshot, currentGeneration);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                saveParsed(snapshot, currentGeneration);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                String postId = snapshot.getKey();
+                // Même file que les ajouts, pour ne pas dépasser un ajout encore en cours de parsing
+                eventParsing.execute(() -> {
+                    store.delete(postId);
+                    AppExecutors.mainThread().execute(() -> {
+                        if (currentGeneration == generation && postId != null) {
+                            listener.onPostRemoved(postId);
+                        }
+                    });
+                });
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // L'ordre du fil est calculé localement, rien à faire
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Timeline listener cancelled: " + error.getMessage());
+            }
+        };
+        SharedQueries.getInstance().addChildListener(query, childListener);
+        attachedQueries.add(query);
+        attachedListeners.add(childListener);
+    }
+
+    /**
+     * Désérialise un événement enfant en arrière-plan, l'enregistre, puis le transmet au listener
+     * sur le thread principal (sauf s'il date d'avant un redémarrage).
+     */
+    private void saveParsed(DataSnapshot snapshot, int eventGeneration) {
+        eventParsing.execute(() -> {
+            Post post = PostParser.parse(snapshot);
+            if (post == null || post.getId() == null) {
+                return;
+            }
+            store.save(post);
+            AppExecutors.mainThread().execute(() -> {
+                if (eventGeneration == generation) {
+                    listener.onPostSaved(post);
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,222 @@
+package com.sofiane.newtwitter.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.UserCard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chargeur des cartes d'une liste d'utilisateurs (followers, abonnements).
+ * Au plus MAX_IN_FLIGHT lectures sont en cours à la fois, dans l'ordre de la liste, et seulement
+ * jusqu'à une page au-delà de la dernière ligne visible : les lignes affichées passent avant
+ * le reste de la liste, qui n'est lu que si l'utilisateur fait défiler.
+ * Les cartes sont rendues par pages de PAGE_SIZE, dans l'ordre de la liste ; les utilisateurs
+ * introuvables sont omis. cancel() abandonne les lectures en attente et ignore celles en cours.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class UserListLoader {
+    // Nombre maximal de lectures simultanées
+    public static final int MAX_IN_FLIGHT = 8;
+    // Nombre de lignes rendues à la fois, et marge chargée au-delà de la zone visible
+    public static final int PAGE_SIZE = 20;
+
+    /**
+     * Source des cartes ; UserProfileCache par défaut.
+     */
+    public interface Fetcher {
+        void fetch(@NonNull String userId, @NonNull UserProfileCache.Callback callback);
+
+        void cancel(@NonNull String userId, @NonNull UserProfileCache.Callback callback);
+    }
+
+    /**
+     * Interface de callback pour recevoir les lignes chargées.
+     */
+    public interface Listener {
+        /**
+         * @param users    Les cartes chargées jusqu'ici, dans l'ordre de la liste
+         * @param complete true si toute la liste a été lue
+         */
+        void onUsersLoaded(@NonNull List<UserCard> users, boolean complete);
+    }
+
+    private final Fetcher fetcher;
+    private final int maxInFlight;
+    private final int pageSize;
+    private Listener listener;
+
+    private List<String> userIds = Collections.emptyList();
+    // Résultat de chaque lecture terminée (null si l'utilisateur est introuvable)
+    private final Map<String, UserCard> resolved = new HashMap<>();
+    private final Map<String, UserProfileCache.Callback> inFlight = new LinkedHashMap<>();
+    private final List<UserCard> rendered = new ArrayList<>();
+    // Nombre d'identifiants en tête de liste dont la lecture est terminée
+    private int prefix;
+    // Nombre de lignes au dernier rendu (-1 : rien n'a encore été rendu pour cette liste)
+    private int publishedRows = -1;
+    // Nombre de lignes à charger, relevé au fil du défilement
+    private int targetRows;
+    private int nextRequest;
+    private boolean draining;
+
+    public UserListLoader(@NonNull Listener listener) {
+        this(new Fetcher() {
+            @Override
+            public void fetch(@NonNull String userId, @NonNull UserProfileCache.Callback callback) {
+                UserProfileCache.getInstance().get(userId, callback);
+            }
+
+            @Override
+            public void cancel(@NonNull String userId, @NonNull UserProfileCache.Callback callback) {
+                UserProfileCache.getInstance().cancel(userId, callback);
+            }
+        }, MAX_IN_FLIGHT, PAGE_SIZE, listener);
+    }
+
+    UserListLoader(@NonNull Fetcher fetcher, int maxInFlight, int pageSize, @NonNull Listener listener) {
+        this.fetcher = fetcher;
+        this.maxInFlight = maxInFlight;
+        this.pageSize = pageSize;
+        this.listener = listener;
+        this.targetRows = 2 * pageSize;
+    }
+
+    /**
+     * Remplace la liste à charger. Les cartes déjà lues pour des utilisateurs encore présents
+     * sont conservées, les lectures en cours pour des utilisateurs retirés sont abandonnées.
+     *
+     * @param ids Les identifiants, dans l'ordre d'affichage
+     */
+    public void setUserIds(@NonNull List<String> ids) {
+        if (listener == null) {
+            return;
+        }
+        userIds = new ArrayList<>(ids);
+        Set<String> present = new HashSet<>(userIds);
+        resolved.keySet().retainAll(present);
+        List<String> removed = new ArrayList<>(inFlight.keySet());
+        removed.removeAll(present);
+        for (String userId : removed) {
+            fetcher.cancel(userId, inFlight.remove(userId));
+        }
+        rendered.clear();
+        prefix = 0;
+        publishedRows = -1;
+        nextRequest = 0;
+        drain();
+    }
+
+    /**
+     * Signale la dernière ligne visible : les lectures continuent jusqu'à une page au-delà.
+     *
+     * @param lastVisibleRow La position de la dernière ligne visible dans la liste rendue
+     */
+    public void onRowVisible(int lastVisibleRow) {
+        // Toujours une page d'avance sur la page visible
+        int wanted = ((Math.max(lastVisibleRow, 0) + 1) / pageSize + 2) * pageSize;
+        if (listener != null && wanted > targetRows) {
+            targetRows = wanted;
+            drain();
+        }
+    }
+
+    /**
+     * Abandonne le chargement : plus aucune lecture n'est lancée ni aucun résultat rendu.
+     */
+    public void cancel() {
+        for (Map.Entry<String, UserProfileCache.Callback> entry : inFlight.entrySet()) {
+            fetcher.cancel(entry.getKey(), entry.getValue());
+        }
+        inFlight.clear();
+        userIds = Collections.emptyList();
+        listener = null;
+    }
+
+    /**
+     * @return Le nombre de lectures en cours
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void drain() {
+        if (draining) {
+            // Un résultat immédiat (cache) pendant request() : la boucle en cours le prend en compte
+            return;
+        }
+        draining = true;
+        try {
+            do {
+                request();
+            } while (advance());
+        } finally {
+            draining = false;
+        }
+        publish();
+    }
+
+    private void request() {
+        // Les utilisateurs introuvables ne donnent pas de ligne : la fenêtre glisse avec le préfixe
+        int end = Math.min(userIds.size(), prefix + Math.max(0, targetRows - rendered.size()));
+        while (listener != null && inFlight.size() < maxInFlight && nextRequest < end) {
+            String userId = userIds.get(nextRequest++);
+            if (resolved.containsKey(userId) || inFlight.containsKey(userId)) {
+                continue;
+            }
+            UserProfileCache.Callback callback = new UserProfileCache.Callback() {
+                @Override
+                public void onUserCard(@Nullable UserCard card) {
+                    if (inFlight.get(userId) != this) {
+                        return;
+                    }
+                    inFlight.remove(userId);
+                    resolved.put(userId, card);
+                    drain();
+                }
+            };
+            inFlight.put(userId, callback);
+            fetcher.fetch(userId, callback);
+        }
+    }
+
+    /**
+     * Avance le préfixe des lectures terminées.
+     *
+     * @return true si le préfixe a progressé
+     */
+    private boolean advance() {
+        int start = prefix;
+        while (prefix < userIds.size() && resolved.containsKey(userIds.get(prefix))) {
+            UserCard card = resolved.get(userIds.get(prefix));
+            if (card != null) {
+                rendered.add(card);
+            }
+            prefix++;
+        }
+        return prefix > start;
+    }
+
+    private void publish() {
+        if (listener == null) {
+            return;
+        }
+        boolean complete = prefix == userIds.size();
+        boolean windowDone = complete || rendered.size() >= targetRows;
+        int rows = rendered.size();
+        boolean pageReady = rows - Math.max(publishedRows, 0) >= pageSize
+                || (windowDone && rows != publishedRows);
+        if (pageReady || (complete && publishedRows < 0)) {
+            publishedRows = rows;
+            listener.onUsersLoaded(new ArrayList<>(rendered), complete);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.sofiane.newtwitter.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.repository.local.AppDatabase;
+import com.sofiane.newtwitter.repository.local.UserCardDao;
+import com.sofiane.newtwitter.repository.local.UserCardEntity;
+import com.sofiane.newtwitter.repository.local.UserNameRow;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.UserStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache mémoire partagé par toute l'application pour les informations d'affichage des utilisateurs.
+ * Cette classe implémente le pattern Singleton pour assurer une instance unique.
+ * Les informations sont lues depuis la projection légère userCards/{uid} (sans les maps de
+ * followers et following) ; users/{uid} n'est lu que pour les comptes qui n'ont pas encore de carte.
+ * Les lectures et les écritures passent par le UserStore de l'application (voir Stores).
+ * Le cache est borné (LRU) et chaque entrée expire après CACHE_TTL_MS. Les demandes simultanées
+ * pour un même utilisateur partagent une seule lecture Firebase.
+ * Les cartes sont aussi conservées sur disque (Room) pendant DISK_TTL_MS : après un redémarrage,
+ * les avatars et noms s'affichent sans attendre le réseau.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class UserProfileCache {
+    private static final String TAG = "UserProfileCache";
+    private static UserProfileCache instance;
+
+    // Nombre maximal d'utilisateurs gardés en mémoire
+    public static final int MAX_ENTRIES = 256;
+    // Durée de validité d'une entrée (5 minutes)
+    public static final long CACHE_TTL_MS = 5 * 60 * 1000L;
+    // Durée de validité d'une carte enregistrée sur disque (24 heures)
+    public static final long DISK_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Interface de callback pour recevoir les informations d'un utilisateur.
+     */
+    public interface Callback {
+        /**
+         * @param card Les informations de l'utilisateur, ou null si introuvable
+         */
+        void onUserCard(@Nullable UserCard card);
+    }
+
+    private static final class Entry {
+        final UserCard card;
+        final long loadedAt;
+
+        Entry(UserCard card, long loadedAt) {
+            this.card = card;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final UserStore userStore;
+    private final UserCardDao userCardDao;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Entry> cache = new LruCache<>(MAX_ENTRIES);
+    // Lectures en cours : les callbacks en attente pour chaque utilisateur
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+
+    /**
+     * Constructeur privé pour empêcher l'instanciation directe.
+     */
+    private UserProfileCache() {
+        userStore = Stores.getInstance().getUserStore();
+        userCardDao = AppDatabase.getInstance().userCardDao();
+        // Les noms déjà vus lors des sessions précédentes sont cherchables dès le démarrage
+        AppDatabase.diskIO().execute(() -> {
+            try {
+                for (UserNameRow row : userCardDao.getUsernames()) {
+                    SearchIndex.getInstance().indexUser(row.userId, row.username);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error indexing stored user cards: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Obtient l'instance unique du cache.
+     * Crée une nouvelle instance si elle n'existe pas encore.
+     *
+     * @return L'instance unique de UserProfileCache
+     */
+    public static UserProfileCache getInstance() {
+        if (instance == null) {
+            instance = new UserProfileCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Récupère les informations d'un utilisateur, depuis le cache mémoire ou disque si elles sont
+     * encore valides, sinon depuis Firebase. Le callback peut être appelé immédiatement.
+     *
+     * @param userId   L'identifiant de l'utilisateur
+     * @param callback Le callback recevant le résultat
+     */
+    public void get(String userId, @NonNull Callback callback) {
+        if (userId == null || userId.isEmpty()) {
+            callback.onUserCard(null);
+            return;
+        }
+
+        UserCard cached = peek(userId);
+        if (cached != null) {
+            callback.onUserCard(cached);
+            return;
+        }
+
+        List<Callback> waiting = inFlight.get(userId);
+        if (waiting != null) {
+            // Une lecture est déjà en cours pour cet utilisateur, on attend son résultat
+            waiting.add(callback);
+            return;
+        }
+
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        inFlight.put(userId, waiting);
+        loadFromDisk(userId);
+    }
+
+    /**
+     * Retire un callback en attente d'une lecture en cours ; il ne sera pas appelé.
+     * La lecture elle-même se termine et alimente le cache pour les demandes suivantes.
+     *
+     * @param userId   L'identifiant passé à get
+     * @param callback Le callback passé à get
+     */
+    public void cancel(String userId, @NonNull Callback callback) {
+        List<Callback> waiting = inFlight.get(userId);
+        if (waiting != null) {
+            waiting.remove(callback);
+        }
+    }
+
+    /**
+     * Récupère les informations d'un utilisateur uniquement si elles sont en cache et valides.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     * @return Les informations en cache, ou null
+     */
+    @Nullable
+    public UserCard peek(String userId) {
+        Entry entry = cache.get(userId);
+        if (entry == null || SystemClock.elapsedRealtime() - entry.loadedAt > CACHE_TTL_MS) {
+            return null;
+        }
+        return entry.card;
+    }
+
+    /**
+     * Met à jour le cache avec des informations déjà connues (ex : après une modification du profil
+     * ou une lecture du profil complet).
+     *
+     * @param card Les informations de l'utilisateur
+     */
+    public void put(UserCard card) {
+        if (card == null || card.getUserId() == null) {
+            return;
+        }
+        cache.put(card.getUserId(), new Entry(card, SystemClock.elapsedRealtime()));
+        SearchIndex.getInstance().indexUser(card.getUserId(), card.getUsername());
+        UserCardEntity entity = UserCardEntity.fromCard(card, System.currentTimeMillis());
+        AppDatabase.diskIO().execute(() -> userCardDao.upsert(entity));
+    }
+
+    /**
+     * Supprime un utilisateur du cache ; la prochaine demande le relira depuis Firebase.
+     *
+     * @param userId L'identifiant de l'utilisateur
+     */
+    public void invalidate(String userId) {
+        if (userId != null) {
+            cache.remove(userId);
+            AppDatabase.diskIO().execute(() -> userCardDao.delete(userId));
+        }
+    }
+
+    /**
+     * Enregistre les champs de profil d'un utilisateur et sa carte en une seule écriture.
+     * Les maps de followers/following et les compteurs ne sont pas réécrits.
+     *
+     * Si le nom d'utilisateur a changé, le nouveau est réservé et l'ancien libéré dans la même écriture :
+     * un nom déjà pris fait échouer l'ensemble (voir UsernameRegistry et UserStore.updateProfile).
+     *
+     * @param user             L'utilisateur dont le profil a été modifié
+     * @param previousUsername Le nom d'utilisateur avant la modification, ou null s'il est inconnu
+     * @return La tâche de l'écriture : true si le profil est enregistré, false si le nouveau nom
+     *         est réservé par un autre compte (rien n'est écrit)
+     */
+    public Task<Boolean> saveProfile(User user, @Nullable String previousUsername) {
+        TaskCompletionSource<Boolean> source = new TaskCompletionSource<>();
+        userStore.updateProfile(user, previousUsername, Stores.taskCallback(source));
+        return cacheWhenWritten(user, source.getTask());
+    }
+
+    /**
+     * Crée le profil d'un nouvel inscrit, sa carte et la réservation de son nom d'utilisateur
+     * en une seule écriture atomique : si le nom est déjà pris, rien n'est écrit.
+     *
+     * @param user Le nouvel utilisateur (son nom doit être valide, voir UsernameHandle.isValid)
+     * @return La tâche de l'écriture : true si le profil est créé, false si le nom est réservé par un autre compte
+     */
+    public Task<Boolean> registerProfile(User user) {
+        TaskCompletionSource<Boolean> source = new TaskCompletionSource<>();
+        userStore.createProfile(user, true, Stores.taskCallback(source));
+        return cacheWhenWritten(user, source.getTask());
+    }
+
+    /**
+     * Crée le profil complet d'un nouvel utilisateur ainsi que sa carte en une seule écriture.
+     *
+     * @param user Le nouvel utilisateur
+     * @return La tâche de l'écriture
+     */
+    public Task<Boolean> createProfile(User user) {
+        TaskCompletionSource<Boolean> source = new TaskCompletionSource<>();
+        userStore.createProfile(user, false, Stores.taskCallback(source));
+        return cacheWhenWritten(user, source.getTask());
+    }
+
+    private Task<Boolean> cacheWhenWritten(User user, Task<Boolean> write) {
+        // Une écriture refusée (nom déjà pris, règles) ne doit laisser la carte ni en cache, ni sur disque, ni dans l'index
+        return write.addOnSuccessListener(written -> {
+            if (Boolean.TRUE.equals(written)) {
+                put(UserCard.fromUser(user));
+            }
+        });
+    }
+
+    private void loadFromDisk(String userId) {
+        AppDatabase.diskIO().execute(() -> {
+            UserCardEntity entity = null;
+            try {
+                entity = userCardDao.find(userId);
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading stored user card " + userId + ": " + e.getMessage(), e);
+            }
+            UserCardEntity stored = entity;
+            mainHandler.post(() -> {
+                if (stored == null) {
+                    fetch(userId, null);
+                } else if (System.currentTimeMillis() - stored.updatedAt <= DISK_TTL_MS) {
+                    UserCard card = stored.toCard();
+                    // La carte vient du disque : ne pas repousser sa date de mise à jour
+                    cache.put(userId, new Entry(card, SystemClock.elapsedRealtime()));
+                    SearchIndex.getInstance().indexUser(userId, card.getUsername());
+                    deliver(userId, card);
+                } else {
+                    fetch(userId, stored.toCard());
+                }
+            });
+        });
+    }
+
+    /**
+     * @param stale Une carte expirée lue sur disque, utilisée si le store est inaccessible
+     */
+    private void fetch(String userId, @Nullable UserCard stale) {
+        userStore.getUserCard(userId, new StoreCallback<UserCard>() {
+            @Override
+            public void onSuccess(UserCard card) {
+                if (card == null) {
+                    // Compte créé avant l'introduction des cartes
+                    fetchLegacy(userId, stale);
+                    return;
+                }
+                put(card);
+                deliver(userId, card);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error loading user card " + userId + ": " + message);
+                // Utiliser une entrée expirée plutôt que rien
+                deliver(userId, staleCard(userId, stale));
+            }
+        });
+    }
+
+    private void fetchLegacy(String userId, @Nullable UserCard stale) {
+        userStore.getUser(userId, new StoreCallback<User>() {
+            @Override
+            public void onSuccess(User user) {
+                UserCard card = null;
+                if (user != null) {
+                    card = UserCard.fromUser(user);
+                    card.setUserId(userId);
+                    put(card);
+                    backfillOwnCard(card);
+                }
+                deliver(userId, card);
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error loading user " + userId + ": " + message);
+                deliver(userId, staleCard(userId, stale));
+            }
+        });
+    }
+
+    /**
+     * Crée la carte manquante de l'utilisateur connecté (les règles n'autorisent
+     * l'écriture que sur sa propre carte).
+     */
+    private void backfillOwnCard(UserCard card) {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser != null && currentUser.getUid().equals(card.getUserId())) {
+            userStore.saveUserCard(card, new StoreCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                }
+
+                @Override
+                public void onError(String message) {
+                    Log.e(TAG, "Error creating user card: " + message);
+                }
+            });
+        }
+    }
+
+    @Nullable
+    private UserCard staleCard(String userId, @Nullable UserCard stale) {
+        Entry entry = cache.get(userId);
+        return entry != null ? entry.card : stale;
+    }
+
+    private void deliver(String userId, @Nullable UserCard card) {
+        List<Callback> waiting = inFlight.remove(userId);
+        if (waiting == null) {
+            return;
+        }
+        for (Callback callback : waiting) {
+            callback.onUserCard(card);
+        }
+    }
+}
@@ -14,13 +14,16 @@ import java.util.Map;
 public class UserRepository {
     private static UserRepository instance;
     private Map<String, User> users;
+    // Index des utilisateurs par adresse email, tenu à jour avec users
+    private Map<String, User> usersByEmail;
 
     /**
      * Constructeur privé pour empêcher l'instanciation directe.
-     * Initialise la map des utilisateurs.
+     * Initialise les maps des utilisateurs.
      */
     private UserRepository() {
         users = new HashMap<>();
+        usersByEmail = new HashMap<>();
     }
 
     /**
@@ -53,12 +56,7 @@ public class UserRepository {
      * @return L'utilisateur correspondant à l'email, ou null s'il n'existe pas
      */
     public User getUserByEmail(String email) {
-        for (User user : users.values()) {
-            if (user.getEmail().equals(email)) {
-                return user;
-            }
-        }
-        return null;
+        return email != null ? usersByEmail.get(email) : null;
     }
 
     /**
@@ -76,7 +74,8 @@ public class UserRepository {
      * @param user L'utilisateur à ajouter
      */
     public void addUser(User user) {
-        users.put(user.getId(), user);
+        unindex(users.put(user.getId(), user));
+        index(user);
     }
 
     /**
@@ -86,7 +85,8 @@ public class UserRepository {
      */
     public void updateUser(User user) {
         if (users.containsKey(user.getId())) {
-            users.put(user.getId(), user);
+            unindex(users.put(user.getId(), user));
+            index(user);
         }
     }
 
@@ -96,6 +96,18 @@ public class UserRepository {
      * @param userId L'identifiant de l'utilisateur à supprimer
      */
     public void deleteUser(String userId) {
-        users.remove(userId);
+        unindex(users.remove(userId));
+    }
+
+    private void index(User user) {
+        if (user.getEmail() != null) {
+            usersByEmail.put(user.getEmail(), user);
+        }
+    }
+
+    private void unindex(User user) {
+        if (user != null && user.getEmail() != null && usersByEmail.get(user.getEmail()) == user) {
+            usersByEmail.remove(user.getEmail());
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.sofiane.newtwitter.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+import com.sofiane.newtwitter.repository.store.UserStore;
+import com.sofiane.newtwitter.utils.UsernameHandle;
+
+/**
+ * Index des noms d'utilisateur réservés : usernames/{clé normalisée} = uid du propriétaire.
+ * La réservation est écrite dans la même écriture multi-chemins que le profil (voir
+ * UserProfileCache.registerProfile et saveProfile) ; une clé n'est acceptée que si elle est libre
+ * ou appartient déjà à l'utilisateur, de sorte qu'un nom pris fait échouer toute l'écriture.
+ * Les lectures et les réservations passent par le UserStore de l'application (voir Stores).
+ * La vérification de disponibilité est une lecture d'une seule clé, sans parcourir les utilisateurs.
+ * Les comptes créés avant cet index réservent leur nom à la connexion (claimOwnUsernameOnce).
+ * Cette classe implémente le pattern Singleton.
+ */
+public class UsernameRegistry {
+    private static final String TAG = "UsernameRegistry";
+    private static UsernameRegistry instance;
+
+    static final String USERNAMES = "usernames";
+
+    /**
+     * Interface de callback pour le résultat d'une vérification de disponibilité.
+     */
+    public interface AvailabilityCallback {
+        /**
+         * @param username  Le nom vérifié, tel que saisi
+         * @param available true si le nom est libre (ou déjà réservé par l'utilisateur connecté)
+         */
+        void onAvailability(@NonNull String username, boolean available);
+
+        /**
+         * @param message Message d'erreur
+         */
+        void onError(String message);
+    }
+
+    private final UserStore userStore;
+
+    // Utilisateur dont la réservation a déjà été vérifiée pendant la session
+    private String claimedUserId;
+
+    private UsernameRegistry() {
+        userStore = Stores.getInstance().getUserStore();
+    }
+
+    /**
+     * Obtient l'instance unique du registre.
+     *
+     * @return L'instance unique de UsernameRegistry
+     */
+    public static UsernameRegistry getInstance() {
+        if (instance == null) {
+            instance = new UsernameRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Vérifie si un nom d'utilisateur est libre.
+     *
+     * @param username      Le nom saisi (doit être valide, voir UsernameHandle.isValid)
+     * @param currentUserId L'utilisateur qui le demande, ou null lors d'une inscription
+     * @param callback      Le callback recevant le résultat
+     */
+    public void checkAvailability(@NonNull String username, @Nullable String currentUserId,
+                                  @NonNull AvailabilityCallback callback) {
+        userStore.getUsernameOwner(username, new StoreCallback<String>() {
+            @Override
+            public void onSuccess(String owner) {
+                callback.onAvailability(username, owner == null || owner.equals(currentUserId));
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error checking username " + username + ": " + message);
+                callback.onError(message);
+            }
+        });
+    }
+
+    /**
+     * Réserve le nom de l'utilisateur connecté s'il ne l'est pas encore : les comptes créés avant
+     * l'index n'ont pas de réservation, et un nouvel inscrit pourrait sinon prendre leur nom.
+     * La vérification n'est faite qu'une fois par session. Si le nom est déjà réservé par un autre
+     * compte (doublon antérieur à l'index), il est laissé tel quel : l'utilisateur devra en changer
+     * pour en réserver un.
+     */
+    public void claimOwnUsernameOnce() {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser == null || currentUser.getUid().equals(claimedUserId)) {
+            return;
+        }
+        String userId = currentUser.getUid();
+        claimedUserId = userId;
+
+        // La carte suffit (pas les anciennes maps de suivi du profil) ; le profil n'est lu que sans carte
+        userStore.getUserCard(userId, new StoreCallback<UserCard>() {
+            @Override
+            public void onSuccess(UserCard card) {
+                if (card != null) {
+                    claim(userId, card.getUsername());
+                    return;
+                }
+                userStore.getUser(userId, new StoreCallback<User>() {
+                    @Override
+                    public void onSuccess(User user) {
+                        if (user != null) {
+                            claim(userId, user.getUsername());
+                        }
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        Log.e(TAG, "Error loading username of " + userId + ": " + message);
+                        claimedUserId = null;
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error loading username of " + userId + ": " + message);
+                claimedUserId = null;
+            }
+        });
+    }
+
+    private void claim(String userId, String username) {
+        if (!UsernameHandle.isValid(username)) {
+            // Un nom invalide ne peut pas être réservé ; il le sera à son prochain changement
+            return;
+        }
+        userStore.reserveUsername(userId, username, new StoreCallback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean reserved) {
+                if (Boolean.TRUE.equals(reserved)) {
+                    Log.d(TAG, "Reserved username " + username);
+                } else {
+                    Log.w(TAG, "Username " + username + " is reserved by another account");
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                Log.e(TAG, "Error reserving username " + username + ": " + message);
+                claimedUserId = null;
+            }
+        });
+    }
+}
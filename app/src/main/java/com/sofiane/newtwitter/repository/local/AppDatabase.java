@@ -0,0 +1,66 @@
+package com.sofiane.newtwitter.repository.local;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Base de données locale (Room) de l'application.
+ * Elle conserve les posts et les cartes utilisateur déjà reçus de Firebase : les écrans
+ * affichent d'abord ces données, puis les moteurs de synchronisation les mettent à jour.
+ * Le contenu n'est qu'un cache de Firebase ; en cas de changement de schéma, il est recréé.
+ */
+@Database(entities = {PostEntity.class, UserCardEntity.class}, version = 1, exportSchema = false)
+public abstract class AppDatabase extends RoomDatabase {
+    private static final String DATABASE_NAME = "newtwitter.db";
+    private static volatile AppDatabase instance;
+
+    // Toutes les écritures passent par un seul thread pour conserver l'ordre des événements Firebase
+    private static final ExecutorService diskIO = Executors.newSingleThreadExecutor();
+
+    public abstract PostDao postDao();
+
+    public abstract UserCardDao userCardDao();
+
+    /**
+     * Ouvre la base de données. Doit être appelée depuis Application.onCreate().
+     *
+     * @param context Le contexte de l'application
+     */
+    public static void init(Context context) {
+        if (instance == null) {
+            synchronized (AppDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, DATABASE_NAME)
+                            .fallbackToDestructiveMigration()
+                            .build();
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtient l'instance unique de la base de données.
+     *
+     * @return L'instance ouverte par init()
+     */
+    public static AppDatabase getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("AppDatabase.init() must be called from Application.onCreate()");
+        }
+        return instance;
+    }
+
+    /**
+     * @return L'exécuteur des lectures et écritures sur disque
+     */
+    public static Executor diskIO() {
+        return diskIO;
+    }
+}
@@ -0,0 +1,227 @@
+package com.sofiane.newtwitter.repository.local;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.SearchIndex;
+import com.sofiane.newtwitter.utils.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Stockage local des posts, source de vérité des fils d'actualité.
+ * Cette classe implémente le pattern Singleton pour assurer une instance unique.
+ * Le fil lit une fenêtre de la table Room à la demande (loadLatest : au démarrage, au défilement et
+ * après chaque page reçue) ; les moteurs de synchronisation y écrivent ce qu'ils reçoivent de
+ * Firebase. Les événements en temps réel (like, nouveau post) sont appliqués sur place par le
+ * fil (voir TimelineSync.Listener) : leur écriture ne provoque aucune relecture.
+ * Les écritures sont regroupées et appliquées en une transaction sur AppDatabase.diskIO().
+ * Chaque écriture est aussi reportée dans SearchIndex, qui indexe le contenu du disque au démarrage ;
+ * les posts supprimés du disque (suppression sur le serveur, limite MAX_STORED_POSTS) en sont retirés.
+ * La limite MAX_STORED_POSTS n'est appliquée qu'au démarrage à froid : pendant la session, les pages
+ * plus anciennes restent sur le disque pour que le défilement vers le passé ne relise pas le réseau,
+ * quelle que soit la taille de la fenêtre observée.
+ */
+public class LocalPostStore {
+    private static final String TAG = "LocalPostStore";
+    private static LocalPostStore instance;
+
+    // Nombre maximal de posts conservés sur le disque
+    public static final int MAX_STORED_POSTS = 1000;
+
+    private final PostDao postDao;
+    private final SearchIndex searchIndex = SearchIndex.getInstance();
+
+    // Écritures en attente, par identifiant (null = suppression) ; protégées par this
+    private Map<String, PostEntity> pendingChanges = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    private LocalPostStore() {
+        this(AppDatabase.getInstance().postDao());
+    }
+
+    /**
+     * Stockage sur une base donnée (tests sur une base Room en mémoire).
+     * Applique la limite MAX_STORED_POSTS puis indexe le contenu restant.
+     */
+    LocalPostStore(@NonNull PostDao postDao) {
+        this.postDao = postDao;
+        AppDatabase.diskIO().execute(() -> {
+            try {
+                for (String postId : postDao.trim(MAX_STORED_POSTS)) {
+                    searchIndex.removePost(postId);
+                }
+                searchIndex.indexPosts(toPosts(postDao.getAll()));
+            } catch (Exception e) {
+                Log.e(TAG, "Error indexing stored posts: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Obtient l'instance unique du stockage.
+     *
+     * @return L'instance unique de LocalPostStore
+     */
+    public static synchronized LocalPostStore getInstance() {
+        if (instance == null) {
+            instance = new LocalPostStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Lit les posts les plus récents enregistrés localement, toutes catégories confondues.
+     * Les écritures en attente sont appliquées avant la lecture ; la lecture et la conversion
+     * des entités sont faites hors du thread principal.
+     *
+     * @param limit    Nombre maximal de posts
+     * @param callback Reçoit les posts, du plus récent au plus ancien, sur le thread principal
+     */
+    public void loadLatest(int limit, @NonNull Consumer<List<Post>> callback) {
+        AppDatabase.diskIO().execute(() -> {
+            flush();
+            List<Post> posts;
+            try {
+                posts = toPosts(postDao.getLatest(limit));
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading stored posts: " + e.getMessage(), e);
+                return;
+            }
+            AppExecutors.mainThread().execute(() -> callback.accept(posts));
+        });
+    }
+
+    /**
+     * Lit des posts enregistrés localement par identifiant, hors du thread principal.
+     *
+     * @param postIds  Les identifiants cherchés
+     * @param callback Reçoit les posts trouvés, dans l'ordre des identifiants, sur le thread principal
+     */
+    public void loadPosts(@NonNull List<String> postIds, @NonNull Consumer<List<Post>> callback) {
+        AppDatabase.diskIO().execute(() -> {
+            flush();
+            Map<String, Post> found = new HashMap<>();
+            try {
+                for (PostEntity entity : postDao.getByIds(postIds)) {
+                    found.put(entity.id, entity.toPost());
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading stored posts: " + e.getMessage(), e);
+            }
+            List<Post> posts = new ArrayList<>(found.size());
+            for (String postId : postIds) {
+                Post post = found.get(postId);
+                if (post != null) {
+                    posts.add(post);
+                }
+            }
+            AppExecutors.mainThread().execute(() -> callback.accept(posts));
+        });
+    }
+
+    /**
+     * Enregistre ou met à jour un post.
+     *
+     * @param post Le post reçu de Firebase
+     */
+    public void save(@Nullable Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        searchIndex.indexPost(post);
+        enqueue(post.getId(), PostEntity.fromPost(post));
+    }
+
+    /**
+     * Supprime un post.
+     *
+     * @param postId L'identifiant du post supprimé
+     */
+    public void delete(@Nullable String postId) {
+        if (postId == null) {
+            return;
+        }
+        searchIndex.removePost(postId);
+        enqueue(postId, null);
+    }
+
+    /**
+     * Remplace une plage du fil par le résultat d'une requête Firebase
+     * (voir PostDao.replaceRange).
+     *
+     * @param posts  Les posts renvoyés, triés du plus ancien au plus récent
+     * @param newest Le post le plus récent de la plage, ou null si la plage n'a pas de limite haute
+     */
+    public void replaceRange(@NonNull List<Post> posts, @Nullable Post newest) {
+        if (posts.isEmpty()) {
+            return;
+        }
+        searchIndex.indexPosts(posts);
+        Post oldest = posts.get(0);
+        List<PostEntity> entities = new ArrayList<>();
+        for (Post post : posts) {
+            if (post.getId() != null) {
+                entities.add(PostEntity.fromPost(post));
+            }
+        }
+        long fromTime = oldest.getCreatedAt() != null ? oldest.getCreatedAt().getTime() : 0L;
+        long toTime = newest != null && newest.getCreatedAt() != null ? newest.getCreatedAt().getTime() : Long.MAX_VALUE;
+        String toId = newest != null ? newest.getId() : "";
+        AppDatabase.diskIO().execute(() -> {
+            try {
+                // Les écritures d'événements reçues avant ce résultat doivent être appliquées d'abord
+                flush();
+                // Pas de limite ici : la fenêtre affichée peut dépasser MAX_STORED_POSTS (voir la classe)
+                List<String> removed = postDao.replaceRange(fromTime, oldest.getId(), toTime, toId, entities);
+                // L'index de recherche ne garde que ce qui est sur le disque
+                for (String postId : removed) {
+                    searchIndex.removePost(postId);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error storing posts: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private synchronized void enqueue(String postId, @Nullable PostEntity entity) {
+        pendingChanges.put(postId, entity);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            AppDatabase.diskIO().execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        Map<String, PostEntity> changes;
+        synchronized (this) {
+            changes = pendingChanges;
+            pendingChanges = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            postDao.apply(changes);
+        } catch (Exception e) {
+            Log.e(TAG, "Error storing posts: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<Post> toPosts(List<PostEntity> entities) {
+        List<Post> posts = new ArrayList<>(entities.size());
+        for (PostEntity entity : entities) {
+            posts.add(entity.toPost());
+        }
+        return posts;
+    }
+}
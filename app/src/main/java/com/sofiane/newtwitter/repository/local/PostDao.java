@@ -0,0 +1,137 @@
+package com.sofiane.newtwitter.repository.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accès à la table locale des posts.
+ * L'ordre est celui du fil : date de création décroissante, puis identifiant décroissant.
+ */
+@Dao
+public abstract class PostDao {
+
+    /**
+     * Lit les posts les plus récents (toutes catégories confondues).
+     *
+     * @param limit Nombre maximal de posts
+     * @return Les posts, du plus récent au plus ancien
+     */
+    @Query("SELECT * FROM posts ORDER BY createdAt DESC, id DESC LIMIT :limit")
+    public abstract List<PostEntity> getLatest(int limit);
+
+    /**
+     * Tous les posts enregistrés (au plus LocalPostStore.MAX_STORED_POSTS au démarrage), pour l'index de recherche.
+     */
+    @Query("SELECT * FROM posts")
+    public abstract List<PostEntity> getAll();
+
+    /**
+     * Lit des posts par identifiant (résultats d'une recherche), dans un ordre quelconque.
+     */
+    @Query("SELECT * FROM posts WHERE id IN (:ids)")
+    public abstract List<PostEntity> getByIds(List<String> ids);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public abstract void upsertAll(List<PostEntity> posts);
+
+    @Query("DELETE FROM posts WHERE id IN (:ids)")
+    public abstract void deleteAll(List<String> ids);
+
+    /**
+     * Identifiants des posts compris entre deux positions du fil (bornes incluses), sauf ceux indiqués.
+     */
+    @Query("SELECT id FROM posts"
+            + " WHERE (createdAt > :fromTime OR (createdAt = :fromTime AND id >= :fromId))"
+            + " AND (createdAt < :toTime OR (createdAt = :toTime AND id <= :toId))"
+            + " AND id NOT IN (:keepIds)")
+    protected abstract List<String> findRangeExcept(long fromTime, String fromId, long toTime, String toId, List<String> keepIds);
+
+    /**
+     * Supprime les posts compris entre deux positions du fil (bornes incluses), sauf ceux indiqués.
+     */
+    @Query("DELETE FROM posts"
+            + " WHERE (createdAt > :fromTime OR (createdAt = :fromTime AND id >= :fromId))"
+            + " AND (createdAt < :toTime OR (createdAt = :toTime AND id <= :toId))"
+            + " AND id NOT IN (:keepIds)")
+    protected abstract void deleteRangeExcept(long fromTime, String fromId, long toTime, String toId, List<String> keepIds);
+
+    /**
+     * Identifiants des posts au-delà des plus récents.
+     */
+    @Query("SELECT id FROM posts ORDER BY createdAt DESC, id DESC LIMIT -1 OFFSET :keep")
+    protected abstract List<String> findBeyond(int keep);
+
+    @Query("DELETE FROM posts WHERE id NOT IN (SELECT id FROM posts ORDER BY createdAt DESC, id DESC LIMIT :keep)")
+    protected abstract void deleteBeyond(int keep);
+
+    /**
+     * Ne garde que les posts les plus récents.
+     *
+     * @param keep Nombre de posts conservés
+     * @return Les identifiants des posts supprimés
+     */
+    @Transaction
+    public List<String> trim(int keep) {
+        List<String> evicted = findBeyond(keep);
+        if (!evicted.isEmpty()) {
+            deleteBeyond(keep);
+        }
+        return evicted;
+    }
+
+    /**
+     * Applique un lot d'écritures en une seule transaction (une seule notification des observateurs).
+     *
+     * @param changes Posts à enregistrer (valeur non nulle) ou à supprimer (valeur nulle), par identifiant
+     */
+    @Transaction
+    public void apply(Map<String, PostEntity> changes) {
+        List<PostEntity> upserts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (Map.Entry<String, PostEntity> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                upserts.add(change.getValue());
+            } else {
+                deletes.add(change.getKey());
+            }
+        }
+        if (!deletes.isEmpty()) {
+            deleteAll(deletes);
+        }
+        if (!upserts.isEmpty()) {
+            upsertAll(upserts);
+        }
+    }
+
+    /**
+     * Remplace le contenu local d'une plage du fil par le résultat d'une requête Firebase :
+     * les posts de la plage absents du résultat ont été supprimés sur le serveur.
+     *
+     * @param fromTime Date du post le plus ancien de la plage
+     * @param fromId   Identifiant du post le plus ancien de la plage
+     * @param toTime   Date du post le plus récent de la plage
+     * @param toId     Identifiant du post le plus récent de la plage
+     * @param posts    Les posts de la plage renvoyés par Firebase
+     * @return Les identifiants des posts supprimés
+     */
+    @Transaction
+    public List<String> replaceRange(long fromTime, String fromId, long toTime, String toId, List<PostEntity> posts) {
+        List<String> keepIds = new ArrayList<>();
+        for (PostEntity post : posts) {
+            keepIds.add(post.id);
+        }
+        List<String> removed = findRangeExcept(fromTime, fromId, toTime, toId, keepIds);
+        if (!removed.isEmpty()) {
+            deleteRangeExcept(fromTime, fromId, toTime, toId, keepIds);
+        }
+        upsertAll(posts);
+        return removed;
+    }
+}
@@ -0,0 +1,88 @@
+package com.sofiane.newtwitter.repository.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.sofiane.newtwitter.model.Post;
+
+import java.util.Date;
+
+/**
+ * Ligne de la table locale des posts.
+ * Elle reprend les champs de Post ; createdAt est stocké en millisecondes pour trier
+ * le fil dans le même ordre que Firebase (createdAt puis identifiant).
+ */
+@Entity(tableName = "posts", indices = {@Index(value = {"createdAt", "id"})})
+public class PostEntity {
+    @PrimaryKey
+    @NonNull
+    public String id = "";
+    public String userId;
+    public String username;
+    public String content;
+    public String imageUrl;
+    public long createdAt;
+    public int likeCount;
+    public int commentCount;
+    public int retweetCount;
+    public String parentId;
+    public String parentUsername;
+    public String originalPostId;
+    public String originalUserId;
+    public String originalUsername;
+    public boolean isRetweet;
+    public boolean isReply;
+
+    /**
+     * Crée la ligne correspondant à un post reçu de Firebase.
+     *
+     * @param post Le post (son identifiant doit être renseigné)
+     * @return La ligne à enregistrer
+     */
+    public static PostEntity fromPost(Post post) {
+        PostEntity entity = new PostEntity();
+        entity.id = post.getId();
+        entity.userId = post.getUserId();
+        entity.username = post.getUsername();
+        entity.content = post.getContent();
+        entity.imageUrl = post.getImageUrl();
+        entity.createdAt = post.getCreatedAt() != null ? post.getCreatedAt().getTime() : 0L;
+        entity.likeCount = post.getLikeCount();
+        entity.commentCount = post.getCommentCount();
+        entity.retweetCount = post.getRetweetCount();
+        entity.parentId = post.getParentId();
+        entity.parentUsername = post.getParentUsername();
+        entity.originalPostId = post.getOriginalPostId();
+        entity.originalUserId = post.getOriginalUserId();
+        entity.originalUsername = post.getOriginalUsername();
+        entity.isRetweet = post.isRetweet();
+        entity.isReply = post.isReply();
+        return entity;
+    }
+
+    /**
+     * @return Le post correspondant à cette ligne
+     */
+    public Post toPost() {
+        Post post = new Post();
+        post.setId(id);
+        post.setUserId(userId);
+        post.setUsername(username);
+        post.setContent(content);
+        post.setImageUrl(imageUrl);
+        post.setCreatedAt(new Date(createdAt));
+        post.setLikeCount(likeCount);
+        post.setCommentCount(commentCount);
+        post.setRetweetCount(retweetCount);
+        post.setParentId(parentId);
+        post.setParentUsername(parentUsername);
+        post.setOriginalPostId(originalPostId);
+        post.setOriginalUserId(originalUserId);
+        post.setOriginalUsername(originalUsername);
+        post.setRetweet(isRetweet);
+        post.setReply(isReply);
+        return post;
+    }
+}
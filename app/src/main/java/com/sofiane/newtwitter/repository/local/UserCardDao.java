@@ -0,0 +1,28 @@
+package com.sofiane.newtwitter.repository.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Accès à la table locale des cartes utilisateur.
+ * Les méthodes sont synchrones et doivent être appelées depuis AppDatabase.diskIO().
+ */
+@Dao
+public interface UserCardDao {
+
+    @Query("SELECT * FROM user_cards WHERE userId = :userId")
+    UserCardEntity find(String userId);
+
+    @Query("SELECT userId, username FROM user_cards")
+    List<UserNameRow> getUsernames();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsert(UserCardEntity card);
+
+    @Query("DELETE FROM user_cards WHERE userId = :userId")
+    void delete(String userId);
+}
@@ -0,0 +1,57 @@
+package com.sofiane.newtwitter.repository.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.sofiane.newtwitter.model.UserCard;
+
+/**
+ * Ligne de la table locale des cartes utilisateur (projection userCards/{uid}).
+ */
+@Entity(tableName = "user_cards")
+public class UserCardEntity {
+    @PrimaryKey
+    @NonNull
+    public String userId = "";
+    public String username;
+    public Integer profileIconIndex;
+    public Integer profileColorIndex;
+    public String profileImageUrl;
+    public String bannerImageUrl;
+    // Date de la dernière lecture depuis Firebase (System.currentTimeMillis())
+    public long updatedAt;
+
+    /**
+     * Crée la ligne correspondant à une carte.
+     *
+     * @param card      La carte (son identifiant doit être renseigné)
+     * @param updatedAt Date de la lecture depuis Firebase
+     * @return La ligne à enregistrer
+     */
+    public static UserCardEntity fromCard(UserCard card, long updatedAt) {
+        UserCardEntity entity = new UserCardEntity();
+        entity.userId = card.getUserId();
+        entity.username = card.getUsername();
+        entity.profileIconIndex = card.getProfileIconIndex();
+        entity.profileColorIndex = card.getProfileColorIndex();
+        entity.profileImageUrl = card.getProfileImageUrl();
+        entity.bannerImageUrl = card.getBannerImageUrl();
+        entity.updatedAt = updatedAt;
+        return entity;
+    }
+
+    /**
+     * @return La carte correspondant à cette ligne
+     */
+    public UserCard toCard() {
+        UserCard card = new UserCard();
+        card.setUserId(userId);
+        card.setUsername(username);
+        card.setProfileIconIndex(profileIconIndex);
+        card.setProfileColorIndex(profileColorIndex);
+        card.setProfileImageUrl(profileImageUrl);
+        card.setBannerImageUrl(bannerImageUrl);
+        return card;
+    }
+}
@@ -0,0 +1,9 @@
+package com.sofiane.newtwitter.repository.local;
+
+/**
+ * Projection (userId, username) de la table des cartes utilisateur, pour l'index de recherche.
+ */
+public class UserNameRow {
+    public String userId;
+    public String username;
+}
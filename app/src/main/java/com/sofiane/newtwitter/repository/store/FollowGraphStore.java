@@ -0,0 +1,96 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+
+import java.util.Set;
+
+/**
+ * Accès au graphe d'abonnements (follows/{uid}/following et followers) et aux compteurs
+ * des utilisateurs, indépendant du backend.
+ * Un abonnement écrit les deux arêtes et les deux compteurs en une seule opération atomique ;
+ * les compteurs ne varient que si l'arête change.
+ */
+public interface FollowGraphStore {
+
+    /**
+     * Abonne ou désabonne un utilisateur d'un autre.
+     *
+     * @param callback Reçoit true si l'arête a changé, false si elle était déjà dans l'état demandé
+     */
+    void setFollowing(@NonNull String followerId, @NonNull String targetId, boolean follow,
+                      @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * @param callback Reçoit true si followerId suit targetId
+     */
+    void isFollowing(@NonNull String followerId, @NonNull String targetId, @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * @param callback Reçoit les identifiants des comptes suivis par l'utilisateur
+     */
+    void getFollowing(@NonNull String userId, @NonNull StoreCallback<Set<String>> callback);
+
+    /**
+     * Lit au plus limit comptes suivis par l'utilisateur (les premiers dans l'ordre des identifiants),
+     * sans télécharger le reste de la liste.
+     *
+     * @param callback Reçoit les identifiants lus ; un ensemble de taille limit peut être incomplet
+     */
+    void getFollowingSample(@NonNull String userId, int limit, @NonNull StoreCallback<Set<String>> callback);
+
+    /**
+     * @param callback Reçoit les identifiants des abonnés de l'utilisateur
+     */
+    void getFollowers(@NonNull String userId, @NonNull StoreCallback<Set<String>> callback);
+
+    /**
+     * Lit le compteur d'abonnés (sans télécharger la liste).
+     */
+    void getFollowersCount(@NonNull String userId, @NonNull StoreCallback<Integer> callback);
+
+    /**
+     * Lit le compteur d'abonnements (sans télécharger la liste).
+     */
+    void getFollowingCount(@NonNull String userId, @NonNull StoreCallback<Integer> callback);
+
+    /**
+     * Recalcule les deux compteurs d'un utilisateur à partir de ses arêtes (comptes créés par
+     * d'anciennes versions qui ne maintenaient pas toujours les compteurs). Une arête écrite
+     * pendant le recalcul peut être ignorée ; elle sera comptée au recalcul suivant.
+     */
+    void recountFollows(@NonNull String userId, @NonNull StoreCallback<Void> callback);
+
+    /**
+     * Suit en temps réel le compteur d'abonnés (sans la liste).
+     *
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    Registration observeFollowersCount(@NonNull String userId, @NonNull StoreListener<Integer> listener);
+
+    /**
+     * Suit en temps réel le compteur d'abonnements (sans la liste).
+     *
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    Registration observeFollowingCount(@NonNull String userId, @NonNull StoreListener<Integer> listener);
+
+    /**
+     * Suit en temps réel l'existence d'une arête.
+     *
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    Registration observeFollowing(@NonNull String followerId, @NonNull String targetId,
+                                  @NonNull StoreListener<Boolean> listener);
+
+    /**
+     * Suit en temps réel l'ensemble des comptes suivis par un utilisateur, arête par arête :
+     * un abonnement ne transmet que l'identifiant ajouté ou retiré, pas toute la liste.
+     *
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    Registration observeFollowingSet(@NonNull String followerId, @NonNull KeySetListener listener);
+}
@@ -0,0 +1,215 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * FollowGraphStore en mémoire, pour les tests et les benchmarks JVM : mêmes règles que
+ * FirebaseFollowGraphStore (pas d'abonnement à soi-même, compteurs modifiés seulement si l'arête change).
+ * Les compteurs sont ceux des utilisateurs de l'InMemoryUserStore associé.
+ * Les écritures d'un même abonné sont sérialisées, celles d'abonnés différents s'exécutent en parallèle.
+ * Les événements de observeFollowingSet d'un même abonné ne sont livrés dans l'ordre qu'avec
+ * un exécuteur séquentiel.
+ */
+public class InMemoryFollowGraphStore implements FollowGraphStore {
+    private final Executor callbackExecutor;
+    private final InMemoryUserStore userStore;
+    private final ConcurrentMap<String, Set<String>> following = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> followers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+    private final InMemoryListeners<Boolean> listeners;
+    private final ConcurrentMap<String, List<SetEntry>> setListeners = new ConcurrentHashMap<>();
+
+    /**
+     * @param userStore        Le store des utilisateurs dont les compteurs sont maintenus
+     * @param callbackExecutor L'exécuteur des callbacks et des listeners
+     *                         (Runnable::run pour les appeler sur le thread de l'opération)
+     */
+    public InMemoryFollowGraphStore(@NonNull InMemoryUserStore userStore, @NonNull Executor callbackExecutor) {
+        this.userStore = userStore;
+        this.callbackExecutor = callbackExecutor;
+        this.listeners = new InMemoryListeners<>(callbackExecutor, this::readEdge);
+    }
+
+    @Override
+    public void setFollowing(@NonNull String followerId, @NonNull String targetId, boolean follow,
+                             @NonNull StoreCallback<Boolean> callback) {
+        if (followerId.equals(targetId)) {
+            callbackExecutor.execute(() -> callback.onError("You cannot follow yourself"));
+            return;
+        }
+        boolean changed;
+        synchronized (locks.computeIfAbsent(followerId, id -> new Object())) {
+            changed = follow
+                    ? edges(following, followerId).add(targetId)
+                    : edges(following, followerId).remove(targetId);
+            if (changed) {
+                if (follow) {
+                    edges(followers, targetId).add(followerId);
+                } else {
+                    edges(followers, targetId).remove(followerId);
+                }
+                int delta = follow ? 1 : -1;
+                userStore.adjustCounts(followerId, 0, delta);
+                userStore.adjustCounts(targetId, delta, 0);
+                notifySet(followerId, targetId, follow);
+            }
+        }
+        if (changed) {
+            listeners.notify(edgeKey(followerId, targetId));
+        }
+        callbackExecutor.execute(() -> callback.onSuccess(changed));
+    }
+
+    @Override
+    public void isFollowing(@NonNull String followerId, @NonNull String targetId, @NonNull StoreCallback<Boolean> callback) {
+        boolean result = contains(followerId, targetId);
+        callbackExecutor.execute(() -> callback.onSuccess(result));
+    }
+
+    @Override
+    public void getFollowing(@NonNull String userId, @NonNull StoreCallback<Set<String>> callback) {
+        Set<String> result = snapshot(following, userId);
+        callbackExecutor.execute(() -> callback.onSuccess(result));
+    }
+
+    @Override
+    public void getFollowingSample(@NonNull String userId, int limit, @NonNull StoreCallback<Set<String>> callback) {
+        List<String> sorted = new ArrayList<>(snapshot(following, userId));
+        Collections.sort(sorted);
+        Set<String> result = new HashSet<>(sorted.subList(0, Math.min(limit, sorted.size())));
+        callbackExecutor.execute(() -> callback.onSuccess(result));
+    }
+
+    @Override
+    public void getFollowers(@NonNull String userId, @NonNull StoreCallback<Set<String>> callback) {
+        Set<String> result = snapshot(followers, userId);
+        callbackExecutor.execute(() -> callback.onSuccess(result));
+    }
+
+    @Override
+    public void getFollowersCount(@NonNull String userId, @NonNull StoreCallback<Integer> callback) {
+        int count = userStore.followersCount(userId);
+        callbackExecutor.execute(() -> callback.onSuccess(count));
+    }
+
+    @Override
+    public void getFollowingCount(@NonNull String userId, @NonNull StoreCallback<Integer> callback) {
+        int count = userStore.followingCount(userId);
+        callbackExecutor.execute(() -> callback.onSuccess(count));
+    }
+
+    @Override
+    public void recountFollows(@NonNull String userId, @NonNull StoreCallback<Void> callback) {
+        synchronized (locks.computeIfAbsent(userId, id -> new Object())) {
+            userStore.setCounts(userId, snapshot(followers, userId).size(), snapshot(following, userId).size());
+        }
+        callbackExecutor.execute(() -> callback.onSuccess(null));
+    }
+
+    @NonNull
+    @Override
+    public Registration observeFollowersCount(@NonNull String userId, @NonNull StoreListener<Integer> listener) {
+        return userStore.observeCounts(userId, true, listener);
+    }
+
+    @NonNull
+    @Override
+    public Registration observeFollowingCount(@NonNull String userId, @NonNull StoreListener<Integer> listener) {
+        return userStore.observeCounts(userId, false, listener);
+    }
+
+    @NonNull
+    @Override
+    public Registration observeFollowing(@NonNull String followerId, @NonNull String targetId,
+                                         @NonNull StoreListener<Boolean> listener) {
+        return listeners.add(edgeKey(followerId, targetId), listener);
+    }
+
+    @NonNull
+    @Override
+    public Registration observeFollowingSet(@NonNull String followerId, @NonNull KeySetListener listener) {
+        SetEntry entry = new SetEntry(listener);
+        // Sous le verrou de l'abonné : l'état initial est mis en file avant toute notification suivante
+        synchronized (locks.computeIfAbsent(followerId, id -> new Object())) {
+            setListeners.computeIfAbsent(followerId, id -> new CopyOnWriteArrayList<>()).add(entry);
+            Set<String> initial = snapshot(following, followerId);
+            callbackExecutor.execute(() -> {
+                if (!entry.active) {
+                    return;
+                }
+                for (String targetId : initial) {
+                    listener.onAdded(targetId);
+                }
+                listener.onLoaded();
+            });
+        }
+        return () -> {
+            entry.active = false;
+            List<SetEntry> entries = setListeners.get(followerId);
+            if (entries != null) {
+                entries.remove(entry);
+            }
+        };
+    }
+
+    private void notifySet(String followerId, String targetId, boolean added) {
+        List<SetEntry> entries = setListeners.get(followerId);
+        if (entries == null) {
+            return;
+        }
+        for (SetEntry entry : entries) {
+            callbackExecutor.execute(() -> {
+                if (!entry.active) {
+                    return;
+                }
+                if (added) {
+                    entry.listener.onAdded(targetId);
+                } else {
+                    entry.listener.onRemoved(targetId);
+                }
+            });
+        }
+    }
+
+    private boolean contains(String followerId, String targetId) {
+        Set<String> targets = following.get(followerId);
+        return targets != null && targets.contains(targetId);
+    }
+
+    private Boolean readEdge(String key) {
+        int separator = key.indexOf('/');
+        return contains(key.substring(0, separator), key.substring(separator + 1));
+    }
+
+    private static String edgeKey(String followerId, String targetId) {
+        return followerId + "/" + targetId;
+    }
+
+    private static Set<String> edges(ConcurrentMap<String, Set<String>> graph, String userId) {
+        return graph.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static Set<String> snapshot(ConcurrentMap<String, Set<String>> graph, String userId) {
+        Set<String> edges = graph.get(userId);
+        return edges != null ? new HashSet<>(edges) : new HashSet<>();
+    }
+
+    private static final class SetEntry {
+        final KeySetListener listener;
+        volatile boolean active = true;
+
+        SetEntry(KeySetListener listener) {
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Listeners des stores en mémoire, par clé (identifiant de post, d'utilisateur ou d'arête).
+ * Chaque notification lit la valeur courante au moment de sa livraison sur l'exécuteur :
+ * même livrées dans le désordre par un exécuteur parallèle, les dernières notifications
+ * portent l'état final.
+ *
+ * @param <T> Le type des valeurs suivies
+ */
+final class InMemoryListeners<T> {
+    private final Executor executor;
+    private final Function<String, T> reader;
+    private final Map<String, List<Entry<T>>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * @param executor L'exécuteur des callbacks
+     * @param reader   Lit une copie de la valeur courante d'une clé (null si absente)
+     */
+    InMemoryListeners(@NonNull Executor executor, @NonNull Function<String, T> reader) {
+        this.executor = executor;
+        this.reader = reader;
+    }
+
+    /**
+     * Ajoute un listener et lui transmet la valeur courante.
+     */
+    @NonNull
+    Registration add(@NonNull String key, @NonNull StoreListener<T> listener) {
+        Entry<T> entry = new Entry<>(listener);
+        listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(entry);
+        deliver(key, entry);
+        return () -> {
+            entry.active = false;
+            List<Entry<T>> entries = listeners.get(key);
+            if (entries != null) {
+                entries.remove(entry);
+            }
+        };
+    }
+
+    /**
+     * Notifie les listeners d'une clé après une modification.
+     */
+    void notify(@NonNull String key) {
+        List<Entry<T>> entries = listeners.get(key);
+        if (entries == null) {
+            return;
+        }
+        for (Entry<T> entry : entries) {
+            deliver(key, entry);
+        }
+    }
+
+    private void deliver(String key, Entry<T> entry) {
+        executor.execute(() -> {
+            // Un listener détaché ne reçoit plus les notifications déjà en file
+            if (entry.active) {
+                entry.listener.onValue(reader.apply(key));
+            }
+        });
+    }
+
+    private static final class Entry<T> {
+        final StoreListener<T> listener;
+        volatile boolean active = true;
+
+        Entry(StoreListener<T> listener) {
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PostStore en mémoire, pour les tests et les benchmarks JVM : mêmes règles que FirebasePostStore
+ * (un compteur ne varie que si le marqueur change, un seul like et un seul retweet par utilisateur).
+ * Les écritures qui touchent les compteurs d'un post sont sérialisées par post ; les posts stockés
+ * ne sont jamais modifiés en place (copie à l'écriture), les lectures n'attendent donc aucun verrou.
+ * Les index de fil (userPosts, timelines) n'ont pas d'équivalent : loadLatest lit l'ordre global.
+ * Chaque réponse est indexée sous son parent, comme replies/{parentId} ; il n'y a donc pas de réponse
+ * antérieure à l'index, et getRepliesByParent rend les mêmes réponses que l'index.
+ */
+public class InMemoryPostStore implements PostStore {
+    private final Executor callbackExecutor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ConcurrentMap<String, Post> posts = new ConcurrentHashMap<>();
+    // Du plus récent au plus ancien, comme FeedEngine.NEWEST_FIRST
+    private final NavigableSet<Key> order = new ConcurrentSkipListSet<>();
+    private final Set<String> likes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, String> retweets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+    private final InMemoryListeners<Post> listeners;
+    // Réponses par parent ; l'ordre de Key est du plus récent au plus ancien
+    private final ConcurrentMap<String, NavigableSet<Key>> replyIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<ReplyEntry>> replyListeners = new ConcurrentHashMap<>();
+
+    /**
+     * @param callbackExecutor L'exécuteur des callbacks et des listeners
+     *                         (Runnable::run pour les appeler sur le thread de l'opération)
+     */
+    public InMemoryPostStore(@NonNull Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.listeners = new InMemoryListeners<>(callbackExecutor, this::read);
+    }
+
+    @NonNull
+    @Override
+    public String newPostId() {
+        return String.format(Locale.US, "post-%012d", sequence.incrementAndGet());
+    }
+
+    @Override
+    public void getPost(@NonNull String postId, @NonNull StoreCallback<Post> callback) {
+        success(callback, read(postId));
+    }
+
+    @Override
+    public void loadLatest(int limit, @Nullable Post before, @NonNull StoreCallback<List<Post>> callback) {
+        List<Post> page = new ArrayList<>(Math.max(limit, 0));
+        Iterator<Key> keys = before != null
+                ? order.tailSet(Key.of(before), false).iterator()
+                : order.iterator();
+        while (page.size() < limit && keys.hasNext()) {
+            Post post = read(keys.next().postId);
+            if (post != null) {
+                page.add(post);
+            }
+        }
+        success(callback, page);
+    }
+
+    @Override
+    public void loadReplies(@NonNull String parentId, int limit, @Nullable Post after,
+                            @NonNull StoreCallback<List<Post>> callback) {
+        NavigableSet<Key> oldestFirst = replies(parentId).descendingSet();
+        Iterator<Key> keys = after != null
+                ? oldestFirst.tailSet(Key.of(after), false).iterator()
+                : oldestFirst.iterator();
+        List<Post> page = new ArrayList<>(Math.max(limit, 0));
+        while (page.size() < limit && keys.hasNext()) {
+            Post reply = read(keys.next().postId);
+            if (reply != null) {
+                page.add(reply);
+            }
+        }
+        success(callback, page);
+    }
+
+    @Override
+    public void getRepliesByParent(@NonNull String parentId, @NonNull StoreCallback<List<Post>> callback) {
+        List<Post> result = new ArrayList<>();
+        for (Key key : replies(parentId)) {
+            Post reply = read(key.postId);
+            if (reply != null) {
+                result.add(reply);
+            }
+        }
+        success(callback, result);
+    }
+
+    @NonNull
+    @Override
+    public Registration observeReplies(@NonNull String parentId, @Nullable Post after,
+                                       @NonNull KeySetListener listener) {
+        ReplyEntry entry = new ReplyEntry(listener, after != null ? Key.of(after) : null);
+        // Sous le verrou du parent : l'état initial est mis en file avant toute notification suivante
+        synchronized (lockFor(parentId)) {
+            replyListeners.computeIfAbsent(parentId, id -> new CopyOnWriteArrayList<>()).add(entry);
+            NavigableSet<Key> oldestFirst = replies(parentId).descendingSet();
+            List<Key> initial = new ArrayList<>(entry.after != null
+                    ? oldestFirst.tailSet(entry.after, true)
+                    : oldestFirst);
+            callbackExecutor.execute(() -> {
+                if (!entry.active) {
+                    return;
+                }
+                for (Key key : initial) {
+                    listener.onAdded(key.postId);
+                }
+                listener.onLoaded();
+            });
+        }
+        return () -> {
+            entry.active = false;
+            List<ReplyEntry> entries = replyListeners.get(parentId);
+            if (entries != null) {
+                entries.remove(entry);
+            }
+        };
+    }
+
+    @Override
+    public void publish(@NonNull Post post, @NonNull StoreCallback<Void> callback) {
+        insert(post);
+        success(callback, null);
+    }
+
+    @Override
+    public void reply(@NonNull Post reply, @NonNull StoreCallback<Void> callback) {
+        String parentId = reply.getParentId();
+        if (parentId == null) {
+            error(callback, "A reply needs a parent post");
+            return;
+        }
+        synchronized (lockFor(parentId)) {
+            insert(reply);
+            Key key = Key.of(reply);
+            replies(parentId).add(key);
+            adjust(parentId, 0, 1, 0);
+            notifyReplies(parentId, key, true);
+        }
+        success(callback, null);
+    }
+
+    @Override
+    public void retweet(@NonNull Post retweet, @NonNull StoreCallback<Boolean> callback) {
+        String originalPostId = retweet.getOriginalPostId();
+        if (originalPostId == null) {
+            error(callback, "A retweet needs an original post");
+            return;
+        }
+        boolean created;
+        synchronized (lockFor(originalPostId)) {
+            created = retweets.putIfAbsent(retweetKey(originalPostId, retweet.getUserId()), retweet.getId()) == null;
+            if (created) {
+                insert(retweet);
+                adjust(originalPostId, 0, 0, 1);
+            }
+        }
+        success(callback, created);
+    }
+
+    @Override
+    public void findRetweet(@NonNull String originalPostId, @NonNull String userId, @NonNull StoreCallback<String> callback) {
+        success(callback, retweets.get(retweetKey(originalPostId, userId)));
+    }
+
+    @Override
+    public void unretweet(@NonNull String originalPostId, @NonNull String userId, @NonNull String retweetId,
+                          @NonNull StoreCallback<Void> callback) {
+        boolean removed;
+        synchronized (lockFor(originalPostId)) {
+            removed = retweets.remove(retweetKey(originalPostId, userId), retweetId);
+            if (removed) {
+                remove(retweetId);
+                adjust(originalPostId, 0, 0, -1);
+            }
+        }
+        if (removed) {
+            success(callback, null);
+        } else {
+            // Mêmes règles que la base : pas de décrément sans marqueur
+            error(callback, "No retweet " + retweetId + " of " + originalPostId + " by " + userId);
+        }
+    }
+
+    @Override
+    public void setLiked(@NonNull String postId, @NonNull String userId, boolean liked,
+                         @NonNull StoreCallback<Boolean> callback) {
+        boolean changed;
+        synchronized (lockFor(postId)) {
+            if (!posts.containsKey(postId)) {
+                error(callback, "Post not found: " + postId);
+                return;
+            }
+            String key = likeKey(postId, userId);
+            changed = liked ? likes.add(key) : likes.remove(key);
+            if (changed) {
+                adjust(postId, liked ? 1 : -1, 0, 0);
+            }
+        }
+        success(callback, changed);
+    }
+
+    @Override
+    public void isLiked(@NonNull String postId, @NonNull String userId, @NonNull StoreCallback<Boolean> callback) {
+        success(callback, likes.contains(likeKey(postId, userId)));
+    }
+
+    @Override
+    public void delete(@NonNull Post post, @NonNull StoreCallback<Void> callback) {
+        String parentId = post.isReply() ? post.getParentId() : null;
+        if (parentId != null) {
+            synchronized (lockFor(parentId)) {
+                Post stored = posts.get(post.getId());
+                if (stored != null && remove(post.getId())) {
+                    Key key = Key.of(stored);
+                    replies(parentId).remove(key);
+                    adjust(parentId, 0, -1, 0);
+                    notifyReplies(parentId, key, false);
+                }
+            }
+        } else {
+            remove(post.getId());
+        }
+        success(callback, null);
+    }
+
+    @NonNull
+    @Override
+    public Registration observePost(@NonNull String postId, @NonNull StoreListener<Post> listener) {
+        return listeners.add(postId, listener);
+    }
+
+    private void insert(Post post) {
+        Post stored = copy(post);
+        Post previous = posts.put(stored.getId(), stored);
+        if (previous != null) {
+            order.remove(Key.of(previous));
+        }
+        order.add(Key.of(stored));
+        listeners.notify(stored.getId());
+    }
+
+    private boolean remove(String postId) {
+        Post removed = posts.remove(postId);
+        if (removed == null) {
+            return false;
+        }
+        order.remove(Key.of(removed));
+        listeners.notify(postId);
+        return true;
+    }
+
+    private NavigableSet<Key> replies(String parentId) {
+        return replyIndex.computeIfAbsent(parentId, id -> new ConcurrentSkipListSet<>());
+    }
+
+    /**
+     * Transmet l'ajout ou la suppression d'une réponse aux listeners de son parent. Appelé sous le
+     * verrou du parent ; un ajout n'est transmis qu'aux listeners qui suivent l'index à partir d'une
+     * réponse plus ancienne.
+     */
+    private void notifyReplies(String parentId, Key key, boolean added) {
+        List<ReplyEntry> entries = replyListeners.get(parentId);
+        if (entries == null) {
+            return;
+        }
+        for (ReplyEntry entry : entries) {
+            if (added && entry.after != null && key.compareTo(entry.after) > 0) {
+                continue;
+            }
+            callbackExecutor.execute(() -> {
+                if (!entry.active) {
+                    return;
+                }
+                if (added) {
+                    entry.listener.onAdded(key.postId);
+                } else {
+                    entry.listener.onRemoved(key.postId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applique des variations aux compteurs d'un post, sur une copie. Sans effet si le post n'existe pas.
+     */
+    private void adjust(String postId, int likeDelta, int commentDelta, int retweetDelta) {
+        Post updated = posts.computeIfPresent(postId, (id, current) -> {
+            Post copy = copy(current);
+            copy.setLikeCount(Math.max(0, copy.getLikeCount() + likeDelta));
+            copy.setCommentCount(Math.max(0, copy.getCommentCount() + commentDelta));
+            copy.setRetweetCount(Math.max(0, copy.getRetweetCount() + retweetDelta));
+            return copy;
+        });
+        if (updated != null) {
+            listeners.notify(postId);
+        }
+    }
+
+    @Nullable
+    private Post read(String postId) {
+        Post post = posts.get(postId);
+        return post != null ? copy(post) : null;
+    }
+
+    private Object lockFor(String postId) {
+        return locks.computeIfAbsent(postId, id -> new Object());
+    }
+
+    private <T> void success(StoreCallback<T> callback, @Nullable T result) {
+        callbackExecutor.execute(() -> callback.onSuccess(result));
+    }
+
+    private void error(StoreCallback<?> callback, String message) {
+        callbackExecutor.execute(() -> callback.onError(message));
+    }
+
+    /**
+     * Copie par l'aller-retour du codec : le store garde la forme qu'aurait le post dans la base.
+     */
+    private static Post copy(Post post) {
+        return PostCodec.fromValue(post.getId(), PostCodec.toMap(post));
+    }
+
+    private static String likeKey(String postId, String userId) {
+        return postId + "_" + userId;
+    }
+
+    private static String retweetKey(String postId, String userId) {
+        return postId + "_" + userId + "_retweet";
+    }
+
+    private static final class ReplyEntry {
+        final KeySetListener listener;
+        @Nullable
+        final Key after;
+        volatile boolean active = true;
+
+        ReplyEntry(KeySetListener listener, @Nullable Key after) {
+            this.listener = listener;
+            this.after = after;
+        }
+    }
+
+    /**
+     * Position d'un post dans l'ordre du fil : date décroissante, puis identifiant décroissant.
+     */
+    private static final class Key implements Comparable<Key> {
+        final long time;
+        final String postId;
+
+        Key(long time, String postId) {
+            this.time = time;
+            this.postId = postId;
+        }
+
+        static Key of(Post post) {
+            return new Key(post.getCreatedAt() != null ? post.getCreatedAt().getTime() : 0L,
+                    post.getId() != null ? post.getId() : "");
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (time != other.time) {
+                return time > other.time ? -1 : 1;
+            }
+            return other.postId.compareTo(postId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(time) + postId.hashCode();
+        }
+    }
+}
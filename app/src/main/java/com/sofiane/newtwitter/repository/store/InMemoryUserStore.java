@@ -0,0 +1,251 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.model.UserCodec;
+import com.sofiane.newtwitter.utils.UsernameHandle;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * UserStore en mémoire, pour les tests et les benchmarks JVM.
+ * Les utilisateurs stockés ne sont jamais modifiés en place : chaque écriture remplace une copie,
+ * de façon atomique par utilisateur. Les compteurs sont modifiés par InMemoryFollowGraphStore.
+ * Les écritures qui réservent un nom sont sérialisées sur l'index des noms, comme la règle de
+ * FirebaseUserStore : un nom réservé par un autre compte fait échouer toute l'écriture.
+ */
+public class InMemoryUserStore implements UserStore {
+    private final Executor callbackExecutor;
+    private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UserCard> cards = new ConcurrentHashMap<>();
+    // Clé normalisée du nom -> uid du propriétaire
+    private final ConcurrentMap<String, String> usernames = new ConcurrentHashMap<>();
+    private final InMemoryListeners<User> listeners;
+    private final InMemoryListeners<Integer> followersCountListeners;
+    private final InMemoryListeners<Integer> followingCountListeners;
+
+    /**
+     * @param callbackExecutor L'exécuteur des callbacks et des listeners
+     *                         (Runnable::run pour les appeler sur le thread de l'opération)
+     */
+    public InMemoryUserStore(@NonNull Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        this.listeners = new InMemoryListeners<>(callbackExecutor, this::read);
+        this.followersCountListeners = new InMemoryListeners<>(callbackExecutor, id -> followersCount(id));
+        this.followingCountListeners = new InMemoryListeners<>(callbackExecutor, id -> followingCount(id));
+    }
+
+    @Override
+    public void getUser(@NonNull String userId, @NonNull StoreCallback<User> callback) {
+        User user = read(userId);
+        callbackExecutor.execute(() -> callback.onSuccess(user));
+    }
+
+    @Override
+    public void saveUser(@NonNull User user, @NonNull StoreCallback<Void> callback) {
+        String userId = user.getUserId();
+        if (userId == null) {
+            callbackExecutor.execute(() -> callback.onError("A user needs an identifier"));
+            return;
+        }
+        writeFields(user);
+        callbackExecutor.execute(() -> callback.onSuccess(null));
+    }
+
+    @Override
+    public void getUserCard(@NonNull String userId, @NonNull StoreCallback<UserCard> callback) {
+        UserCard card = cards.get(userId);
+        UserCard copy = card != null ? copy(card) : null;
+        callbackExecutor.execute(() -> callback.onSuccess(copy));
+    }
+
+    @Override
+    public void saveUserCard(@NonNull UserCard card, @NonNull StoreCallback<Void> callback) {
+        cards.put(card.getUserId(), copy(card));
+        callbackExecutor.execute(() -> callback.onSuccess(null));
+    }
+
+    @Override
+    public void createProfile(@NonNull User user, boolean reserveUsername, @NonNull StoreCallback<Boolean> callback) {
+        String userId = user.getUserId();
+        if (userId == null) {
+            callbackExecutor.execute(() -> callback.onError("A user needs an identifier"));
+            return;
+        }
+        synchronized (usernames) {
+            if (reserveUsername && !reserve(userId, user.getUsername(), null)) {
+                callbackExecutor.execute(() -> callback.onSuccess(false));
+                return;
+            }
+            users.put(userId, copy(user));
+            cards.put(userId, UserCard.fromUser(user));
+        }
+        notifyUser(userId);
+        callbackExecutor.execute(() -> callback.onSuccess(true));
+    }
+
+    @Override
+    public void updateProfile(@NonNull User user, @Nullable String previousUsername,
+                              @NonNull StoreCallback<Boolean> callback) {
+        String userId = user.getUserId();
+        if (userId == null) {
+            callbackExecutor.execute(() -> callback.onError("A user needs an identifier"));
+            return;
+        }
+        synchronized (usernames) {
+            boolean renamed = !UsernameHandle.normalize(user.getUsername()).equals(UsernameHandle.normalize(previousUsername));
+            if (renamed && !reserve(userId, user.getUsername(), previousUsername)) {
+                callbackExecutor.execute(() -> callback.onSuccess(false));
+                return;
+            }
+            writeFields(user);
+            cards.put(userId, UserCard.fromUser(user));
+        }
+        callbackExecutor.execute(() -> callback.onSuccess(true));
+    }
+
+    @Override
+    public void getUsernameOwner(@NonNull String username, @NonNull StoreCallback<String> callback) {
+        String owner = usernames.get(UsernameHandle.normalize(username));
+        callbackExecutor.execute(() -> callback.onSuccess(owner));
+    }
+
+    @Override
+    public void reserveUsername(@NonNull String userId, @NonNull String username,
+                                @NonNull StoreCallback<Boolean> callback) {
+        boolean reserved;
+        synchronized (usernames) {
+            reserved = reserve(userId, username, null);
+        }
+        callbackExecutor.execute(() -> callback.onSuccess(reserved));
+    }
+
+    @NonNull
+    @Override
+    public Registration observeUser(@NonNull String userId, @NonNull StoreListener<User> listener) {
+        return listeners.add(userId, listener);
+    }
+
+    /**
+     * Applique des variations aux compteurs d'un utilisateur. Comme un incrément dans la base,
+     * crée un utilisateur réduit à ses compteurs s'il n'existe pas encore.
+     */
+    void adjustCounts(@NonNull String userId, int followersDelta, int followingDelta) {
+        users.compute(userId, (id, current) -> {
+            User updated = current != null ? copy(current) : UserCodec.fromValue(id, new HashMap<>());
+            updated.setFollowersCount(updated.getFollowersCount() + followersDelta);
+            updated.setFollowingCount(updated.getFollowingCount() + followingDelta);
+            return updated;
+        });
+        notifyUser(userId);
+    }
+
+    /**
+     * Remplace les compteurs d'un utilisateur (recalcul à partir des arêtes).
+     */
+    void setCounts(@NonNull String userId, int followersCount, int followingCount) {
+        users.compute(userId, (id, current) -> {
+            User updated = current != null ? copy(current) : UserCodec.fromValue(id, new HashMap<>());
+            updated.setFollowersCount(followersCount);
+            updated.setFollowingCount(followingCount);
+            return updated;
+        });
+        notifyUser(userId);
+    }
+
+    /**
+     * Suit un compteur d'un utilisateur ; le listener reçoit la valeur courante puis chaque modification.
+     *
+     * @param followers true pour le compteur d'abonnés, false pour celui d'abonnements
+     */
+    @NonNull
+    Registration observeCounts(@NonNull String userId, boolean followers, @NonNull StoreListener<Integer> listener) {
+        return (followers ? followersCountListeners : followingCountListeners).add(userId, listener);
+    }
+
+    /**
+     * @return Le nombre d'abonnés d'un utilisateur, 0 s'il n'existe pas
+     */
+    int followersCount(@NonNull String userId) {
+        User user = users.get(userId);
+        return user != null ? Math.max(user.getFollowersCount(), 0) : 0;
+    }
+
+    /**
+     * @return Le nombre d'abonnements d'un utilisateur, 0 s'il n'existe pas
+     */
+    int followingCount(@NonNull String userId) {
+        User user = users.get(userId);
+        return user != null ? Math.max(user.getFollowingCount(), 0) : 0;
+    }
+
+    /**
+     * Écrit les champs du profil ; les compteurs et les maps de suivi ne sont pas des champs du profil.
+     */
+    private void writeFields(User user) {
+        users.compute(user.getUserId(), (id, current) -> {
+            User saved = copy(user);
+            // setFollowers et setFollowing recalculent les compteurs, ils sont donc rétablis ensuite
+            saved.setFollowers(current != null ? current.getFollowers() : new HashMap<>());
+            saved.setFollowing(current != null ? current.getFollowing() : new HashMap<>());
+            saved.setFollowersCount(current != null ? current.getFollowersCount() : 0);
+            saved.setFollowingCount(current != null ? current.getFollowingCount() : 0);
+            return saved;
+        });
+        listeners.notify(user.getUserId());
+    }
+
+    /**
+     * Réserve un nom et libère l'ancien s'il appartient à l'utilisateur. Appelé sous le verrou de usernames.
+     *
+     * @return false si le nom est réservé par un autre compte (rien n'est modifié)
+     */
+    private boolean reserve(String userId, String username, @Nullable String previousUsername) {
+        String key = UsernameHandle.normalize(username);
+        String owner = usernames.get(key);
+        if (owner != null && !owner.equals(userId)) {
+            return false;
+        }
+        usernames.put(key, userId);
+        if (UsernameHandle.isValid(previousUsername)) {
+            String previousKey = UsernameHandle.normalize(previousUsername);
+            if (!previousKey.equals(key)) {
+                usernames.remove(previousKey, userId);
+            }
+        }
+        return true;
+    }
+
+    private void notifyUser(String userId) {
+        listeners.notify(userId);
+        followersCountListeners.notify(userId);
+        followingCountListeners.notify(userId);
+    }
+
+    @Nullable
+    private User read(String userId) {
+        User user = users.get(userId);
+        return user != null ? copy(user) : null;
+    }
+
+    private static User copy(User user) {
+        return UserCodec.fromValue(user.getUserId(), UserCodec.toMap(user));
+    }
+
+    private static UserCard copy(UserCard card) {
+        UserCard copy = new UserCard();
+        copy.setUserId(card.getUserId());
+        copy.setUsername(card.getUsername());
+        copy.setProfileIconIndex(card.getProfileIconIndex());
+        copy.setProfileColorIndex(card.getProfileColorIndex());
+        copy.setProfileImageUrl(card.getProfileImageUrl());
+        copy.setBannerImageUrl(card.getBannerImageUrl());
+        return copy;
+    }
+}
@@ -0,0 +1,26 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Listener d'un ensemble de clés suivi en temps réel, par événements élémentaires :
+ * onAdded pour chaque clé déjà présente, puis onLoaded une fois l'état initial transmis,
+ * puis onAdded et onRemoved à chaque modification, jusqu'à Registration.remove().
+ */
+public interface KeySetListener {
+    void onAdded(@NonNull String key);
+
+    void onRemoved(@NonNull String key);
+
+    /**
+     * Appelé une seule fois, après les onAdded de l'état initial.
+     */
+    void onLoaded();
+
+    /**
+     * Appelé si l'abonnement est refusé ou interrompu.
+     *
+     * @param message Message d'erreur
+     */
+    void onError(String message);
+}
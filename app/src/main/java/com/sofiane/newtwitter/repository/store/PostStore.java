@@ -0,0 +1,126 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.Post;
+
+import java.util.List;
+
+/**
+ * Accès aux posts et à leurs interactions (likes, réponses, retweets), indépendant du backend.
+ * Chaque écriture modifie le post, ses marqueurs, ses compteurs et ses index en une seule opération
+ * atomique : un compteur ne varie que si le marqueur correspondant change.
+ * Implémentations : FirebasePostStore (Realtime Database) et InMemoryPostStore (tests et benchmarks JVM).
+ */
+public interface PostStore {
+
+    /**
+     * @return Un nouvel identifiant de post, unique et croissant dans le temps
+     */
+    @NonNull
+    String newPostId();
+
+    /**
+     * Lit un post.
+     *
+     * @param postId   L'identifiant du post
+     * @param callback Reçoit le post, ou null s'il n'existe pas
+     */
+    void getPost(@NonNull String postId, @NonNull StoreCallback<Post> callback);
+
+    /**
+     * Charge une page du fil global, du plus récent au plus ancien.
+     *
+     * @param limit    Nombre maximal de posts
+     * @param before   Le plus ancien post déjà chargé (exclu), ou null pour la première page
+     * @param callback Reçoit les posts
+     */
+    void loadLatest(int limit, @Nullable Post before, @NonNull StoreCallback<List<Post>> callback);
+
+    /**
+     * Charge une page des réponses d'un post par l'index des réponses, de la plus ancienne à la plus récente.
+     *
+     * @param parentId L'identifiant du post
+     * @param limit    Nombre maximal de réponses
+     * @param after    La plus récente réponse déjà chargée par cette méthode (exclue), ou null pour la première page
+     * @param callback Reçoit les réponses ; une page de moins de limit réponses est la dernière
+     */
+    void loadReplies(@NonNull String parentId, int limit, @Nullable Post after,
+                     @NonNull StoreCallback<List<Post>> callback);
+
+    /**
+     * Lit toutes les réponses d'un post par leur champ parentId, sans passer par l'index des réponses :
+     * comprend les réponses écrites avant cet index. Non paginé.
+     *
+     * @param callback Reçoit les réponses, dans un ordre quelconque
+     */
+    void getRepliesByParent(@NonNull String parentId, @NonNull StoreCallback<List<Post>> callback);
+
+    /**
+     * Suit en temps réel l'index des réponses d'un post à partir d'une réponse donnée : onAdded reçoit
+     * l'identifiant de chaque réponse indexée (la réponse after comprise), puis de chaque nouvelle réponse,
+     * et onRemoved celui de chaque réponse supprimée.
+     *
+     * @param after La réponse à partir de laquelle suivre l'index, ou null pour tout l'index
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    Registration observeReplies(@NonNull String parentId, @Nullable Post after, @NonNull KeySetListener listener);
+
+    /**
+     * Publie un post original avec ses entrées dans les index de son auteur.
+     */
+    void publish(@NonNull Post post, @NonNull StoreCallback<Void> callback);
+
+    /**
+     * Publie une réponse et incrémente le compteur de réponses du parent.
+     */
+    void reply(@NonNull Post reply, @NonNull StoreCallback<Void> callback);
+
+    /**
+     * Publie un retweet, son marqueur et l'incrément du compteur du post original.
+     *
+     * @param callback Reçoit true si le retweet est créé, false si l'utilisateur avait déjà retweeté ce post
+     */
+    void retweet(@NonNull Post retweet, @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * Retrouve le retweet d'un post par un utilisateur.
+     *
+     * @param callback Reçoit l'identifiant du retweet, ou null si l'utilisateur n'a pas retweeté ce post
+     */
+    void findRetweet(@NonNull String originalPostId, @NonNull String userId, @NonNull StoreCallback<String> callback);
+
+    /**
+     * Supprime un retweet, son marqueur, et décrémente le compteur du post original.
+     */
+    void unretweet(@NonNull String originalPostId, @NonNull String userId, @NonNull String retweetId,
+                   @NonNull StoreCallback<Void> callback);
+
+    /**
+     * Like ou retire le like d'un utilisateur sur un post.
+     *
+     * @param callback Reçoit true si l'état a changé, false si le like était déjà dans l'état demandé
+     */
+    void setLiked(@NonNull String postId, @NonNull String userId, boolean liked, @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * @param callback Reçoit true si l'utilisateur a liké le post
+     */
+    void isLiked(@NonNull String postId, @NonNull String userId, @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * Supprime un post et ses entrées d'index ; pour une réponse, décrémente aussi le compteur du parent.
+     */
+    void delete(@NonNull Post post, @NonNull StoreCallback<Void> callback);
+
+    /**
+     * Suit un post en temps réel.
+     *
+     * @param listener Reçoit le post à chaque modification, ou null après sa suppression
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    Registration observePost(@NonNull String postId, @NonNull StoreListener<Post> listener);
+}
@@ -0,0 +1,8 @@
+package com.sofiane.newtwitter.repository.store;
+
+/**
+ * Abonnement à un listener de store ; remove() le détache. Appels répétés sans effet.
+ */
+public interface Registration {
+    void remove();
+}
@@ -0,0 +1,26 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Callback d'une opération ponctuelle sur un store (lecture ou écriture).
+ * Les implémentations Firebase l'appellent sur le thread principal, les implémentations
+ * en mémoire sur l'exécuteur fourni à leur constructeur.
+ *
+ * @param <T> Le type du résultat
+ */
+public interface StoreCallback<T> {
+    /**
+     * Appelé lorsque l'opération a réussi.
+     *
+     * @param result Le résultat (null pour une lecture sans donnée ou une écriture)
+     */
+    void onSuccess(@Nullable T result);
+
+    /**
+     * Appelé lorsque l'opération a échoué.
+     *
+     * @param message Message d'erreur
+     */
+    void onError(String message);
+}
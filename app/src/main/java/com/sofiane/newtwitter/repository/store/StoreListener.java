@@ -0,0 +1,23 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Listener d'une valeur suivie en temps réel : appelé avec la valeur courante
+ * à l'abonnement, puis à chaque modification, jusqu'à Registration.remove().
+ *
+ * @param <T> Le type de la valeur
+ */
+public interface StoreListener<T> {
+    /**
+     * @param value La nouvelle valeur (null si elle n'existe pas ou plus)
+     */
+    void onValue(@Nullable T value);
+
+    /**
+     * Appelé si l'abonnement est refusé ou interrompu.
+     *
+     * @param message Message d'erreur
+     */
+    void onError(String message);
+}
@@ -0,0 +1,83 @@
+package com.sofiane.newtwitter.repository.store;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCard;
+
+/**
+ * Accès aux profils utilisateurs (users/{uid}), à leurs cartes d'affichage (userCards/{uid}) et aux
+ * noms réservés (usernames/{clé normalisée} = uid), indépendant du backend.
+ * Les compteurs d'abonnés et d'abonnements appartiennent à FollowGraphStore :
+ * saveUser, createProfile et updateProfile écrivent le profil sans jamais les modifier.
+ * Un nom réservé par un autre compte fait échouer toute l'écriture qui le réserve : le callback
+ * reçoit alors false, et rien n'est écrit.
+ */
+public interface UserStore {
+
+    /**
+     * @param callback Reçoit l'utilisateur, ou null s'il n'existe pas
+     */
+    void getUser(@NonNull String userId, @NonNull StoreCallback<User> callback);
+
+    /**
+     * Crée ou met à jour le profil d'un utilisateur (tous les champs sauf les compteurs et les maps de suivi).
+     */
+    void saveUser(@NonNull User user, @NonNull StoreCallback<Void> callback);
+
+    /**
+     * Lit la carte d'affichage d'un utilisateur, sans les maps de suivi.
+     *
+     * @param callback Reçoit la carte, ou null si l'utilisateur n'en a pas (compte antérieur aux cartes ou inexistant)
+     */
+    void getUserCard(@NonNull String userId, @NonNull StoreCallback<UserCard> callback);
+
+    /**
+     * Écrit la carte d'un utilisateur seule (rattrapage d'un compte antérieur aux cartes).
+     */
+    void saveUserCard(@NonNull UserCard card, @NonNull StoreCallback<Void> callback);
+
+    /**
+     * Crée le profil complet d'un utilisateur et sa carte en une seule opération atomique.
+     *
+     * @param reserveUsername true pour réserver aussi son nom (inscription)
+     * @param callback        Reçoit true si le profil est écrit, false si le nom est réservé par un autre compte
+     */
+    void createProfile(@NonNull User user, boolean reserveUsername, @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * Met à jour les champs du profil et la carte en une seule opération atomique. Si le nom a changé,
+     * le nouveau est réservé et l'ancien libéré, seulement s'il est réservé par cet utilisateur
+     * (les comptes antérieurs à l'index n'ont pas de réservation, et un autre compte a pu le prendre depuis).
+     *
+     * @param previousUsername Le nom avant la modification, ou null s'il est inconnu
+     * @param callback         Reçoit true si le profil est écrit, false si le nouveau nom est réservé par un autre compte
+     */
+    void updateProfile(@NonNull User user, @Nullable String previousUsername, @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * Lit le propriétaire de la réservation d'un nom.
+     *
+     * @param username Le nom (doit être valide, voir UsernameHandle.isValid)
+     * @param callback Reçoit l'uid du propriétaire, ou null si le nom n'est pas réservé
+     */
+    void getUsernameOwner(@NonNull String username, @NonNull StoreCallback<String> callback);
+
+    /**
+     * Réserve un nom pour un utilisateur s'il est libre, sans toucher au profil
+     * (comptes créés avant l'index des noms).
+     *
+     * @param username Le nom (doit être valide, voir UsernameHandle.isValid)
+     * @param callback Reçoit true si le nom est réservé par userId, false s'il l'est par un autre compte
+     */
+    void reserveUsername(@NonNull String userId, @NonNull String username, @NonNull StoreCallback<Boolean> callback);
+
+    /**
+     * Suit un profil en temps réel, compteurs compris.
+     *
+     * @return L'abonnement, à détacher avec remove()
+     */
+    @NonNull
+    Registration observeUser(@NonNull String userId, @NonNull StoreListener<User> listener);
+}
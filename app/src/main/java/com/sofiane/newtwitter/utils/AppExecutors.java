@@ -0,0 +1,102 @@
+package com.sofiane.newtwitter.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécuteurs partagés de l'application.
+ * Le pool de parsing désérialise les snapshots Firebase hors du thread principal ; il est borné
+ * (nombre de threads et file d'attente) pour ne pas concurrencer le rendu. Si la file est pleine,
+ * la tâche s'exécute sur le thread appelant plutôt que d'être perdue.
+ * Les flux d'événements dont l'ordre compte (événements enfants) passent par un exécuteur série.
+ */
+public final class AppExecutors {
+    private static final int PARSING_THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int PARSING_QUEUE_CAPACITY = 256;
+
+    private static final ThreadPoolExecutor parsing;
+    private static final Executor mainThread;
+
+    static {
+        AtomicInteger threadCount = new AtomicInteger();
+        parsing = new ThreadPoolExecutor(PARSING_THREADS, PARSING_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(PARSING_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "parsing-" + threadCount.incrementAndGet());
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        parsing.allowCoreThreadTimeOut(true);
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    private AppExecutors() {
+    }
+
+    /**
+     * @return Le pool borné de désérialisation et de tri
+     */
+    public static Executor parsing() {
+        return parsing;
+    }
+
+    /**
+     * @return L'exécuteur du thread principal (publication des résultats)
+     */
+    public static Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Crée un exécuteur qui exécute ses tâches une par une, dans l'ordre de soumission,
+     * sur le pool de parsing.
+     *
+     * @return Un nouvel exécuteur série
+     */
+    public static Executor newSerialExecutor() {
+        return new SerialExecutor(parsing);
+    }
+
+    private static final class SerialExecutor implements Executor {
+        private final Executor delegate;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable task) {
+            tasks.add(() -> {
+                try {
+                    task.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                delegate.execute(active);
+            }
+        }
+    }
+}
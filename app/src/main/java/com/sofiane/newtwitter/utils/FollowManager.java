@@ -1,27 +1,24 @@
 package com.sofiane.newtwitter.utils;
 
-import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.sofiane.newtwitter.repository.Stores;
+import com.sofiane.newtwitter.repository.store.FollowGraphStore;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
 
 /**
  * Gestionnaire des relations de suivi entre utilisateurs.
  * Cette classe fournit des méthodes pour suivre/ne plus suivre des utilisateurs
  * et pour obtenir des informations sur les relations de suivi.
- * Elle interagit directement avec Firebase Realtime Database.
+ * Les lectures et les écritures passent par FollowGraphStore (Firebase Realtime Database
+ * par défaut, en mémoire dans les tests).
  */
 public class FollowManager {
 
-    private final DatabaseReference mDatabase;
-    private final FirebaseUser currentUser;
+    private final FollowGraphStore followGraphStore;
+    private final String currentUserId;
 
     /**
      * Interface de callback pour les opérations de suivi/désabonnement.
@@ -79,79 +76,80 @@ public class FollowManager {
     }
 
     /**
-     * Constructeur qui initialise les références Firebase.
+     * Constructeur qui utilise les stores de l'application et l'utilisateur connecté.
      */
     public FollowManager() {
-        mDatabase = FirebaseDatabase.getInstance().getReference();
-        currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        this(Stores.getInstance().getFollowGraphStore(), currentUserId());
+    }
+
+    /**
+     * Constructeur avec un store et un utilisateur courant explicites (tests, stores en mémoire).
+     *
+     * @param followGraphStore Le store du graphe d'abonnements
+     * @param currentUserId    L'identifiant de l'utilisateur courant, ou null s'il n'est pas connecté
+     */
+    public FollowManager(FollowGraphStore followGraphStore, @Nullable String currentUserId) {
+        this.followGraphStore = followGraphStore;
+        this.currentUserId = currentUserId;
+    }
+
+    @Nullable
+    private static String currentUserId() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : null;
     }
 
     /**
      * Permet à l'utilisateur courant de suivre un utilisateur cible.
-     * Met à jour les listes "following" et "followers" dans Firebase.
+     * Les arêtes et les compteurs sont écrits en une seule opération par FollowGraphStore.
      * 
      * @param targetUserId ID de l'utilisateur à suivre
      * @param listener Callback pour notifier du résultat de l'opération
      */
     public void followUser(String targetUserId, final FollowListener listener) {
-        if (currentUser == null) {
-            if (listener != null) {
-                listener.onError("Utilisateur non connecté");
-            }
-            return;
-        }
-
-        // Ajouter l'utilisateur cible à la liste des utilisateurs suivis par l'utilisateur actuel
-        mDatabase.child("follows").child(currentUser.getUid()).child("following").child(targetUserId).setValue(true)
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // Ajouter l'utilisateur actuel à la liste des abonnés de l'utilisateur cible
-                        mDatabase.child("follows").child(targetUserId).child("followers").child(currentUser.getUid()).setValue(true)
-                                .addOnCompleteListener(innerTask -> {
-                                    if (innerTask.isSuccessful() && listener != null) {
-                                        listener.onSuccess();
-                                    } else if (listener != null) {
-                                        listener.onError("Erreur lors de l'ajout aux abonnés");
-                                    }
-                                });
-                    } else if (listener != null) {
-                        listener.onError("Erreur lors de l'abonnement");
-                    }
-                });
+        setFollowing(targetUserId, true, listener, "Erreur lors de l'abonnement");
     }
 
     /**
      * Permet à l'utilisateur courant de ne plus suivre un utilisateur cible.
-     * Met à jour les listes "following" et "followers" dans Firebase.
+     * Les arêtes et les compteurs sont écrits en une seule opération par FollowGraphStore.
      * 
      * @param targetUserId ID de l'utilisateur à ne plus suivre
      * @param listener Callback pour notifier du résultat de l'opération
      */
     public void unfollowUser(String targetUserId, final FollowListener listener) {
-        if (currentUser == null) {
+        setFollowing(targetUserId, false, listener, "Erreur lors du désabonnement");
+    }
+
+    private void setFollowing(String targetUserId, boolean follow, final FollowListener listener, String errorMessage) {
+        if (currentUserId == null) {
             if (listener != null) {
                 listener.onError("Utilisateur non connecté");
             }
             return;
         }
 
-        // Supprimer l'utilisateur cible de la liste des utilisateurs suivis par l'utilisateur actuel
-        mDatabase.child("follows").child(currentUser.getUid()).child("following").child(targetUserId).removeValue()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // Supprimer l'utilisateur actuel de la liste des abonnés de l'utilisateur cible
-                        mDatabase.child("follows").child(targetUserId).child("followers").child(currentUser.getUid()).removeValue()
-                                .addOnCompleteListener(innerTask -> {
-                                    if (innerTask.isSuccessful() && listener != null) {
-                                        listener.onSuccess();
-                                    } else if (listener != null) {
-                                        listener.onError("Erreur lors de la suppression des abonnés");
-                                    }
-                                });
-                    } else if (listener != null) {
-                        listener.onError("Erreur lors du désabonnement");
-                    }
-                });
+        followGraphStore.setFollowing(currentUserId, targetUserId, follow, new StoreCallback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean changed) {
+                if (listener == null) {
+                    return;
+                }
+                // Une arête déjà dans l'état demandé est une écriture refusée par les règles
+                if (Boolean.TRUE.equals(changed)) {
+                    listener.onSuccess();
+                } else {
+                    listener.onError(errorMessage);
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                if (listener != null) {
+                    listener.onError(errorMessage);
+                }
+            }
+        });
     }
 
     /**
@@ -161,78 +159,67 @@ public class FollowManager {
      * @param listener Callback pour notifier du résultat de la vérification
      */
     public void checkFollowStatus(String targetUserId, final FollowStatusListener listener) {
-        if (currentUser == null) {
+        if (currentUserId == null) {
             if (listener != null) {
                 listener.onError("Utilisateur non connecté");
             }
             return;
         }
 
-        mDatabase.child("follows").child(currentUser.getUid()).child("following").child(targetUserId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        if (listener != null) {
-                            listener.onStatus(dataSnapshot.exists());
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        if (listener != null) {
-                            listener.onError(databaseError.getMessage());
-                        }
-                    }
-                });
+        followGraphStore.isFollowing(currentUserId, targetUserId, new StoreCallback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean isFollowing) {
+                if (listener != null) {
+                    listener.onStatus(Boolean.TRUE.equals(isFollowing));
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                if (listener != null) {
+                    listener.onError(message);
+                }
+            }
+        });
     }
 
     /**
      * Obtient le nombre d'abonnés (followers) d'un utilisateur.
+     * Lit uniquement le compteur users/{uid}/followersCount.
      * 
      * @param userId ID de l'utilisateur
      * @param listener Callback pour notifier du résultat
      */
     public void getFollowersCount(String userId, final CountListener listener) {
-        mDatabase.child("follows").child(userId).child("followers")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        if (listener != null) {
-                            listener.onCount((int) dataSnapshot.getChildrenCount());
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        if (listener != null) {
-                            listener.onError(databaseError.getMessage());
-                        }
-                    }
-                });
+        followGraphStore.getFollowersCount(userId, countCallback(listener));
     }
 
     /**
      * Obtient le nombre d'utilisateurs suivis (following) par un utilisateur.
+     * Lit uniquement le compteur users/{uid}/followingCount.
      * 
      * @param userId ID de l'utilisateur
      * @param listener Callback pour notifier du résultat
      */
     public void getFollowingCount(String userId, final CountListener listener) {
-        mDatabase.child("follows").child(userId).child("following")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                        if (listener != null) {
-                            listener.onCount((int) dataSnapshot.getChildrenCount());
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError databaseError) {
-                        if (listener != null) {
-                            listener.onError(databaseError.getMessage());
-                        }
-                    }
-                });
+        followGraphStore.getFollowingCount(userId, countCallback(listener));
+    }
+
+    private static StoreCallback<Integer> countCallback(final CountListener listener) {
+        return new StoreCallback<Integer>() {
+            @Override
+            public void onSuccess(Integer count) {
+                if (listener != null) {
+                    listener.onCount(count != null ? count : 0);
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                if (listener != null) {
+                    listener.onError(message);
+                }
+            }
+        };
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
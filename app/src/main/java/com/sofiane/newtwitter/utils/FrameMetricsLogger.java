@@ -0,0 +1,131 @@
+package com.sofiane.newtwitter.utils;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Mesure du temps de rendu sur le thread principal, pour les builds de débogage et les tests.
+ * Entre start() et stop(), chaque frame est horodatée par le Choreographer : un intervalle
+ * nettement supérieur au budget d'une frame (16,7 ms à 60 Hz) signifie que le thread principal
+ * a été bloqué (jank), et le nombre de frames perdues en est déduit.
+ * Toutes les méthodes doivent être appelées depuis le thread principal.
+ */
+public class FrameMetricsLogger implements Choreographer.FrameCallback {
+    private static final String TAG = "FrameMetrics";
+    private static final long FRAME_BUDGET_NANOS = 16_666_667L;
+    // Marge pour la gigue du vsync : une frame n'est comptée en retard qu'au-delà d'une frame et demie
+    private static final long JANK_THRESHOLD_NANOS = FRAME_BUDGET_NANOS * 3 / 2;
+
+    /**
+     * Résumé d'une mesure.
+     */
+    public static final class Stats {
+        public final int frames;
+        public final int jankyFrames;
+        public final long droppedFrames;
+        public final double maxFrameMs;
+
+        Stats(int frames, int jankyFrames, long droppedFrames, double maxFrameMs) {
+            this.frames = frames;
+            this.jankyFrames = jankyFrames;
+            this.droppedFrames = droppedFrames;
+            this.maxFrameMs = maxFrameMs;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "frames=%d janky=%d (%.1f%%) dropped=%d max=%.1fms",
+                    frames, jankyFrames, frames == 0 ? 0.0 : 100.0 * jankyFrames / frames,
+                    droppedFrames, maxFrameMs);
+        }
+    }
+
+    private final String label;
+    private boolean running = false;
+    private long lastFrameNanos;
+    private int frames;
+    private int jankyFrames;
+    private long droppedFrames;
+    private long maxFrameNanos;
+
+    /**
+     * @param label Nom de la mesure dans les logs
+     */
+    public FrameMetricsLogger(@NonNull String label) {
+        this.label = label;
+    }
+
+    /**
+     * Indique si les mesures doivent être activées (application débogable).
+     *
+     * @param context Un contexte de l'application
+     * @return true pour un build de débogage
+     */
+    public static boolean isEnabled(@NonNull Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    /**
+     * Démarre une mesure ; sans effet si une mesure est déjà en cours.
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        lastFrameNanos = 0;
+        frames = 0;
+        jankyFrames = 0;
+        droppedFrames = 0;
+        maxFrameNanos = 0;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /**
+     * Arrête la mesure en cours et écrit son résumé dans les logs.
+     *
+     * @return Le résumé de la mesure
+     */
+    @NonNull
+    public Stats stop() {
+        if (running) {
+            running = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        Stats stats = new Stats(frames, jankyFrames, droppedFrames, maxFrameNanos / 1_000_000.0);
+        Log.i(TAG, label + ": " + stats);
+        return stats;
+    }
+
+    /**
+     * @return true si une mesure est en cours
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            long interval = frameTimeNanos - lastFrameNanos;
+            frames++;
+            if (interval > JANK_THRESHOLD_NANOS) {
+                jankyFrames++;
+                droppedFrames += Math.round((double) interval / FRAME_BUDGET_NANOS) - 1;
+            }
+            maxFrameNanos = Math.max(maxFrameNanos, interval);
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -4,10 +4,13 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
 
 import com.sofiane.newtwitter.R;
+import com.sofiane.newtwitter.model.UserCard;
+import com.sofiane.newtwitter.repository.UserProfileCache;
 
 /**
  * Classe utilitaire pour gérer les icônes et couleurs de profil
@@ -86,4 +89,42 @@ public class ProfileIconHelper {
         
         return wrappedDrawable;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Affiche l'icône de profil d'un utilisateur en passant par UserProfileCache.
+     * L'ImageView est marquée avec l'identifiant demandé afin d'ignorer une réponse
+     * arrivée après le recyclage de la vue pour un autre utilisateur.
+     * @param imageView La vue d'image à mettre à jour
+     * @param userId L'ID de l'utilisateur
+     */
+    public static void loadProfileIcon(ImageView imageView, String userId) {
+        imageView.setTag(R.id.tag_profile_icon_user_id, userId);
+        if (userId == null || userId.isEmpty()) {
+            // Si l'ID utilisateur est invalide, utiliser l'icône par défaut
+            imageView.setImageResource(R.drawable.ic_profile_person);
+            return;
+        }
+        
+        UserProfileCache.getInstance().get(userId, card -> {
+            if (!userId.equals(imageView.getTag(R.id.tag_profile_icon_user_id))) {
+                // La vue affiche désormais un autre utilisateur
+                return;
+            }
+            applyProfileIcon(imageView, card);
+        });
+    }
+    
+    /**
+     * Affiche l'icône colorée d'un utilisateur, ou l'icône par défaut si elle n'est pas définie
+     * @param imageView La vue d'image à mettre à jour
+     * @param card Les informations de l'utilisateur (peut être null)
+     */
+    public static void applyProfileIcon(ImageView imageView, UserCard card) {
+        if (card != null && card.hasProfileIcon()) {
+            imageView.setImageDrawable(getColoredProfileIcon(
+                    imageView.getContext(), card.getProfileIconIndex(), card.getProfileColorIndex()));
+        } else {
+            imageView.setImageResource(R.drawable.ic_profile_person);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.sofiane.newtwitter.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Classe utilitaire pour les identifiants « @handle » dérivés des noms d'utilisateur.
+ * Le handle affiché est le nom en minuscules sans espaces ; la clé de réservation
+ * (usernames/{clé}) retire aussi les accents, de sorte que « Élodie » et « elodie »
+ * ne puissent pas être inscrits tous les deux.
+ */
+public final class UsernameHandle {
+    // Longueur autorisée d'un handle à l'inscription
+    public static final int MIN_LENGTH = 3;
+    public static final int MAX_LENGTH = 30;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private UsernameHandle() {
+    }
+
+    /**
+     * @param username Le nom d'utilisateur
+     * @return Le handle affiché, sans « @ » (chaîne vide si le nom est null)
+     */
+    @NonNull
+    public static String of(@Nullable String username) {
+        if (username == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(username).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param username Le nom d'utilisateur
+     * @return Le handle affiché, précédé de « @ »
+     */
+    @NonNull
+    public static String format(@Nullable String username) {
+        return "@" + of(username);
+    }
+
+    /**
+     * Clé de réservation du nom : handle sans accents.
+     *
+     * @param username Le nom d'utilisateur
+     * @return La clé sous usernames/
+     */
+    @NonNull
+    public static String normalize(@Nullable String username) {
+        String handle = of(username);
+        String decomposed = Normalizer.normalize(handle, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Un nom est accepté à l'inscription si sa clé compte entre MIN_LENGTH et MAX_LENGTH lettres,
+     * chiffres ou « _ » (ce qui exclut aussi les caractères interdits dans une clé Firebase : . $ # [ ] /).
+     *
+     * @param username Le nom d'utilisateur
+     * @return true si le nom peut être réservé
+     */
+    public static boolean isValid(@Nullable String username) {
+        String key = normalize(username);
+        if (key.length() < MIN_LENGTH || key.length() > MAX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
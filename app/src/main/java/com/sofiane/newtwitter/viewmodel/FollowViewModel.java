@@ -1,15 +1,18 @@
 package com.sofiane.newtwitter.viewmodel;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.sofiane.newtwitter.repository.store.FollowGraphStore;
 import com.sofiane.newtwitter.utils.FollowManager;
 
 /**
  * ViewModel responsable de la gestion des relations de suivi entre utilisateurs.
- * Cette classe utilise FollowManager pour interagir avec Firebase et fournit des données
+ * Cette classe utilise FollowManager pour interagir avec le FollowGraphStore et fournit des données
  * observables sur l'état des relations de suivi, les compteurs et les messages.
+ * Le store est injecté par StoreViewModelFactory (Firebase par défaut, en mémoire dans les tests).
  */
 public class FollowViewModel extends ViewModel {
     private final FollowManager followManager;
@@ -20,12 +23,22 @@ public class FollowViewModel extends ViewModel {
     private final MutableLiveData<String> successMessage = new MutableLiveData<>();
 
     /**
-     * Constructeur qui initialise le FollowManager.
+     * Constructeur qui initialise le FollowManager avec les stores de l'application.
      */
     public FollowViewModel() {
         followManager = new FollowManager();
     }
 
+    /**
+     * Constructeur avec un store et un utilisateur courant explicites.
+     *
+     * @param followGraphStore Le store du graphe d'abonnements
+     * @param currentUserId    L'identifiant de l'utilisateur courant, ou null s'il n'est pas connecté
+     */
+    public FollowViewModel(FollowGraphStore followGraphStore, @Nullable String currentUserId) {
+        followManager = new FollowManager(followGraphStore, currentUserId);
+    }
+
     /**
      * Permet à l'utilisateur courant de suivre un utilisateur cible.
      * Met à jour les LiveData en fonction du résultat.
@@ -5,6 +5,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.repository.UsernameRegistry;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.UserProfileChangeRequest;
@@ -77,6 +78,9 @@ public class LoginViewModel extends ViewModel {
                         // Utiliser postValue pour éviter les problèmes de thread
                         currentUser.postValue(user);
                         Log.d(TAG, "User data set to LiveData");
+
+                        // Les comptes créés avant l'index des noms réservent le leur à la connexion
+                        UsernameRegistry.getInstance().claimOwnUsernameOnce();
                     } else {
                         Log.e(TAG, "FirebaseUser is null after successful login");
                         errorMessage.postValue("Authentication error: User data not available");
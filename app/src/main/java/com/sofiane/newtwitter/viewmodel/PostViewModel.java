@@ -3,16 +3,21 @@ package com.sofiane.newtwitter.viewmodel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.ViewModel;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.FeedEngine;
 import com.sofiane.newtwitter.repository.PostRepository;
 import java.util.List;
 
 /**
  * ViewModel responsable de la gestion des posts (tweets).
  * Cette classe utilise PostRepository pour interagir avec Firebase et fournit des données
- * observables sur les posts et les messages d'erreur.
+ * observables sur les posts et les messages d'erreur. Le fil d'actualité provient du stockage
+ * local (Room), que le repository synchronise avec Firebase en arrière-plan.
  * Elle gère également les opérations CRUD sur les posts, ainsi que les interactions comme
  * les likes, les retweets et les réponses.
+ * Le repository est construit sur les stores de StoreViewModelFactory.
  */
 public class PostViewModel extends ViewModel {
     private final PostRepository postRepository;
@@ -20,10 +25,19 @@ public class PostViewModel extends ViewModel {
     private final MediatorLiveData<String> errorMessage = new MediatorLiveData<>();
 
     /**
-     * Constructeur qui initialise le PostRepository et configure les sources de données observables.
+     * Constructeur qui utilise le PostRepository de l'application.
      */
     public PostViewModel() {
-        postRepository = PostRepository.getInstance();
+        this(PostRepository.getInstance());
+    }
+
+    /**
+     * Constructeur avec un repository explicite, et configure les sources de données observables.
+     *
+     * @param postRepository Le repository des posts (voir StoreViewModelFactory)
+     */
+    public PostViewModel(PostRepository postRepository) {
+        this.postRepository = postRepository;
         
         // Observe posts from repository
         posts.addSource(postRepository.getAllPostsLiveData(), posts::setValue);
@@ -41,6 +55,34 @@ public class PostViewModel extends ViewModel {
         return posts;
     }
 
+    /**
+     * Obtient le LiveData des modifications incrémentales du fil d'actualité.
+     * Chaque valeur correspond à une seule mise à jour d'élément dans l'adaptateur.
+     *
+     * @return LiveData contenant la dernière modification du fil
+     */
+    public LiveData<FeedEngine.Change> getTimelineChanges() {
+        return postRepository.getTimelineChangesLiveData();
+    }
+
+    /**
+     * Obtient une copie des posts actuellement affichés dans le fil d'actualité.
+     *
+     * @return La liste des posts du fil, du plus récent au plus ancien
+     */
+    public List<Post> getTimelinePosts() {
+        return postRepository.getTimelinePosts();
+    }
+
+    /**
+     * Obtient le LiveData indiquant si une page du fil est en cours de chargement.
+     *
+     * @return LiveData contenant l'état de chargement
+     */
+    public LiveData<Boolean> isTimelineLoading() {
+        return postRepository.getTimelineLoadingLiveData();
+    }
+
     /**
      * Obtient le LiveData contenant les messages d'erreur.
      *
@@ -51,17 +93,100 @@ public class PostViewModel extends ViewModel {
     }
 
     /**
-     * Charge tous les posts depuis le repository.
-     * Met à jour le LiveData posts avec les résultats.
+     * Démarre la synchronisation du fil d'actualité avec Firebase si elle n'est pas déjà active.
+     * Le fil est affiché immédiatement depuis le stockage local.
+     */
+    public void startTimelineSync() {
+        try {
+            postRepository.startTimelineSync();
+        } catch (Exception e) {
+            errorMessage.setValue("Error loading posts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recharge la première page du fil d'actualité depuis le repository.
+     * Les posts arrivent ensuite sous forme de modifications incrémentales.
      */
     public void loadPosts() {
         try {
-            postRepository.loadAllPosts();
+            postRepository.refreshTimeline();
         } catch (Exception e) {
             errorMessage.setValue("Error loading posts: " + e.getMessage());
         }
     }
 
+    /**
+     * Charge la page suivante (plus ancienne) du fil d'actualité.
+     * Les posts sont ajoutés à la fin de la liste déjà chargée.
+     */
+    public void loadMorePosts() {
+        try {
+            postRepository.loadNextTimelinePage();
+        } catch (Exception e) {
+            errorMessage.setValue("Error loading more posts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indique s'il reste des posts plus anciens à charger.
+     *
+     * @return true si une page suivante est disponible
+     */
+    public boolean hasMorePosts() {
+        return postRepository.hasMoreTimelinePages();
+    }
+
+    /**
+     * Obtient le LiveData du fil personnel (posts et retweets des comptes suivis).
+     *
+     * @return LiveData contenant les posts du fil personnel
+     */
+    public LiveData<List<Post>> getHomeTimeline() {
+        return postRepository.getHomeTimelineLiveData();
+    }
+
+    /**
+     * Charge la première page du fil personnel de l'utilisateur connecté.
+     */
+    public void loadHomeTimeline() {
+        try {
+            FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+            postRepository.loadHomeTimeline(currentUser != null ? currentUser.getUid() : null);
+        } catch (Exception e) {
+            errorMessage.setValue("Error loading timeline: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indique s'il reste des posts plus anciens dans le fil personnel.
+     *
+     * @return true si une page suivante est disponible
+     */
+    public boolean hasMoreHomeTimeline() {
+        return postRepository.hasMoreHomeTimeline();
+    }
+
+    /**
+     * Indique si une page du fil personnel est en cours de chargement.
+     *
+     * @return true pendant le chargement d'une page
+     */
+    public boolean isHomeTimelineLoading() {
+        return postRepository.isHomeTimelineLoading();
+    }
+
+    /**
+     * Charge la page suivante (plus ancienne) du fil personnel.
+     */
+    public void loadMoreHomeTimeline() {
+        try {
+            postRepository.loadMoreHomeTimeline();
+        } catch (Exception e) {
+            errorMessage.setValue("Error loading timeline: " + e.getMessage());
+        }
+    }
+
     /**
      * Crée un nouveau post pour l'utilisateur actuellement connecté.
      * Vérifie que le contenu n'est pas vide avant de créer le post.
@@ -116,6 +241,27 @@ public class PostViewModel extends ViewModel {
         postRepository.createReply(content, parentPostId);
     }
 
+    /**
+     * Crée une réponse à un post déjà chargé.
+     * Le nom de l'auteur du parent est connu : la réponse est créée en une seule écriture.
+     *
+     * @param content Le contenu de la réponse
+     * @param parentPost Le post parent
+     */
+    public void createReply(String content, Post parentPost) {
+        if (content == null || content.trim().isEmpty()) {
+            errorMessage.setValue("Reply content cannot be empty");
+            return;
+        }
+
+        if (parentPost == null || parentPost.getId() == null) {
+            errorMessage.setValue("Parent post ID cannot be empty");
+            return;
+        }
+
+        postRepository.createReply(content, parentPost.getId(), parentPost.getUsername());
+    }
+
     /**
      * Crée un retweet d'un post existant.
      * Vérifie que le post n'est pas null avant de le retweeter.
@@ -1,43 +1,95 @@
 package com.sofiane.newtwitter.viewmodel;
 
 import android.util.Log;
+
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
-import com.sofiane.newtwitter.model.User;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthUserCollisionException;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.UserProfileChangeRequest;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.repository.UserProfileCache;
+import com.sofiane.newtwitter.repository.UsernameRegistry;
+import com.sofiane.newtwitter.utils.UsernameHandle;
 
 /**
  * ViewModel responsable de la gestion de l'inscription des utilisateurs.
- * Cette classe gère le processus d'inscription, y compris la création de compte Firebase Auth
- * et l'enregistrement des données utilisateur dans Firestore.
- * Elle fournit des données observables sur l'état de l'inscription et les messages d'erreur.
+ * Cette classe crée le compte Firebase Auth puis, en une seule écriture atomique, le profil,
+ * la carte et la réservation du nom d'utilisateur (usernames/{handle}, voir UsernameRegistry).
+ * Elle vérifie aussi la disponibilité du nom pendant la saisie et fournit des données observables
+ * sur l'état de l'inscription et les messages d'erreur.
  */
 public class RegisterViewModel extends ViewModel {
     private static final String TAG = "RegisterViewModel";
+
+    // État du nom d'utilisateur saisi
+    public static final int USERNAME_UNCHECKED = 0;
+    public static final int USERNAME_INVALID = 1;
+    public static final int USERNAME_CHECKING = 2;
+    public static final int USERNAME_AVAILABLE = 3;
+    public static final int USERNAME_TAKEN = 4;
+
     private final MutableLiveData<User> currentUser = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private final MutableLiveData<Integer> usernameStatus = new MutableLiveData<>(USERNAME_UNCHECKED);
     private final FirebaseAuth auth;
-    private final FirebaseFirestore db;
     // Variable pour suivre l'état de l'inscription
     private boolean registrationSuccessful = false;
     private User lastRegisteredUser = null;
+    // Dernier nom soumis à vérification : les réponses pour un nom plus ancien sont ignorées
+    private String checkedUsername;
 
     /**
-     * Constructeur qui initialise Firebase Authentication et Firestore.
+     * Constructeur qui initialise Firebase Authentication.
      */
     public RegisterViewModel() {
         auth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+    }
+
+    /**
+     * Vérifie la disponibilité d'un nom d'utilisateur (une lecture de usernames/{handle}).
+     * Le résultat est publié dans getUsernameStatus() ; l'appelant se charge de l'anti-rebond.
+     *
+     * @param username Le nom saisi
+     */
+    public void checkUsername(@NonNull String username) {
+        checkedUsername = username;
+        if (!UsernameHandle.isValid(username)) {
+            usernameStatus.setValue(username.trim().isEmpty() ? USERNAME_UNCHECKED : USERNAME_INVALID);
+            return;
+        }
+        usernameStatus.setValue(USERNAME_CHECKING);
+        UsernameRegistry.getInstance().checkAvailability(username, null, new UsernameRegistry.AvailabilityCallback() {
+            @Override
+            public void onAvailability(@NonNull String checked, boolean available) {
+                if (checked.equals(checkedUsername)) {
+                    usernameStatus.setValue(available ? USERNAME_AVAILABLE : USERNAME_TAKEN);
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                // L'écriture de l'inscription reste l'arbitre final
+                if (username.equals(checkedUsername)) {
+                    usernameStatus.setValue(USERNAME_UNCHECKED);
+                }
+            }
+        });
     }
 
     /**
      * Enregistre un nouvel utilisateur avec un nom d'utilisateur, email et mot de passe.
-     * Crée un compte Firebase Auth, met à jour le profil utilisateur et enregistre les données dans Firestore.
-     * Met à jour les LiveData et variables d'état en fonction du résultat.
+     * Crée le compte Firebase Auth, puis écrit le profil, la carte et la réservation du nom en une
+     * seule écriture multi-chemins ; le nom affiché de Firebase Auth est mis à jour en parallèle.
+     * Si le nom a été pris entre la vérification et l'inscription, les règles refusent l'écriture
+     * et le compte Auth, resté sans profil, est supprimé. Un refus n'est présenté comme un nom pris
+     * qu'après avoir relu le propriétaire de la réservation.
      *
      * @param username Le nom d'utilisateur
      * @param email L'adresse email
@@ -45,102 +97,74 @@ public class RegisterViewModel extends ViewModel {
      */
     public void register(String username, String email, String password) {
         Log.d(TAG, "Starting registration process for email: " + email);
-        
+
         // Réinitialiser les variables d'état
         registrationSuccessful = false;
         lastRegisteredUser = null;
-        
-        // Réinitialiser les LiveData avant de commencer
         errorMessage.setValue(null);
-        
-        // Tentative directe de création du compte sans vérification préalable
+
+        if (!UsernameHandle.isValid(username)) {
+            usernameStatus.setValue(USERNAME_INVALID);
+            errorMessage.setValue("Username must be " + UsernameHandle.MIN_LENGTH + " to " + UsernameHandle.MAX_LENGTH
+                    + " letters, digits or underscores");
+            return;
+        }
+        if (username.equals(checkedUsername) && Integer.valueOf(USERNAME_TAKEN).equals(usernameStatus.getValue())) {
+            errorMessage.setValue("This username is already taken");
+            return;
+        }
+
         auth.createUserWithEmailAndPassword(email, password)
             .addOnSuccessListener(authResult -> {
                 Log.d(TAG, "Firebase Auth account created successfully");
                 FirebaseUser firebaseUser = authResult.getUser();
-                if (firebaseUser != null) {
-                    // Update user profile with username
-                    UserProfileChangeRequest profileUpdates = new UserProfileChangeRequest.Builder()
-                        .setDisplayName(username)
-                        .build();
-
-                    firebaseUser.updateProfile(profileUpdates)
-                        .addOnSuccessListener(aVoid -> {
-                            Log.d(TAG, "Firebase user profile updated successfully");
-                            // Create user document in Firestore
-                            User user = new User(firebaseUser.getUid(), username, email);
-                            db.collection("users")
-                                .document(firebaseUser.getUid())
-                                .set(user)
-                                .addOnSuccessListener(documentReference -> {
-                                    Log.d(TAG, "User document created in Firestore");
-                                    
-                                    // Déconnecter l'utilisateur pour qu'il doive se connecter explicitement
-                                    auth.signOut();
-                                    Log.d(TAG, "User signed out after registration");
-                                    
-                                    // Marquer l'inscription comme réussie
-                                    registrationSuccessful = true;
-                                    lastRegisteredUser = user;
-                                    
-                                    // Mettre à jour le LiveData avec les informations utilisateur
-                                    // Utiliser setValue au lieu de postValue pour une mise à jour immédiate
-                                    currentUser.setValue(user);
-                                    Log.d(TAG, "currentUser LiveData updated with new user: " + user.getEmail());
-                                    
-                                    // Vérifier que le LiveData a bien été mis à jour
-                                    if (currentUser.getValue() == null) {
-                                        Log.e(TAG, "ERROR: currentUser LiveData is still null after setValue!");
-                                    } else {
-                                        Log.d(TAG, "CONFIRMED: currentUser LiveData contains: " + currentUser.getValue().getEmail());
-                                    }
-                                    
-                                    // Réinitialiser le message d'erreur
-                                    errorMessage.setValue(null);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Failed to create user profile in Firestore: " + e.getMessage());
-                                    // Déconnecter l'utilisateur en cas d'erreur
-                                    auth.signOut();
-                                    errorMessage.setValue("Failed to create user profile: " + e.getMessage());
-                                });
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Failed to update profile: " + e.getMessage());
-                            // Déconnecter l'utilisateur en cas d'erreur
-                            auth.signOut();
-                            errorMessage.setValue("Failed to update profile: " + e.getMessage());
-                        });
+                if (firebaseUser == null) {
+                    errorMessage.setValue("Registration failed: no user returned");
+                    return;
                 }
+                User user = new User(firebaseUser.getUid(), username, email);
+                Task<Boolean> profileWrite = UserProfileCache.getInstance().registerProfile(user);
+                Task<Void> displayNameUpdate = firebaseUser.updateProfile(new UserProfileChangeRequest.Builder()
+                        .setDisplayName(username)
+                        .build());
+
+                Tasks.whenAllComplete(profileWrite, displayNameUpdate).addOnCompleteListener(done -> {
+                    boolean written = profileWrite.isSuccessful() && Boolean.TRUE.equals(profileWrite.getResult());
+                    if (written) {
+                        if (!displayNameUpdate.isSuccessful()) {
+                            // Le profil en base fait foi ; le nom affiché d'Auth n'est qu'une copie
+                            Log.e(TAG, "Failed to update Auth display name: " + displayNameUpdate.getException());
+                        }
+                        // Déconnecter l'utilisateur pour qu'il doive se connecter explicitement
+                        auth.signOut();
+                        registrationSuccessful = true;
+                        lastRegisteredUser = user;
+                        currentUser.setValue(user);
+                        errorMessage.setValue(null);
+                        return;
+                    }
+
+                    Exception e = profileWrite.getException();
+                    Log.e(TAG, "Failed to create user profile: " + (e != null ? e.getMessage() : "username already taken"));
+                    firebaseUser.delete().addOnCompleteListener(deleted -> {
+                        if (!deleted.isSuccessful()) {
+                            Log.e(TAG, "Failed to delete Auth account without profile: " + deleted.getException());
+                        }
+                        auth.signOut();
+                    });
+                    if (profileWrite.isSuccessful()) {
+                        // Le nom est réservé par un autre compte : rien n'a été écrit
+                        usernameStatus.setValue(USERNAME_TAKEN);
+                        errorMessage.setValue("This username is already taken");
+                    } else {
+                        errorMessage.setValue("Failed to create user profile: " + (e != null ? e.getMessage() : "unknown error"));
+                    }
+                });
             })
             .addOnFailureListener(e -> {
                 Log.e(TAG, "Registration failed: " + e.getMessage());
-                
-                // Si l'erreur est que l'email existe déjà, essayer de supprimer l'utilisateur de Firestore
-                if (e.getMessage() != null && e.getMessage().contains("email address is already in use")) {
-                    // Tenter de supprimer le document Firestore correspondant
-                    db.collection("users")
-                        .whereEqualTo("email", email)
-                        .get()
-                        .addOnSuccessListener(queryDocumentSnapshots -> {
-                            if (!queryDocumentSnapshots.isEmpty()) {
-                                queryDocumentSnapshots.getDocuments().get(0).getReference().delete()
-                                    .addOnSuccessListener(aVoid -> {
-                                        Log.d(TAG, "Document deleted successfully, please try registration again");
-                                        errorMessage.setValue("This email was previously used. Please try registration again.");
-                                    })
-                                    .addOnFailureListener(ex -> {
-                                        Log.e(TAG, "Error deleting document: " + ex.getMessage());
-                                        errorMessage.setValue("Error cleaning up old account: " + ex.getMessage());
-                                    });
-                            } else {
-                                errorMessage.setValue("Registration failed: " + e.getMessage() + ". Please try with a different email.");
-                            }
-                        })
-                        .addOnFailureListener(ex -> {
-                            Log.e(TAG, "Error checking if email exists: " + ex.getMessage());
-                            errorMessage.setValue("Registration failed: " + e.getMessage());
-                        });
+                if (e instanceof FirebaseAuthUserCollisionException) {
+                    errorMessage.setValue("This email address is already in use");
                 } else {
                     errorMessage.setValue("Registration failed: " + e.getMessage());
                 }
@@ -164,7 +188,17 @@ public class RegisterViewModel extends ViewModel {
     public LiveData<String> getErrorMessage() {
         return errorMessage;
     }
-    
+
+    /**
+     * Obtient l'état du nom d'utilisateur saisi (USERNAME_UNCHECKED, USERNAME_INVALID,
+     * USERNAME_CHECKING, USERNAME_AVAILABLE ou USERNAME_TAKEN).
+     *
+     * @return LiveData de l'état du nom
+     */
+    public LiveData<Integer> getUsernameStatus() {
+        return usernameStatus;
+    }
+
     /**
      * Vérifie si l'inscription a réussi.
      *
@@ -173,7 +207,7 @@ public class RegisterViewModel extends ViewModel {
     public boolean isRegistrationSuccessful() {
         return registrationSuccessful;
     }
-    
+
     /**
      * Obtient l'utilisateur qui vient d'être inscrit.
      *
@@ -182,4 +216,4 @@ public class RegisterViewModel extends ViewModel {
     public User getLastRegisteredUser() {
         return lastRegisteredUser;
     }
-} 
\ No newline at end of file
+}
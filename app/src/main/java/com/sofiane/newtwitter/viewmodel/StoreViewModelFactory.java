@@ -0,0 +1,56 @@
+package com.sofiane.newtwitter.viewmodel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.sofiane.newtwitter.repository.PostRepository;
+import com.sofiane.newtwitter.repository.Stores;
+
+/**
+ * Fabrique des ViewModels qui dépendent des stores de données.
+ * Par défaut, les stores de l'application et l'utilisateur connecté ; les tests passent
+ * des stores en mémoire et un identifiant d'utilisateur.
+ */
+public class StoreViewModelFactory implements ViewModelProvider.Factory {
+    private final Stores stores;
+    private final String currentUserId;
+
+    /**
+     * Fabrique sur les stores de l'application et l'utilisateur connecté.
+     */
+    public StoreViewModelFactory() {
+        this(Stores.getInstance(), currentUserId());
+    }
+
+    /**
+     * @param stores        Les stores injectés dans les ViewModels
+     * @param currentUserId L'identifiant de l'utilisateur courant, ou null s'il n'est pas connecté
+     */
+    public StoreViewModelFactory(@NonNull Stores stores, @Nullable String currentUserId) {
+        this.stores = stores;
+        this.currentUserId = currentUserId;
+    }
+
+    @NonNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+        if (modelClass.isAssignableFrom(FollowViewModel.class)) {
+            return (T) new FollowViewModel(stores.getFollowGraphStore(), currentUserId);
+        }
+        if (modelClass.isAssignableFrom(PostViewModel.class)) {
+            return (T) new PostViewModel(PostRepository.getInstance(stores));
+        }
+        throw new IllegalArgumentException("Unknown ViewModel class: " + modelClass.getName());
+    }
+
+    @Nullable
+    private static String currentUserId() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.sofiane.newtwitter.viewmodel;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.ThreadLoader;
+
+import java.util.List;
+
+/**
+ * ViewModel d'un fil de discussion (post principal, posts parents et réponses).
+ * Chaque écran de détail possède sa propre instance ; les listeners Firebase du fil
+ * sont détachés lorsque l'écran est définitivement fermé.
+ */
+public class ThreadViewModel extends ViewModel {
+    private final MutableLiveData<Post> post = new MutableLiveData<>();
+    private final MutableLiveData<List<Post>> ancestors = new MutableLiveData<>();
+    private final MutableLiveData<List<Post>> replies = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> repliesExhausted = new MutableLiveData<>(false);
+    private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
+
+    private ThreadLoader threadLoader;
+    private String postId;
+
+    /**
+     * Ouvre le fil d'un post. Ne fait rien si ce fil est déjà ouvert (ex : après une rotation).
+     *
+     * @param postId L'identifiant du post principal
+     */
+    public void open(String postId) {
+        if (postId == null || postId.equals(this.postId)) {
+            return;
+        }
+        if (threadLoader != null) {
+            threadLoader.stop();
+        }
+        this.postId = postId;
+        threadLoader = new ThreadLoader(postId, new ThreadLoader.Listener() {
+            @Override
+            public void onPostChanged(@Nullable Post changed) {
+                post.setValue(changed);
+            }
+
+            @Override
+            public void onAncestorsLoaded(List<Post> loaded) {
+                ancestors.setValue(loaded);
+            }
+
+            @Override
+            public void onRepliesChanged(List<Post> loaded, boolean exhausted) {
+                replies.setValue(loaded);
+                repliesExhausted.setValue(exhausted);
+            }
+
+            @Override
+            public void onError(String message) {
+                errorMessage.setValue(message);
+            }
+        });
+        threadLoader.start();
+    }
+
+    /**
+     * Charge la page suivante de réponses.
+     */
+    public void loadMoreReplies() {
+        if (threadLoader != null) {
+            threadLoader.loadMoreReplies();
+        }
+    }
+
+    /**
+     * @return LiveData du post principal (null s'il a été supprimé)
+     */
+    public LiveData<Post> getPost() {
+        return post;
+    }
+
+    /**
+     * @return LiveData des posts parents, du plus ancien au plus proche du post principal
+     */
+    public LiveData<List<Post>> getAncestors() {
+        return ancestors;
+    }
+
+    /**
+     * @return LiveData des réponses chargées, de la plus ancienne à la plus récente
+     */
+    public LiveData<List<Post>> getReplies() {
+        return replies;
+    }
+
+    /**
+     * @return LiveData indiquant si toutes les réponses ont été chargées
+     */
+    public LiveData<Boolean> areRepliesExhausted() {
+        return repliesExhausted;
+    }
+
+    /**
+     * @return LiveData contenant les messages d'erreur
+     */
+    public LiveData<String> getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        if (threadLoader != null) {
+            threadLoader.stop();
+            threadLoader = null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.sofiane.newtwitter.benchmark;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+import com.sofiane.newtwitter.model.SyntheticData;
+import com.sofiane.newtwitter.repository.FeedEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH du fil d'accueil sur des listes de posts synthétiques :
+ * tri par date de création (FeedEngine.NEWEST_FIRST) et filtre des retweets et réponses
+ * (FeedEngine.ORIGINAL_POSTS). Chaque mesure inclut la copie de la liste source,
+ * pour ne pas trier une liste déjà triée.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int size;
+
+    private List<Post> shuffled;
+    private List<Post> sorted;
+
+    @Setup
+    public void setUp() {
+        shuffled = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            shuffled.add(PostCodec.fromValue("post" + i, SyntheticData.postValue(i)));
+        }
+        // Graine fixe : le même ordre d'une exécution à l'autre
+        Collections.shuffle(shuffled, new Random(42));
+        sorted = new ArrayList<>(shuffled);
+        Collections.sort(sorted, FeedEngine.NEWEST_FIRST);
+    }
+
+    @Benchmark
+    public List<Post> copyOnly() {
+        return new ArrayList<>(shuffled);
+    }
+
+    @Benchmark
+    public List<Post> sortNewestFirst() {
+        List<Post> posts = new ArrayList<>(shuffled);
+        Collections.sort(posts, FeedEngine.NEWEST_FIRST);
+        return posts;
+    }
+
+    @Benchmark
+    public List<Post> filterOriginalPosts() {
+        List<Post> posts = new ArrayList<>(sorted);
+        posts.removeIf(post -> !FeedEngine.ORIGINAL_POSTS.test(post));
+        return posts;
+    }
+
+    /**
+     * Chaîne complète d'une page reçue de Firebase : filtre puis tri (voir PostParser.parseChildrenAsync).
+     */
+    @Benchmark
+    public List<Post> filterThenSort() {
+        List<Post> posts = new ArrayList<>(shuffled);
+        posts.removeIf(post -> !FeedEngine.ORIGINAL_POSTS.test(post));
+        Collections.sort(posts, FeedEngine.NEWEST_FIRST);
+        return posts;
+    }
+}
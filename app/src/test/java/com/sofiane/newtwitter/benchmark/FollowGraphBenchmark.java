@@ -0,0 +1,95 @@
+package com.sofiane.newtwitter.benchmark;
+
+import com.sofiane.newtwitter.repository.FollowGraphIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH des requêtes de FollowGraphIndex (intersection, abonnés mutuels, test d'arête)
+ * pour un compte très suivi, comparées au même calcul sur des Map&lt;String, Boolean&gt;
+ * comme celles de User.followers et User.following.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FollowGraphBenchmark {
+
+    @Param({"10000", "100000"})
+    public int followers;
+
+    private FollowGraphIndex index;
+    private Map<String, Boolean> viewerFollowing;
+    private Map<String, Boolean> targetFollowers;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> targetList = new ArrayList<>(followers);
+        targetFollowers = new HashMap<>();
+        for (int i = 0; i < followers; i++) {
+            String uid = String.format("uid%025d", i);
+            targetList.add(uid);
+            targetFollowers.put(uid, true);
+        }
+        List<String> viewerList = new ArrayList<>();
+        viewerFollowing = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            // La moitié des comptes suivis sont aussi abonnés à la cible
+            String uid = i % 2 == 0
+                    ? targetList.get(random.nextInt(followers))
+                    : String.format("other%023d", i);
+            viewerList.add(uid);
+            viewerFollowing.put(uid, true);
+        }
+        index = new FollowGraphIndex();
+        index.setFollowers("target", targetList);
+        index.setFollowing("target", viewerList);
+        index.setFollowing("viewer", viewerList);
+    }
+
+    @Benchmark
+    public int followedByFollowingCount() {
+        return index.followedByFollowingCount("viewer", "target");
+    }
+
+    @Benchmark
+    public int mutualCount() {
+        return index.mutualCount("target");
+    }
+
+    @Benchmark
+    public boolean isFollowing() {
+        return index.isFollowing("uid0000000000000000000004242", "target");
+    }
+
+    @Benchmark
+    public int followedByFollowingCountWithMaps() {
+        int count = 0;
+        for (String uid : viewerFollowing.keySet()) {
+            if (targetFollowers.containsKey(uid)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
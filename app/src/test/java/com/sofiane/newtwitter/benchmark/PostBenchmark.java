@@ -0,0 +1,97 @@
+package com.sofiane.newtwitter.benchmark;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+import com.sofiane.newtwitter.model.SyntheticData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH d'un post isolé : temps relatif affiché dans chaque cellule du fil,
+ * sérialisation vers Firebase (Post.toMap, qui délègue à PostCodec), et lecture d'un snapshot
+ * par PostCodec comparée au mapper par réflexion de Firebase (celui de getValue(Post.class)).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostBenchmark {
+    // Une date par branche de getRelativeTime : secondes, minutes, heures, jours, semaines
+    private static final long[] AGES_MS = {
+            20_000L,
+            25L * 60_000L,
+            5L * 3_600_000L,
+            3L * 86_400_000L,
+            30L * 86_400_000L
+    };
+
+    private Post[] posts;
+    private Post replyPost;
+    private Post retweetPost;
+    private Map<String, Object> postValue;
+
+    @Setup
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        posts = new Post[AGES_MS.length];
+        for (int i = 0; i < AGES_MS.length; i++) {
+            posts[i] = PostCodec.fromValue("post" + i, SyntheticData.postValue(i));
+            posts[i].setCreatedAt(new Date(now - AGES_MS[i]));
+        }
+        replyPost = PostCodec.fromValue("post1", SyntheticData.postValue(1));
+        retweetPost = PostCodec.fromValue("post2", SyntheticData.postValue(2));
+        postValue = SyntheticData.postValue(0);
+    }
+
+    /**
+     * Un appel par branche ; le temps mesuré couvre les cinq appels.
+     */
+    @Benchmark
+    public void relativeTime(Blackhole blackhole) {
+        for (Post post : posts) {
+            blackhole.consume(post.getRelativeTime());
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> toMapOriginal() {
+        return posts[0].toMap();
+    }
+
+    @Benchmark
+    public Map<String, Object> toMapReply() {
+        return replyPost.toMap();
+    }
+
+    @Benchmark
+    public Map<String, Object> toMapRetweet() {
+        return retweetPost.toMap();
+    }
+
+    @Benchmark
+    public Post fromValueCodec() {
+        return PostCodec.fromValue("post0", postValue);
+    }
+
+    @Benchmark
+    public Post fromValueReflection() {
+        return CustomClassMapper.convertToCustomClass(postValue, Post.class);
+    }
+}
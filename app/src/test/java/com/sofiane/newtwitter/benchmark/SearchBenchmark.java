@@ -0,0 +1,103 @@
+package com.sofiane.newtwitter.benchmark;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.SearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH de SearchIndex sur des posts synthétiques au vocabulaire de Zipf :
+ * mot courant, intersection d'un mot courant et d'un mot rare, préfixe en cours de saisie,
+ * préfixe de nom d'utilisateur, comparés à un parcours complet des contenus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int VOCABULARY = 5000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000"})
+    public int posts;
+
+    private SearchIndex index;
+    private List<String> contents;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        // Un fork par combinaison de paramètres : l'instance unique est vide à chaque essai
+        index = SearchIndex.getInstance();
+        contents = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            StringBuilder content = new StringBuilder();
+            int words = 5 + random.nextInt(20);
+            for (int w = 0; w < words; w++) {
+                // Rang de Zipf approché : quelques mots très fréquents, une longue traîne de mots rares
+                int rank = (int) Math.min(VOCABULARY - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1);
+                content.append(word(rank)).append(' ');
+            }
+            String userId = "uid" + (i % 5000);
+            Post post = new Post("post" + i, userId, String.format(Locale.US, "user_%04d", i % 5000),
+                    content.toString(), null, new Date(1700000000000L + i * 1000L), 0);
+            contents.add(post.getContent());
+            index.indexPost(post);
+        }
+    }
+
+    private static String word(int rank) {
+        return "w" + Integer.toString(rank, 36);
+    }
+
+    @Benchmark
+    public SearchIndex.Page commonWord() {
+        return index.searchPosts(word(0) + " ", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchIndex.Page commonAndRareWords() {
+        return index.searchPosts(word(1) + " " + word(900) + " ", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchIndex.Page typedPrefix() {
+        return index.searchPosts(word(2) + " w1", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchIndex.Page usernamePrefix() {
+        return index.searchUsers("user_12", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int fullScan() {
+        String needle = " " + word(900) + " ";
+        int found = 0;
+        for (String content : contents) {
+            if ((" " + content).contains(needle)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
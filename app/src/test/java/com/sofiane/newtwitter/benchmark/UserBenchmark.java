@@ -0,0 +1,64 @@
+package com.sofiane.newtwitter.benchmark;
+
+import com.sofiane.newtwitter.model.SyntheticData;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JMH de la sérialisation d'un utilisateur (UserCodec), dans les deux sens,
+ * selon la taille de ses maps d'abonnés.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBenchmark {
+
+    @Param({"0", "100", "1000"})
+    public int followers;
+
+    private User user;
+    private Map<String, Object> value;
+
+    @Setup
+    public void setUp() {
+        value = SyntheticData.userValue(0);
+        Map<String, Object> followerFlags = new HashMap<>();
+        for (int i = 0; i < followers; i++) {
+            followerFlags.put("follower" + i, true);
+        }
+        if (!followerFlags.isEmpty()) {
+            value.put(UserCodec.FOLLOWERS, followerFlags);
+            value.put(UserCodec.FOLLOWERS_COUNT, (long) followers);
+        }
+        user = UserCodec.fromValue("uid0", value);
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap() {
+        return UserCodec.toMap(user);
+    }
+
+    @Benchmark
+    public User fromValue() {
+        return UserCodec.fromValue("uid0", value);
+    }
+}
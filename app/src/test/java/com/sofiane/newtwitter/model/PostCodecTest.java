@@ -0,0 +1,78 @@
+package com.sofiane.newtwitter.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Vérifie que PostCodec et UserCodec lisent les mêmes valeurs que le mapper Firebase,
+ * et que leurs maps se relisent à l'identique.
+ */
+public class PostCodecTest {
+
+    @Test
+    public void postCodecMatchesReflectionMapper() {
+        for (int i = 0; i < 50; i++) {
+            Map<String, Object> value = SyntheticData.postValue(i);
+            Post expected = CustomClassMapper.convertToCustomClass(value, Post.class);
+            Post actual = PostCodec.fromValue("key" + i, value);
+            assertTrue("Post " + i + " differs", expected.hasSameContent(actual));
+        }
+    }
+
+    @Test
+    public void postCodecRoundTrips() {
+        for (int i = 0; i < 50; i++) {
+            Post post = PostCodec.fromValue("key" + i, SyntheticData.postValue(i));
+            Post copy = PostCodec.fromValue("key" + i, PostCodec.toMap(post));
+            assertTrue("Post " + i + " differs after round trip", post.hasSameContent(copy));
+        }
+    }
+
+    @Test
+    public void postCodecReadsLegacyShapes() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("content", "legacy");
+        value.put("createdAt", 1700000000000L);
+        value.put("isRetweet", true);
+        value.put("likeCount", 3L);
+
+        Post post = PostCodec.fromValue("legacyKey", value);
+        assertEquals("legacyKey", post.getId());
+        assertEquals(1700000000000L, post.getCreatedAt().getTime());
+        assertTrue(post.isRetweet());
+        assertFalse(post.isReply());
+        assertEquals(3, post.getLikeCount());
+        assertNull(PostCodec.fromValue("missing", null));
+    }
+
+    @Test
+    public void userCodecMatchesReflectionMapper() {
+        for (int i = 0; i < 50; i++) {
+            Map<String, Object> value = SyntheticData.userValue(i);
+            User expected = CustomClassMapper.convertToCustomClass(value, User.class);
+            User actual = UserCodec.fromValue("uid" + i, value);
+            assertEquals(expected.getUserId(), actual.getUserId());
+            assertEquals(expected.getUsername(), actual.getUsername());
+            assertEquals(expected.getEmail(), actual.getEmail());
+            assertEquals(expected.getBio(), actual.getBio());
+            assertEquals(expected.getProfileImageUrl(), actual.getProfileImageUrl());
+            assertEquals(expected.getBannerImageUrl(), actual.getBannerImageUrl());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+            assertEquals(expected.getFollowers(), actual.getFollowers());
+            assertEquals(expected.getFollowing(), actual.getFollowing());
+            assertEquals(expected.getFollowersCount(), actual.getFollowersCount());
+            assertEquals(expected.getFollowingCount(), actual.getFollowingCount());
+            assertEquals(expected.getProfileIconIndex(), actual.getProfileIconIndex());
+            assertEquals(expected.getProfileColorIndex(), actual.getProfileColorIndex());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sofiane.newtwitter.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Valeurs brutes synthétiques, au format renvoyé par DataSnapshot.getValue() :
+ * maps de String, Long et Boolean, comme les écrivait le mapper Firebase.
+ * Partagées par les tests des codecs et les benchmarks JMH.
+ */
+public final class SyntheticData {
+    private static final long BASE_TIME = 1700000000000L;
+
+    private SyntheticData() {
+    }
+
+    public static Map<String, Object> postValue(int i) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", "post" + i);
+        value.put("userId", "user" + (i % 97));
+        value.put("username", "User " + (i % 97));
+        value.put("content", "Synthetic post number " + i + " with some text to parse");
+        if (i % 5 == 0) {
+            value.put("imageUrl", "https://example.com/image" + i + ".png");
+        }
+        Map<String, Object> createdAt = new HashMap<>();
+        createdAt.put("time", BASE_TIME - i * 1000L);
+        value.put("createdAt", createdAt);
+        value.put("likeCount", (long) (i % 13));
+        value.put("commentCount", (long) (i % 7));
+        value.put("retweetCount", (long) (i % 3));
+        if (i % 4 == 1) {
+            value.put("parentId", "post" + (i - 1));
+            value.put("parentUsername", "User " + ((i - 1) % 97));
+            value.put("reply", true);
+        } else {
+            value.put("reply", false);
+        }
+        if (i % 4 == 2) {
+            value.put("originalPostId", "post" + (i - 2));
+            value.put("originalUserId", "user" + ((i - 2) % 97));
+            value.put("originalUsername", "User " + ((i - 2) % 97));
+            value.put("retweet", true);
+        } else {
+            value.put("retweet", false);
+        }
+        return value;
+    }
+
+    public static Map<String, Object> userValue(int i) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("userId", "uid" + i);
+        value.put("id", "uid" + i);
+        value.put("username", "User " + i);
+        value.put("email", "user" + i + "@example.com");
+        value.put("bio", i % 2 == 0 ? "Bio " + i : null);
+        value.put("createdAt", BASE_TIME + i);
+        Map<String, Object> followers = new HashMap<>();
+        for (int f = 0; f < i % 10; f++) {
+            followers.put("follower" + f, true);
+        }
+        if (!followers.isEmpty()) {
+            value.put("followers", followers);
+        }
+        value.put("followersCount", (long) (i % 10));
+        value.put("followingCount", (long) (i % 4));
+        value.put("profileIconIndex", (long) (i % 8));
+        value.put("profileColorIndex", (long) (i % 6));
+        return value;
+    }
+}
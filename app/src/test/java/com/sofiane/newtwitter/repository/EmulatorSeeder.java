@@ -0,0 +1,148 @@
+package com.sofiane.newtwitter.repository;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Écrit le jeu de données de SeedGenerator dans l'émulateur Realtime Database, par son API REST.
+ * Lancer l'émulateur avant : firebase emulators:start --only database
+ * ./gradlew :app:seedEmulator -PseedArgs="--users 1000 --posts 20000 --seed 42 --clear"
+ * Options : --users, --posts, --seed, --start-time (ms), --host, --port,
+ * --clear (vide d'abord les nœuds générés, pour ne pas garder les données d'une génération plus grande).
+ */
+public final class EmulatorSeeder {
+    private static final String DATABASE_NAMESPACE = "newtwitter-65ad1-default-rtdb";
+    private static final String[] SEEDED_NODES = {
+            "users", "posts", "follows", "likes", "retweets", ThreadLoader.REPLIES,
+            TimelineFanout.USER_POSTS, TimelineFanout.TIMELINES, TimelineFanout.HIGH_FANOUT_AUTHORS
+    };
+    private static final int WRITE_BATCH = 5000;
+    private static final int HTTP_TIMEOUT_MS = 60_000;
+
+    private EmulatorSeeder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int users = 1000;
+        int posts = 10000;
+        long seed = SeedGenerator.DEFAULT_SEED;
+        long startTime = SeedGenerator.DEFAULT_START_TIME;
+        String host = "localhost";
+        int port = 9000;
+        boolean clear = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--users":
+                    users = Integer.parseInt(args[++i]);
+                    break;
+                case "--posts":
+                    posts = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--start-time":
+                    startTime = Long.parseLong(args[++i]);
+                    break;
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--clear":
+                    clear = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        // print=silent : la base ne renvoie pas les données écrites
+        String url = "http://" + host + ":" + port + "/.json?ns=" + DATABASE_NAMESPACE + "&print=silent";
+        if (clear) {
+            Map<String, Object> removals = new LinkedHashMap<>();
+            for (String node : SEEDED_NODES) {
+                removals.put(node, JSONObject.NULL);
+            }
+            patch(url, removals);
+            System.out.println("Cleared " + String.join(", ", SEEDED_NODES));
+        }
+
+        long start = System.nanoTime();
+        Map<String, Object> updates = new SeedGenerator(seed, users, posts, startTime).generate();
+        System.out.println(String.format(Locale.US, "Generated %d paths for %d users and %d posts (seed %d) in %d ms",
+                updates.size(), users, posts, seed, (System.nanoTime() - start) / 1_000_000));
+
+        Map<String, Object> batch = new LinkedHashMap<>();
+        int written = 0;
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == WRITE_BATCH) {
+                patch(url, batch);
+                written += batch.size();
+                batch.clear();
+                System.out.println("Written " + written + "/" + updates.size());
+            }
+        }
+        if (!batch.isEmpty()) {
+            patch(url, batch);
+            written += batch.size();
+        }
+        System.out.println("Seeded " + written + " paths into " + url);
+    }
+
+    /**
+     * Écriture multi-chemins à la racine ; HttpURLConnection ne connaissant pas PATCH,
+     * la méthode passe par l'en-tête de surcharge accepté par la base.
+     */
+    private static void patch(String url, Map<String, Object> updates) throws IOException {
+        byte[] body = new JSONObject(updates).toString().getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(HTTP_TIMEOUT_MS);
+            connection.setReadTimeout(HTTP_TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+            connection.setRequestProperty("Content-Type", "application/json");
+            // Jeton administrateur de l'émulateur : les règles de sécurité ne s'appliquent pas
+            connection.setRequestProperty("Authorization", "Bearer owner");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            if (status >= 400) {
+                throw new IOException("HTTP " + status + " from " + url + ": " + read(connection.getErrorStream()));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Vérifie les requêtes de FollowGraphIndex contre un calcul naïf sur des ensembles de chaînes.
+ */
+public class FollowGraphIndexTest {
+
+    private static List<String> uids(String prefix, int from, int to) {
+        List<String> uids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            uids.add(prefix + i);
+        }
+        return uids;
+    }
+
+    @Test
+    public void edgesAndCountsFollowLoadedLists() {
+        FollowGraphIndex index = new FollowGraphIndex();
+        index.setFollowing("me", Arrays.asList("b", "a", "c", "a"));
+        index.setFollowers("me", Arrays.asList("a", "d"));
+
+        assertEquals(3, index.followingCount("me"));
+        assertEquals(2, index.followersCount("me"));
+        assertTrue(index.isFollowing("me", "a"));
+        assertTrue(index.isFollowing("d", "me"));
+        assertFalse(index.isFollowing("me", "d"));
+        assertTrue(index.isMutual("me", "a"));
+        assertFalse(index.isMutual("me", "b"));
+        assertEquals(Collections.singletonList("a"), index.mutuals("me", 10));
+        assertEquals(1, index.mutualCount("me"));
+
+        index.setEdge("me", "d", true);
+        index.setEdge("me", "b", false);
+        assertTrue(index.isMutual("me", "d"));
+        assertEquals(3, index.followingCount("me"));
+        assertEquals(2, index.mutualCount("me"));
+
+        // Les listes non chargées ne sont pas créées par une arête
+        index.setEdge("x", "y", true);
+        assertFalse(index.hasFollowing("x"));
+        assertFalse(index.hasFollowers("y"));
+        assertEquals(0, index.followingCount("x"));
+
+        index.forgetFollowers("me");
+        assertFalse(index.hasFollowers("me"));
+        assertTrue(index.hasFollowing("me"));
+        assertEquals(3, index.followingCount("me"));
+
+        index.forget("me");
+        assertFalse(index.hasFollowing("me"));
+        assertEquals(0, index.mutualCount("me"));
+    }
+
+    @Test
+    public void intersectionsMatchNaiveSets() {
+        FollowGraphIndex index = new FollowGraphIndex();
+        Random random = new Random(42);
+        List<String> everyone = uids("user-", 0, 50_000);
+        // Taille très différente : le chemin galopant ; tailles voisines : la fusion
+        int[][] sizes = {{30, 40_000}, {20_000, 25_000}, {0, 1000}};
+        for (int[] size : sizes) {
+            Collections.shuffle(everyone, random);
+            List<String> viewerFollowing = new ArrayList<>(everyone.subList(0, size[0]));
+            Collections.shuffle(everyone, random);
+            List<String> targetFollowers = new ArrayList<>(everyone.subList(0, size[1]));
+            index.setFollowing("viewer", viewerFollowing);
+            index.setFollowers("target", targetFollowers);
+            index.setFollowing("other", targetFollowers);
+
+            Set<String> expected = new HashSet<>(viewerFollowing);
+            expected.retainAll(new HashSet<>(targetFollowers));
+            assertEquals(expected.size(), index.followedByFollowingCount("viewer", "target"));
+            assertEquals(expected, new HashSet<>(index.followedByFollowing("viewer", "target", Integer.MAX_VALUE)));
+            assertEquals(expected, new HashSet<>(index.commonFollowing("viewer", "other", Integer.MAX_VALUE)));
+            assertEquals(expected.size(), index.commonFollowingCount("other", "viewer"));
+            assertEquals(Math.min(5, expected.size()), index.followedByFollowing("viewer", "target", 5).size());
+        }
+    }
+
+    @Test
+    public void internedIdsSurviveGrowth() {
+        FollowGraphIndex index = new FollowGraphIndex();
+        List<String> followers = uids("follower-", 0, 100_000);
+        index.setFollowers("star", followers);
+        assertEquals(100_001, index.size());
+        assertEquals(100_000, index.followersCount("star"));
+        assertTrue(index.isFollowing("follower-99999", "star"));
+        assertFalse(index.isFollowing("follower-100000", "star"));
+        assertEquals(new HashSet<>(followers), new HashSet<>(index.followers("star")));
+    }
+
+    @Test
+    public void forgottenListsReleaseTheirUids() {
+        FollowGraphIndex index = new FollowGraphIndex();
+        List<String> followers = uids("follower-", 0, 1000);
+        index.setFollowers("star", followers);
+        index.setFollowing("me", Arrays.asList("follower-1", "other"));
+        assertEquals(1003, index.size());
+
+        // Seuls les uids encore référencés par la liste de « me » restent internés
+        index.forgetFollowers("star");
+        assertEquals(3, index.size());
+        assertFalse(index.isFollowing("follower-2", "star"));
+        assertEquals(Arrays.asList("follower-1", "other"), index.following("me"));
+
+        // Les entiers libérés sont réutilisés : la table ne grandit plus
+        int idLimit = index.idLimit();
+        List<String> fans = uids("fan-", 0, 900);
+        index.setFollowers("idol", fans);
+        assertEquals(idLimit, index.idLimit());
+        assertEquals(904, index.size());
+        assertTrue(index.isFollowing("fan-899", "idol"));
+        assertFalse(index.isFollowing("follower-1", "idol"));
+        assertEquals(new HashSet<>(fans), new HashSet<>(index.followers("idol")));
+
+        // Une arête retirée libère un uid qui n'est plus référencé ; une arête entre listes non chargées n'interne rien
+        index.setEdge("me", "other", false);
+        assertEquals(903, index.size());
+        index.setEdge("x", "y", true);
+        assertEquals(903, index.size());
+
+        // Une liste remplacée libère les uids qu'elle était seule à référencer
+        index.setFollowers("idol", fans.subList(0, 100));
+        assertEquals(103, index.size());
+        index.forget("me");
+        index.forget("idol");
+        assertEquals(0, index.size());
+        assertFalse(index.hasFollowing("me"));
+    }
+}
@@ -0,0 +1,239 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sofiane.newtwitter.repository.store.InMemoryFollowGraphStore;
+import com.sofiane.newtwitter.repository.store.InMemoryUserStore;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vérifie les scores de FollowRecommender contre un calcul naïf sur le graphe en loi de puissance
+ * de SeedGenerator, l'exclusion des comptes déjà suivis et la mise à jour incrémentale du cache.
+ */
+public class FollowRecommenderTest {
+    private static final String PREFIX = "follows/";
+    private static final String SEPARATOR = "/following/";
+
+    private final InMemoryFollowGraphStore follows =
+            new InMemoryFollowGraphStore(new InMemoryUserStore(Runnable::run), Runnable::run);
+    private final FollowGraphIndex index = new FollowGraphIndex();
+    private final FollowStatusService followStatus = new FollowStatusService(follows, index);
+    private final long[] now = {0L};
+    private final FollowRecommender recommender = new FollowRecommender(follows, index, followStatus,
+            Runnable::run, Runnable::run, () -> now[0]);
+    // Arêtes du graphe généré : following.get(a) contient b si a suit b
+    private final Map<String, Set<String>> following = new HashMap<>();
+
+    private void seed(int users) {
+        Map<String, Object> updates = new SeedGenerator(SeedGenerator.DEFAULT_SEED, users, 0,
+                SeedGenerator.DEFAULT_START_TIME).generate();
+        for (String path : updates.keySet()) {
+            int separator = path.indexOf(SEPARATOR);
+            if (path.startsWith(PREFIX) && separator > 0) {
+                follow(path.substring(PREFIX.length(), separator), path.substring(separator + SEPARATOR.length()), true);
+            }
+        }
+    }
+
+    private void follow(String followerId, String targetId, boolean follow) {
+        follows.setFollowing(followerId, targetId, follow, new StoreCallback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean changed) {
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        Set<String> edges = following.get(followerId);
+        if (edges == null) {
+            edges = new HashSet<>();
+            following.put(followerId, edges);
+        }
+        if (follow) {
+            edges.add(targetId);
+        } else {
+            edges.remove(targetId);
+        }
+    }
+
+    private List<FollowRecommender.Recommendation> recommend(String viewerId, int limit) {
+        List<FollowRecommender.Recommendation> result = new ArrayList<>();
+        recommender.recommend(viewerId, limit, result::addAll);
+        return result;
+    }
+
+    /**
+     * Parcours à deux sauts sans borne ni index.
+     */
+    private List<String> naive(String viewerId, int limit) {
+        Set<String> direct = following.containsKey(viewerId) ? following.get(viewerId) : new HashSet<>();
+        Map<String, Integer> scores = new HashMap<>();
+        for (String source : direct) {
+            if (following.containsKey(source)) {
+                for (String candidate : following.get(source)) {
+                    if (!candidate.equals(viewerId) && !direct.contains(candidate)) {
+                        scores.merge(candidate, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        List<String> ranked = new ArrayList<>(scores.keySet());
+        ranked.sort((a, b) -> scores.get(a).equals(scores.get(b))
+                ? a.compareTo(b)
+                : Integer.compare(scores.get(b), scores.get(a)));
+        return ranked.subList(0, Math.min(limit, ranked.size()));
+    }
+
+    private static List<String> ids(List<FollowRecommender.Recommendation> recommendations) {
+        List<String> ids = new ArrayList<>();
+        for (FollowRecommender.Recommendation recommendation : recommendations) {
+            ids.add(recommendation.userId);
+        }
+        return ids;
+    }
+
+    /**
+     * Un utilisateur dont le voisinage tient dans les bornes du parcours : le calcul doit être exact.
+     */
+    private String viewerWithinBounds() {
+        String best = null;
+        for (Map.Entry<String, Set<String>> entry : following.entrySet()) {
+            Set<String> direct = entry.getValue();
+            if (direct.size() > FollowRecommender.MAX_SOURCES || (best != null && direct.size() <= following.get(best).size())) {
+                continue;
+            }
+            boolean bounded = true;
+            for (String source : direct) {
+                if (following.containsKey(source) && following.get(source).size() > FollowRecommender.MAX_EDGES_PER_SOURCE) {
+                    bounded = false;
+                }
+            }
+            if (bounded) {
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void matchesNaiveTwoHopTraversal() {
+        seed(1000);
+        String viewerId = viewerWithinBounds();
+
+        List<FollowRecommender.Recommendation> recommendations = recommend(viewerId, 20);
+        assertFalse(recommendations.isEmpty());
+        assertEquals(naive(viewerId, 20), ids(recommendations));
+        for (int i = 1; i < recommendations.size(); i++) {
+            assertTrue(recommendations.get(i - 1).mutualCount >= recommendations.get(i).mutualCount);
+        }
+    }
+
+    @Test
+    public void excludesViewerAndAccountsAlreadyFollowed() {
+        follow("me", "a", true);
+        follow("me", "b", true);
+        follow("a", "b", true);
+        follow("a", "me", true);
+        follow("a", "c", true);
+        follow("b", "c", true);
+        follow("b", "d", true);
+
+        List<FollowRecommender.Recommendation> recommendations = recommend("me", 10);
+        assertEquals(2, recommendations.size());
+        assertEquals("c", recommendations.get(0).userId);
+        assertEquals(2, recommendations.get(0).mutualCount);
+        assertEquals("d", recommendations.get(1).userId);
+        assertEquals(1, recommendations.get(1).mutualCount);
+    }
+
+    @Test
+    public void followChangesUpdateCachedScores() {
+        follow("me", "a", true);
+        follow("a", "c", true);
+        follow("b", "c", true);
+        follow("b", "d", true);
+        followStatus.setUser("me");
+        followStatus.addListener(recommender);
+        assertEquals(1, recommend("me", 10).get(0).mutualCount);
+
+        // Nouvel abonnement : b devient une source, et n'est plus lui-même une suggestion
+        follow("me", "b", true);
+        List<FollowRecommender.Recommendation> recommendations = recommend("me", 10);
+        assertEquals("c", recommendations.get(0).userId);
+        assertEquals(2, recommendations.get(0).mutualCount);
+        assertEquals("d", recommendations.get(1).userId);
+
+        // Désabonnement : ses arêtes sont retirées des scores
+        follow("me", "a", false);
+        recommendations = recommend("me", 10);
+        assertEquals(2, recommendations.size());
+        assertEquals(1, recommendations.get(0).mutualCount);
+        assertEquals(ids(recommendations), naive("me", 10));
+
+        // Suivre une suggestion la retire de la liste
+        follow("me", "c", true);
+        assertFalse(ids(recommend("me", 10)).contains("c"));
+    }
+
+    @Test
+    public void cachedScoresExpire() {
+        follow("me", "a", true);
+        follow("a", "c", true);
+        assertEquals(1, recommend("me", 10).size());
+
+        // Changement non observé : le cache répond jusqu'à son expiration
+        follow("a", "d", true);
+        assertEquals(1, recommend("me", 10).size());
+        now[0] += FollowRecommender.CACHE_TTL_MS + 1;
+        assertEquals(2, recommend("me", 10).size());
+    }
+
+    @Test
+    public void largeFollowingIsBounded() {
+        seed(3000);
+        String viewerId = "heavy";
+        for (int i = 0; i < 3000; i++) {
+            if (i % 3 != 0) {
+                follow(viewerId, SeedGenerator.userId(i), true);
+            }
+        }
+
+        List<FollowRecommender.Recommendation> recommendations = recommend(viewerId, 50);
+
+        assertEquals(50, recommendations.size());
+        Set<String> direct = following.get(viewerId);
+        for (FollowRecommender.Recommendation recommendation : recommendations) {
+            assertFalse(direct.contains(recommendation.userId));
+            assertNotEquals(viewerId, recommendation.userId);
+            assertTrue(recommendation.mutualCount <= FollowRecommender.MAX_SOURCES);
+        }
+    }
+
+    @Test
+    public void releasedUidsInvalidateCachedScores() {
+        follow("me", "a", true);
+        follow("a", "c", true);
+        assertEquals(Collections.singletonList("c"), ids(recommend("me", 10)));
+
+        // La liste de « a » est oubliée (c est libéré) puis un autre uid reprend son entier
+        index.forgetFollowing("a");
+        index.setFollowers("q", Collections.singletonList("z"));
+
+        assertEquals(Collections.singletonList("c"), ids(recommend("me", 10)));
+    }
+}
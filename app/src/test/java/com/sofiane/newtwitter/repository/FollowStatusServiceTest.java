@@ -0,0 +1,131 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sofiane.newtwitter.repository.store.InMemoryFollowGraphStore;
+import com.sofiane.newtwitter.repository.store.InMemoryUserStore;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vérifie que FollowStatusService suit l'ensemble des comptes suivis en mémoire,
+ * arête par arête, et répond aux demandes reçues avant la fin du chargement initial.
+ */
+public class FollowStatusServiceTest {
+    private static final String ME = "me";
+
+    // Les callbacks des stores s'exécutent quand le test vide la file, comme sur le thread principal
+    private final List<Runnable> queue = new ArrayList<>();
+    private final InMemoryFollowGraphStore follows =
+            new InMemoryFollowGraphStore(new InMemoryUserStore(queue::add), queue::add);
+    private final FollowGraphIndex index = new FollowGraphIndex();
+
+    private void drain() {
+        while (!queue.isEmpty()) {
+            queue.remove(0).run();
+        }
+    }
+
+    private void follow(String followerId, String targetId, boolean follow) {
+        follows.setFollowing(followerId, targetId, follow, new StoreCallback<Boolean>() {
+            @Override
+            public void onSuccess(Boolean changed) {
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        drain();
+    }
+
+    @Test
+    public void answersFromMemoryAfterInitialLoad() {
+        follow(ME, "a", true);
+        follow(ME, "b", true);
+        follow("other", "c", true);
+
+        FollowStatusService service = new FollowStatusService(follows, index);
+        service.setUser(ME);
+        assertFalse(service.isLoaded());
+        drain();
+
+        assertTrue(service.isLoaded());
+        assertTrue(service.isFollowing("a"));
+        assertTrue(service.isFollowing("b"));
+        assertFalse(service.isFollowing("c"));
+    }
+
+    @Test
+    public void statusRequestedBeforeLoadIsDeliveredOnce() {
+        follow(ME, "a", true);
+        FollowStatusService service = new FollowStatusService(follows, index);
+        service.setUser(ME);
+
+        List<String> statuses = new ArrayList<>();
+        service.getStatus("a", (targetUserId, isFollowing) -> statuses.add(targetUserId + "=" + isFollowing));
+        service.getStatus("b", (targetUserId, isFollowing) -> statuses.add(targetUserId + "=" + isFollowing));
+        assertTrue(statuses.isEmpty());
+
+        drain();
+        assertEquals(2, statuses.size());
+        assertEquals("a=true", statuses.get(0));
+        assertEquals("b=false", statuses.get(1));
+
+        service.getStatus("a", (targetUserId, isFollowing) -> statuses.add(targetUserId + "=" + isFollowing));
+        assertEquals(3, statuses.size());
+    }
+
+    @Test
+    public void followChangesAreAppliedEdgeByEdge() {
+        FollowStatusService service = new FollowStatusService(follows, index);
+        service.setUser(ME);
+        drain();
+        List<String> changes = new ArrayList<>();
+        service.addListener(changes::add);
+
+        follow(ME, "a", true);
+        follow(ME, "b", true);
+        follow(ME, "a", false);
+        follow("other", "b", true);
+
+        assertEquals(3, changes.size());
+        assertEquals("a", changes.get(2));
+        assertFalse(service.isFollowing("a"));
+        assertTrue(service.isFollowing("b"));
+        // L'index reçoit les mêmes arêtes
+        assertFalse(index.isFollowing(ME, "a"));
+        assertTrue(index.isFollowing(ME, "b"));
+        assertEquals(1, index.followingCount(ME));
+    }
+
+    @Test
+    public void switchingUserReloadsTheSet() {
+        follow(ME, "a", true);
+        follow("other", "b", true);
+        FollowStatusService service = new FollowStatusService(follows, index);
+        service.setUser(ME);
+        drain();
+
+        service.setUser("other");
+        assertFalse(service.isLoaded());
+        assertFalse(service.isFollowing("a"));
+        drain();
+        assertTrue(service.isFollowing("b"));
+
+        // L'ancien abonnement est détaché : les arêtes de ME ne sont plus suivies
+        follow(ME, "c", true);
+        assertFalse(service.isFollowing("c"));
+
+        service.setUser(null);
+        assertFalse(service.isFollowing("b"));
+        assertFalse(index.hasFollowing("other"));
+    }
+}
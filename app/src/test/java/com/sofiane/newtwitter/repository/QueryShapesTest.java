@@ -0,0 +1,75 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+/**
+ * Vérifie que chaque forme de requête de QueryShapes est couverte par un .indexOn
+ * dans le fichier de règles déployé (firebase.json).
+ */
+public class QueryShapesTest {
+    // Les tests unitaires s'exécutent depuis le dossier du module app
+    private static final String[] RULES_FILES = {"../firebase_rules.json"};
+
+    @Test
+    public void everyQueryShapeIsIndexed() throws Exception {
+        for (String rulesFile : RULES_FILES) {
+            JSONObject rules = readRules(rulesFile);
+            for (QueryShapes.Shape shape : QueryShapes.ALL) {
+                assertTrue("Missing .indexOn for " + shape + " in " + rulesFile, isIndexed(rules, shape));
+            }
+        }
+    }
+
+    private static JSONObject readRules(String path) throws Exception {
+        File file = new File(path);
+        if (!file.exists()) {
+            fail("Rules file not found: " + file.getAbsolutePath());
+        }
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        return new JSONObject(json).getJSONObject("rules");
+    }
+
+    private static boolean isIndexed(JSONObject rules, QueryShapes.Shape shape) {
+        JSONObject node = rules;
+        for (String segment : shape.path.split("/")) {
+            node = segment.startsWith("$") ? wildcardChild(node) : node.optJSONObject(segment);
+            if (node == null) {
+                return false;
+            }
+        }
+        Object indexOn = node.opt(".indexOn");
+        if (indexOn instanceof String) {
+            return shape.orderBy.equals(indexOn);
+        }
+        if (indexOn instanceof JSONArray) {
+            JSONArray keys = (JSONArray) indexOn;
+            for (int i = 0; i < keys.length(); i++) {
+                if (shape.orderBy.equals(keys.optString(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static JSONObject wildcardChild(JSONObject node) {
+        Iterator<String> keys = node.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.startsWith("$")) {
+                return node.optJSONObject(key);
+            }
+        }
+        return null;
+    }
+}
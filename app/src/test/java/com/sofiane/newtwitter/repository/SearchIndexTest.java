@@ -0,0 +1,173 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sofiane.newtwitter.model.Post;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Vérifie la recherche de posts (tous les mots, préfixe du dernier, classement, pagination,
+ * mises à jour incrémentales) et la recherche d'utilisateurs par préfixe.
+ */
+public class SearchIndexTest {
+    private static final String[] WORDS = {
+            "firebase", "android", "timeline", "coffee", "release", "weekend", "music", "football",
+            "paris", "code", "review", "bug", "deploy", "morning", "news", "photo", "travel", "game"
+    };
+
+    private final SearchIndex index = new SearchIndex();
+
+    private static Post post(String id, String content, long time) {
+        return new Post(id, "author-" + id, "Author " + id, content, null, new Date(time), 0);
+    }
+
+    @Test
+    public void findsPostsContainingEveryWordIgnoringCaseAndAccents() {
+        index.indexPost(post("p1", "Café à Paris ce matin", 1));
+        index.indexPost(post("p2", "Un café à Lyon", 2));
+        index.indexPost(post("p3", "#Paris est magnifique", 3));
+
+        assertEquals(Arrays.asList("p1"), index.searchPosts("cafe paris", 0, 10).ids);
+        assertEquals(Arrays.asList("p3", "p1"), index.searchPosts("PARIS ", 0, 10).ids);
+        assertTrue(index.searchPosts("cafe marseille ", 0, 10).ids.isEmpty());
+    }
+
+    @Test
+    public void lastWordIsAlsoMatchedAsPrefix() {
+        index.indexPost(post("p1", "android release", 1));
+        index.indexPost(post("p2", "androidx migration", 2));
+        index.indexPost(post("p3", "android", 3));
+
+        SearchIndex.Page page = index.searchPosts("andr", 0, 10);
+        assertEquals(3, page.total);
+        // Terminée par un espace, la requête ne cherche que le mot exact
+        assertEquals(Arrays.asList("p3", "p1"), index.searchPosts("android ", 0, 10).ids);
+        // Le mot exact passe avant ses complétions
+        assertEquals("p2", index.searchPosts("android", 0, 10).ids.get(2));
+    }
+
+    @Test
+    public void rareWordsAndShortPostsRankFirstThenNewest() {
+        index.indexPost(post("long", "coffee coffee and a very long post about many other things", 1));
+        index.indexPost(post("short", "coffee time", 2));
+        index.indexPost(post("old", "coffee time", 0));
+        index.indexPost(post("other", "music time", 3));
+
+        assertEquals(Arrays.asList("short", "old", "long"), index.searchPosts("coffee ", 0, 10).ids);
+    }
+
+    @Test
+    public void pagesFollowTheRanking() {
+        for (int i = 0; i < 95; i++) {
+            index.indexPost(post(String.format(Locale.US, "p%03d", i), "news of the day " + i, i));
+        }
+        List<String> all = index.searchPosts("news ", 0, 1000).ids;
+        assertEquals(95, all.size());
+
+        List<String> paged = new ArrayList<>();
+        int offset = 0;
+        while (offset >= 0) {
+            SearchIndex.Page page = index.searchPosts("news ", offset, 20);
+            assertEquals(95, page.total);
+            paged.addAll(page.ids);
+            offset = page.nextOffset;
+        }
+        assertEquals(all, paged);
+        assertEquals("p094", all.get(0));
+    }
+
+    @Test
+    public void updatesAndDeletionsAreIncremental() {
+        index.indexPost(post("p1", "weekend travel", 1));
+        index.indexPost(post("p2", "weekend music", 2));
+
+        index.indexPost(post("p1", "edited: football", 1));
+        assertEquals(Arrays.asList("p2"), index.searchPosts("weekend ", 0, 10).ids);
+        assertEquals(Arrays.asList("p1"), index.searchPosts("football ", 0, 10).ids);
+
+        index.removePost("p2");
+        assertTrue(index.searchPosts("weekend ", 0, 10).ids.isEmpty());
+        assertEquals(1, index.postCount());
+
+        // L'entier libéré est réutilisé sans mélanger les postings
+        index.indexPost(post("p3", "music football", 3));
+        assertEquals(Arrays.asList("p3"), index.searchPosts("music football", 0, 10).ids);
+        assertEquals(2, index.searchPosts("football ", 0, 10).total);
+    }
+
+    @Test
+    public void matchesNaiveScanOnRandomPosts() {
+        Random random = new Random(42);
+        List<String> contents = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int w = 0; w < 3 + random.nextInt(8); w++) {
+                content.append(WORDS[(int) Math.min(WORDS.length - 1, Math.abs(random.nextGaussian()) * 5)]).append(' ');
+            }
+            contents.add(content.toString());
+            index.indexPost(post("p" + i, content.toString(), i));
+        }
+        for (int i = 0; i < 5000; i += 3) {
+            index.removePost("p" + i);
+        }
+        String[][] queries = {{"firebase"}, {"coffee", "music"}, {"paris", "code", "bug"}, {"game", "firebase"}};
+        for (String[] words : queries) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < contents.size(); i++) {
+                List<String> tokens = Arrays.asList(contents.get(i).split(" "));
+                if (i % 3 != 0 && tokens.containsAll(Arrays.asList(words))) {
+                    expected.add("p" + i);
+                }
+            }
+            List<String> found = new ArrayList<>(index.searchPosts(String.join(" ", words) + " ", 0, 10_000).ids);
+            Collections.sort(expected);
+            Collections.sort(found);
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void usersAreFoundByPrefixInAlphabeticalOrder() {
+        index.indexUser("u1", "Sofiane");
+        index.indexUser("u2", "sofia");
+        index.indexUser("u3", "Sophie");
+        index.indexUser("u4", "Élodie");
+        index.indexUser("u5", "sofi");
+
+        assertEquals(Arrays.asList("u5", "u2", "u1"), index.searchUsers("sofi", 0, 10).ids);
+        assertEquals(Arrays.asList("u4"), index.searchUsers("elo", 0, 10).ids);
+        assertEquals(4, index.searchUsers("SO", 0, 10).total);
+
+        SearchIndex.Page first = index.searchUsers("so", 0, 2);
+        assertEquals(Arrays.asList("u5", "u2"), first.ids);
+        SearchIndex.Page second = index.searchUsers("so", first.nextOffset, 2);
+        assertEquals(Arrays.asList("u1", "u3"), second.ids);
+        assertEquals(-1, second.nextOffset);
+    }
+
+    @Test
+    public void renamedUsersMoveInTheTrie() {
+        index.indexPost(post("p1", "hello", 1));
+        assertEquals(Arrays.asList("author-p1"), index.searchUsers("author", 0, 10).ids);
+
+        // La carte utilisateur remplace le nom lu dans le post, qui ne l'écrase plus ensuite
+        index.indexUser("author-p1", "Renamed");
+        index.indexPost(post("p1", "hello again", 1));
+        assertTrue(index.searchUsers("author", 0, 10).ids.isEmpty());
+        assertEquals(Arrays.asList("author-p1"), index.searchUsers("ren", 0, 10).ids);
+
+        index.removeUser("author-p1");
+        assertEquals(0, index.searchUsers("r", 0, 10).total);
+        assertEquals(0, index.userCount());
+    }
+}
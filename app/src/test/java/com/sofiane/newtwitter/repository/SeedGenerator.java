@@ -0,0 +1,291 @@
+package com.sofiane.newtwitter.repository;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Génère un jeu de données déterministe pour les tests de charge sur les émulateurs Firebase :
+ * N utilisateurs, un graphe d'abonnements en loi de puissance, M posts avec réponses, retweets et likes.
+ * Le résultat est une écriture multi-chemins (chemin → valeur) au format de l'application :
+ * posts et utilisateurs par PostCodec et UserCodec, marqueurs et index comme PostCounters,
+ * FollowRepository et TimelineFanout, compteurs égaux au nombre de marqueurs.
+ * Même graine et mêmes tailles : même jeu de données, clé pour clé.
+ */
+final class SeedGenerator {
+    static final long DEFAULT_SEED = 42L;
+    static final long DEFAULT_START_TIME = 1700000000000L;
+
+    // Exposant des lois de puissance (nombre d'abonnements, nombre de likes par post)
+    private static final double DEGREE_EXPONENT = 2.1;
+    // Exposant de Zipf de la popularité (choix des comptes suivis) et de l'activité (choix des auteurs)
+    private static final double POPULARITY_EXPONENT = 1.0;
+    private static final double ACTIVITY_EXPONENT = 0.8;
+    private static final int MIN_FOLLOWING = 3;
+    private static final double REPLY_RATE = 0.2;
+    private static final double RETWEET_RATE = 0.1;
+    // Les réponses et retweets visent l'un des posts récents
+    private static final int RECENT_WINDOW = 200;
+    private static final long MEAN_POST_INTERVAL_MS = 60_000L;
+    private static final String[] WORDS = {
+            "firebase", "android", "timeline", "coffee", "release", "weekend", "music", "football",
+            "paris", "code", "review", "bug", "deploy", "morning", "news", "photo", "travel", "game",
+            "java", "kotlin", "design", "team", "launch", "idea", "today", "tomorrow", "thanks", "hello"
+    };
+
+    private final Random random;
+    private final int userCount;
+    private final int postCount;
+    private final long startTime;
+
+    SeedGenerator(long seed, int userCount, int postCount, long startTime) {
+        if (userCount < 2) {
+            throw new IllegalArgumentException("At least two users are needed");
+        }
+        if (postCount < 0) {
+            throw new IllegalArgumentException("The number of posts cannot be negative");
+        }
+        this.random = new Random(seed);
+        this.userCount = userCount;
+        this.postCount = postCount;
+        this.startTime = startTime;
+    }
+
+    static String userId(int i) {
+        return String.format(Locale.US, "seed-user-%06d", i);
+    }
+
+    static String postId(int i) {
+        return String.format(Locale.US, "seed-post-%07d", i);
+    }
+
+    static String username(int i) {
+        return String.format(Locale.US, "seed_user_%06d", i);
+    }
+
+    /**
+     * Génère le jeu de données. Une instance ne génère qu'une fois : la graine est consommée.
+     *
+     * @return Les chemins (sans « / » initial) et leurs valeurs, dans un ordre stable
+     */
+    Map<String, Object> generate() {
+        Map<String, Object> updates = new LinkedHashMap<>();
+
+        List<Set<Integer>> followers = generateFollowGraph(updates);
+
+        int[] followersCount = new int[userCount];
+        int[] followingCount = new int[userCount];
+        for (int target = 0; target < userCount; target++) {
+            followersCount[target] = followers.get(target).size();
+            for (int follower : followers.get(target)) {
+                followingCount[follower]++;
+            }
+        }
+        for (int i = 0; i < userCount; i++) {
+            User user = new User(userId(i), username(i), username(i) + "@example.com");
+            user.setBio(sentence(4 + random.nextInt(8)));
+            user.setCreatedAt(startTime - (userCount - i) * 3_600_000L);
+            user.setFollowersCount(followersCount[i]);
+            user.setFollowingCount(followingCount[i]);
+            user.setProfileIconIndex(random.nextInt(8));
+            user.setProfileColorIndex(random.nextInt(6));
+            updates.put("users/" + userId(i), UserCodec.toMap(user));
+        }
+        for (int i = 0; i < userCount; i++) {
+            if (followersCount[i] > TimelineFanout.FANOUT_LIMIT) {
+                updates.put(TimelineFanout.HIGH_FANOUT_AUTHORS + "/" + userId(i), true);
+            }
+        }
+
+        generatePosts(updates, followers, followersCount);
+        return updates;
+    }
+
+    /**
+     * Graphe en loi de puissance : le nombre d'abonnements de chaque utilisateur suit une loi de Pareto,
+     * et les comptes suivis sont tirés selon une popularité de Zipf (quelques comptes très suivis).
+     * Les arêtes sont écrites dans les deux sens, comme FollowRepository.setFollowing.
+     */
+    private List<Set<Integer>> generateFollowGraph(Map<String, Object> updates) {
+        double[] popularity = zipfCumulative(userCount, POPULARITY_EXPONENT, shuffledRanks());
+        List<Set<Integer>> followers = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            followers.add(new HashSet<>());
+        }
+        for (int follower = 0; follower < userCount; follower++) {
+            int degree = Math.min(userCount - 1, pareto(MIN_FOLLOWING, DEGREE_EXPONENT));
+            Set<Integer> following = new HashSet<>();
+            // Tirages bornés : un graphe petit et dense peut ne pas atteindre le degré visé
+            for (int attempt = 0; following.size() < degree && attempt < degree * 4; attempt++) {
+                int target = sample(popularity);
+                if (target != follower) {
+                    following.add(target);
+                }
+            }
+            List<Integer> sorted = new ArrayList<>(following);
+            Collections.sort(sorted);
+            for (int target : sorted) {
+                followers.get(target).add(follower);
+                updates.put("follows/" + userId(follower) + "/following/" + userId(target), true);
+                updates.put("follows/" + userId(target) + "/followers/" + userId(follower), true);
+            }
+        }
+        return followers;
+    }
+
+    private void generatePosts(Map<String, Object> updates, List<Set<Integer>> followers, int[] followersCount) {
+        double[] activity = zipfCumulative(userCount, ACTIVITY_EXPONENT, shuffledRanks());
+        List<Post> posts = new ArrayList<>(postCount);
+        List<Integer> originals = new ArrayList<>();
+        Set<String> retweetKeys = new HashSet<>();
+        long time = startTime;
+
+        for (int i = 0; i < postCount; i++) {
+            time += 1 + (long) (random.nextDouble() * 2 * MEAN_POST_INTERVAL_MS);
+            int author = sample(activity);
+            double kind = random.nextDouble();
+            Post post = null;
+
+            if (i > 0 && kind < REPLY_RATE) {
+                Post parent = posts.get(i - 1 - random.nextInt(Math.min(i, RECENT_WINDOW)));
+                post = new Post(postId(i), userId(author), username(author), sentence(3 + random.nextInt(15)),
+                        null, new Date(time), 0, parent.getId(), parent.getUsername());
+                parent.setCommentCount(parent.getCommentCount() + 1);
+                updates.put(ThreadLoader.REPLIES + "/" + parent.getId() + "/" + post.getId(), time);
+            } else if (!originals.isEmpty() && kind < REPLY_RATE + RETWEET_RATE) {
+                int recent = Math.min(originals.size(), RECENT_WINDOW);
+                Post original = posts.get(originals.get(originals.size() - 1 - random.nextInt(recent)));
+                String retweetKey = PostCounters.retweetKey(original.getId(), userId(author));
+                // Un seul retweet par utilisateur et par post : sinon, le tirage devient un post original
+                if (!original.getUserId().equals(userId(author)) && retweetKeys.add(retweetKey)) {
+                    post = new Post(postId(i), userId(author), username(author), original.getId(),
+                            original.getUserId(), original.getUsername(), original.getContent(),
+                            original.getImageUrl(), new Date(time));
+                    original.setRetweetCount(original.getRetweetCount() + 1);
+                    updates.put("retweets/" + retweetKey, post.getId());
+                }
+            }
+            if (post == null) {
+                post = new Post(postId(i), userId(author), username(author), sentence(3 + random.nextInt(25)),
+                        null, new Date(time), 0);
+                originals.add(i);
+            }
+            posts.add(post);
+
+            if (!post.isReply()) {
+                addTimelineEntries(updates, post, author, followers, followersCount);
+            }
+            addLikes(updates, post);
+        }
+
+        // Les compteurs des posts ne sont définitifs qu'une fois toutes les réponses et retweets générés
+        for (Post post : posts) {
+            updates.put("posts/" + post.getId(), PostCodec.toMap(post));
+        }
+    }
+
+    /**
+     * Index des fils, comme TimelineFanout : fil et posts de l'auteur, puis fil de chaque follower
+     * si l'auteur ne dépasse pas FANOUT_LIMIT.
+     */
+    private void addTimelineEntries(Map<String, Object> updates, Post post, int author,
+                                    List<Set<Integer>> followers, int[] followersCount) {
+        long time = post.getCreatedAt().getTime();
+        updates.put(TimelineFanout.USER_POSTS + "/" + userId(author) + "/" + post.getId(), time);
+        updates.put(TimelineFanout.TIMELINES + "/" + userId(author) + "/" + post.getId(), time);
+        if (followersCount[author] > TimelineFanout.FANOUT_LIMIT) {
+            return;
+        }
+        List<Integer> sorted = new ArrayList<>(followers.get(author));
+        Collections.sort(sorted);
+        for (int follower : sorted) {
+            updates.put(TimelineFanout.TIMELINES + "/" + userId(follower) + "/" + post.getId(), time);
+        }
+    }
+
+    private void addLikes(Map<String, Object> updates, Post post) {
+        // Pareto décalé de 1 : environ la moitié des posts n'a aucun like
+        int likes = Math.min(userCount, pareto(1, DEGREE_EXPONENT) - 1);
+        Set<Integer> likers = new HashSet<>();
+        for (int attempt = 0; likers.size() < likes && attempt < likes * 4; attempt++) {
+            likers.add(random.nextInt(userCount));
+        }
+        List<Integer> sorted = new ArrayList<>(likers);
+        Collections.sort(sorted);
+        for (int liker : sorted) {
+            updates.put("likes/" + PostCounters.likeKey(post.getId(), userId(liker)), true);
+        }
+        post.setLikeCount(sorted.size());
+    }
+
+    /**
+     * Tirage d'une loi de Pareto discrète par inversion : P(X >= x) = (min / x)^(exposant - 1).
+     */
+    private int pareto(int min, double exponent) {
+        double u = random.nextDouble();
+        double value = min * Math.pow(1 - u, -1 / (exponent - 1));
+        return value >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) value;
+    }
+
+    /**
+     * Rangs de Zipf attribués dans un ordre aléatoire, pour que l'utilisateur 0 ne soit pas toujours le plus populaire.
+     */
+    private int[] shuffledRanks() {
+        List<Integer> ranks = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            ranks.add(i);
+        }
+        Collections.shuffle(ranks, random);
+        int[] result = new int[userCount];
+        for (int i = 0; i < userCount; i++) {
+            result[i] = ranks.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return Les poids de Zipf cumulés et normalisés de chaque utilisateur, selon son rang
+     */
+    private static double[] zipfCumulative(int count, double exponent, int[] ranks) {
+        double[] cumulative = new double[count];
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += 1 / Math.pow(ranks[i] + 1, exponent);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < count; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    private int sample(double[] cumulative) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int position = index >= 0 ? index : -(index + 1);
+        return Math.min(position, cumulative.length - 1);
+    }
+
+    private String sentence(int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.PostCodec;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCodec;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vérifie que SeedGenerator est déterministe et que ses compteurs correspondent à ses marqueurs.
+ */
+public class SeedGeneratorTest {
+    private static final int USERS = 300;
+    private static final int POSTS = 2000;
+
+    private static Map<String, Object> generate(long seed) {
+        return new SeedGenerator(seed, USERS, POSTS, SeedGenerator.DEFAULT_START_TIME).generate();
+    }
+
+    @Test
+    public void sameSeedGivesSameDataset() {
+        Map<String, Object> first = generate(7L);
+        Map<String, Object> second = generate(7L);
+        assertEquals(first, second);
+        assertEquals(new ArrayList<>(first.keySet()), new ArrayList<>(second.keySet()));
+        assertNotEquals(first, generate(8L));
+    }
+
+    @Test
+    public void countersMatchMarkers() {
+        Map<String, Object> data = generate(SeedGenerator.DEFAULT_SEED);
+        Map<String, Integer> followers = new HashMap<>();
+        Map<String, Integer> following = new HashMap<>();
+        Map<String, Integer> likes = new HashMap<>();
+        Map<String, Integer> replies = new HashMap<>();
+        Map<String, Integer> retweets = new HashMap<>();
+        for (String path : data.keySet()) {
+            String[] parts = path.split("/");
+            if (parts[0].equals("follows") && parts[2].equals("followers")) {
+                followers.merge(parts[1], 1, Integer::sum);
+                assertTrue("Missing reverse edge for " + path,
+                        data.containsKey("follows/" + parts[3] + "/following/" + parts[1]));
+            } else if (parts[0].equals("follows")) {
+                following.merge(parts[1], 1, Integer::sum);
+            } else if (parts[0].equals("likes")) {
+                likes.merge(parts[1].substring(0, parts[1].indexOf('_')), 1, Integer::sum);
+            } else if (parts[0].equals(ThreadLoader.REPLIES)) {
+                replies.merge(parts[1], 1, Integer::sum);
+            } else if (parts[0].equals("retweets")) {
+                retweets.merge(parts[1].substring(0, parts[1].indexOf('_')), 1, Integer::sum);
+            }
+        }
+
+        for (int i = 0; i < USERS; i++) {
+            String userId = SeedGenerator.userId(i);
+            User user = UserCodec.fromValue(userId, data.get("users/" + userId));
+            assertNotNull(user);
+            assertEquals(followers.getOrDefault(userId, 0).intValue(), user.getFollowersCount());
+            assertEquals(following.getOrDefault(userId, 0).intValue(), user.getFollowingCount());
+        }
+        for (int i = 0; i < POSTS; i++) {
+            String postId = SeedGenerator.postId(i);
+            Post post = PostCodec.fromValue(postId, data.get("posts/" + postId));
+            assertNotNull(post);
+            assertEquals(likes.getOrDefault(postId, 0).intValue(), post.getLikeCount());
+            assertEquals(replies.getOrDefault(postId, 0).intValue(), post.getCommentCount());
+            assertEquals(retweets.getOrDefault(postId, 0).intValue(), post.getRetweetCount());
+            if (post.isReply()) {
+                assertTrue(data.containsKey(ThreadLoader.REPLIES + "/" + post.getParentId() + "/" + postId));
+            } else {
+                assertTrue(data.containsKey(TimelineFanout.USER_POSTS + "/" + post.getUserId() + "/" + postId));
+            }
+        }
+    }
+
+    @Test
+    public void followGraphIsSkewed() {
+        Map<String, Object> data = generate(SeedGenerator.DEFAULT_SEED);
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = UserCodec.fromValue(null, data.get("users/" + SeedGenerator.userId(i)));
+            counts.add(user.getFollowersCount());
+        }
+        Collections.sort(counts);
+        int median = counts.get(USERS / 2);
+        int max = counts.get(USERS - 1);
+        // Quelques comptes concentrent les abonnés : le plus suivi dépasse largement la médiane
+        assertTrue("max " + max + " vs median " + median, max > 10 * Math.max(1, median));
+    }
+}
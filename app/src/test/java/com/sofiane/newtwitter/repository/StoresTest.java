@@ -0,0 +1,118 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.database.DatabaseError;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Vérifie le traitement des écritures refusées par les règles : le code PERMISSION_DENIED du
+ * CompletionListener n'est rendu comme « aucun changement » (like, retweet, abonnement) que si
+ * le marqueur relu est déjà dans l'état demandé, et reste reconnaissable dans l'exception des
+ * tâches (nom d'utilisateur déjà pris).
+ */
+public class StoresTest {
+
+    private static final class Result implements StoreCallback<Boolean> {
+        final AtomicReference<Boolean> value = new AtomicReference<>();
+        final AtomicReference<String> error = new AtomicReference<>();
+
+        @Override
+        public void onSuccess(Boolean changed) {
+            value.set(changed);
+        }
+
+        @Override
+        public void onError(String message) {
+            error.set(message);
+        }
+    }
+
+    /**
+     * Lecture du marqueur qui répond immédiatement.
+     */
+    private static Consumer<StoreCallback<Boolean>> marker(boolean exists) {
+        return callback -> callback.onSuccess(exists);
+    }
+
+    @Test
+    public void rejectedConditionalWriteReportsNoChange() {
+        Result result = new Result();
+        // Like demandé, marqueur déjà présent
+        Stores.conditionalWrite(marker(true), true, result)
+                .onComplete(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED), null);
+        assertEquals(Boolean.FALSE, result.value.get());
+        assertNull(result.error.get());
+    }
+
+    @Test
+    public void rejectionWithoutMarkerStateIsAnError() {
+        // Refus pour une autre raison (jeton expiré…) : le marqueur n'est pas dans l'état demandé
+        Result liked = new Result();
+        Stores.conditionalWrite(marker(false), true, liked)
+                .onComplete(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED), null);
+        assertNull(liked.value.get());
+        assertEquals(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED).getMessage(), liked.error.get());
+
+        Result unliked = new Result();
+        Stores.conditionalWrite(marker(true), false, unliked)
+                .onComplete(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED), null);
+        assertNull(unliked.value.get());
+        assertEquals(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED).getMessage(), unliked.error.get());
+
+        // Relecture impossible : le refus reste une erreur
+        Result unreadable = new Result();
+        Stores.conditionalWrite(callback -> callback.onError("offline"), true, unreadable)
+                .onComplete(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED), null);
+        assertNull(unreadable.value.get());
+        assertEquals(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED).getMessage(), unreadable.error.get());
+    }
+
+    @Test
+    public void acceptedConditionalWriteReportsChange() {
+        Result result = new Result();
+        Stores.conditionalWrite(marker(false), true, result).onComplete(null, null);
+        assertEquals(Boolean.TRUE, result.value.get());
+        assertNull(result.error.get());
+    }
+
+    @Test
+    public void otherWriteErrorsAreReported() {
+        Result result = new Result();
+        Stores.conditionalWrite(marker(true), true, result)
+                .onComplete(DatabaseError.fromCode(DatabaseError.DISCONNECTED), null);
+        assertNull(result.value.get());
+        assertEquals(DatabaseError.fromCode(DatabaseError.DISCONNECTED).getMessage(), result.error.get());
+    }
+
+    @Test
+    public void rejectedTaskWriteKeepsPermissionDeniedCode() {
+        TaskCompletionSource<Void> rejected = new TaskCompletionSource<>();
+        Stores.completeTask(rejected).onComplete(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED), null);
+        assertTrue(Stores.isPermissionDenied(rejected.getTask().getException()));
+
+        TaskCompletionSource<Void> failed = new TaskCompletionSource<>();
+        Stores.completeTask(failed).onComplete(DatabaseError.fromCode(DatabaseError.NETWORK_ERROR), null);
+        assertFalse(Stores.isPermissionDenied(failed.getTask().getException()));
+
+        TaskCompletionSource<Void> accepted = new TaskCompletionSource<>();
+        Stores.completeTask(accepted).onComplete(null, null);
+        assertTrue(accepted.getTask().isSuccessful());
+    }
+
+    @Test
+    public void permissionDeniedIsNotRecoveredFromTaskExceptions() {
+        // Ce que rend la tâche de updateChildren(Map) : le code est perdu
+        Exception taskException = DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED).toException();
+        assertFalse(Stores.isPermissionDenied(taskException));
+    }
+}
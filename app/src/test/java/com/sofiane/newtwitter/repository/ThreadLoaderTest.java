@@ -0,0 +1,159 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.Nullable;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.repository.store.InMemoryPostStore;
+import com.sofiane.newtwitter.repository.store.StoreCallback;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Vérifie le chargement d'un fil par ThreadLoader sur un PostStore en mémoire : réponses de la plus
+ * ancienne à la plus récente, parents du post principal, et réponses publiées ou supprimées après
+ * le chargement complet.
+ */
+public class ThreadLoaderTest {
+    private static final long BASE_TIME = 1700000000000L;
+
+    private final InMemoryPostStore posts = new InMemoryPostStore(Runnable::run);
+    private int clock;
+
+    private final class RecordingListener implements ThreadLoader.Listener {
+        Post post;
+        List<Post> ancestors;
+        List<Post> replies = new ArrayList<>();
+        boolean exhausted;
+
+        @Override
+        public void onPostChanged(@Nullable Post post) {
+            this.post = post;
+        }
+
+        @Override
+        public void onAncestorsLoaded(List<Post> ancestors) {
+            this.ancestors = ancestors;
+        }
+
+        @Override
+        public void onRepliesChanged(List<Post> replies, boolean exhausted) {
+            this.replies = replies;
+            this.exhausted = exhausted;
+        }
+
+        @Override
+        public void onError(String message) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static final class FailingCallback<T> implements StoreCallback<T> {
+        @Override
+        public void onSuccess(T result) {
+        }
+
+        @Override
+        public void onError(String message) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private Post publish() {
+        Post post = new Post(posts.newPostId(), "author", "Author", "Post", null,
+                new Date(BASE_TIME + (clock++) * 1000L), 0);
+        posts.publish(post, new FailingCallback<>());
+        return post;
+    }
+
+    private Post reply(Post parent) {
+        Post reply = new Post(posts.newPostId(), "replier", "Replier", "Reply", null,
+                new Date(BASE_TIME + (clock++) * 1000L), 0, parent.getId());
+        posts.reply(reply, new FailingCallback<>());
+        return reply;
+    }
+
+    private static List<String> ids(List<Post> list) {
+        List<String> ids = new ArrayList<>();
+        for (Post post : list) {
+            ids.add(post.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void mergesIndexPagesAndRepliesByParentOldestFirst() {
+        Post root = publish();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < ThreadLoader.REPLIES_PAGE_SIZE + 5; i++) {
+            expected.add(reply(root).getId());
+        }
+
+        RecordingListener listener = new RecordingListener();
+        ThreadLoader loader = new ThreadLoader(posts, root.getId(), listener);
+        loader.start();
+        assertEquals(root.getId(), listener.post.getId());
+        // La lecture par parentId complète la première page de l'index, sans doublon
+        assertEquals(expected, ids(listener.replies));
+        assertTrue(loader.hasMoreReplies());
+
+        loader.loadMoreReplies();
+        assertEquals(expected, ids(listener.replies));
+        assertTrue(listener.exhausted);
+        assertFalse(loader.hasMoreReplies());
+        loader.stop();
+    }
+
+    @Test
+    public void loadsAncestorsOfAReply() {
+        Post root = publish();
+        Post first = reply(root);
+        Post second = reply(first);
+
+        RecordingListener listener = new RecordingListener();
+        new ThreadLoader(posts, second.getId(), listener).start();
+
+        List<String> expected = new ArrayList<>();
+        expected.add(root.getId());
+        expected.add(first.getId());
+        assertEquals(expected, ids(listener.ancestors));
+    }
+
+    @Test
+    public void followsRepliesOnceExhaustedUntilStopped() {
+        Post root = publish();
+        Post existing = reply(root);
+
+        RecordingListener listener = new RecordingListener();
+        ThreadLoader loader = new ThreadLoader(posts, root.getId(), listener);
+        loader.start();
+        assertTrue(listener.exhausted);
+
+        Post added = reply(root);
+        List<String> expected = new ArrayList<>();
+        expected.add(existing.getId());
+        expected.add(added.getId());
+        assertEquals(expected, ids(listener.replies));
+
+        posts.delete(existing, new FailingCallback<>());
+        expected.remove(0);
+        assertEquals(expected, ids(listener.replies));
+        assertEquals(1, listener.post.getCommentCount());
+
+        posts.delete(root, new FailingCallback<>());
+        assertNull(listener.post);
+
+        loader.stop();
+        reply(added);
+        Post ignored = reply(root);
+        assertFalse(ids(listener.replies).contains(ignored.getId()));
+    }
+}
@@ -0,0 +1,200 @@
+package com.sofiane.newtwitter.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import com.sofiane.newtwitter.model.UserCard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vérifie le plafond de lectures, l'ordre et le découpage en pages de UserListLoader.
+ */
+public class UserListLoaderTest {
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * Source manuelle : les lectures restent en attente jusqu'à complete().
+     */
+    private static final class ManualFetcher implements UserListLoader.Fetcher {
+        final Map<String, UserProfileCache.Callback> pending = new LinkedHashMap<>();
+        int fetched;
+        int cancelled;
+
+        @Override
+        public void fetch(@NonNull String userId, @NonNull UserProfileCache.Callback callback) {
+            pending.put(userId, callback);
+            fetched++;
+        }
+
+        @Override
+        public void cancel(@NonNull String userId, @NonNull UserProfileCache.Callback callback) {
+            if (pending.remove(userId, callback)) {
+                cancelled++;
+            }
+        }
+
+        void complete(String userId, boolean found) {
+            UserProfileCache.Callback callback = pending.remove(userId);
+            callback.onUserCard(found ? card(userId) : null);
+        }
+
+        void completeAll() {
+            while (!pending.isEmpty()) {
+                complete(pending.keySet().iterator().next(), true);
+            }
+        }
+    }
+
+    private static final class Pages implements UserListLoader.Listener {
+        final List<List<UserCard>> pages = new ArrayList<>();
+        boolean complete;
+
+        @Override
+        public void onUsersLoaded(@NonNull List<UserCard> users, boolean complete) {
+            pages.add(users);
+            this.complete = complete;
+        }
+
+        List<UserCard> last() {
+            return pages.get(pages.size() - 1);
+        }
+    }
+
+    private static UserCard card(String userId) {
+        UserCard card = new UserCard();
+        card.setUserId(userId);
+        card.setUsername("name-" + userId);
+        return card;
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("user-" + i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void readsAreCappedAndStopOneWindowAhead() {
+        ManualFetcher fetcher = new ManualFetcher();
+        Pages pages = new Pages();
+        UserListLoader loader = new UserListLoader(fetcher, MAX_IN_FLIGHT, PAGE_SIZE, pages);
+        loader.setUserIds(ids(20_000));
+
+        assertEquals(MAX_IN_FLIGHT, fetcher.pending.size());
+        while (!fetcher.pending.isEmpty()) {
+            assertTrue(fetcher.pending.size() <= MAX_IN_FLIGHT);
+            fetcher.complete(fetcher.pending.keySet().iterator().next(), true);
+        }
+        // Deux pages sans défilement, rendues une par une
+        assertEquals(2 * PAGE_SIZE, fetcher.fetched);
+        assertEquals(2, pages.pages.size());
+        assertEquals(PAGE_SIZE, pages.pages.get(0).size());
+        assertEquals(2 * PAGE_SIZE, pages.last().size());
+        assertFalse(pages.complete);
+
+        loader.onRowVisible(2 * PAGE_SIZE - 1);
+        fetcher.completeAll();
+        assertEquals(4 * PAGE_SIZE, fetcher.fetched);
+        assertEquals(4 * PAGE_SIZE, pages.last().size());
+    }
+
+    @Test
+    public void rowsKeepListOrderAndSkipMissingUsers() {
+        ManualFetcher fetcher = new ManualFetcher();
+        Pages pages = new Pages();
+        UserListLoader loader = new UserListLoader(fetcher, MAX_IN_FLIGHT, PAGE_SIZE, pages);
+        loader.setUserIds(ids(3));
+
+        fetcher.complete("user-2", true);
+        fetcher.complete("user-1", false);
+        assertTrue(pages.pages.isEmpty());
+        fetcher.complete("user-0", true);
+
+        assertEquals(1, pages.pages.size());
+        assertTrue(pages.complete);
+        assertEquals(2, pages.last().size());
+        assertEquals("user-0", pages.last().get(0).getUserId());
+        assertEquals("user-2", pages.last().get(1).getUserId());
+    }
+
+    @Test
+    public void emptyListIsReportedComplete() {
+        Pages pages = new Pages();
+        new UserListLoader(new ManualFetcher(), MAX_IN_FLIGHT, PAGE_SIZE, pages).setUserIds(new ArrayList<>());
+        assertEquals(1, pages.pages.size());
+        assertTrue(pages.last().isEmpty());
+        assertTrue(pages.complete);
+    }
+
+    @Test
+    public void newListKeepsLoadedCardsAndCancelsRemovedReads() {
+        ManualFetcher fetcher = new ManualFetcher();
+        Pages pages = new Pages();
+        UserListLoader loader = new UserListLoader(fetcher, MAX_IN_FLIGHT, PAGE_SIZE, pages);
+        loader.setUserIds(ids(6));
+        fetcher.complete("user-0", true);
+        fetcher.complete("user-1", true);
+
+        List<String> updated = ids(2);
+        updated.add("user-9");
+        loader.setUserIds(updated);
+
+        assertEquals(4, fetcher.cancelled);
+        assertEquals(1, fetcher.pending.size());
+        fetcher.complete("user-9", true);
+        assertTrue(pages.complete);
+        assertEquals(3, pages.last().size());
+        assertEquals(7, fetcher.fetched);
+    }
+
+    @Test
+    public void cancelDropsPendingReadsAndLateResults() {
+        ManualFetcher fetcher = new ManualFetcher();
+        Pages pages = new Pages();
+        UserListLoader loader = new UserListLoader(fetcher, MAX_IN_FLIGHT, PAGE_SIZE, pages);
+        loader.setUserIds(ids(100));
+        UserProfileCache.Callback late = fetcher.pending.values().iterator().next();
+
+        loader.cancel();
+        assertEquals(MAX_IN_FLIGHT, fetcher.cancelled);
+        assertEquals(0, loader.getInFlightCount());
+
+        late.onUserCard(card("user-0"));
+        loader.onRowVisible(50);
+        assertTrue(pages.pages.isEmpty());
+        assertEquals(MAX_IN_FLIGHT, fetcher.fetched);
+    }
+
+    @Test
+    public void immediateResultsDoNotExceedWindow() {
+        Pages pages = new Pages();
+        UserListLoader.Fetcher cached = new UserListLoader.Fetcher() {
+            @Override
+            public void fetch(@NonNull String userId, @NonNull UserProfileCache.Callback callback) {
+                callback.onUserCard(card(userId));
+            }
+
+            @Override
+            public void cancel(@NonNull String userId, @NonNull UserProfileCache.Callback callback) {
+            }
+        };
+        UserListLoader loader = new UserListLoader(cached, MAX_IN_FLIGHT, PAGE_SIZE, pages);
+        loader.setUserIds(ids(1000));
+
+        assertEquals(1, pages.pages.size());
+        assertEquals(2 * PAGE_SIZE, pages.last().size());
+        assertEquals(0, loader.getInFlightCount());
+    }
+}
@@ -0,0 +1,352 @@
+package com.sofiane.newtwitter.repository.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sofiane.newtwitter.model.Post;
+import com.sofiane.newtwitter.model.User;
+import com.sofiane.newtwitter.model.UserCard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Vérifie les règles des stores en mémoire : compteurs égaux aux marqueurs sous écritures
+ * concurrentes, refus des interactions redondantes, réservation des noms, listeners et pagination.
+ */
+public class InMemoryStoresTest {
+    private static final long BASE_TIME = 1700000000000L;
+    private static final int THREADS = 8;
+
+    private final InMemoryPostStore posts = new InMemoryPostStore(Runnable::run);
+    private final InMemoryUserStore users = new InMemoryUserStore(Runnable::run);
+    private final InMemoryFollowGraphStore follows = new InMemoryFollowGraphStore(users, Runnable::run);
+
+    /**
+     * Les callbacks sont appelés sur le thread de l'opération : le résultat est disponible au retour.
+     */
+    private static <T> T get(Consumer<StoreCallback<T>> operation) {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<String> error = new AtomicReference<>();
+        operation.accept(new StoreCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.set(value);
+            }
+
+            @Override
+            public void onError(String message) {
+                error.set(message);
+            }
+        });
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+        return result.get();
+    }
+
+    private Post publish(int i) {
+        Post post = new Post(posts.newPostId(), "author", "Author", "Post " + i, null,
+                new Date(BASE_TIME + i * 1000L), 0);
+        get((StoreCallback<Void> callback) -> posts.publish(post, callback));
+        return post;
+    }
+
+    @Test
+    public void redundantInteractionsDoNotChangeCounters() {
+        Post post = publish(0);
+        assertTrue(get((StoreCallback<Boolean> callback) -> posts.setLiked(post.getId(), "u1", true, callback)));
+        assertFalse(get((StoreCallback<Boolean> callback) -> posts.setLiked(post.getId(), "u1", true, callback)));
+
+        Post retweet = new Post(posts.newPostId(), "u1", "U1", post.getId(), post.getUserId(),
+                post.getUsername(), post.getContent(), null, new Date(BASE_TIME + 5000L));
+        Post secondRetweet = new Post(posts.newPostId(), "u1", "U1", post.getId(), post.getUserId(),
+                post.getUsername(), post.getContent(), null, new Date(BASE_TIME + 6000L));
+        assertTrue(get((StoreCallback<Boolean> callback) -> posts.retweet(retweet, callback)));
+        assertFalse(get((StoreCallback<Boolean> callback) -> posts.retweet(secondRetweet, callback)));
+        assertNull(get((StoreCallback<Post> callback) -> posts.getPost(secondRetweet.getId(), callback)));
+
+        Post stored = get((StoreCallback<Post> callback) -> posts.getPost(post.getId(), callback));
+        assertEquals(1, stored.getLikeCount());
+        assertEquals(1, stored.getRetweetCount());
+
+        assertEquals(retweet.getId(), get((StoreCallback<String> callback) -> posts.findRetweet(post.getId(), "u1", callback)));
+        get((StoreCallback<Void> callback) -> posts.unretweet(post.getId(), "u1", retweet.getId(), callback));
+        assertNull(get((StoreCallback<String> callback) -> posts.findRetweet(post.getId(), "u1", callback)));
+        stored = get((StoreCallback<Post> callback) -> posts.getPost(post.getId(), callback));
+        assertEquals(0, stored.getRetweetCount());
+    }
+
+    @Test
+    public void concurrentLikesKeepCountersEqualToMarkers() throws InterruptedException {
+        List<Post> published = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            published.add(publish(i));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final long seed = t;
+            pool.execute(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2000; i++) {
+                    String postId = published.get(random.nextInt(published.size())).getId();
+                    String userId = "user" + random.nextInt(30);
+                    posts.setLiked(postId, userId, random.nextBoolean(), new IgnoringCallback<>());
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (Post post : published) {
+            int likes = 0;
+            for (int u = 0; u < 30; u++) {
+                String userId = "user" + u;
+                if (get((StoreCallback<Boolean> callback) -> posts.isLiked(post.getId(), userId, callback))) {
+                    likes++;
+                }
+            }
+            Post stored = get((StoreCallback<Post> callback) -> posts.getPost(post.getId(), callback));
+            assertEquals(likes, stored.getLikeCount());
+        }
+    }
+
+    @Test
+    public void concurrentFollowsKeepCountersEqualToEdges() throws InterruptedException {
+        int userCount = 40;
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final long seed = t;
+            pool.execute(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 3000; i++) {
+                    String follower = "user" + random.nextInt(userCount);
+                    String target = "user" + random.nextInt(userCount);
+                    if (!follower.equals(target)) {
+                        follows.setFollowing(follower, target, random.nextBoolean(), new IgnoringCallback<>());
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int u = 0; u < userCount; u++) {
+            String userId = "user" + u;
+            Set<String> followers = get((StoreCallback<Set<String>> callback) -> follows.getFollowers(userId, callback));
+            Set<String> following = get((StoreCallback<Set<String>> callback) -> follows.getFollowing(userId, callback));
+            assertEquals(followers.size(), (int) get((StoreCallback<Integer> callback) -> follows.getFollowersCount(userId, callback)));
+            assertEquals(following.size(), (int) get((StoreCallback<Integer> callback) -> follows.getFollowingCount(userId, callback)));
+            for (String target : following) {
+                Set<String> targetFollowers = get((StoreCallback<Set<String>> callback) -> follows.getFollowers(target, callback));
+                assertTrue(targetFollowers.contains(userId));
+            }
+        }
+    }
+
+    @Test
+    public void listenersFollowChangesUntilRemoved() {
+        Post post = publish(0);
+        List<Integer> likeCounts = new ArrayList<>();
+        Registration registration = posts.observePost(post.getId(), new StoreListener<Post>() {
+            @Override
+            public void onValue(Post value) {
+                likeCounts.add(value != null ? value.getLikeCount() : -1);
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        posts.setLiked(post.getId(), "u1", true, new IgnoringCallback<>());
+        posts.setLiked(post.getId(), "u1", true, new IgnoringCallback<>());
+        posts.setLiked(post.getId(), "u2", true, new IgnoringCallback<>());
+        registration.remove();
+        posts.setLiked(post.getId(), "u3", true, new IgnoringCallback<>());
+
+        List<Integer> expected = new ArrayList<>();
+        expected.add(0);
+        expected.add(1);
+        expected.add(2);
+        assertEquals(expected, likeCounts);
+
+        List<Boolean> edges = new ArrayList<>();
+        follows.observeFollowing("a", "b", new StoreListener<Boolean>() {
+            @Override
+            public void onValue(Boolean value) {
+                edges.add(value);
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        follows.setFollowing("a", "b", true, new IgnoringCallback<>());
+        follows.setFollowing("a", "b", false, new IgnoringCallback<>());
+        List<Boolean> expectedEdges = new ArrayList<>();
+        expectedEdges.add(false);
+        expectedEdges.add(true);
+        expectedEdges.add(false);
+        assertEquals(expectedEdges, edges);
+    }
+
+    @Test
+    public void loadLatestPagesFromNewestToOldest() {
+        for (int i = 0; i < 25; i++) {
+            publish(i);
+        }
+        Set<String> seen = new HashSet<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        Post cursor = null;
+        long previousTime = Long.MAX_VALUE;
+        while (true) {
+            final Post before = cursor;
+            List<Post> page = get((StoreCallback<List<Post>> callback) -> posts.loadLatest(10, before, callback));
+            if (page.isEmpty()) {
+                break;
+            }
+            pageSizes.add(page.size());
+            for (Post post : page) {
+                assertTrue(seen.add(post.getId()));
+                assertTrue(post.getCreatedAt().getTime() < previousTime);
+                previousTime = post.getCreatedAt().getTime();
+            }
+            cursor = page.get(page.size() - 1);
+        }
+        List<Integer> expected = new ArrayList<>();
+        expected.add(10);
+        expected.add(10);
+        expected.add(5);
+        assertEquals(expected, pageSizes);
+    }
+
+    @Test
+    public void loadRepliesPagesFromOldestToNewest() {
+        Post parent = publish(0);
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            Post reply = new Post(posts.newPostId(), "author", "Author", "Reply " + i, null,
+                    new Date(BASE_TIME + i * 1000L), 0, parent.getId());
+            get((StoreCallback<Void> callback) -> posts.reply(reply, callback));
+            expected.add(reply.getId());
+        }
+        List<String> loaded = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        Post cursor = null;
+        while (true) {
+            final Post after = cursor;
+            List<Post> page = get((StoreCallback<List<Post>> callback) ->
+                    posts.loadReplies(parent.getId(), 10, after, callback));
+            pageSizes.add(page.size());
+            for (Post reply : page) {
+                loaded.add(reply.getId());
+            }
+            if (page.size() < 10) {
+                break;
+            }
+            cursor = page.get(page.size() - 1);
+        }
+        assertEquals(expected, loaded);
+        List<Integer> expectedSizes = new ArrayList<>();
+        expectedSizes.add(10);
+        expectedSizes.add(10);
+        expectedSizes.add(5);
+        assertEquals(expectedSizes, pageSizes);
+        assertEquals(25, get((StoreCallback<List<Post>> callback) -> posts.getRepliesByParent(parent.getId(), callback)).size());
+    }
+
+    @Test
+    public void saveUserKeepsFollowCounters() {
+        User user = new User("u1", "first", "u1@example.com");
+        get((StoreCallback<Void> callback) -> users.saveUser(user, callback));
+        get((StoreCallback<Boolean> callback) -> follows.setFollowing("u2", "u1", true, callback));
+
+        User edited = new User("u1", "renamed", "u1@example.com");
+        get((StoreCallback<Void> callback) -> users.saveUser(edited, callback));
+        User stored = get((StoreCallback<User> callback) -> users.getUser("u1", callback));
+        assertEquals("renamed", stored.getUsername());
+        assertEquals(1, stored.getFollowersCount());
+    }
+
+    @Test
+    public void countListenersFollowEdgesAndRecount() {
+        List<Integer> followersCounts = new ArrayList<>();
+        Registration registration = follows.observeFollowersCount("u1", new StoreListener<Integer>() {
+            @Override
+            public void onValue(Integer value) {
+                followersCounts.add(value);
+            }
+
+            @Override
+            public void onError(String message) {
+                throw new AssertionError(message);
+            }
+        });
+        get((StoreCallback<Boolean> callback) -> follows.setFollowing("u2", "u1", true, callback));
+        get((StoreCallback<Boolean> callback) -> follows.setFollowing("u3", "u1", true, callback));
+
+        // Compteur faussé par une ancienne version : le recalcul le ramène au nombre d'arêtes
+        users.adjustCounts("u1", 5, 0);
+        get((StoreCallback<Void> callback) -> follows.recountFollows("u1", callback));
+        registration.remove();
+        get((StoreCallback<Boolean> callback) -> follows.setFollowing("u4", "u1", true, callback));
+
+        List<Integer> expected = new ArrayList<>();
+        expected.add(0);
+        expected.add(1);
+        expected.add(2);
+        expected.add(7);
+        expected.add(2);
+        assertEquals(expected, followersCounts);
+        assertEquals(3, (int) get((StoreCallback<Integer> callback) -> follows.getFollowersCount("u1", callback)));
+    }
+
+    @Test
+    public void takenUsernameRejectsTheWholeProfileWrite() {
+        User first = new User("u1", "Alice", "u1@example.com");
+        assertTrue(get((StoreCallback<Boolean> callback) -> users.createProfile(first, true, callback)));
+
+        // La clé est normalisée : la casse ne permet pas de reprendre le nom
+        User second = new User("u2", "alice", "u2@example.com");
+        assertFalse(get((StoreCallback<Boolean> callback) -> users.createProfile(second, true, callback)));
+        assertNull(get((StoreCallback<User> callback) -> users.getUser("u2", callback)));
+        assertNull(get((StoreCallback<UserCard> callback) -> users.getUserCard("u2", callback)));
+
+        // Un renommage libère l'ancien nom, qui peut alors être pris
+        User renamed = new User("u1", "alice_b", "u1@example.com");
+        assertTrue(get((StoreCallback<Boolean> callback) -> users.updateProfile(renamed, "Alice", callback)));
+        assertEquals("alice_b", get((StoreCallback<UserCard> callback) -> users.getUserCard("u1", callback)).getUsername());
+        assertNull(get((StoreCallback<String> callback) -> users.getUsernameOwner("alice", callback)));
+        assertTrue(get((StoreCallback<Boolean> callback) -> users.createProfile(second, true, callback)));
+        assertEquals("u2", get((StoreCallback<String> callback) -> users.getUsernameOwner("ALICE", callback)));
+
+        assertFalse(get((StoreCallback<Boolean> callback) -> users.reserveUsername("u1", "alice", callback)));
+        assertTrue(get((StoreCallback<Boolean> callback) -> users.reserveUsername("u1", "alice_b", callback)));
+    }
+
+    private static final class IgnoringCallback<T> implements StoreCallback<T> {
+        @Override
+        public void onSuccess(T result) {
+        }
+
+        @Override
+        public void onError(String message) {
+            throw new AssertionError(message);
+        }
+    }
+}
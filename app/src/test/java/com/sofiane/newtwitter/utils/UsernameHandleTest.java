@@ -0,0 +1,48 @@
+package com.sofiane.newtwitter.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests de UsernameHandle : handle affiché, clé de réservation et validation.
+ */
+public class UsernameHandleTest {
+
+    @Test
+    public void formatLowercasesAndRemovesWhitespace() {
+        assertEquals("@jeandupont", UsernameHandle.format("Jean Dupont"));
+        assertEquals("@jean_dupont", UsernameHandle.format(" Jean_Dupont\t"));
+        assertEquals("@", UsernameHandle.format(null));
+    }
+
+    @Test
+    public void normalizeStripsAccents() {
+        assertEquals("elodie", UsernameHandle.normalize("Élodie"));
+        assertEquals(UsernameHandle.normalize("elodie"), UsernameHandle.normalize("É lodie"));
+        // Le handle affiché garde les accents
+        assertEquals("élodie", UsernameHandle.of("Élodie"));
+    }
+
+    @Test
+    public void isValidChecksLengthAndCharacters() {
+        assertTrue(UsernameHandle.isValid("Jean Dupont"));
+        assertTrue(UsernameHandle.isValid("abc"));
+        assertTrue(UsernameHandle.isValid("user_42"));
+        assertFalse(UsernameHandle.isValid(null));
+        assertFalse(UsernameHandle.isValid("ab"));
+        assertFalse(UsernameHandle.isValid("a b"));
+        assertFalse(UsernameHandle.isValid("abcdefghijklmnopqrstuvwxyz01234"));
+    }
+
+    @Test
+    public void isValidRejectsCharactersForbiddenInDatabaseKeys() {
+        assertFalse(UsernameHandle.isValid("jean.dupont"));
+        assertFalse(UsernameHandle.isValid("jean#1"));
+        assertFalse(UsernameHandle.isValid("jean/dupont"));
+        assertFalse(UsernameHandle.isValid("jean$"));
+        assertFalse(UsernameHandle.isValid("[jean]"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.sofiane.newtwitter.viewmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.sofiane.newtwitter.repository.Stores;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * FollowViewModel sur des stores en mémoire injectés par StoreViewModelFactory, sans Firebase.
+ */
+public class FollowViewModelTest {
+    @Rule
+    public final InstantTaskExecutorRule instantTaskExecutor = new InstantTaskExecutorRule();
+
+    private final Stores stores = Stores.inMemory(Runnable::run);
+
+    private FollowViewModel viewModelFor(String currentUserId) {
+        return new StoreViewModelFactory(stores, currentUserId).create(FollowViewModel.class);
+    }
+
+    @Test
+    public void followUpdatesStatusAndCounts() {
+        FollowViewModel viewModel = viewModelFor("alice");
+
+        viewModel.followUser("bob");
+        assertTrue(viewModel.getFollowStatus().getValue());
+        assertEquals(1, (int) viewModel.getFollowersCount().getValue());
+
+        viewModel.loadFollowCounts("alice");
+        assertEquals(1, (int) viewModel.getFollowingCount().getValue());
+
+        viewModel.unfollowUser("bob");
+        assertFalse(viewModel.getFollowStatus().getValue());
+        viewModel.loadFollowCounts("bob");
+        assertEquals(0, (int) viewModel.getFollowersCount().getValue());
+    }
+
+    @Test
+    public void statusIsSharedThroughTheStore() {
+        viewModelFor("alice").followUser("bob");
+
+        FollowViewModel other = viewModelFor("alice");
+        other.checkFollowStatus("bob");
+        assertTrue(other.getFollowStatus().getValue());
+    }
+
+    @Test
+    public void redundantFollowAndSelfFollowReportErrors() {
+        FollowViewModel viewModel = viewModelFor("alice");
+        viewModel.followUser("bob");
+        viewModel.followUser("bob");
+        assertNotNull(viewModel.getErrorMessage().getValue());
+
+        FollowViewModel self = viewModelFor("carol");
+        self.followUser("carol");
+        assertNotNull(self.getErrorMessage().getValue());
+        self.loadFollowCounts("carol");
+        assertEquals(0, (int) self.getFollowingCount().getValue());
+    }
+
+    @Test
+    public void signedOutUserCannotFollow() {
+        FollowViewModel viewModel = viewModelFor(null);
+        viewModel.followUser("bob");
+        assertNotNull(viewModel.getErrorMessage().getValue());
+        viewModel.loadFollowCounts("bob");
+        assertEquals(0, (int) viewModel.getFollowersCount().getValue());
+    }
+}
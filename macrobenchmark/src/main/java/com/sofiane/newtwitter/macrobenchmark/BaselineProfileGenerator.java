@@ -0,0 +1,44 @@
+package com.sofiane.newtwitter.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.UiDevice;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Génère le profil de référence de :app à partir des parcours mesurés : démarrage jusqu'au fil,
+ * puis défilement. Nécessite un appareil sous Android 13+ (ou rooté sous Android 9+).
+ * ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ *     -Pandroid.testInstrumentationRunnerArguments.class=com.sofiane.newtwitter.macrobenchmark.BaselineProfileGenerator
+ * puis ./gradlew :macrobenchmark:copyBaselineProfile pour l'installer dans app/src/main/baseline-prof.txt.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public final BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Before
+    public void setUp() throws Exception {
+        EmulatorFixture.seed();
+        EmulatorFixture.signIn(UiDevice.getInstance(InstrumentationRegistry.getInstrumentation()));
+    }
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(EmulatorFixture.PACKAGE_NAME, scope -> {
+            scope.pressHome();
+            scope.startActivityAndWait(StartupBenchmark.mainActivityIntent());
+            EmulatorFixture.waitForFeed(scope.getDevice());
+            FeedScrollBenchmark.scrollFeed(scope.getDevice());
+            return Unit.INSTANCE;
+        });
+    }
+}
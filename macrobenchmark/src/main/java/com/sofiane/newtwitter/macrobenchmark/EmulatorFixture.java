@@ -0,0 +1,240 @@
+package com.sofiane.newtwitter.macrobenchmark;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Jeu de données fixe des parcours Macrobenchmark, écrit dans les émulateurs Firebase
+ * (firebase emulators:start --only auth,database) par leur API REST.
+ * Les clés, dates et contenus sont constants : chaque exécution mesure le même fil.
+ * Le format des posts et des utilisateurs est celui de PostCodec et UserCodec.
+ */
+final class EmulatorFixture {
+    static final String PACKAGE_NAME = "com.sofiane.newtwitter";
+    static final String EMAIL = "benchmark@newtwitter.test";
+    static final String PASSWORD = "benchmark-password";
+
+    private static final int AUTH_PORT = 9099;
+    private static final int DATABASE_PORT = 9000;
+    private static final String DATABASE_NAMESPACE = "newtwitter-65ad1-default-rtdb";
+    // L'émulateur d'authentification accepte n'importe quelle clé d'API
+    private static final String API_KEY = "benchmark-api-key";
+
+    private static final int AUTHORS = 25;
+    private static final int POSTS = 600;
+    private static final int WRITE_BATCH = 200;
+    private static final long BASE_TIME = 1700000000000L;
+    private static final int HTTP_TIMEOUT_MS = 10_000;
+    private static final long UI_TIMEOUT_MS = 15_000;
+    private static final String TEXT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod "
+            + "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud "
+            + "exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat.";
+
+    private static boolean seeded;
+
+    private EmulatorFixture() {
+    }
+
+    /**
+     * Crée le compte de benchmark et écrit le jeu de données, une fois par processus de test.
+     * Les écritures sont idempotentes : relancer les parcours ne change pas les données.
+     */
+    static synchronized void seed() throws IOException, JSONException {
+        if (seeded) {
+            return;
+        }
+        String userId = createAccount();
+
+        JSONObject batch = new JSONObject();
+        batch.put("users/" + userId, user(userId, "benchmark", 0));
+        for (int i = 0; i < AUTHORS; i++) {
+            batch.put("users/" + authorId(i), user(authorId(i), authorName(i), i));
+        }
+        for (int i = 0; i < POSTS; i++) {
+            batch.put("posts/" + postId(i), post(i));
+            if (batch.length() == WRITE_BATCH) {
+                update(batch);
+                batch = new JSONObject();
+            }
+        }
+        if (batch.length() > 0) {
+            update(batch);
+        }
+        seeded = true;
+    }
+
+    /**
+     * Ouvre le fil d'accueil avec le compte de benchmark : passe par l'écran de connexion
+     * si aucune session n'est enregistrée, puis revient à l'écran d'accueil du téléphone.
+     */
+    static void signIn(UiDevice device) throws IOException {
+        device.executeShellCommand("am start -W -n " + PACKAGE_NAME + "/.MainActivity");
+        Pattern screens = Pattern.compile(PACKAGE_NAME + ":id/(emailEditText|postsRecyclerView)");
+        UiObject2 screen = device.wait(Until.findObject(By.res(screens)), UI_TIMEOUT_MS);
+        if (screen == null) {
+            throw new IllegalStateException("Neither the login screen nor the feed appeared");
+        }
+        if (screen.getResourceName().endsWith("emailEditText")) {
+            screen.setText(EMAIL);
+            device.findObject(By.res(PACKAGE_NAME, "passwordEditText")).setText(PASSWORD);
+            device.findObject(By.res(PACKAGE_NAME, "loginButton")).click();
+        }
+        waitForFeed(device);
+        device.pressHome();
+    }
+
+    /**
+     * Attend l'affichage des premiers posts du fil.
+     */
+    static void waitForFeed(UiDevice device) {
+        if (!device.wait(Until.hasObject(By.res(PACKAGE_NAME, "contentTextView")), UI_TIMEOUT_MS)) {
+            throw new IllegalStateException("The home feed did not show any post");
+        }
+    }
+
+    private static String createAccount() throws IOException, JSONException {
+        JSONObject credentials = new JSONObject();
+        credentials.put("email", EMAIL);
+        credentials.put("password", PASSWORD);
+        credentials.put("returnSecureToken", true);
+        try {
+            return post(authUrl("accounts:signUp"), credentials, null).getString("localId");
+        } catch (IOException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("EMAIL_EXISTS")) {
+                throw e;
+            }
+            return post(authUrl("accounts:signInWithPassword"), credentials, null).getString("localId");
+        }
+    }
+
+    private static void update(JSONObject batch) throws IOException, JSONException {
+        // HttpURLConnection ne connaît pas PATCH : la base accepte la surcharge de méthode
+        post(databaseUrl(), batch, "PATCH");
+    }
+
+    private static JSONObject user(String userId, String username, int i) throws JSONException {
+        JSONObject user = new JSONObject();
+        user.put("userId", userId);
+        user.put("id", userId);
+        user.put("username", username);
+        user.put("email", userId + "@newtwitter.test");
+        user.put("bio", "Benchmark account " + i);
+        user.put("createdAt", BASE_TIME);
+        user.put("followersCount", 0);
+        user.put("followingCount", 0);
+        user.put("profileIconIndex", i % 8);
+        user.put("profileColorIndex", i % 6);
+        return user;
+    }
+
+    private static JSONObject post(int i) throws JSONException {
+        int author = i % AUTHORS;
+        JSONObject post = new JSONObject();
+        post.put("id", postId(i));
+        post.put("userId", authorId(author));
+        post.put("username", authorName(author));
+        post.put("content", "Post " + i + " " + TEXT.substring(0, (i * 37) % TEXT.length()));
+        JSONObject createdAt = new JSONObject();
+        createdAt.put("time", BASE_TIME - i * 60_000L);
+        post.put("createdAt", createdAt);
+        post.put("likeCount", i % 17);
+        post.put("commentCount", i % 5);
+        post.put("retweetCount", i % 3);
+        boolean reply = i % 8 == 7;
+        boolean retweet = !reply && i % 13 == 12 && i + 1 < POSTS;
+        if (reply) {
+            post.put("parentId", postId(i + 1 < POSTS ? i + 1 : 0));
+            post.put("parentUsername", authorName((i + 1) % AUTHORS));
+        }
+        if (retweet) {
+            post.put("originalPostId", postId(i + 1));
+            post.put("originalUserId", authorId((i + 1) % AUTHORS));
+            post.put("originalUsername", authorName((i + 1) % AUTHORS));
+        }
+        post.put("reply", reply);
+        post.put("retweet", retweet);
+        return post;
+    }
+
+    private static String postId(int i) {
+        return String.format(Locale.US, "bench-post-%04d", i);
+    }
+
+    private static String authorId(int i) {
+        return String.format(Locale.US, "bench-user-%02d", i);
+    }
+
+    private static String authorName(int i) {
+        return "Author " + i;
+    }
+
+    private static String host() {
+        return InstrumentationRegistry.getArguments().getString("firebaseEmulatorHost", "10.0.2.2");
+    }
+
+    private static String authUrl(String method) {
+        return "http://" + host() + ":" + AUTH_PORT + "/identitytoolkit.googleapis.com/v1/" + method + "?key=" + API_KEY;
+    }
+
+    private static String databaseUrl() {
+        return "http://" + host() + ":" + DATABASE_PORT + "/.json?ns=" + DATABASE_NAMESPACE;
+    }
+
+    private static JSONObject post(String url, JSONObject body, String methodOverride) throws IOException, JSONException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(HTTP_TIMEOUT_MS);
+            connection.setReadTimeout(HTTP_TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            if (methodOverride != null) {
+                connection.setRequestProperty("X-HTTP-Method-Override", methodOverride);
+                // Jeton administrateur de l'émulateur : les règles de sécurité ne s'appliquent pas
+                connection.setRequestProperty("Authorization", "Bearer owner");
+            }
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            int status = connection.getResponseCode();
+            String response = read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            if (status >= 400) {
+                throw new IOException("HTTP " + status + " from " + url + ": " + response);
+            }
+            return new JSONObject(response);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
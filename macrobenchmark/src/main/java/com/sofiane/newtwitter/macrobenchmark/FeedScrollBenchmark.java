@@ -0,0 +1,92 @@
+package com.sofiane.newtwitter.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Temps de rendu des frames pendant le défilement du fil d'accueil (jeu de données d'EmulatorFixture).
+ * Le fil est ouvert et chargé avant la mesure ; seuls les gestes de défilement sont mesurés.
+ */
+@RunWith(Parameterized.class)
+public class FeedScrollBenchmark {
+    private static final int ITERATIONS = 5;
+    private static final int FLINGS = 6;
+
+    @Rule
+    public final MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    private final CompilationMode compilationMode;
+
+    public FeedScrollBenchmark(String name, CompilationMode compilationMode) {
+        this.compilationMode = compilationMode;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> compilationModes() {
+        return Arrays.asList(
+                new Object[]{"none", new CompilationMode.None()},
+                new Object[]{"baselineProfile", new CompilationMode.Partial(BaselineProfileMode.Require)});
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        EmulatorFixture.seed();
+        EmulatorFixture.signIn(UiDevice.getInstance(InstrumentationRegistry.getInstrumentation()));
+    }
+
+    @Test
+    public void scrollFeed() {
+        benchmarkRule.measureRepeated(
+                EmulatorFixture.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                compilationMode,
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    scope.startActivityAndWait(StartupBenchmark.mainActivityIntent());
+                    EmulatorFixture.waitForFeed(scope.getDevice());
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scrollFeed(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+
+    /**
+     * Fait défiler le fil vers le bas puis vers le haut ; partagé avec BaselineProfileGenerator.
+     */
+    static void scrollFeed(UiDevice device) {
+        UiObject2 feed = device.findObject(By.res(EmulatorFixture.PACKAGE_NAME, "postsRecyclerView"));
+        // Marge pour ne pas déclencher la navigation par gestes du système
+        feed.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < FLINGS; i++) {
+            feed.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        for (int i = 0; i < FLINGS; i++) {
+            feed.fling(Direction.UP);
+            device.waitForIdle();
+        }
+    }
+}
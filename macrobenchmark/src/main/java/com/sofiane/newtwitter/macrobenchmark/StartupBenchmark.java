@@ -0,0 +1,91 @@
+package com.sofiane.newtwitter.macrobenchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.UiDevice;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Démarrage à froid et à chaud de MainActivity jusqu'à l'affichage du fil d'accueil :
+ * vérification de l'authentification, navigation, puis chargement des posts par HomeFragment.
+ * Chaque parcours est mesuré sans compilation préalable et avec le profil de référence.
+ * Lancer les émulateurs avant : firebase emulators:start --only auth,database
+ */
+@RunWith(Parameterized.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public final MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    private final CompilationMode compilationMode;
+
+    public StartupBenchmark(String name, CompilationMode compilationMode) {
+        this.compilationMode = compilationMode;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> compilationModes() {
+        return Arrays.asList(
+                new Object[]{"none", new CompilationMode.None()},
+                new Object[]{"baselineProfile", new CompilationMode.Partial(BaselineProfileMode.Require)});
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        EmulatorFixture.seed();
+        EmulatorFixture.signIn(UiDevice.getInstance(InstrumentationRegistry.getInstrumentation()));
+    }
+
+    @Test
+    public void coldStartup() {
+        startup(StartupMode.COLD);
+    }
+
+    @Test
+    public void warmStartup() {
+        startup(StartupMode.WARM);
+    }
+
+    private void startup(StartupMode startupMode) {
+        benchmarkRule.measureRepeated(
+                EmulatorFixture.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait(mainActivityIntent());
+                    EmulatorFixture.waitForFeed(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+
+    static Intent mainActivityIntent() {
+        Intent intent = new Intent();
+        intent.setClassName(EmulatorFixture.PACKAGE_NAME, EmulatorFixture.PACKAGE_NAME + ".MainActivity");
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        return intent;
+    }
+}